@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.EntityModelGenerator;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.GeneratedEntityModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the {@link EntityFinder} needs to scan a package for
+ * entities. The scanned classpath contains {@code classpathSize} entities and
+ * the same number of plain classes.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EntityFinderBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    private int classpathSize;
+
+    private GeneratedEntityModel model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final EntityModelGenerator generator = new EntityModelGenerator();
+        generator.setEntityCount(classpathSize);
+        generator.setPlainClassCount(classpathSize);
+        model = generator.generate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        model.close();
+    }
+
+    @Benchmark
+    public Set<Class<?>> scan() {
+        Thread.currentThread().setContextClassLoader(model.getClassLoader());
+
+        return EntityFinder
+            .forPackage(model.getClassLoader(), model.getPackageName())
+            .findEntities();
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.EntityModelGenerator;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.GeneratedEntityModel;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link SchemaExport} for a single dialect, using the same
+ * settings as the {@code gen-ddl} goal (formatted output, {@code ;} as
+ * delimiter, script file only). The {@link Configuration} is bound once per
+ * trial, therefore only the rendering of the statements and the writing of
+ * the script file is measured.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SchemaExportBenchmark {
+
+    @Param({"H2", "MYSQL5", "ORACLE10G", "POSTGRESQL9"})
+    private Dialect dialect;
+
+    @Param({"10", "100", "1000", "5000"})
+    private int entities;
+
+    private GeneratedEntityModel model;
+
+    private Configuration configuration;
+
+    private Path outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ClassNotFoundException {
+        final EntityModelGenerator generator = new EntityModelGenerator();
+        generator.setEntityCount(entities);
+        model = generator.generate();
+        Thread.currentThread().setContextClassLoader(model.getClassLoader());
+
+        configuration = new Configuration();
+        configuration.setProperty("hibernate.dialect",
+                                  dialect.getDialectClass());
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create");
+        for (final Class<?> entityClass : model.loadEntityClasses()) {
+            configuration.addAnnotatedClass(entityClass);
+        }
+        configuration.buildMappings();
+
+        outputFile = Files.createTempFile("hibernate4-ddl-bench", ".sql");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(outputFile);
+        model.close();
+    }
+
+    @Benchmark
+    public SchemaExport export() {
+        final SchemaExport export = new SchemaExport(configuration);
+        export.setDelimiter(";");
+        export.setOutputFile(outputFile.toString());
+        export.setFormat(true);
+        export.execute(false, false, false, true);
+
+        return export;
+    }
+
+}
@@ -0,0 +1,784 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Base class of the goals generating the DDL files, the {@code gen-ddl} goal
+ * ({@link GenerateDdlMojo}) and the {@code watch} goal
+ * ({@link WatchDdlMojo}). Contains the parameters of the generation, which
+ * are converted into {@link DdlOptions} by {@link #createOptions()},
+ * therefore both goals create the same files.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@SuppressWarnings({"PMD.GodClass",
+                   "PMD.TooManyFields",
+                   "PMD.LongVariable"})
+public abstract class AbstractDdlMojo extends AbstractMojo {
+
+    /**
+     * Location of the output file.
+     */
+    @Parameter(defaultValue
+                   = "${project.build.directory}/generated-resources/sql/ddl/auto",
+               property = "outputDir",
+               required = true)
+    private File outputDirectory;
+
+    /**
+     * Packages containing the entity files for which the SQL DDL scripts shall
+     * be generated.
+     */
+    @Parameter(required = true)
+    private String[] packages;
+
+    /**
+     * Database dialects for which create scripts shall be generated. For
+     * available dialects refer to the documentation the {@link Dialect}
+     * enumeration.
+     */
+    @Parameter(required = true)
+    private String[] dialects;
+
+    /**
+     * Set this to <code>true</code> if you use the Envers feature of Hibernate.
+     * When set to <code>true</code> the {@code SchemaExport} implementation for
+     * Envers is used. This is necessary to create the additional tables
+     * required by Envers. Default value is {@code false}.
+     */
+    @Parameter(required = false)
+    private boolean useEnvers;
+
+    /**
+     * Set this to {@code true} to add indexes for the revision columns to
+     * the audit tables created by Envers: an index for the id columns and
+     * the revision column (if the primary key doesn't start with these
+     * columns), an index for the id columns and the revision end column and
+     * an index for the revision end timestamp column. The last two indexes
+     * are only created if the validity audit strategy adds these columns.
+     * The names of the columns and tables are taken from the Envers
+     * properties in the {@code persistence.xml}. Only has an effect if
+     * {@link #useEnvers} is enabled.
+     */
+    @Parameter(defaultValue = "false",
+               property = "auditTableIndexes",
+               required = false)
+    private boolean auditTableIndexes;
+
+    /**
+     * Set this to {@code true} to include drop statements into the generated
+     * DDL file.
+     */
+    @Parameter(required = false)
+    private boolean createDropStatments;
+
+    /**
+     * Set this to {@code false} to skip writing the schema snapshots. By
+     * default a compact model of the generated schema is written next to
+     * each DDL file ({@code <dialect>.snapshot}). The snapshots are used by
+     * the {@code diff} goal for creating migration scripts.
+     */
+    @Parameter(defaultValue = "true",
+               property = "writeSnapshots",
+               required = false)
+    private boolean writeSnapshots = true;
+
+    /**
+     * Dialects for which the statements of the suggested indexes (see
+     * {@link #suggestIndexes}) are rewritten into variants which do not lock
+     * the tables while they are executed, for example
+     * {@code create index concurrently} for PostgreSQL. The DDL file itself
+     * creates a new schema and is never rewritten, use the {@code diff} goal
+     * for online migration scripts. Supported are the PostgreSQL, MySQL and
+     * Oracle dialects. Empty by default.
+     */
+    @Parameter(required = false)
+    private String[] onlineDdlDialects = new String[]{};
+
+    /**
+     * Dialects for which a test profile of the schema is written to
+     * {@code <dialect>.test.sql} in addition to the complete script. The
+     * test profile leaves out the foreign keys, check constraints and non
+     * unique indexes and creates memory tables, which makes creating the
+     * schema for tests using an embedded database much faster. Supported
+     * are the H2 and HSQLDB dialects. Empty by default.
+     */
+    @Parameter(required = false)
+    private String[] testProfileDialects = new String[]{};
+
+    /**
+     * Schemas of the tenants for a deployment with one schema per tenant.
+     * If schemas are set, the DDL for each dialect is additionally exported
+     * once using the placeholder {@code __tenant__} as default schema to
+     * the template {@code <dialect>.tenant-template.sql}, which is expanded
+     * into the scripts for the tenants by replacing the placeholder with the
+     * name of the schema, quoted if necessary. The DDL file itself does not
+     * contain the placeholder. Tables with an explicit schema are not
+     * changed. Empty by default.
+     */
+    @Parameter(required = false)
+    private String[] tenantSchemas = new String[]{};
+
+    /**
+     * Set this to {@code true} to write the scripts for all
+     * {@link #tenantSchemas} into one file {@code <dialect>.tenants.sql}
+     * instead of one file per tenant in {@code <dialect>/tenants/}.
+     */
+    @Parameter(defaultValue = "false",
+               property = "combineTenantScripts",
+               required = false)
+    private boolean combineTenantScripts;
+
+    /**
+     * Set this to {@code true} to additionally write the statements of each
+     * dialect into one file per phase: {@code 01-schema.sql} (schemas and
+     * sequences), {@code 02-tables.sql}, {@code 03-data.sql} (hook for
+     * loading data), {@code 04-constraints.sql} and {@code 05-indexes.sql}.
+     * The files are written to a directory named like the dialect. If drop
+     * statements are enabled they are written to {@code 00-drop.sql}.
+     */
+    @Parameter(defaultValue = "false",
+               property = "splitPhases",
+               required = false)
+    private boolean splitPhases;
+
+    /**
+     * Script which is copied into the {@code 03-data.sql} file if
+     * {@link #splitPhases} is enabled, for example a script loading data
+     * from CSV files. If not set the file only contains a comment.
+     */
+    @Parameter(property = "dataLoadScript", required = false)
+    private File dataLoadScript;
+
+    /**
+     * Set this to {@code true} to additionally write the statements of each
+     * dialect ordered into layers based on the foreign keys between the
+     * tables ({@code <dialect>.layers.sql}). The statements for different
+     * tables in the same layer can be executed concurrently.
+     */
+    @Parameter(defaultValue = "false",
+               property = "writeLayers",
+               required = false)
+    private boolean writeLayers;
+
+    /**
+     * Set this to {@code true} to create an index for each foreign key whose
+     * columns are not already the leading columns of the primary key, a
+     * unique key or another index. Hibernate creates no indexes for foreign
+     * keys, and most databases, for example PostgreSQL and Oracle, don't
+     * create them automatically. The names of the indexes are derived from
+     * the table and the columns ({@code IDX_<hash>}).
+     */
+    @Parameter(defaultValue = "false",
+               property = "foreignKeyIndexes",
+               required = false)
+    private boolean foreignKeyIndexes;
+
+    /**
+     * Entities and tables for which no indexes are created for the foreign
+     * keys if {@link #foreignKeyIndexes} is enabled. Entities can be
+     * specified using the simple or the fully qualified class name. The join
+     * tables of the collections of an excluded entity are excluded too.
+     */
+    @Parameter(required = false)
+    private String[] foreignKeyIndexExcludes = new String[]{};
+
+    /**
+     * Set this to {@code true} to analyse the named JPQL and HQL queries of
+     * the entities and to write indexes supporting their {@code where},
+     * {@code join} and {@code order by} clauses to
+     * {@code <dialect>.index-suggestions.sql}. The queries served by each
+     * index are listed in {@code <dialect>.index-suggestions.txt}. The
+     * suggestions are not added to the DDL file and should be reviewed.
+     */
+    @Parameter(defaultValue = "false",
+               property = "suggestIndexes",
+               required = false)
+    private boolean suggestIndexes;
+
+    /**
+     * Set this to {@code true} to check the mapping of the entities for
+     * choices which hurt the performance at runtime, for example eagerly
+     * fetched collections, lists without an order column, deep
+     * {@code JOINED} hierarchies, eagerly loaded LOBs and bidirectional
+     * associations without {@code mappedBy}. Additional rules can be
+     * provided by implementations of {@link MappingRule} registered as
+     * service on the classpath of the project.
+     */
+    @Parameter(defaultValue = "false",
+               property = "lint",
+               required = false)
+    private boolean lint;
+
+    /**
+     * Overrides the severities of the lint rules. The keys are the ids of
+     * the rules, the values are {@code info}, {@code warning}, {@code error}
+     * or {@code off} to disable a rule.
+     */
+    @Parameter(required = false)
+    private Map<String, String> lintSeverities = new HashMap<>();
+
+    /**
+     * Severity from which on lint issues fail the build: {@code info},
+     * {@code warning}, {@code error} (default) or {@code none} for never
+     * failing.
+     */
+    @Parameter(defaultValue = "error",
+               property = "lintFailOn",
+               required = false)
+    private String lintFailOn = "error";
+
+    /**
+     * Directory to which the lint report is written as JSON
+     * ({@code lint-report.json}) and as HTML ({@code lint-report.html}).
+     */
+    @Parameter(
+        defaultValue = "${project.build.directory}/hibernate4-ddl-lint",
+        property = "lintReportDirectory",
+        required = false)
+    private File lintReportDirectory;
+
+    /**
+     * Set this to {@code true} to report the id generator of each entity to
+     * {@code <dialect>.id-generators.txt}. Entities with {@code IDENTITY}
+     * ids (which disable JDBC insert batching), table generators, sequences
+     * providing one id per round trip and sequences shared by several
+     * entities are logged as warnings.
+     */
+    @Parameter(defaultValue = "false",
+               property = "auditIdGenerators",
+               required = false)
+    private boolean auditIdGenerators;
+
+    /**
+     * Number of values of each sequence cached by the database. If greater
+     * than {@code 0} a {@code cache} clause is added to the
+     * {@code create sequence} statements for Oracle, DB2, PostgreSQL, H2 and
+     * SQL Server 2012.
+     */
+    @Parameter(defaultValue = "0",
+               property = "sequenceCache",
+               required = false)
+    private int sequenceCache;
+
+    /**
+     * Set this to {@code true} to create the sequences with {@code noorder}
+     * for Oracle and DB2.
+     */
+    @Parameter(defaultValue = "false",
+               property = "sequenceNoOrder",
+               required = false)
+    private boolean sequenceNoOrder;
+
+    /**
+     * Set this to {@code true} to reorder the columns of the tables for
+     * PostgreSQL to reduce the alignment padding: the columns of the primary
+     * key first, then the fixed width columns from the widest to the
+     * narrowest alignment and then the variable length columns. The
+     * estimated bytes saved per row are written to
+     * {@code <dialect>.column-order.txt}. Ignored for other dialects.
+     */
+    @Parameter(defaultValue = "false",
+               property = "alignColumns",
+               required = false)
+    private boolean alignColumns;
+
+    /**
+     * Partitioning of tables for PostgreSQL (version 11 or newer), MySQL and
+     * Oracle. The keys are the names of entities (simple or fully qualified
+     * class name or JPA entity name) or tables, the values are the
+     * partitioning: {@code range(<column>): <bound>, ..., maxvalue},
+     * {@code list(<column>): <name>=<value>|<value>, ..., default} or
+     * {@code hash(<column>): <count>}. The partition column is added to the
+     * primary key and the unique keys where the database requires it.
+     */
+    @Parameter(required = false)
+    private Map<String, String> partitioning = new HashMap<>();
+
+    /**
+     * Storage options of tables for PostgreSQL, MySQL and Oracle. The names
+     * of the properties are the names of entities or tables or patterns for
+     * the names of tables (for example {@code *_AUD}), the values are lists
+     * of options like {@code fillfactor=70, tablespace=audit_data,
+     * toast=external, lob=securefile, lob_compress=medium}. Each dialect uses
+     * the options it supports.
+     */
+    @Parameter(required = false)
+    private Properties storage = new Properties();
+
+    /**
+     * Set this to {@code true} to estimate the minimum, average and maximum
+     * width of the rows of each table and the width of each index key. The
+     * estimates are written to {@code <dialect>.row-widths.txt}, tables and
+     * keys exceeding {@link #maxRowBytes} or {@link #maxIndexKeyBytes} are
+     * logged as warnings.
+     */
+    @Parameter(defaultValue = "false",
+               property = "estimateRowWidths",
+               required = false)
+    private boolean estimateRowWidths;
+
+    /**
+     * Threshold for the estimated maximum width of a row in bytes.
+     */
+    @Parameter(defaultValue = "8000",
+               property = "maxRowBytes",
+               required = false)
+    private int maxRowBytes = 8000;
+
+    /**
+     * Threshold for the estimated width of an index key in bytes. The
+     * default is the limit of InnoDB for the {@code COMPACT} row format.
+     */
+    @Parameter(defaultValue = "767",
+               property = "maxIndexKeyBytes",
+               required = false)
+    private int maxIndexKeyBytes = 767;
+
+    /**
+     * The {@code persistence.xml} file to use to read properties etc. Default
+     * value is {@code src/main/resources/META-INF/persistence.xml}. If the file
+     * is not present it is ignored. If the file is present all properties set
+     * using a {@code <property>} element are set on the Hibernate
+     * configuration.
+     */
+    @Parameter(
+        defaultValue = "${basedir}/src/main/resources/META-INF/persistence.xml",
+        required = false)
+    private File persistenceXml;
+
+    @Component
+    private transient MavenProject project;
+
+    /**
+     * Creates the {@link DdlOptions} from the parameters of the goal. A
+     * {@link #persistenceXml} which does not exist is ignored.
+     *
+     * @return The options.
+     *
+     * @throws MojoFailureException If a parameter is invalid.
+     */
+    protected DdlOptions createOptions() throws MojoFailureException {
+        //Read the dialects from the parameter and convert them to instances of the dialect enum.
+        final Set<Dialect> dialectsList = new LinkedHashSet<>();
+        for (final String dialect : dialects) {
+            convertDialect(dialect, dialectsList);
+        }
+
+        final DdlOptions options = new DdlOptions();
+        options.setOutputDirectory(outputDirectory);
+        options.setPackages(packages);
+        options.setDialects(dialectsList);
+        options.setUseEnvers(useEnvers);
+        options.setAuditTableIndexes(auditTableIndexes);
+        options.setCreateDropStatements(createDropStatments);
+        options.setWriteSnapshots(writeSnapshots);
+        final Set<Dialect> onlineDdlDialectsList = new LinkedHashSet<>();
+        for (final String dialect : onlineDdlDialects) {
+            convertDialect(dialect, onlineDdlDialectsList);
+        }
+        options.setOnlineDdlDialects(onlineDdlDialectsList);
+        final Set<Dialect> testProfileDialectsList = new LinkedHashSet<>();
+        for (final String dialect : testProfileDialects) {
+            convertDialect(dialect, testProfileDialectsList);
+        }
+        options.setTestProfileDialects(testProfileDialectsList);
+        options.setTenantSchemas(Arrays.asList(tenantSchemas));
+        options.setCombineTenantScripts(combineTenantScripts);
+        options.setSplitPhases(splitPhases);
+        options.setDataLoadScript(dataLoadScript);
+        options.setWriteLayers(writeLayers);
+        options.setForeignKeyIndexes(foreignKeyIndexes);
+        options.setForeignKeyIndexExcludes(Arrays.asList(
+            foreignKeyIndexExcludes));
+        options.setSuggestIndexes(suggestIndexes);
+        options.setLint(lint);
+        options.setLintSeverities(lintSeverities);
+        try {
+            options.setLintFailOn(MappingLinter.parseFailOn(lintFailOn));
+        } catch (IllegalArgumentException ex) {
+            throw new MojoFailureException(String.format(
+                "Invalid lintFailOn: %s", ex.getMessage()), ex);
+        }
+        options.setLintReportDirectory(lintReportDirectory);
+        options.setAuditIdGenerators(auditIdGenerators);
+        options.setSequenceCache(sequenceCache);
+        options.setSequenceNoOrder(sequenceNoOrder);
+        options.setAlignColumns(alignColumns);
+        options.setPartitioning(partitioning);
+        final Map<String, String> storageMap = new HashMap<>();
+        for (final String name : storage.stringPropertyNames()) {
+            storageMap.put(name, storage.getProperty(name));
+        }
+        options.setStorage(storageMap);
+        options.setEstimateRowWidths(estimateRowWidths);
+        options.setMaxRowBytes(maxRowBytes);
+        options.setMaxIndexKeyBytes(maxIndexKeyBytes);
+        if (persistenceXml != null && persistenceXml.isFile()) {
+            options.setPersistenceXml(persistenceXml);
+        }
+
+        return options;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(final File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public String[] getPackages() {
+        return Arrays.copyOf(packages, packages.length);
+    }
+
+    public void setPackages(final String... packages) {
+        this.packages = Arrays.copyOf(packages, packages.length);
+    }
+
+    public String[] getDialects() {
+        return Arrays.copyOf(dialects, dialects.length);
+    }
+
+    public void setDialects(final String... dialects) {
+        this.dialects = Arrays.copyOf(dialects, dialects.length);
+    }
+
+    public boolean isUseEnvers() {
+        return useEnvers;
+    }
+
+    public void setUseEnvers(final boolean useEnvers) {
+        this.useEnvers = useEnvers;
+    }
+
+    public boolean isAuditTableIndexes() {
+        return auditTableIndexes;
+    }
+
+    public void setAuditTableIndexes(final boolean auditTableIndexes) {
+        this.auditTableIndexes = auditTableIndexes;
+    }
+
+    public boolean isCreateDropStatments() {
+        return createDropStatments;
+    }
+
+    public void setCreateDropStatements(final boolean createDropStatments) {
+        this.createDropStatments = createDropStatments;
+    }
+
+    public boolean isWriteSnapshots() {
+        return writeSnapshots;
+    }
+
+    public void setWriteSnapshots(final boolean writeSnapshots) {
+        this.writeSnapshots = writeSnapshots;
+    }
+
+    public String[] getOnlineDdlDialects() {
+        return Arrays.copyOf(onlineDdlDialects, onlineDdlDialects.length);
+    }
+
+    public void setOnlineDdlDialects(final String... onlineDdlDialects) {
+        this.onlineDdlDialects = Arrays.copyOf(onlineDdlDialects,
+                                               onlineDdlDialects.length);
+    }
+
+    public String[] getTestProfileDialects() {
+        return Arrays.copyOf(testProfileDialects, testProfileDialects.length);
+    }
+
+    public void setTestProfileDialects(final String... testProfileDialects) {
+        this.testProfileDialects = Arrays.copyOf(testProfileDialects,
+                                                 testProfileDialects.length);
+    }
+
+    public String[] getTenantSchemas() {
+        return Arrays.copyOf(tenantSchemas, tenantSchemas.length);
+    }
+
+    public void setTenantSchemas(final String... tenantSchemas) {
+        this.tenantSchemas = Arrays.copyOf(tenantSchemas,
+                                           tenantSchemas.length);
+    }
+
+    public boolean isCombineTenantScripts() {
+        return combineTenantScripts;
+    }
+
+    public void setCombineTenantScripts(final boolean combineTenantScripts) {
+        this.combineTenantScripts = combineTenantScripts;
+    }
+
+    public boolean isSplitPhases() {
+        return splitPhases;
+    }
+
+    public void setSplitPhases(final boolean splitPhases) {
+        this.splitPhases = splitPhases;
+    }
+
+    public File getDataLoadScript() {
+        return dataLoadScript;
+    }
+
+    public void setDataLoadScript(final File dataLoadScript) {
+        this.dataLoadScript = dataLoadScript;
+    }
+
+    public boolean isWriteLayers() {
+        return writeLayers;
+    }
+
+    public void setWriteLayers(final boolean writeLayers) {
+        this.writeLayers = writeLayers;
+    }
+
+    public boolean isForeignKeyIndexes() {
+        return foreignKeyIndexes;
+    }
+
+    public void setForeignKeyIndexes(final boolean foreignKeyIndexes) {
+        this.foreignKeyIndexes = foreignKeyIndexes;
+    }
+
+    public String[] getForeignKeyIndexExcludes() {
+        return Arrays.copyOf(foreignKeyIndexExcludes,
+                             foreignKeyIndexExcludes.length);
+    }
+
+    public void setForeignKeyIndexExcludes(
+        final String... foreignKeyIndexExcludes) {
+        this.foreignKeyIndexExcludes = Arrays.copyOf(
+            foreignKeyIndexExcludes, foreignKeyIndexExcludes.length);
+    }
+
+    public boolean isSuggestIndexes() {
+        return suggestIndexes;
+    }
+
+    public void setSuggestIndexes(final boolean suggestIndexes) {
+        this.suggestIndexes = suggestIndexes;
+    }
+
+    public boolean isLint() {
+        return lint;
+    }
+
+    public void setLint(final boolean lint) {
+        this.lint = lint;
+    }
+
+    public Map<String, String> getLintSeverities() {
+        return new HashMap<>(lintSeverities);
+    }
+
+    public void setLintSeverities(final Map<String, String> lintSeverities) {
+        this.lintSeverities = new HashMap<>(lintSeverities);
+    }
+
+    public String getLintFailOn() {
+        return lintFailOn;
+    }
+
+    public void setLintFailOn(final String lintFailOn) {
+        this.lintFailOn = lintFailOn;
+    }
+
+    public File getLintReportDirectory() {
+        return lintReportDirectory;
+    }
+
+    public void setLintReportDirectory(final File lintReportDirectory) {
+        this.lintReportDirectory = lintReportDirectory;
+    }
+
+    public boolean isAuditIdGenerators() {
+        return auditIdGenerators;
+    }
+
+    public void setAuditIdGenerators(final boolean auditIdGenerators) {
+        this.auditIdGenerators = auditIdGenerators;
+    }
+
+    public int getSequenceCache() {
+        return sequenceCache;
+    }
+
+    public void setSequenceCache(final int sequenceCache) {
+        this.sequenceCache = sequenceCache;
+    }
+
+    public boolean isSequenceNoOrder() {
+        return sequenceNoOrder;
+    }
+
+    public void setSequenceNoOrder(final boolean sequenceNoOrder) {
+        this.sequenceNoOrder = sequenceNoOrder;
+    }
+
+    public boolean isAlignColumns() {
+        return alignColumns;
+    }
+
+    public void setAlignColumns(final boolean alignColumns) {
+        this.alignColumns = alignColumns;
+    }
+
+    public Map<String, String> getPartitioning() {
+        return new HashMap<>(partitioning);
+    }
+
+    public void setPartitioning(final Map<String, String> partitioning) {
+        this.partitioning = new HashMap<>(partitioning);
+    }
+
+    public Properties getStorage() {
+        final Properties result = new Properties();
+        result.putAll(storage);
+        return result;
+    }
+
+    public void setStorage(final Map<String, String> storage) {
+        this.storage = new Properties();
+        this.storage.putAll(storage);
+    }
+
+    public boolean isEstimateRowWidths() {
+        return estimateRowWidths;
+    }
+
+    public void setEstimateRowWidths(final boolean estimateRowWidths) {
+        this.estimateRowWidths = estimateRowWidths;
+    }
+
+    public int getMaxRowBytes() {
+        return maxRowBytes;
+    }
+
+    public void setMaxRowBytes(final int maxRowBytes) {
+        this.maxRowBytes = maxRowBytes;
+    }
+
+    public int getMaxIndexKeyBytes() {
+        return maxIndexKeyBytes;
+    }
+
+    public void setMaxIndexKeyBytes(final int maxIndexKeyBytes) {
+        this.maxIndexKeyBytes = maxIndexKeyBytes;
+    }
+
+    public File getPersistenceXml() {
+        return persistenceXml;
+    }
+
+    public void setPersistenceXml(final File persistenceXml) {
+        this.persistenceXml = persistenceXml;
+    }
+
+    /**
+     * @return The Maven project, {@code null} if the goal is not executed
+     *         in a Maven project (for example in tests).
+     */
+    protected MavenProject getProject() {
+        return project;
+    }
+
+    /**
+     * Helper method for converting the dialects from {@code String} to
+     * instances of the {@link Dialect} enumeration.
+     *
+     * @param dialect      The dialect to convert.
+     * @param dialectsList The lists of dialects where the converted dialect is
+     *                     stored.
+     *
+     * @throws MojoFailureException If the dialect string could not be
+     *                              converted, for example if it is misspelled.
+     *                              This will cause a {@code Build Failure}
+     */
+    static void convertDialect(final String dialect,
+                               final Set<Dialect> dialectsList)
+        throws MojoFailureException {
+
+        try {
+            dialectsList.add(Dialect
+                .valueOf(dialect.toUpperCase(Locale.ENGLISH)));
+        } catch (IllegalArgumentException ex) {
+            final StringBuffer buffer = new StringBuffer();
+            for (final Dialect avilable : Dialect.values()) {
+                buffer.append(avilable.toString()).append('\n');
+            }
+
+            throw new MojoFailureException(
+                String.format(
+                    "Can't convert the configured dialect '%s' to a dialect classname. "
+                    + "Available dialects are:%n"
+                        + "%s",
+                    dialect,
+                    buffer.toString()),
+                ex);
+        }
+    }
+
+    /**
+     * Helper method for getting the compile classpath of the project.
+     *
+     * @param project The project, may be {@code null}.
+     *
+     * @return The elements of the compile classpath or an empty list if the
+     *         Mojo is not executed in a Maven project (for example in tests).
+     *         In this case the default class loaders are used for finding the
+     *         entities.
+     *
+     * @throws MojoFailureException If the classpath of the project can't be
+     *                              resolved.
+     */
+    static List<String> getClassPathElements(final MavenProject project)
+        throws MojoFailureException {
+        if (project == null) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return project.getCompileClasspathElements();
+        } catch (DependencyResolutionRequiredException ex) {
+            throw new MojoFailureException(
+                "Failed to resolve project classpath.", ex);
+        }
+    }
+
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Goal which executes the DDL generated by the {@code gen-ddl} goal for a
+ * dialect against a database using JDBC, for example to provision a test
+ * environment. If the layer file of the dialect ({@code writeLayers}) exists
+ * and more than one thread is configured, the units of each layer (the
+ * statements for one table or generator) are executed concurrently using a
+ * pool of connections. Otherwise the statements of the DDL file are
+ * executed one after another. The statements are sent in batches if the
+ * JDBC driver supports batch updates.
+ *
+ * The time of each execution (a single statement or a batch) and the total
+ * time are written to a report file, the slowest executions are also logged.
+ * The JDBC driver must be added as dependency of the plugin.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Mojo(name = "apply",
+      threadSafe = true)
+public class ApplyDdlMojo extends AbstractMojo {
+
+    private static final Pattern DROP_STATEMENT = Pattern.compile(
+        "(drop|alter table \\S+ drop)\\s.*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final int SLOWEST_COUNT = 5;
+
+    /**
+     * The directory containing the files generated by the {@code gen-ddl}
+     * goal.
+     */
+    @Parameter(defaultValue
+                   = "${project.build.directory}/generated-resources/sql/ddl/auto",
+               property = "outputDir",
+               required = true)
+    private File outputDirectory;
+
+    /**
+     * The dialect whose DDL is executed. For available dialects refer to the
+     * documentation the {@link Dialect} enumeration.
+     */
+    @Parameter(property = "dialect", required = true)
+    private String dialect;
+
+    /**
+     * The script to execute instead of the DDL file of the dialect. If the
+     * name of the file ends with {@code .layers.sql} the file is read as
+     * layer file.
+     */
+    @Parameter(property = "applyScript", required = false)
+    private File script;
+
+    /**
+     * The JDBC URL of the database.
+     */
+    @Parameter(property = "jdbcUrl", required = true)
+    private String jdbcUrl;
+
+    /**
+     * The user for the connections.
+     */
+    @Parameter(property = "jdbcUser", required = false)
+    private String jdbcUser;
+
+    /**
+     * The password for the connections.
+     */
+    @Parameter(property = "jdbcPassword", required = false)
+    private String jdbcPassword;
+
+    /**
+     * The class of the JDBC driver. Only required for drivers which don't
+     * register themselves using the {@code ServiceLoader} mechanism.
+     */
+    @Parameter(property = "jdbcDriver", required = false)
+    private String jdbcDriver;
+
+    /**
+     * The maximum number of connections used to execute the units of a
+     * layer concurrently. With {@code 1} the DDL file is executed using a
+     * single connection.
+     */
+    @Parameter(defaultValue = "4",
+               property = "applyThreads",
+               required = false)
+    private int threads = 4;
+
+    /**
+     * The maximum number of statements sent in one batch. Set this to
+     * {@code 1} to measure each statement separately.
+     */
+    @Parameter(defaultValue = "50",
+               property = "applyBatchSize",
+               required = false)
+    private int batchSize = 50;
+
+    /**
+     * File to which the timings are written.
+     */
+    @Parameter(
+        defaultValue = "${project.build.directory}/hibernate4-ddl-apply.txt",
+        property = "applyReportFile",
+        required = false)
+    private File reportFile;
+
+    /**
+     * The Mojo's execute method.
+     *
+     * @throws MojoExecutionException if the Mojo can't be executed.
+     * @throws MojoFailureException   if the script can't be read or a
+     *                                statement fails.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final Set<Dialect> dialects = new LinkedHashSet<>();
+        AbstractDdlMojo.convertDialect(dialect, dialects);
+        final String baseName = dialects.iterator().next().name().toLowerCase(
+            Locale.ENGLISH);
+
+        if (jdbcDriver != null && !jdbcDriver.isEmpty()) {
+            try {
+                Class.forName(jdbcDriver);
+            } catch (ClassNotFoundException ex) {
+                throw new MojoExecutionException(String.format(
+                    "JDBC driver %s not found. Add the driver as dependency "
+                        + "of the plugin.",
+                    jdbcDriver),
+                                                 ex);
+            }
+        }
+
+        final File ddlFile = new File(outputDirectory, baseName + ".sql");
+        final File layerFile = new File(outputDirectory,
+                                        baseName + SchemaLayers.FILE_SUFFIX);
+        final List<List<SchemaLayers.Unit>> layers = new ArrayList<>();
+        if (script != null) {
+            if (script.getName().endsWith(SchemaLayers.FILE_SUFFIX)) {
+                layers.addAll(readLayers(script));
+            } else {
+                layers.add(Collections.singletonList(new SchemaLayers.Unit(
+                    script.getName(), readStatements(script))));
+            }
+        } else if (threads > 1 && isCurrent(layerFile, ddlFile)) {
+            //The layer file contains no drop statements, they are executed
+            //before the layers.
+            final List<String> dropStatements = new ArrayList<>();
+            if (ddlFile.isFile()) {
+                for (final String statement : readStatements(ddlFile)) {
+                    if (DROP_STATEMENT.matcher(statement).matches()) {
+                        dropStatements.add(statement);
+                    }
+                }
+            }
+            if (!dropStatements.isEmpty()) {
+                layers.add(Collections.singletonList(new SchemaLayers.Unit(
+                    "drop statements", dropStatements)));
+            }
+            layers.addAll(readLayers(layerFile));
+        } else if (ddlFile.isFile()) {
+            if (threads > 1 && layerFile.isFile()) {
+                getLog().warn(String.format(
+                    "The layer file %s is older than %s, it was probably "
+                        + "written by an earlier run with a different "
+                        + "configuration. Executing %s using a single "
+                        + "connection.",
+                    layerFile.getAbsolutePath(),
+                    ddlFile.getName(),
+                    ddlFile.getName()));
+            } else if (threads > 1) {
+                getLog().info(String.format(
+                    "No layer file %s found, executing %s using a single "
+                        + "connection. Enable writeLayers for the gen-ddl "
+                        + "goal to execute the tables concurrently.",
+                    layerFile.getAbsolutePath(),
+                    ddlFile.getName()));
+            }
+            layers.add(Collections.singletonList(new SchemaLayers.Unit(
+                ddlFile.getName(), readStatements(ddlFile))));
+        } else {
+            throw new MojoFailureException(String.format(
+                "No DDL file %s found. Run the gen-ddl goal before the apply "
+                    + "goal.",
+                ddlFile.getAbsolutePath()));
+        }
+
+        final Properties connectionProperties = new Properties();
+        if (jdbcUser != null) {
+            connectionProperties.setProperty("user", jdbcUser);
+        }
+        if (jdbcPassword != null) {
+            connectionProperties.setProperty("password", jdbcPassword);
+        }
+
+        final ScriptExecutor.Result result;
+        try {
+            result = new ScriptExecutor(jdbcUrl,
+                                        connectionProperties,
+                                        threads,
+                                        batchSize).execute(layers);
+        } catch (IllegalArgumentException ex) {
+            throw new MojoExecutionException(ex.getMessage(), ex);
+        } catch (SQLException ex) {
+            throw new MojoFailureException(ex.getMessage(), ex);
+        }
+
+        getLog().info(String.format(
+            "Executed %d statements for dialect %s in %d ms (%d layers, %d "
+                + "connections, %d executions%s).",
+            result.getStatementCount(),
+            dialects.iterator().next(),
+            result.getTotalNanos() / 1000000,
+            layers.size(),
+            result.getConnectionCount(),
+            result.getTimings().size(),
+            result.isBatched() ? ", batched" : ""));
+        final List<ScriptExecutor.Timing> slowest = new ArrayList<>(
+            result.getTimings());
+        Collections.sort(slowest, new Comparator<ScriptExecutor.Timing>() {
+
+            @Override
+            public int compare(final ScriptExecutor.Timing timing1,
+                               final ScriptExecutor.Timing timing2) {
+                return Long.compare(timing2.getNanos(), timing1.getNanos());
+            }
+
+        });
+        for (final ScriptExecutor.Timing timing : slowest.subList(
+            0, Math.min(SLOWEST_COUNT, slowest.size()))) {
+            getLog().info(String.format(
+                "%8.3f ms  %s (%d statements)",
+                timing.getNanos() / 1e6,
+                timing.getUnit(),
+                timing.getStatements().size()));
+        }
+
+        if (reportFile != null) {
+            try {
+                final File reportDir = reportFile.getAbsoluteFile()
+                    .getParentFile();
+                if (reportDir != null) {
+                    Files.createDirectories(reportDir.toPath());
+                }
+                Files.write(reportFile.toPath(),
+                            result.toReport().getBytes(
+                                Charset.forName("UTF-8")));
+            } catch (IOException ex) {
+                throw new MojoExecutionException(String.format(
+                    "Failed to write apply report %s: %s",
+                    reportFile.getAbsolutePath(),
+                    ex.getMessage()),
+                                                 ex);
+            }
+        }
+    }
+
+    /**
+     * Checks if a layer file exists and belongs to the current DDL file. The
+     * {@code gen-ddl} goal writes the layer file after the DDL file and sets
+     * its modification time to the time of the DDL file if the layers have
+     * not changed, therefore a layer file which is older than the DDL file
+     * is left over from an earlier run.
+     */
+    private static boolean isCurrent(final File layerFile,
+                                     final File ddlFile) {
+        return layerFile.isFile()
+                   && (!ddlFile.isFile()
+                       || layerFile.lastModified() >= ddlFile.lastModified());
+    }
+
+    private static List<String> readStatements(final File file)
+        throws MojoFailureException {
+        try (Reader reader = Files.newBufferedReader(
+            file.toPath(), Charset.forName("UTF-8"))) {
+            return ScriptExecutor.readStatements(reader);
+        } catch (IOException ex) {
+            throw new MojoFailureException(String.format(
+                "Failed to read script %s: %s",
+                file.getAbsolutePath(),
+                ex.getMessage()),
+                                           ex);
+        }
+    }
+
+    private static List<List<SchemaLayers.Unit>> readLayers(final File file)
+        throws MojoFailureException {
+        try (Reader reader = Files.newBufferedReader(
+            file.toPath(), Charset.forName("UTF-8"))) {
+            return SchemaLayers.read(reader).getLayers();
+        } catch (IOException ex) {
+            throw new MojoFailureException(String.format(
+                "Failed to read layer file %s: %s",
+                file.getAbsolutePath(),
+                ex.getMessage()),
+                                           ex);
+        }
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(final File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public String getDialect() {
+        return dialect;
+    }
+
+    public void setDialect(final String dialect) {
+        this.dialect = dialect;
+    }
+
+    public File getScript() {
+        return script;
+    }
+
+    public void setScript(final File script) {
+        this.script = script;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public void setJdbcUrl(final String jdbcUrl) {
+        this.jdbcUrl = jdbcUrl;
+    }
+
+    public String getJdbcUser() {
+        return jdbcUser;
+    }
+
+    public void setJdbcUser(final String jdbcUser) {
+        this.jdbcUser = jdbcUser;
+    }
+
+    public String getJdbcPassword() {
+        return jdbcPassword;
+    }
+
+    public void setJdbcPassword(final String jdbcPassword) {
+        this.jdbcPassword = jdbcPassword;
+    }
+
+    public String getJdbcDriver() {
+        return jdbcDriver;
+    }
+
+    public void setJdbcDriver(final String jdbcDriver) {
+        this.jdbcDriver = jdbcDriver;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public File getReportFile() {
+        return reportFile;
+    }
+
+    public void setReportFile(final File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+}
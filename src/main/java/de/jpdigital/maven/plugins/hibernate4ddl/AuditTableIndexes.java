@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.envers.configuration.EnversSettings;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Constraint;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Adds indexes for the revision columns to the audit tables created by
+ * Envers. Envers only creates the primary key of an audit table, which
+ * consists of the id columns of the audited entity and the revision column.
+ * The validity audit strategy also looks up rows using the id columns and
+ * the revision end column, and queries for the state at a point in time use
+ * the revision end timestamp column. Without indexes these lookups scan the
+ * complete audit table.
+ *
+ * For each audit table the following indexes are added:
+ *
+ * <ul>
+ * <li>An index for the id columns and the revision column, unless the
+ * primary key (or another index) already starts with these columns.</li>
+ * <li>An index for the id columns and the revision end column if the table
+ * has a revision end column (validity audit strategy).</li>
+ * <li>An index for the revision end timestamp column if the table has such a
+ * column.</li>
+ * </ul>
+ *
+ * The audit tables and the revision columns are identified using the Envers
+ * properties of the configuration (for example
+ * {@code org.hibernate.envers.audit_table_suffix} or
+ * {@code org.hibernate.envers.revision_field_name} from the
+ * {@code persistence.xml}). The names of the indexes are {@code IDX_}
+ * followed by the name of the table and the name of the last column of the
+ * index. If this name is longer than 30 characters, the name is derived
+ * from the names of the table and the columns in the same way as Hibernate
+ * derives the names of foreign keys.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class AuditTableIndexes {
+
+    /**
+     * Prefix of the names of the generated indexes.
+     */
+    static final String PREFIX = "IDX_";
+
+    private static final int MAX_NAME_LENGTH = 30;
+
+    private final transient Set<String> indexNames = new TreeSet<>();
+
+    /**
+     * Adds the missing indexes to the audit tables of a configuration. The
+     * method can be called several times for the same configuration,
+     * indexes are only added once.
+     *
+     * @param configuration The configuration. The audit tables must have
+     *                      been added by Envers, which is the case for the
+     *                      second pass compile after the audit mappings have
+     *                      been added.
+     */
+    void addIndexes(final Configuration configuration) {
+        final String tablePrefix = getProperty(
+            configuration, EnversSettings.AUDIT_TABLE_PREFIX, "");
+        final String tableSuffix = getProperty(
+            configuration, EnversSettings.AUDIT_TABLE_SUFFIX, "_AUD");
+        final String revisionName = getProperty(
+            configuration, EnversSettings.REVISION_FIELD_NAME, "REV");
+        final String revisionEndName = getProperty(
+            configuration,
+            EnversSettings.AUDIT_STRATEGY_VALIDITY_END_REV_FIELD_NAME,
+            "REVEND");
+        final String revisionEndTimestampName = getProperty(
+            configuration,
+            EnversSettings.AUDIT_STRATEGY_VALIDITY_REVEND_TIMESTAMP_FIELD_NAME,
+            "REVEND_TSTMP");
+
+        final List<PersistentClass> auditEntities = new ArrayList<>();
+        final Iterator<PersistentClass> classes = configuration
+            .getClassMappings();
+        while (classes.hasNext()) {
+            final PersistentClass entity = classes.next();
+            if (isAuditEntity(configuration,
+                              entity.getEntityName(),
+                              tablePrefix,
+                              tableSuffix)) {
+                auditEntities.add(entity);
+            }
+        }
+
+        for (final PersistentClass entity : auditEntities) {
+            final Table table = entity.getTable();
+            if (!table.isPhysicalTable() || !table.hasPrimaryKey()) {
+                continue;
+            }
+            final Column revision = findColumn(table, revisionName);
+            if (revision == null) {
+                continue;
+            }
+            final List<Column> idColumns = new ArrayList<>();
+            final Iterator<?> primaryKey = table.getPrimaryKey()
+                .getColumnIterator();
+            while (primaryKey.hasNext()) {
+                final Column column = (Column) primaryKey.next();
+                if (!column.equals(revision)) {
+                    idColumns.add(column);
+                }
+            }
+            if (idColumns.isEmpty()) {
+                continue;
+            }
+
+            addIndex(table, idColumns, revision);
+            final Column revisionEnd = findColumn(table, revisionEndName);
+            if (revisionEnd != null) {
+                addIndex(table, idColumns, revisionEnd);
+            }
+            final Column revisionEndTimestamp = findColumn(
+                table, revisionEndTimestampName);
+            if (revisionEndTimestamp != null) {
+                addIndex(table,
+                         Collections.<Column>emptyList(),
+                         revisionEndTimestamp);
+            }
+        }
+    }
+
+    /**
+     * @return The names of the indexes added by this instance.
+     */
+    Set<String> getIndexNames() {
+        return Collections.unmodifiableSet(indexNames);
+    }
+
+    private void addIndex(final Table table,
+                          final List<Column> leadingColumns,
+                          final Column lastColumn) {
+        final List<Column> columns = new ArrayList<>(leadingColumns);
+        columns.add(lastColumn);
+        if (ForeignKeyIndexes.isCovered(table, columns)) {
+            return;
+        }
+
+        String name = String.format("%s%s_%s",
+                                    PREFIX,
+                                    table.getName(),
+                                    lastColumn.getName());
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = Constraint.generateName(PREFIX, table, columns);
+        }
+        final Index index = table.getOrCreateIndex(name);
+        for (final Column column : columns) {
+            index.addColumn(column);
+        }
+        indexNames.add(name);
+    }
+
+    private static boolean isAuditEntity(final Configuration configuration,
+                                         final String entityName,
+                                         final String prefix,
+                                         final String suffix) {
+        if (entityName == null
+                || entityName.length() <= prefix.length() + suffix.length()
+                || !entityName.startsWith(prefix)
+                || !entityName.endsWith(suffix)) {
+            return false;
+        }
+        final String auditedEntityName = entityName.substring(
+            prefix.length(), entityName.length() - suffix.length());
+        return configuration.getClassMapping(auditedEntityName) != null;
+    }
+
+    private static Column findColumn(final Table table, final String name) {
+        final Iterator<?> columns = table.getColumnIterator();
+        while (columns.hasNext()) {
+            final Column column = (Column) columns.next();
+            if (column.getName().equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static String getProperty(final Configuration configuration,
+                                      final String name,
+                                      final String defaultValue) {
+        final String value = configuration.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+}
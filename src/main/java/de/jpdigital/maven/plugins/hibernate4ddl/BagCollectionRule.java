@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Bag;
+import org.hibernate.mapping.Collection;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reports owning collections mapped as bags, which is the case for a
+ * {@code List} without an order column or a {@code Collection}. The rows
+ * of a bag can't be identified, therefore Hibernate deletes all rows of
+ * the collection and inserts them again each time the collection is
+ * changed. Inverse collections ({@code mappedBy}) are not affected.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class BagCollectionRule implements MappingRule {
+
+    @Override
+    public String getId() {
+        return "list-without-order-column";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Owning collections mapped as bags";
+    }
+
+    @Override
+    public LintSeverity getDefaultSeverity() {
+        return LintSeverity.WARNING;
+    }
+
+    @Override
+    public List<MappingIssue> check(final Configuration configuration) {
+        final List<MappingIssue> issues = new ArrayList<>();
+        final Iterator<?> collections = configuration.getCollectionMappings();
+        while (collections.hasNext()) {
+            final Collection collection = (Collection) collections.next();
+            if (collection instanceof Bag && !collection.isInverse()) {
+                issues.add(new MappingIssue(
+                    collection.getOwnerEntityName(),
+                    MappingLinter.getPropertyName(collection),
+                    "The collection is mapped as a bag. Each change deletes "
+                        + "all rows of the collection and inserts them "
+                        + "again. Use a Set or add an @OrderColumn."));
+            }
+        }
+        return issues;
+    }
+
+}
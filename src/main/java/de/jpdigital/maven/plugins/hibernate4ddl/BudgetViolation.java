@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.Locale;
+
+/**
+ * Describes a performance budget which was exceeded during the DDL
+ * generation. Created by {@link PerformanceBudget#check(GenerationReport)}.
+ * The violation reports the measured total against the limit of the budget.
+ * If a budget covers several phases the phase with the largest value is
+ * listed separately.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class BudgetViolation {
+
+    private final String budget;
+    private final Dialect dialect;
+    private final long limit;
+    private final long actual;
+    private final String unit;
+    private String largestPhase;
+    private long largestPhaseActual;
+
+    /**
+     * Creates a new violation.
+     *
+     * @param budget  The name of the budget (the name of the parameter).
+     * @param dialect The dialect or {@code null}.
+     * @param limit   The limit set by the budget.
+     * @param actual  The measured total of all phases covered by the budget.
+     * @param unit    The unit of {@code limit} and {@code actual}.
+     */
+    BudgetViolation(final String budget,
+                    final Dialect dialect,
+                    final long limit,
+                    final long actual,
+                    final String unit) {
+        this.budget = budget;
+        this.dialect = dialect;
+        this.limit = limit;
+        this.actual = actual;
+        this.unit = unit;
+    }
+
+    public String getBudget() {
+        return budget;
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getActual() {
+        return actual;
+    }
+
+    public long getExceededBy() {
+        return actual - limit;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return The label of the phase with the largest value if the budget
+     *         covers several phases, {@code null} otherwise.
+     */
+    public String getLargestPhase() {
+        return largestPhase;
+    }
+
+    /**
+     * @return The value measured for {@link #getLargestPhase()}.
+     */
+    public long getLargestPhaseActual() {
+        return largestPhaseActual;
+    }
+
+    /**
+     * Sets the phase with the largest value of the phases covered by the
+     * budget.
+     *
+     * @param phase       The label of the phase.
+     * @param phaseActual The value measured for the phase.
+     */
+    void setLargestPhase(final String phase, final long phaseActual) {
+        largestPhase = phase;
+        largestPhaseActual = phaseActual;
+    }
+
+    /**
+     * @return The JSON representation of the violation.
+     */
+    String toJson() {
+        final String largest;
+        if (largestPhase == null) {
+            largest = "";
+        } else {
+            largest = String.format(
+                Locale.ENGLISH,
+                ", \"largestPhase\": %s, \"largestPhaseActual\": %d",
+                GenerationReport.jsonString(largestPhase),
+                largestPhaseActual);
+        }
+        return String.format(
+            Locale.ENGLISH,
+            "{\"budget\": %s, \"dialect\": %s, "
+                + "\"limit\": %d, \"actual\": %d, \"exceededBy\": %d, "
+                + "\"unit\": %s%s}",
+            GenerationReport.jsonString(budget),
+            GenerationReport.jsonString(
+                GenerationReport.dialectName(dialect)),
+            limit,
+            actual,
+            getExceededBy(),
+            GenerationReport.jsonString(unit),
+            largest);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ENGLISH,
+                                     "Budget %s exceeded",
+                                     budget));
+        if (dialect != null) {
+            builder.append(String.format(
+                " for dialect %s", GenerationReport.dialectName(dialect)));
+        }
+        builder.append(String.format(Locale.ENGLISH,
+                                     ": total %d %s > %d %s",
+                                     actual,
+                                     unit,
+                                     limit,
+                                     unit));
+        if (largestPhase != null) {
+            builder.append(String.format(Locale.ENGLISH,
+                                         " (largest phase: %s, %d %s)",
+                                         largestPhase,
+                                         largestPhaseActual,
+                                         unit));
+        }
+        return builder.toString();
+    }
+
+}
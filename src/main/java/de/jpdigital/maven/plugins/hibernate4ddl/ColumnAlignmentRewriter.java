@@ -0,0 +1,421 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reorders the columns in the {@code create table} statements for
+ * PostgreSQL to reduce the alignment padding in the rows. PostgreSQL aligns
+ * each value of a fixed width type to its alignment (for example 8 bytes
+ * for {@code int8} and {@code timestamp}), therefore a {@code bool} column
+ * between two {@code int8} columns wastes 7 bytes in each row. The columns
+ * are ordered like this:
+ *
+ * <ol>
+ * <li>The columns of the primary key, in the order of the key.</li>
+ * <li>The fixed width columns, from the widest to the narrowest
+ * alignment.</li>
+ * <li>The variable length columns ({@code varchar}, {@code text},
+ * {@code numeric}, {@code bytea}, ...) and columns of unknown types.</li>
+ * </ol>
+ *
+ * Within each group the order of the mapping is kept. The rewriter records
+ * the estimated size of the data of a row before and after the reordering
+ * for each table. For the estimate all columns are assumed to be not
+ * {@code null} and variable length values are assumed to be filled to one
+ * half of their declared length (8 bytes if they have no length). The
+ * order of the columns does not matter for Hibernate, which always uses
+ * the column names.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ColumnAlignmentRewriter implements StatementRewriter {
+
+    /**
+     * Suffix of the report written for each dialect.
+     */
+    static final String REPORT_SUFFIX = ".column-order.txt";
+
+    /**
+     * PostgreSQL aligns the end of each row to 8 bytes.
+     */
+    private static final int MAX_ALIGN = 8;
+
+    /**
+     * Values of variable length types with up to this number of bytes have
+     * a header of 1 byte and are not aligned.
+     */
+    private static final int SHORT_VARLENA = 126;
+
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "create table (\\S+) \\(.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern TABLE_CONSTRAINT = Pattern.compile(
+        "(primary key|unique|check|constraint|foreign key|exclude)\\b.*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern PRIMARY_KEY = Pattern.compile(
+        "primary key \\((.*)\\)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern LENGTH = Pattern.compile(
+        "[^(]*\\(\\s*(\\d+).*", Pattern.DOTALL);
+
+    private static final String[] ALIGN_8 = {
+        "int8", "bigint", "bigserial", "float8", "double precision",
+        "timestamp", "timestamptz", "time", "timetz", "money", "interval"};
+    private static final String[] ALIGN_4 = {
+        "int4", "integer", "int", "serial", "float4", "real", "date", "oid"};
+    private static final String[] ALIGN_2 = {"int2", "smallint"};
+    private static final String[] ALIGN_1 = {"bool", "boolean", "uuid"};
+
+    private final Map<String, Result> results = new TreeMap<>();
+
+    /**
+     * @param dialect A dialect.
+     *
+     * @return {@code true} if columns for the dialect can be reordered.
+     */
+    static boolean isSupported(final Dialect dialect) {
+        return dialect.name().startsWith("POSTGRESQL");
+    }
+
+    @Override
+    public List<String> rewrite(final List<String> statements) {
+        final List<String> result = new ArrayList<>();
+        for (final String statement : statements) {
+            final String trimmed = statement.trim();
+            final Matcher matcher = CREATE_TABLE.matcher(trimmed);
+            if (matcher.matches()) {
+                result.add(reorder(matcher.group(1), trimmed, statement));
+            } else {
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+
+    private String reorder(final String table,
+                           final String trimmed,
+                           final String statement) {
+        final int start = trimmed.indexOf('(');
+        final int end = findClosingParenthesis(trimmed, start);
+        if (end < 0) {
+            return statement;
+        }
+
+        final List<ColumnDefinition> columns = new ArrayList<>();
+        final List<String> constraints = new ArrayList<>();
+        List<String> primaryKey = Collections.emptyList();
+        for (final String element : splitTopLevel(trimmed.substring(
+            start + 1, end))) {
+            if (TABLE_CONSTRAINT.matcher(element).matches()) {
+                constraints.add(element);
+                final Matcher pkMatcher = PRIMARY_KEY.matcher(element);
+                if (pkMatcher.matches()) {
+                    primaryKey = splitTopLevel(pkMatcher.group(1));
+                }
+            } else {
+                columns.add(new ColumnDefinition(element, columns.size()));
+            }
+        }
+
+        final List<ColumnDefinition> ordered = new ArrayList<>(columns);
+        final List<String> keyColumns = primaryKey;
+        Collections.sort(ordered, new Comparator<ColumnDefinition>() {
+
+            @Override
+            public int compare(final ColumnDefinition column1,
+                               final ColumnDefinition column2) {
+                final int key1 = keyPosition(column1);
+                final int key2 = keyPosition(column2);
+                if (key1 != key2) {
+                    return Integer.compare(key1, key2);
+                }
+                if (column1.variable != column2.variable) {
+                    return column1.variable ? 1 : -1;
+                }
+                if (!column1.variable
+                        && column1.alignment != column2.alignment) {
+                    return Integer.compare(column2.alignment,
+                                           column1.alignment);
+                }
+                return Integer.compare(column1.position, column2.position);
+            }
+
+            private int keyPosition(final ColumnDefinition column) {
+                final int index = keyColumns.indexOf(column.name);
+                return index < 0 ? Integer.MAX_VALUE : index;
+            }
+
+        });
+
+        results.put(table, new Result(table,
+                                      estimateBytes(columns),
+                                      estimateBytes(ordered)));
+        if (ordered.equals(columns)) {
+            return statement;
+        }
+
+        final StringBuilder builder = new StringBuilder(trimmed.substring(
+            0, start + 1));
+        boolean first = true;
+        for (final ColumnDefinition column : ordered) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(column.definition);
+            first = false;
+        }
+        for (final String constraint : constraints) {
+            builder.append(", ").append(constraint);
+        }
+        builder.append(trimmed.substring(end));
+        return builder.toString();
+    }
+
+    static int findClosingParenthesis(final String statement,
+                                      final int start) {
+        int depth = 0;
+        for (int i = start; i < statement.length(); i++) {
+            final char character = statement.charAt(i);
+            if (character == '(') {
+                depth++;
+            } else if (character == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Splits a list at the commas which are not enclosed in parentheses or
+     * quotes.
+     */
+    static List<String> splitTopLevel(final String list) {
+        return splitTopLevel(list, ',');
+    }
+
+    /**
+     * Splits a list at the separators which are not enclosed in parentheses
+     * or quotes.
+     */
+    static List<String> splitTopLevel(final String list,
+                                      final char separator) {
+        final List<String> elements = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        int elementStart = 0;
+        for (int i = 0; i < list.length(); i++) {
+            final char character = list.charAt(i);
+            if (character == '\'' || character == '"') {
+                quoted = !quoted;
+            } else if (!quoted && character == '(') {
+                depth++;
+            } else if (!quoted && character == ')') {
+                depth--;
+            } else if (!quoted && depth == 0 && character == separator) {
+                elements.add(list.substring(elementStart, i).trim());
+                elementStart = i + 1;
+            }
+        }
+        elements.add(list.substring(elementStart).trim());
+        return elements;
+    }
+
+    /**
+     * Estimates the bytes of the data of a row with the columns in the
+     * provided order, including the padding.
+     */
+    private static int estimateBytes(final List<ColumnDefinition> columns) {
+        int offset = 0;
+        for (final ColumnDefinition column : columns) {
+            offset = align(offset, column.alignment) + column.size;
+        }
+        return align(offset, MAX_ALIGN);
+    }
+
+    private static int align(final int offset, final int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * @return The estimated bytes per row before and after reordering the
+     *         columns for each table, sorted by the name of the table.
+     */
+    List<Result> getResults() {
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * @return The report listing the estimated bytes per row before and
+     *         after reordering the columns.
+     */
+    String toReport() {
+        final List<Result> tables = getResults();
+        int nameWidth = "table".length();
+        int before = 0;
+        int after = 0;
+        for (final Result result : tables) {
+            nameWidth = Math.max(nameWidth, result.getTable().length());
+            before += result.getBytesBefore();
+            after += result.getBytesAfter();
+        }
+        final String format = "%-" + nameWidth + "s %7s %7s %7s%n";
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format(
+            "Estimated bytes per row (without header) before and after "
+                + "reordering the columns of %d tables. %d bytes saved in "
+                + "total.%n%n",
+            tables.size(),
+            before - after));
+        builder.append(String.format(format,
+                                     "table",
+                                     "before",
+                                     "after",
+                                     "saved"));
+        for (final Result result : tables) {
+            builder.append(String.format(Locale.ENGLISH,
+                                         format,
+                                         result.getTable(),
+                                         result.getBytesBefore(),
+                                         result.getBytesAfter(),
+                                         result.getBytesSaved()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A column definition of a {@code create table} statement.
+     */
+    private static final class ColumnDefinition {
+
+        private final transient String definition;
+        private final transient String name;
+        private final transient int position;
+        private final transient boolean variable;
+        private final transient int alignment;
+        private final transient int size;
+
+        ColumnDefinition(final String definition, final int position) {
+            this.definition = definition;
+            this.position = position;
+            final String[] tokens = definition.split("\\s+", 2);
+            name = tokens[0];
+            final String type;
+            if (tokens.length > 1) {
+                type = tokens[1].toLowerCase(Locale.ENGLISH);
+            } else {
+                type = "";
+            }
+
+            if (startsWithType(type, ALIGN_8)) {
+                variable = false;
+                alignment = 8;
+                size = type.startsWith("interval") ? 16 : 8;
+            } else if (startsWithType(type, ALIGN_4)) {
+                variable = false;
+                alignment = 4;
+                size = 4;
+            } else if (startsWithType(type, ALIGN_2)) {
+                variable = false;
+                alignment = 2;
+                size = 2;
+            } else if (startsWithType(type, ALIGN_1)) {
+                variable = false;
+                alignment = 1;
+                size = type.startsWith("uuid") ? 16 : 1;
+            } else {
+                variable = true;
+                final Matcher matcher = LENGTH.matcher(type);
+                final int bytes;
+                if (matcher.matches() && !type.startsWith("numeric")
+                        && !type.startsWith("decimal")) {
+                    bytes = Integer.parseInt(matcher.group(1)) / 2;
+                } else {
+                    bytes = 8;
+                }
+                if (bytes + 1 > SHORT_VARLENA) {
+                    alignment = 4;
+                    size = bytes + 4;
+                } else {
+                    alignment = 1;
+                    size = bytes + 1;
+                }
+            }
+        }
+
+        private static boolean startsWithType(final String type,
+                                              final String[] types) {
+            for (final String candidate : types) {
+                if (type.equals(candidate)
+                        || type.startsWith(candidate + " ")
+                        || type.startsWith(candidate + "(")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * The estimated bytes per row of a table before and after reordering
+     * the columns.
+     */
+    static final class Result {
+
+        private final transient String table;
+        private final transient int bytesBefore;
+        private final transient int bytesAfter;
+
+        Result(final String table,
+               final int bytesBefore,
+               final int bytesAfter) {
+            this.table = table;
+            this.bytesBefore = bytesBefore;
+            this.bytesAfter = bytesAfter;
+        }
+
+        String getTable() {
+            return table;
+        }
+
+        int getBytesBefore() {
+            return bytesBefore;
+        }
+
+        int getBytesAfter() {
+            return bytesAfter;
+        }
+
+        int getBytesSaved() {
+            return bytesBefore - bytesAfter;
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+
+/**
+ * Writes the report of the {@link ColumnAlignmentRewriter} to the file
+ * {@code <dialect>.column-order.txt}. Enabled if the rewriter has been
+ * registered for the dialect.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ColumnOrderWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return context.getConfiguration().getStatementRewriter(
+            ColumnAlignmentRewriter.class) != null;
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        final ColumnAlignmentRewriter rewriter = context.getConfiguration()
+            .getStatementRewriter(ColumnAlignmentRewriter.class);
+        int saved = 0;
+        int reordered = 0;
+        for (final ColumnAlignmentRewriter.Result result : rewriter
+            .getResults()) {
+            saved += result.getBytesSaved();
+            if (result.getBytesSaved() > 0) {
+                reordered++;
+            }
+        }
+        context.getLog().info(String.format(
+            "Reordered the columns of %d tables for dialect %s, saving an "
+                + "estimated %d bytes per row in total.",
+            reordered,
+            context.getDialect(),
+            saved));
+
+        try {
+            return OutputContext.writeIfChanged(
+                context.getOutputFile(ColumnAlignmentRewriter.REPORT_SUFFIX),
+                rewriter.toReport());
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write column order report: %s",
+                              ex.getMessage()),
+                ex);
+        }
+    }
+
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.mapping.AuxiliaryDatabaseObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Hibernate {@link Configuration} used by the {@link DdlGenerator} and
+ * the {@link SchemaGenerator}. Moves the {@code create schema} and
+ * {@code create domain} statements before the other statements, applies the
+ * registered {@link StatementRewriter}s to the create statements, adds the
+ * indexes for the foreign keys if {@link ForeignKeyIndexes} are set and the
+ * indexes for the audit tables if {@link AuditTableIndexes} are set,
+ * resolves the {@link MappingStatementRewriter}s after compiling the
+ * mappings and keeps track of the number of generated statements.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class DdlConfiguration extends Configuration {
+
+    private static final long serialVersionUID = 8818333354983681885L;
+
+    private transient List<String> dropStatements = new ArrayList<>();
+    private transient List<String> createStatements = new ArrayList<>();
+    private final transient List<StatementRewriter> rewriters
+                                                        = new ArrayList<>();
+    private transient ForeignKeyIndexes foreignKeyIndexes;
+    private transient AuditTableIndexes auditTableIndexes;
+
+    /**
+     * Adds a rewriter which is applied to the create statements. The
+     * rewriters are applied in the order in which they were added.
+     *
+     * @param rewriter The rewriter.
+     */
+    void addStatementRewriter(final StatementRewriter rewriter) {
+        rewriters.add(rewriter);
+    }
+
+    /**
+     * Sets the {@link ForeignKeyIndexes} which add the indexes for the
+     * foreign keys after the mappings have been compiled.
+     *
+     * @param foreignKeyIndexes The foreign key indexes, {@code null} to
+     *                          disable them.
+     */
+    void setForeignKeyIndexes(final ForeignKeyIndexes foreignKeyIndexes) {
+        this.foreignKeyIndexes = foreignKeyIndexes;
+    }
+
+    /**
+     * @return The {@link ForeignKeyIndexes} set for this configuration, may
+     *         be {@code null}.
+     */
+    ForeignKeyIndexes getForeignKeyIndexes() {
+        return foreignKeyIndexes;
+    }
+
+    /**
+     * Sets the {@link AuditTableIndexes} which add the indexes for the
+     * revision columns of the Envers audit tables after the mappings have
+     * been compiled.
+     *
+     * @param auditTableIndexes The audit table indexes, {@code null} to
+     *                          disable them.
+     */
+    void setAuditTableIndexes(final AuditTableIndexes auditTableIndexes) {
+        this.auditTableIndexes = auditTableIndexes;
+    }
+
+    /**
+     * @return The {@link AuditTableIndexes} set for this configuration, may
+     *         be {@code null}.
+     */
+    AuditTableIndexes getAuditTableIndexes() {
+        return auditTableIndexes;
+    }
+
+    /**
+     * Registers the {@link StatementRewriter}s, the {@link ForeignKeyIndexes}
+     * and the {@link AuditTableIndexes} requested by the options. The
+     * partitioning must see the statements created by Hibernate, therefore
+     * it is the first rewriter. The {@link OnlineDdlRewriter} is not
+     * registered: the create script creates empty tables, the online
+     * variants are only useful for statements changing existing tables
+     * (migration scripts and index suggestions).
+     *
+     * @param options The options.
+     * @param dialect The dialect for which the statements are generated.
+     *
+     * @return Warnings about options which are not supported for the
+     *         dialect and are therefore ignored.
+     *
+     * @throws DdlGenerationException If the partitioning or the storage
+     *                                options are invalid.
+     */
+    List<String> applyOptions(final DdlOptions options, final Dialect dialect)
+        throws DdlGenerationException {
+        final List<String> warnings = new ArrayList<>();
+
+        final Map<String, PartitionSpec> partitionSpecs = options
+            .parsePartitioning();
+        if (!partitionSpecs.isEmpty()) {
+            if (PartitioningRewriter.isSupported(dialect)) {
+                addStatementRewriter(new PartitioningRewriter(dialect,
+                                                              partitionSpecs));
+            } else {
+                warnings.add(String.format(
+                    "Partitioning is not supported for dialect %s, the tables "
+                        + "are created without partitions.",
+                    dialect));
+            }
+        }
+        final Map<String, StorageOptions> storageOptions = options
+            .parseStorage();
+        if (!storageOptions.isEmpty()) {
+            if (StorageRewriter.isSupported(dialect)) {
+                addStatementRewriter(new StorageRewriter(dialect,
+                                                         storageOptions));
+            } else {
+                warnings.add(String.format(
+                    "Storage options are not supported for dialect %s.",
+                    dialect));
+            }
+        }
+        if (options.isAlignColumns()
+                && ColumnAlignmentRewriter.isSupported(dialect)) {
+            addStatementRewriter(new ColumnAlignmentRewriter());
+        }
+        if ((options.getSequenceCache() > 0 || options.isSequenceNoOrder())
+                && SequenceCacheRewriter.isSupported(dialect)) {
+            addStatementRewriter(new SequenceCacheRewriter(
+                dialect,
+                options.getSequenceCache(),
+                options.isSequenceNoOrder()));
+        }
+        if (options.isForeignKeyIndexes()) {
+            setForeignKeyIndexes(new ForeignKeyIndexes(
+                options.getForeignKeyIndexExcludes()));
+        }
+        if (options.isUseEnvers() && options.isAuditTableIndexes()) {
+            setAuditTableIndexes(new AuditTableIndexes());
+        }
+
+        return warnings;
+    }
+
+    @Override
+    protected void secondPassCompile() throws MappingException {
+        super.secondPassCompile();
+
+        if (foreignKeyIndexes != null) {
+            foreignKeyIndexes.addIndexes(this);
+        }
+        if (auditTableIndexes != null) {
+            auditTableIndexes.addIndexes(this);
+        }
+        for (final StatementRewriter rewriter : rewriters) {
+            if (rewriter instanceof MappingStatementRewriter) {
+                ((MappingStatementRewriter) rewriter).resolve(this);
+            }
+        }
+    }
+
+    @Override
+    public String[] generateDropSchemaScript(
+        final org.hibernate.dialect.Dialect dialect)
+        throws HibernateException {
+        final String[] statements = super.generateDropSchemaScript(dialect);
+        dropStatements = Arrays.asList(statements);
+
+        return statements;
+    }
+
+    @Override
+    public String[] generateSchemaCreationScript(
+        final org.hibernate.dialect.Dialect dialect)
+        throws HibernateException {
+        List<String> statements = new ArrayList<>();
+        statements.addAll(Arrays.asList(super
+            .generateSchemaCreationScript(dialect)));
+
+        final List<String> beforeTablesStatements = new ArrayList<>();
+        final Iterator<String> iterator = statements.iterator();
+        while (iterator.hasNext()) {
+            final String statement = iterator.next().toLowerCase();
+            if (statement.startsWith("create schema") || statement
+                .startsWith("create domain")) {
+                beforeTablesStatements.add(statement);
+                iterator.remove();
+            }
+        }
+
+        for (String beforeTablesStatement : beforeTablesStatements) {
+            statements.add(0, beforeTablesStatement);
+        }
+        for (final StatementRewriter rewriter : rewriters) {
+            statements = rewriter.rewrite(statements);
+        }
+        createStatements = statements;
+
+        return statements.toArray(new String[statements.size()]);
+    }
+
+    /**
+     * @return The rewriters applied to the create statements.
+     */
+    List<StatementRewriter> getStatementRewriters() {
+        return Collections.unmodifiableList(rewriters);
+    }
+
+    /**
+     * @param <T>  The type of the rewriter.
+     * @param type The type of the rewriter.
+     *
+     * @return The first registered rewriter of the type, {@code null} if
+     *         there is no such rewriter.
+     */
+    <T extends StatementRewriter> T getStatementRewriter(final Class<T> type) {
+        for (final StatementRewriter rewriter : rewriters) {
+            if (type.isInstance(rewriter)) {
+                return type.cast(rewriter);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the create statements of the auxiliary database objects (for
+     * example objects defined using {@code <database-object>} in a mapping
+     * file) for a dialect.
+     *
+     * @param dialect The dialect.
+     *
+     * @return The create statements of the auxiliary database objects which
+     *         apply to the dialect.
+     */
+    List<String> getAuxiliaryCreateStatements(
+        final org.hibernate.dialect.Dialect dialect) {
+        final List<String> statements = new ArrayList<>();
+        final Mapping mapping = buildMapping();
+        for (final AuxiliaryDatabaseObject object : auxiliaryDatabaseObjects) {
+            if (object.appliesToDialect(dialect)) {
+                statements.add(object.sqlCreateString(
+                    dialect,
+                    mapping,
+                    getProperty(Environment.DEFAULT_CATALOG),
+                    getProperty(Environment.DEFAULT_SCHEMA)));
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @return The number of statements generated by the last call of
+     *         {@link #generateDropSchemaScript(org.hibernate.dialect.Dialect)}.
+     */
+    public int getDropStatementCount() {
+        return dropStatements.size();
+    }
+
+    /**
+     * @return The number of statements generated by the last call of
+     *         {@link #generateSchemaCreationScript(org.hibernate.dialect.Dialect)}.
+     */
+    public int getCreateStatementCount() {
+        return createStatements.size();
+    }
+
+    /**
+     * @return The statements generated by the last call of
+     *         {@link #generateDropSchemaScript(org.hibernate.dialect.Dialect)}.
+     */
+    public List<String> getDropStatements() {
+        return Collections.unmodifiableList(dropStatements);
+    }
+
+    /**
+     * @return The statements generated by the last call of
+     *         {@link #generateSchemaCreationScript(org.hibernate.dialect.Dialect)}.
+     */
+    public List<String> getCreateStatements() {
+        return Collections.unmodifiableList(createStatements);
+    }
+
+}
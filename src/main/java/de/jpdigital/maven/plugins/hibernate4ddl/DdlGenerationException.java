@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+/**
+ * Thrown by the {@link DdlGenerator} if the generation of the DDL files
+ * fails.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class DdlGenerationException extends Exception {
+
+    private static final long serialVersionUID = -3094186209151218290L;
+
+    public DdlGenerationException(final String message) {
+        super(message);
+    }
+
+    public DdlGenerationException(final String message,
+                                  final Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,612 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.envers.configuration.spi.AuditConfiguration;
+import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * Generates the DDL files. This class contains the logic of the
+ * {@code gen-ddl} goal without depending on the Maven API, therefore it can
+ * also be used in a forked JVM (see {@link ForkedGeneratorMain}).
+ *
+ * The generator scans the configured packages for entities using the
+ * {@link EntityFinder} and creates a DDL file for each dialect using the
+ * {@link SchemaExport} class from Hibernate. Each phase is measured in the
+ * {@link GenerationReport} passed to {@link #generate(GenerationReport)}.
+ * The options are passed as {@link DdlOptions}. The DDL file is written by
+ * the generator itself, the other files are written by the
+ * {@link OutputWriter}s.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class DdlGenerator {
+
+    /**
+     * The writers for the files written in addition to the DDL file, in the
+     * order in which they are called.
+     */
+    private static final List<OutputWriter> WRITERS = Collections
+        .unmodifiableList(Arrays.<OutputWriter>asList(
+            new TenantScriptWriter(),
+            new SnapshotWriter(),
+            new LayerWriter(),
+            new PhaseFileWriter(),
+            new TestProfileWriter(),
+            new IndexSuggestionWriter(),
+            new IdGeneratorReportWriter(),
+            new ColumnOrderWriter(),
+            new RowWidthWriter()));
+
+    private final transient GenerationLog log;
+    private final transient DdlOptions options;
+    private ClassLoader classLoader;
+    private boolean printStatements = true;
+
+    /**
+     * Creates a new generator.
+     *
+     * @param log     The log to use.
+     * @param options The options. The generator uses a copy of the options,
+     *                therefore later changes of the options have no effect.
+     */
+    DdlGenerator(final GenerationLog log, final DdlOptions options) {
+        this.log = log;
+        this.options = options.copy();
+    }
+
+    /**
+     * @return A copy of the options of this generator.
+     */
+    public DdlOptions getOptions() {
+        return options.copy();
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Sets the class loader used to find the entities.
+     *
+     * @param classLoader The class loader. If {@code null} (the default) the
+     *                    default class loaders are used.
+     */
+    public void setClassLoader(final ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public boolean isPrintStatements() {
+        return printStatements;
+    }
+
+    /**
+     * Controls if the generated statements are also printed to
+     * {@code stdout} by the {@link SchemaExport}. Default is {@code true}.
+     *
+     * @param printStatements {@code false} to suppress the output.
+     */
+    public void setPrintStatements(final boolean printStatements) {
+        this.printStatements = printStatements;
+    }
+
+    /**
+     * Scans the packages for entities and generates the DDL files for all
+     * dialects.
+     *
+     * @param report The report to which the measurements of the phases are
+     *               added.
+     *
+     * @throws DdlGenerationException If something goes wrong.
+     */
+    void generate(final GenerationReport report)
+        throws DdlGenerationException {
+        log.info(String.format("Generating DDL SQL files in %s.",
+                               options.getOutputDirectory()
+                               .getAbsolutePath()));
+
+        options.validate();
+
+        final MappingLinter linter;
+        if (options.isLint()) {
+            linter = new MappingLinter(classLoader == null
+                                           ? Thread.currentThread()
+                                           .getContextClassLoader()
+                                           : classLoader,
+                                       options.getLintSeverities());
+        } else {
+            linter = null;
+        }
+
+        //Check if the output directory exists.
+        if (!options.getOutputDirectory().exists()) {
+            final boolean result = options.getOutputDirectory().mkdirs();
+            if (!result) {
+                throw new DdlGenerationException(
+                    "Failed to create output directory for SQL DDL files.");
+            }
+        }
+
+        //Find the entity classes in the packages.
+        final GenerationReport.Timer timer = report.start(
+            GenerationPhase.SCAN, null);
+        final Set<Class<?>> entityClasses = new HashSet<>();
+        for (final String packageName : options.getPackages()) {
+            final Set<Class<?>> packageEntities = EntityFinder.forPackage(
+                classLoader, packageName).findEntities();
+            entityClasses.addAll(packageEntities);
+        }
+        timer.setEntityCount(entityClasses.size());
+        timer.stop();
+        log.info(String.format("Found %d entities.", entityClasses.size()));
+        report.setEntityCount(entityClasses.size());
+
+        //Generate the SQL scripts. The mapping does not depend on the
+        //dialect, therefore the linter checks the first configuration only.
+        List<MappingIssue> lintIssues = null;
+        for (final Dialect dialect : options.getDialects()) {
+            final DdlConfiguration configuration = generateDdl(dialect,
+                                                               entityClasses,
+                                                               report);
+            if (linter != null && lintIssues == null) {
+                lintIssues = linter.lint(configuration);
+            }
+        }
+
+        if (lintIssues != null) {
+            processLintIssues(linter, lintIssues);
+        }
+    }
+
+    /**
+     * Logs the issues found by the linter, writes the {@link LintReport}
+     * and checks the issues against {@link DdlOptions#getLintFailOn()}.
+     *
+     * @throws DdlGenerationException If the report can't be written or
+     *                                there are issues with the severity
+     *                                {@link DdlOptions#getLintFailOn()} or higher.
+     */
+    private void processLintIssues(final MappingLinter linter,
+                                   final List<MappingIssue> issues)
+        throws DdlGenerationException {
+        for (final MappingIssue issue : issues) {
+            if (issue.getSeverity() == LintSeverity.INFO) {
+                log.info(issue.toString());
+            } else {
+                log.warn(issue.toString());
+            }
+        }
+        log.info(MappingLinter.getSummary(issues));
+
+        if (options.getLintReportDirectory() != null) {
+            try {
+                new LintReport(linter, issues).writeTo(
+                    options.getLintReportDirectory().toPath());
+            } catch (IOException ex) {
+                throw new DdlGenerationException(
+                    String.format("Failed to write lint report: %s",
+                                  ex.getMessage()),
+                    ex);
+            }
+        }
+
+        final LintSeverity lintFailOn = options.getLintFailOn();
+        if (lintFailOn != null) {
+            final int count = MappingLinter.count(issues, lintFailOn);
+            if (count > 0) {
+                throw new DdlGenerationException(String.format(
+                    "%d mapping issue(s) with severity %s or higher.",
+                    count,
+                    lintFailOn.name().toLowerCase(Locale.ENGLISH)));
+            }
+        }
+    }
+
+    /**
+     * Helper method for generating the DDL classes for a specific dialect. This
+     * is place for the real work is done. The method first creates an instance
+     * of the {@link Configuration} class from Hibernate an puts the appropriate
+     * values into it. It then creates an instance of the {@link SchemaExport}
+     * class from the Hibernate API, configured this class, for example by
+     * setting {@code format} to {@code true} so that the generated SQL files
+     * are formatted nicely. After that it calls the
+     * {@link SchemaExport#execute(boolean, boolean, boolean, boolean)} method
+     * which will create the SQL script file. The method is called in a way
+     * which requires <em>no</em> database connection.
+     *
+     *
+     * @param dialect        The dialect for which the DDL files is
+     *                       generated.
+     * @param entityClasses  The entity classes for which the DDL file is
+     *                       generated.
+     * @param report         The report to which the measurements of the
+     *                       phases are added.
+     *
+     * @return The configuration used for generating the DDL.
+     *
+     * @throws DdlGenerationException if something goes wrong.
+     */
+    private DdlConfiguration generateDdl(final Dialect dialect,
+                                         final Set<Class<?>> entityClasses,
+                                         final GenerationReport report)
+        throws DdlGenerationException {
+
+        GenerationReport.Timer timer = report.start(GenerationPhase.BINDING,
+                                                    dialect);
+
+        final DdlConfiguration configuration = new DdlConfiguration();
+
+        processPersistenceXml(configuration);
+
+        if (options.isCreateDropStatements()) {
+            configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        } else {
+            configuration.setProperty("hibernate.hbm2ddl.auto", "create");
+        }
+
+        for (final Class<?> entityClass : entityClasses) {
+            configuration.addAnnotatedClass(entityClass);
+        }
+        timer.setEntityCount(entityClasses.size());
+
+        configuration
+            .setProperty("hibernate.dialect", dialect.getDialectClass());
+        for (final String warning : configuration.applyOptions(options,
+                                                               dialect)) {
+            log.warn(warning);
+        }
+
+        //Binding the annotations is done lazily by Hibernate. We trigger
+        //it here to be able to measure it separately from the export.
+        //The partitioning and the storage options are resolved against the
+        //mappings while binding.
+        try {
+            configuration.buildMappings();
+            if (options.isUseEnvers()) {
+                //This is what the EnversSchemaGenerator does. The
+                //EnversSchemaGenerator renders the statements only once,
+                //when it is created, therefore the statements are exported
+                //using new SchemaExport instances, which see the audit
+                //tables added to the configuration.
+                AuditConfiguration.getFor(configuration);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new DdlGenerationException(String.format(
+                "Invalid configuration for dialect %s: %s",
+                dialect,
+                ex.getMessage()),
+                ex);
+        }
+        timer.stop();
+
+        timer = report.start(GenerationPhase.EXPORT, dialect);
+        final Path tmpDir;
+        try {
+            tmpDir = Files.createTempDirectory(
+                "maven-hibernate-ddl-plugin");
+        } catch (IOException ex) {
+            throw new DdlGenerationException("Failed to create work dir.", ex);
+        }
+        final String baseName = dialect.name().toLowerCase(Locale.ENGLISH);
+        //The template must be exported first, the statements recorded by
+        //the configuration during the last export are used by the other
+        //output files.
+        final Path tmpTemplateFile = tmpDir.resolve(
+            baseName + TenantTemplate.TEMPLATE_FILE_SUFFIX);
+        if (!options.getTenantSchemas().isEmpty()) {
+            exportTenantTemplate(configuration, tmpTemplateFile);
+        }
+        exportDdl(configuration,
+                  tmpDir.resolve(baseName + ".sql"),
+                  printStatements);
+        timer.setEntityCount(entityClasses.size());
+        if (options.isCreateDropStatements()) {
+            timer.setStatementCount(configuration.getDropStatementCount()
+                                        + configuration
+                .getCreateStatementCount());
+        } else {
+            timer.setStatementCount(configuration.getCreateStatementCount());
+        }
+        timer.stop();
+        if (configuration.getForeignKeyIndexes() != null) {
+            log.info(String.format(
+                "Added %d indexes for foreign keys for dialect %s.",
+                configuration.getForeignKeyIndexes().getIndexNames().size(),
+                dialect));
+        }
+        if (configuration.getAuditTableIndexes() != null) {
+            log.info(String.format(
+                "Added %d indexes for audit tables for dialect %s.",
+                configuration.getAuditTableIndexes().getIndexNames().size(),
+                dialect));
+        }
+        final PartitioningRewriter partitioningRewriter = configuration
+            .getStatementRewriter(PartitioningRewriter.class);
+        if (partitioningRewriter != null) {
+            for (final String change : partitioningRewriter.getChanges()) {
+                log.warn(String.format("%s: %s", dialect, change));
+            }
+        }
+        final StorageRewriter storageRewriter = configuration
+            .getStatementRewriter(StorageRewriter.class);
+        if (storageRewriter != null) {
+            log.info(String.format(
+                "Added storage options to %d tables for dialect %s.",
+                storageRewriter.getTables().size(),
+                dialect));
+        }
+
+        timer = report.start(GenerationPhase.WRITE, dialect);
+        final OutputContext context = new OutputContext(
+            dialect,
+            options,
+            configuration,
+            org.hibernate.dialect.Dialect.getDialect(configuration
+                .getProperties()),
+            log);
+        long bytesWritten = writeOutputFile(
+            tmpDir.resolve(baseName + ".sql"), context.getDdlFile());
+        if (!options.getTenantSchemas().isEmpty()) {
+            bytesWritten += writeOutputFile(
+                tmpTemplateFile,
+                context.getOutputFile(TenantTemplate.TEMPLATE_FILE_SUFFIX));
+        }
+        for (final OutputWriter writer : WRITERS) {
+            if (writer.isEnabled(context)) {
+                bytesWritten += writer.write(context);
+            }
+        }
+        timer.setBytesWritten(bytesWritten);
+        timer.stop();
+
+        return configuration;
+    }
+
+    /**
+     * Reads the properties from the {@link DdlOptions#getPersistenceXml()} (if set) and
+     * sets them on the provided {@link Configuration}.
+     *
+     * @param configuration The configuration.
+     */
+    void processPersistenceXml(final Configuration configuration) {
+        final File persistenceXml = options.getPersistenceXml();
+        if (persistenceXml != null) {
+            log.info("persistence.xml available, locking for properties...");
+
+            try (InputStream inStream = new FileInputStream(persistenceXml)) {
+                final SAXParser parser;
+
+                parser = SAXParserFactory.newInstance().newSAXParser();
+
+                parser.parse(inStream, new PersistenceXmlHandler(configuration));
+            } catch (IOException ex) {
+                log.error(
+                    "Failed to open persistence.xml. Not processing properties.",
+                    ex);
+            } catch (ParserConfigurationException | SAXException ex) {
+                log.error(
+                    "Error parsing persistence.xml. Not processing properties",
+                    ex);
+            }
+        }
+    }
+
+    private class PersistenceXmlHandler extends DefaultHandler {
+
+        private final transient Configuration configuration;
+
+        public PersistenceXmlHandler(final Configuration configuration) {
+            this.configuration = configuration;
+        }
+
+        @Override
+        public void startElement(final String uri,
+                                 final String localName,
+                                 final String qName,
+                                 final Attributes attributes) {
+            log.info(String.format(
+                "Found element with uri = '%s', localName = '%s', qName = '%s'...",
+                uri,
+                localName,
+                qName));
+
+            if ("property".equals(qName)) {
+                final String propertyName = attributes.getValue("name");
+                final String propertyValue = attributes.getValue("value");
+
+                if (propertyName != null && !propertyName.isEmpty()
+                        && propertyValue != null && !propertyValue.isEmpty()) {
+                    log.info(String.format(
+                        "Found property %s = %s in persistence.xml",
+                        propertyName,
+                        propertyValue));
+                    configuration.setProperty(propertyName, propertyValue);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Helper method for exporting the DDL of a bound configuration to a
+     * file. The {@link SchemaExport} renders the statements when it is
+     * created, using the current default schema of the configuration.
+     *
+     * @param configuration The configuration.
+     * @param outputFile    The file to write the DDL to.
+     * @param script        Whether the statements are written to
+     *                      {@code System.out}.
+     */
+    private void exportDdl(final DdlConfiguration configuration,
+                           final Path outputFile,
+                           final boolean script) {
+        final SchemaExport export = new SchemaExport(configuration);
+        export.setDelimiter(";");
+        export.setOutputFile(outputFile.toString());
+        export.setFormat(true);
+        if (options.isCreateDropStatements()) {
+            export.execute(script, false, false, false);
+        } else {
+            export.execute(script, false, false, true);
+        }
+    }
+
+    /**
+     * Exports the DDL with the {@link TenantTemplate#PLACEHOLDER} as default
+     * schema, which is expanded into the scripts of the tenants. The default
+     * schema of the configuration (for example set in the persistence.xml)
+     * is restored afterwards, so that the DDL file itself does not contain
+     * the placeholder.
+     *
+     * @param configuration The configuration.
+     * @param templateFile  The file to write the template to.
+     */
+    private void exportTenantTemplate(final DdlConfiguration configuration,
+                                      final Path templateFile) {
+        final String defaultSchema = configuration.getProperty(
+            Environment.DEFAULT_SCHEMA);
+        configuration.setProperty(Environment.DEFAULT_SCHEMA,
+                                  TenantTemplate.PLACEHOLDER);
+        try {
+            exportDdl(configuration, templateFile, false);
+        } finally {
+            if (defaultSchema == null) {
+                configuration.getProperties().remove(
+                    Environment.DEFAULT_SCHEMA);
+            } else {
+                configuration.setProperty(Environment.DEFAULT_SCHEMA,
+                                          defaultSchema);
+            }
+        }
+    }
+
+    /**
+     * Helper method for writing the output files if necessary. The
+     * {@link #generateDdl(Dialect, Set, GenerationReport)} method
+     * writes the output to temporary files. This method checks of the output files have
+     * changed and copies the files if necessary.
+     *
+     * @param tmpFilePath    The temporary file.
+     * @param outputFilePath The output file.
+     *
+     * @return The number of bytes written, {@code 0} if the output file has
+     *         not changed.
+     */
+    private long writeOutputFile(final Path tmpFilePath,
+                                 final Path outputFilePath)
+        throws DdlGenerationException {
+
+        createOutputDir();
+
+        if (Files.exists(outputFilePath)) {
+
+            final String outputFileData;
+            final String tmpFileData;
+            try {
+                outputFileData = new String(
+                    Files.readAllBytes(outputFilePath),
+                    Charset.forName("UTF-8"));
+                tmpFileData = new String(
+                    Files.readAllBytes(tmpFilePath),
+                    Charset.forName("UTF-8"));
+            } catch (IOException ex) {
+                throw new DdlGenerationException(
+                    String.format("Failed to check if DDL file content has "
+                                      + "changed: %s",
+                                  ex.getMessage()),
+                    ex);
+            }
+
+            try {
+                if (tmpFileData.equals(outputFileData)) {
+                    return 0;
+                } else {
+                    Files.deleteIfExists(outputFilePath);
+                    Files.copy(tmpFilePath, outputFilePath);
+                    return Files.size(outputFilePath);
+                }
+            } catch (IOException ex) {
+                throw new DdlGenerationException(
+                    String.format("Failed to copy DDL file content from tmp "
+                                      + "file to output file: %s",
+                                  ex.getMessage()),
+                    ex);
+            }
+        } else {
+            try {
+                Files.copy(tmpFilePath, outputFilePath);
+                return Files.size(outputFilePath);
+            } catch (IOException ex) {
+                throw new DdlGenerationException(
+                    String.format("Failed to copy tmp file to output file: %s",
+                                  ex.getMessage()),
+                    ex);
+            }
+        }
+    }
+
+    /**
+     * Helper for creating the output directory if it does not exist.
+     *
+     * @throws DdlGenerationException If The creation of the output directory
+     *                                fails.
+     */
+    private void createOutputDir() throws DdlGenerationException {
+        final Path outputDir = options.getOutputDirectory().toPath();
+        if (Files.exists(outputDir)) {
+            if (!Files.isDirectory(outputDir)) {
+                throw new DdlGenerationException("A file with the name of the "
+                                                     + "output directory already "
+                                                     + "exists but is not a "
+                                                     + "directory.");
+            }
+        } else {
+            try {
+                Files.createDirectory(outputDir);
+            } catch (IOException ex) {
+                throw new DdlGenerationException(
+                    String.format("Failed to create the output directory: %s",
+                                  ex.getMessage()),
+                    ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,894 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The options of the DDL generation. The options are set by the
+ * {@code gen-ddl} and the {@code watch} goal, by the {@link GenerateDdlCli}
+ * and by users of the {@link SchemaGenerator}, and are passed as a unit to
+ * the {@link DdlGenerator}. For the forked JVM (see
+ * {@link ForkedGeneratorMain}) the options are serialized using
+ * {@link #toProperties()} and {@link #fromProperties(Properties)}, therefore
+ * a new option only has to be added here and to the parameters of the goals.
+ *
+ * The options changing the statements (for example the partitioning or the
+ * indexes for the foreign keys) are applied to the Hibernate configuration
+ * by {@link DdlConfiguration#applyOptions(DdlOptions, Dialect)}. The other
+ * options control which files are written and are ignored by the
+ * {@link SchemaGenerator}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class DdlOptions {
+
+    private static final String OUTPUT_DIRECTORY = "outputDirectory";
+    private static final String PACKAGES = "packages";
+    private static final String DIALECTS = "dialects";
+    private static final String USE_ENVERS = "useEnvers";
+    private static final String AUDIT_TABLE_INDEXES = "auditTableIndexes";
+    private static final String CREATE_DROP_STATEMENTS
+                                    = "createDropStatements";
+    private static final String PERSISTENCE_XML = "persistenceXml";
+    private static final String WRITE_SNAPSHOTS = "writeSnapshots";
+    private static final String ONLINE_DDL_DIALECTS = "onlineDdlDialects";
+    private static final String TEST_PROFILE_DIALECTS = "testProfileDialects";
+    private static final String TENANT_SCHEMAS = "tenantSchemas";
+    private static final String COMBINE_TENANT_SCRIPTS
+                                    = "combineTenantScripts";
+    private static final String SPLIT_PHASES = "splitPhases";
+    private static final String DATA_LOAD_SCRIPT = "dataLoadScript";
+    private static final String WRITE_LAYERS = "writeLayers";
+    private static final String FOREIGN_KEY_INDEXES = "foreignKeyIndexes";
+    private static final String FOREIGN_KEY_INDEX_EXCLUDES
+                                    = "foreignKeyIndexExcludes";
+    private static final String SUGGEST_INDEXES = "suggestIndexes";
+    private static final String LINT = "lint";
+    private static final String LINT_SEVERITIES = "lintSeverities";
+    private static final String LINT_FAIL_ON = "lintFailOn";
+    private static final String LINT_REPORT_DIRECTORY = "lintReportDirectory";
+    private static final String AUDIT_ID_GENERATORS = "auditIdGenerators";
+    private static final String SEQUENCE_CACHE = "sequenceCache";
+    private static final String SEQUENCE_NO_ORDER = "sequenceNoOrder";
+    private static final String ALIGN_COLUMNS = "alignColumns";
+    private static final String PARTITIONING = "partitioning";
+    private static final String PARTITION = "partitioning.%d.%s";
+    private static final String STORAGE = "storage";
+    private static final String STORAGE_ENTRY = "storage.%d.%s";
+    private static final String ESTIMATE_ROW_WIDTHS = "estimateRowWidths";
+    private static final String MAX_ROW_BYTES = "maxRowBytes";
+    private static final String MAX_INDEX_KEY_BYTES = "maxIndexKeyBytes";
+
+    private static final String SEPARATOR = ",";
+
+    private File outputDirectory;
+    private String[] packages = new String[]{};
+    private Set<Dialect> dialects = new LinkedHashSet<>();
+    private boolean useEnvers;
+    private boolean auditTableIndexes;
+    private boolean createDropStatements;
+    private File persistenceXml;
+    private boolean writeSnapshots = true;
+    private Set<Dialect> onlineDdlDialects = new LinkedHashSet<>();
+    private Set<Dialect> testProfileDialects = new LinkedHashSet<>();
+    private List<String> tenantSchemas = new ArrayList<>();
+    private boolean combineTenantScripts;
+    private boolean splitPhases;
+    private File dataLoadScript;
+    private boolean writeLayers;
+    private boolean foreignKeyIndexes;
+    private Set<String> foreignKeyIndexExcludes = new LinkedHashSet<>();
+    private boolean suggestIndexes;
+    private boolean lint;
+    private Map<String, String> lintSeverities = new LinkedHashMap<>();
+    private LintSeverity lintFailOn = LintSeverity.ERROR;
+    private File lintReportDirectory;
+    private boolean auditIdGenerators;
+    private int sequenceCache;
+    private boolean sequenceNoOrder;
+    private boolean estimateRowWidths;
+    private boolean alignColumns;
+    private Map<String, String> partitioning = new LinkedHashMap<>();
+    private Map<String, String> storage = new LinkedHashMap<>();
+    private int maxRowBytes = RowWidthEstimator.DEFAULT_MAX_ROW_BYTES;
+    private int maxIndexKeyBytes
+                    = RowWidthEstimator.DEFAULT_MAX_INDEX_KEY_BYTES;
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(final File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public String[] getPackages() {
+        return Arrays.copyOf(packages, packages.length);
+    }
+
+    public void setPackages(final String... packages) {
+        this.packages = Arrays.copyOf(packages, packages.length);
+    }
+
+    public Set<Dialect> getDialects() {
+        return new LinkedHashSet<>(dialects);
+    }
+
+    public void setDialects(final Collection<Dialect> dialects) {
+        this.dialects = new LinkedHashSet<>(dialects);
+    }
+
+    public boolean isUseEnvers() {
+        return useEnvers;
+    }
+
+    public void setUseEnvers(final boolean useEnvers) {
+        this.useEnvers = useEnvers;
+    }
+
+    public boolean isCreateDropStatements() {
+        return createDropStatements;
+    }
+
+    public void setCreateDropStatements(final boolean createDropStatements) {
+        this.createDropStatements = createDropStatements;
+    }
+
+    public File getPersistenceXml() {
+        return persistenceXml;
+    }
+
+    public void setPersistenceXml(final File persistenceXml) {
+        this.persistenceXml = persistenceXml;
+    }
+
+    public boolean isWriteSnapshots() {
+        return writeSnapshots;
+    }
+
+    /**
+     * Controls if a {@link SchemaSnapshot} is written next to each DDL file.
+     * Default is {@code true}.
+     *
+     * @param writeSnapshots {@code false} to skip the snapshots.
+     */
+    public void setWriteSnapshots(final boolean writeSnapshots) {
+        this.writeSnapshots = writeSnapshots;
+    }
+
+    public Set<Dialect> getOnlineDdlDialects() {
+        return new LinkedHashSet<>(onlineDdlDialects);
+    }
+
+    /**
+     * Sets the dialects for which the statements of the suggested indexes
+     * are rewritten by the {@link OnlineDdlRewriter}. The create script is
+     * not rewritten.
+     *
+     * @param onlineDdlDialects The dialects. Only dialects supported by the
+     *                          {@link OnlineDdlRewriter} are allowed.
+     */
+    public void setOnlineDdlDialects(
+        final Collection<Dialect> onlineDdlDialects) {
+        this.onlineDdlDialects = new LinkedHashSet<>(onlineDdlDialects);
+    }
+
+    public Set<Dialect> getTestProfileDialects() {
+        return new LinkedHashSet<>(testProfileDialects);
+    }
+
+    /**
+     * Sets the dialects for which a {@link TestProfile} is written in
+     * addition to the complete script.
+     *
+     * @param testProfileDialects The dialects. Only dialects supported by
+     *                            the {@link TestProfile} are allowed.
+     */
+    public void setTestProfileDialects(
+        final Collection<Dialect> testProfileDialects) {
+        this.testProfileDialects = new LinkedHashSet<>(testProfileDialects);
+    }
+
+    public List<String> getTenantSchemas() {
+        return new ArrayList<>(tenantSchemas);
+    }
+
+    /**
+     * Sets the schemas of the tenants. If schemas are set the DDL is
+     * additionally generated with a placeholder as default schema and a
+     * script for each tenant is created from it.
+     *
+     * @param tenantSchemas The names of the schemas of the tenants.
+     *
+     * @see TenantTemplate
+     */
+    public void setTenantSchemas(final Collection<String> tenantSchemas) {
+        this.tenantSchemas = new ArrayList<>(tenantSchemas);
+    }
+
+    public boolean isCombineTenantScripts() {
+        return combineTenantScripts;
+    }
+
+    /**
+     * Controls if the scripts for the tenants are written into one file
+     * ({@code <dialect>.tenants.sql}) or into one file per tenant
+     * ({@code <dialect>/tenants/<schema>.sql}). Default is {@code false}.
+     *
+     * @param combineTenantScripts {@code true} to write one file for all
+     *                             tenants.
+     */
+    public void setCombineTenantScripts(final boolean combineTenantScripts) {
+        this.combineTenantScripts = combineTenantScripts;
+    }
+
+    public boolean isSplitPhases() {
+        return splitPhases;
+    }
+
+    /**
+     * Controls if the statements of each dialect are also written into one
+     * file per {@link ScriptPhase}. Default is {@code false}.
+     *
+     * @param splitPhases {@code true} to write the phase files.
+     */
+    public void setSplitPhases(final boolean splitPhases) {
+        this.splitPhases = splitPhases;
+    }
+
+    public File getDataLoadScript() {
+        return dataLoadScript;
+    }
+
+    /**
+     * Sets the script which is copied into the file of the
+     * {@link ScriptPhase#DATA} phase.
+     *
+     * @param dataLoadScript The script, may be {@code null}.
+     */
+    public void setDataLoadScript(final File dataLoadScript) {
+        this.dataLoadScript = dataLoadScript;
+    }
+
+    public boolean isWriteLayers() {
+        return writeLayers;
+    }
+
+    /**
+     * Controls if the statements of each dialect are also written ordered
+     * into {@link SchemaLayers}. Default is {@code false}.
+     *
+     * @param writeLayers {@code true} to write the layer files.
+     */
+    public void setWriteLayers(final boolean writeLayers) {
+        this.writeLayers = writeLayers;
+    }
+
+    public boolean isAuditTableIndexes() {
+        return auditTableIndexes;
+    }
+
+    /**
+     * Controls if indexes for the revision columns are added to the audit
+     * tables created by Envers. Only has an effect if {@link #useEnvers} is
+     * enabled. Default is {@code false}.
+     *
+     * @param auditTableIndexes {@code true} to create the indexes.
+     *
+     * @see AuditTableIndexes
+     */
+    public void setAuditTableIndexes(final boolean auditTableIndexes) {
+        this.auditTableIndexes = auditTableIndexes;
+    }
+
+    public boolean isForeignKeyIndexes() {
+        return foreignKeyIndexes;
+    }
+
+    /**
+     * Controls if an index is created for each foreign key whose columns
+     * are not already indexed. Default is {@code false}.
+     *
+     * @param foreignKeyIndexes {@code true} to create the indexes.
+     *
+     * @see ForeignKeyIndexes
+     */
+    public void setForeignKeyIndexes(final boolean foreignKeyIndexes) {
+        this.foreignKeyIndexes = foreignKeyIndexes;
+    }
+
+    public Set<String> getForeignKeyIndexExcludes() {
+        return new LinkedHashSet<>(foreignKeyIndexExcludes);
+    }
+
+    /**
+     * Sets the entities and tables for which no indexes are created for the
+     * foreign keys.
+     *
+     * @param foreignKeyIndexExcludes The simple or fully qualified class
+     *                                names of the entities or the names of
+     *                                the tables.
+     */
+    public void setForeignKeyIndexExcludes(
+        final Collection<String> foreignKeyIndexExcludes) {
+        this.foreignKeyIndexExcludes = new LinkedHashSet<>(
+            foreignKeyIndexExcludes);
+    }
+
+    public boolean isSuggestIndexes() {
+        return suggestIndexes;
+    }
+
+    /**
+     * Controls if indexes for the named queries of the entities are
+     * suggested. Default is {@code false}.
+     *
+     * @param suggestIndexes {@code true} to write the suggested indexes.
+     *
+     * @see QueryIndexAdvisor
+     */
+    public void setSuggestIndexes(final boolean suggestIndexes) {
+        this.suggestIndexes = suggestIndexes;
+    }
+
+    public boolean isLint() {
+        return lint;
+    }
+
+    /**
+     * Controls if the {@link MappingRule}s are checked against the bound
+     * entities. Default is {@code false}.
+     *
+     * @param lint {@code true} to run the {@link MappingLinter}.
+     */
+    public void setLint(final boolean lint) {
+        this.lint = lint;
+    }
+
+    public Map<String, String> getLintSeverities() {
+        return new LinkedHashMap<>(lintSeverities);
+    }
+
+    /**
+     * Overrides the severities of {@link MappingRule}s.
+     *
+     * @param lintSeverities The severities ({@code info}, {@code warning},
+     *                       {@code error} or {@code off}) mapped by the id
+     *                       of the rule.
+     */
+    public void setLintSeverities(final Map<String, String> lintSeverities) {
+        this.lintSeverities = new LinkedHashMap<>(lintSeverities);
+    }
+
+    public LintSeverity getLintFailOn() {
+        return lintFailOn;
+    }
+
+    /**
+     * Sets the severity from which on mapping issues fail the generation.
+     * Default is {@link LintSeverity#ERROR}.
+     *
+     * @param lintFailOn The severity, {@code null} to never fail.
+     */
+    public void setLintFailOn(final LintSeverity lintFailOn) {
+        this.lintFailOn = lintFailOn;
+    }
+
+    public File getLintReportDirectory() {
+        return lintReportDirectory;
+    }
+
+    /**
+     * Sets the directory to which the {@link LintReport} is written.
+     *
+     * @param lintReportDirectory The directory, {@code null} to write no
+     *                            report.
+     */
+    public void setLintReportDirectory(final File lintReportDirectory) {
+        this.lintReportDirectory = lintReportDirectory;
+    }
+
+    public boolean isAuditIdGenerators() {
+        return auditIdGenerators;
+    }
+
+    /**
+     * Controls if the id generators of the entities are reported. Default is
+     * {@code false}.
+     *
+     * @param auditIdGenerators {@code true} to write the report
+     *                          {@code <dialect>.id-generators.txt}.
+     *
+     * @see IdGeneratorAudit
+     */
+    public void setAuditIdGenerators(final boolean auditIdGenerators) {
+        this.auditIdGenerators = auditIdGenerators;
+    }
+
+    public int getSequenceCache() {
+        return sequenceCache;
+    }
+
+    /**
+     * Sets the number of values of each sequence cached by the database.
+     * Only used for the dialects supported by the
+     * {@link SequenceCacheRewriter}. Default is {@code 0} (no
+     * {@code cache} clause).
+     *
+     * @param sequenceCache The number of cached values.
+     */
+    public void setSequenceCache(final int sequenceCache) {
+        this.sequenceCache = sequenceCache;
+    }
+
+    public boolean isSequenceNoOrder() {
+        return sequenceNoOrder;
+    }
+
+    /**
+     * Controls if the sequences are created with {@code noorder} (Oracle and
+     * DB2). Default is {@code false}.
+     *
+     * @param sequenceNoOrder {@code true} to add the {@code noorder} clause.
+     */
+    public void setSequenceNoOrder(final boolean sequenceNoOrder) {
+        this.sequenceNoOrder = sequenceNoOrder;
+    }
+
+    public boolean isAlignColumns() {
+        return alignColumns;
+    }
+
+    /**
+     * Controls if the columns of the tables are reordered to reduce the
+     * alignment padding for PostgreSQL. Default is {@code false}.
+     *
+     * @param alignColumns {@code true} to reorder the columns and to write
+     *                     the report {@code <dialect>.column-order.txt}.
+     *
+     * @see ColumnAlignmentRewriter
+     */
+    public void setAlignColumns(final boolean alignColumns) {
+        this.alignColumns = alignColumns;
+    }
+
+    public Map<String, String> getPartitioning() {
+        return new LinkedHashMap<>(partitioning);
+    }
+
+    /**
+     * Sets the partitioning of tables for PostgreSQL, MySQL and Oracle.
+     *
+     * @param partitioning The partitioning (see {@link PartitionSpec}) mapped
+     *                     by the name of the entity or table.
+     *
+     * @see PartitioningRewriter
+     */
+    public void setPartitioning(final Map<String, String> partitioning) {
+        this.partitioning = new LinkedHashMap<>(partitioning);
+    }
+
+    public Map<String, String> getStorage() {
+        return new LinkedHashMap<>(storage);
+    }
+
+    /**
+     * Sets the storage options of tables for PostgreSQL, MySQL and Oracle.
+     *
+     * @param storage The storage options (see {@link StorageOptions}) mapped
+     *                by the name of the entity or table or by a pattern for
+     *                the names of tables.
+     *
+     * @see StorageRewriter
+     */
+    public void setStorage(final Map<String, String> storage) {
+        this.storage = new LinkedHashMap<>(storage);
+    }
+
+    public boolean isEstimateRowWidths() {
+        return estimateRowWidths;
+    }
+
+    /**
+     * Controls if the widths of the rows and index keys of the tables are
+     * estimated. Default is {@code false}.
+     *
+     * @param estimateRowWidths {@code true} to write the report
+     *                          {@code <dialect>.row-widths.txt}.
+     *
+     * @see RowWidthEstimator
+     */
+    public void setEstimateRowWidths(final boolean estimateRowWidths) {
+        this.estimateRowWidths = estimateRowWidths;
+    }
+
+    public int getMaxRowBytes() {
+        return maxRowBytes;
+    }
+
+    /**
+     * Sets the threshold for the estimated maximum width of a row. Tables
+     * with wider rows are logged as warning. Default is
+     * {@value RowWidthEstimator#DEFAULT_MAX_ROW_BYTES}.
+     *
+     * @param maxRowBytes The threshold in bytes.
+     */
+    public void setMaxRowBytes(final int maxRowBytes) {
+        this.maxRowBytes = maxRowBytes;
+    }
+
+    public int getMaxIndexKeyBytes() {
+        return maxIndexKeyBytes;
+    }
+
+    /**
+     * Sets the threshold for the estimated width of an index key. Wider
+     * keys are logged as warning. Default is
+     * {@value RowWidthEstimator#DEFAULT_MAX_INDEX_KEY_BYTES}.
+     *
+     * @param maxIndexKeyBytes The threshold in bytes.
+     */
+    public void setMaxIndexKeyBytes(final int maxIndexKeyBytes) {
+        this.maxIndexKeyBytes = maxIndexKeyBytes;
+    }
+
+    /**
+     * Checks the options which can be checked without the entities.
+     *
+     * @throws DdlGenerationException If an option is invalid.
+     */
+    void validate() throws DdlGenerationException {
+        for (final Dialect dialect : onlineDdlDialects) {
+            if (!OnlineDdlRewriter.isSupported(dialect)) {
+                throw new DdlGenerationException(String.format(
+                    "Online DDL is not supported for dialect %s.", dialect));
+            }
+        }
+        final Set<String> tenants = new HashSet<>();
+        for (final String tenant : tenantSchemas) {
+            if (!TenantTemplate.isValidName(tenant)) {
+                throw new DdlGenerationException(String.format(
+                    "Invalid tenant schema name '%s'.", tenant));
+            }
+            if (!tenants.add(tenant.toLowerCase(Locale.ROOT))) {
+                throw new DdlGenerationException(String.format(
+                    "Duplicate tenant schema name '%s'.", tenant));
+            }
+        }
+        for (final Dialect dialect : testProfileDialects) {
+            if (!TestProfile.isSupported(dialect)) {
+                throw new DdlGenerationException(String.format(
+                    "The test profile is not supported for dialect %s.",
+                    dialect));
+            }
+        }
+        if (sequenceCache < 0) {
+            throw new DdlGenerationException(
+                "The sequence cache can't be negative.");
+        }
+        parsePartitioning();
+        parseStorage();
+    }
+
+    /**
+     * Parses the {@link #partitioning}.
+     *
+     * @return The partitioning mapped by the name of the entity or table.
+     *
+     * @throws DdlGenerationException If a specification is invalid.
+     */
+    Map<String, PartitionSpec> parsePartitioning()
+        throws DdlGenerationException {
+        final Map<String, PartitionSpec> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, String> entry : partitioning
+            .entrySet()) {
+            try {
+                result.put(entry.getKey(),
+                           PartitionSpec.parse(entry.getValue()));
+            } catch (IllegalArgumentException ex) {
+                throw new DdlGenerationException(String.format(
+                    "Invalid partitioning of %s: %s",
+                    entry.getKey(),
+                    ex.getMessage()),
+                    ex);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses the {@link #storage} options.
+     *
+     * @return The storage options mapped by the name of the entity or table
+     *         or by a pattern.
+     *
+     * @throws DdlGenerationException If the options are invalid.
+     */
+    Map<String, StorageOptions> parseStorage()
+        throws DdlGenerationException {
+        final Map<String, StorageOptions> result = new LinkedHashMap<>();
+        for (final Map.Entry<String, String> entry : storage.entrySet()) {
+            try {
+                result.put(entry.getKey(),
+                           StorageOptions.parse(entry.getValue()));
+            } catch (IllegalArgumentException ex) {
+                throw new DdlGenerationException(String.format(
+                    "Invalid storage options for %s: %s",
+                    entry.getKey(),
+                    ex.getMessage()),
+                    ex);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Serializes the options, for example for passing them to a forked JVM.
+     *
+     * @return The options as properties.
+     */
+    Properties toProperties() {
+        final Properties properties = new Properties();
+        if (outputDirectory != null) {
+            properties.setProperty(OUTPUT_DIRECTORY,
+                                   outputDirectory.getAbsolutePath());
+        }
+        properties.setProperty(PACKAGES,
+                               join(Arrays.asList(packages), SEPARATOR));
+        properties.setProperty(DIALECTS, joinDialects(dialects));
+        properties.setProperty(USE_ENVERS, Boolean.toString(useEnvers));
+        properties.setProperty(AUDIT_TABLE_INDEXES,
+                               Boolean.toString(auditTableIndexes));
+        properties.setProperty(CREATE_DROP_STATEMENTS,
+                               Boolean.toString(createDropStatements));
+        if (persistenceXml != null) {
+            properties.setProperty(PERSISTENCE_XML,
+                                   persistenceXml.getAbsolutePath());
+        }
+        properties.setProperty(WRITE_SNAPSHOTS,
+                               Boolean.toString(writeSnapshots));
+        properties.setProperty(ONLINE_DDL_DIALECTS,
+                               joinDialects(onlineDdlDialects));
+        properties.setProperty(TEST_PROFILE_DIALECTS,
+                               joinDialects(testProfileDialects));
+        properties.setProperty(TENANT_SCHEMAS,
+                               join(tenantSchemas, SEPARATOR));
+        properties.setProperty(COMBINE_TENANT_SCRIPTS,
+                               Boolean.toString(combineTenantScripts));
+        properties.setProperty(SPLIT_PHASES, Boolean.toString(splitPhases));
+        if (dataLoadScript != null) {
+            properties.setProperty(DATA_LOAD_SCRIPT,
+                                   dataLoadScript.getAbsolutePath());
+        }
+        properties.setProperty(WRITE_LAYERS, Boolean.toString(writeLayers));
+        properties.setProperty(FOREIGN_KEY_INDEXES,
+                               Boolean.toString(foreignKeyIndexes));
+        properties.setProperty(FOREIGN_KEY_INDEX_EXCLUDES,
+                               join(new ArrayList<>(foreignKeyIndexExcludes),
+                                    SEPARATOR));
+        properties.setProperty(SUGGEST_INDEXES,
+                               Boolean.toString(suggestIndexes));
+        properties.setProperty(LINT, Boolean.toString(lint));
+        properties.setProperty(LINT_SEVERITIES,
+                               join(MappingLinter.formatSeverities(
+                                   lintSeverities),
+                                    SEPARATOR));
+        if (lintFailOn == null) {
+            properties.setProperty(LINT_FAIL_ON, MappingLinter.NONE);
+        } else {
+            properties.setProperty(LINT_FAIL_ON, lintFailOn.name());
+        }
+        if (lintReportDirectory != null) {
+            properties.setProperty(LINT_REPORT_DIRECTORY,
+                                   lintReportDirectory.getAbsolutePath());
+        }
+        properties.setProperty(AUDIT_ID_GENERATORS,
+                               Boolean.toString(auditIdGenerators));
+        properties.setProperty(SEQUENCE_CACHE,
+                               Integer.toString(sequenceCache));
+        properties.setProperty(SEQUENCE_NO_ORDER,
+                               Boolean.toString(sequenceNoOrder));
+        properties.setProperty(ALIGN_COLUMNS, Boolean.toString(alignColumns));
+        //The specifications of the partitioning and the storage options
+        //contain the separator, therefore each entry is stored in its own
+        //properties.
+        setEntries(properties, PARTITIONING, PARTITION, partitioning);
+        setEntries(properties, STORAGE, STORAGE_ENTRY, storage);
+        properties.setProperty(ESTIMATE_ROW_WIDTHS,
+                               Boolean.toString(estimateRowWidths));
+        properties.setProperty(MAX_ROW_BYTES, Integer.toString(maxRowBytes));
+        properties.setProperty(MAX_INDEX_KEY_BYTES,
+                               Integer.toString(maxIndexKeyBytes));
+
+        return properties;
+    }
+
+    /**
+     * Creates options from properties created by {@link #toProperties()}.
+     *
+     * @param properties The properties.
+     *
+     * @return The options.
+     */
+    static DdlOptions fromProperties(final Properties properties) {
+        final DdlOptions options = new DdlOptions();
+        if (properties.getProperty(OUTPUT_DIRECTORY) != null) {
+            options.setOutputDirectory(new File(properties.getProperty(
+                OUTPUT_DIRECTORY)));
+        }
+        final List<String> packageNames = split(properties.getProperty(
+            PACKAGES), SEPARATOR);
+        options.setPackages(packageNames.toArray(
+            new String[packageNames.size()]));
+        options.setDialects(splitDialects(properties.getProperty(DIALECTS)));
+        options.setUseEnvers(Boolean.parseBoolean(properties.getProperty(
+            USE_ENVERS)));
+        options.setAuditTableIndexes(Boolean.parseBoolean(properties
+            .getProperty(AUDIT_TABLE_INDEXES)));
+        options.setCreateDropStatements(Boolean.parseBoolean(properties
+            .getProperty(CREATE_DROP_STATEMENTS)));
+        if (properties.getProperty(PERSISTENCE_XML) != null) {
+            options.setPersistenceXml(new File(properties.getProperty(
+                PERSISTENCE_XML)));
+        }
+        options.setWriteSnapshots(Boolean.parseBoolean(properties.getProperty(
+            WRITE_SNAPSHOTS, "true")));
+        options.setOnlineDdlDialects(splitDialects(properties.getProperty(
+            ONLINE_DDL_DIALECTS)));
+        options.setTestProfileDialects(splitDialects(properties.getProperty(
+            TEST_PROFILE_DIALECTS)));
+        options.setTenantSchemas(split(properties.getProperty(
+            TENANT_SCHEMAS), SEPARATOR));
+        options.setCombineTenantScripts(Boolean.parseBoolean(properties
+            .getProperty(COMBINE_TENANT_SCRIPTS)));
+        options.setSplitPhases(Boolean.parseBoolean(properties.getProperty(
+            SPLIT_PHASES)));
+        if (properties.getProperty(DATA_LOAD_SCRIPT) != null) {
+            options.setDataLoadScript(new File(properties.getProperty(
+                DATA_LOAD_SCRIPT)));
+        }
+        options.setWriteLayers(Boolean.parseBoolean(properties.getProperty(
+            WRITE_LAYERS)));
+        options.setForeignKeyIndexes(Boolean.parseBoolean(properties
+            .getProperty(FOREIGN_KEY_INDEXES)));
+        options.setForeignKeyIndexExcludes(split(properties.getProperty(
+            FOREIGN_KEY_INDEX_EXCLUDES), SEPARATOR));
+        options.setSuggestIndexes(Boolean.parseBoolean(properties.getProperty(
+            SUGGEST_INDEXES)));
+        options.setLint(Boolean.parseBoolean(properties.getProperty(LINT)));
+        options.setLintSeverities(MappingLinter.parseSeverities(split(
+            properties.getProperty(LINT_SEVERITIES), SEPARATOR)));
+        options.setLintFailOn(MappingLinter.parseFailOn(properties.getProperty(
+            LINT_FAIL_ON, LintSeverity.ERROR.name())));
+        if (properties.getProperty(LINT_REPORT_DIRECTORY) != null) {
+            options.setLintReportDirectory(new File(properties.getProperty(
+                LINT_REPORT_DIRECTORY)));
+        }
+        options.setAuditIdGenerators(Boolean.parseBoolean(properties
+            .getProperty(AUDIT_ID_GENERATORS)));
+        options.setSequenceCache(Integer.parseInt(properties.getProperty(
+            SEQUENCE_CACHE, "0")));
+        options.setSequenceNoOrder(Boolean.parseBoolean(properties
+            .getProperty(SEQUENCE_NO_ORDER)));
+        options.setAlignColumns(Boolean.parseBoolean(properties.getProperty(
+            ALIGN_COLUMNS)));
+        options.setPartitioning(getEntries(properties,
+                                           PARTITIONING,
+                                           PARTITION));
+        options.setStorage(getEntries(properties, STORAGE, STORAGE_ENTRY));
+        options.setEstimateRowWidths(Boolean.parseBoolean(properties
+            .getProperty(ESTIMATE_ROW_WIDTHS)));
+        options.setMaxRowBytes(Integer.parseInt(properties.getProperty(
+            MAX_ROW_BYTES,
+            Integer.toString(RowWidthEstimator.DEFAULT_MAX_ROW_BYTES))));
+        options.setMaxIndexKeyBytes(Integer.parseInt(properties.getProperty(
+            MAX_INDEX_KEY_BYTES,
+            Integer.toString(RowWidthEstimator.DEFAULT_MAX_INDEX_KEY_BYTES))));
+
+        return options;
+    }
+
+    /**
+     * @return A copy of these options.
+     */
+    DdlOptions copy() {
+        return fromProperties(toProperties());
+    }
+
+    private static String joinDialects(final Set<Dialect> dialects) {
+        final List<String> names = new ArrayList<>();
+        for (final Dialect dialect : dialects) {
+            names.add(dialect.name());
+        }
+        return join(names, SEPARATOR);
+    }
+
+    private static List<Dialect> splitDialects(final String value) {
+        final List<Dialect> result = new ArrayList<>();
+        for (final String name : split(value, SEPARATOR)) {
+            result.add(Dialect.valueOf(name));
+        }
+        return result;
+    }
+
+    private static void setEntries(final Properties properties,
+                                   final String countKey,
+                                   final String entryKey,
+                                   final Map<String, String> entries) {
+        properties.setProperty(countKey, Integer.toString(entries.size()));
+        int index = 0;
+        for (final Map.Entry<String, String> entry : entries.entrySet()) {
+            properties.setProperty(String.format(entryKey, index, "name"),
+                                   entry.getKey());
+            properties.setProperty(String.format(entryKey, index, "value"),
+                                   entry.getValue());
+            index++;
+        }
+    }
+
+    private static Map<String, String> getEntries(final Properties properties,
+                                                  final String countKey,
+                                                  final String entryKey) {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        final int count = Integer.parseInt(properties.getProperty(countKey,
+                                                                  "0"));
+        for (int i = 0; i < count; i++) {
+            entries.put(
+                properties.getProperty(String.format(entryKey, i, "name")),
+                properties.getProperty(String.format(entryKey, i, "value")));
+        }
+        return entries;
+    }
+
+    static String join(final List<String> values, final String separator) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String value : values) {
+            if (builder.length() > 0) {
+                builder.append(separator);
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    static List<String> split(final String value, final String separator) {
+        final List<String> values = new ArrayList<>();
+        if (value != null) {
+            for (final String token : value.split(Pattern
+                .quote(separator))) {
+                if (!token.isEmpty()) {
+                    values.add(token);
+                }
+            }
+        }
+        return values;
+    }
+
+}
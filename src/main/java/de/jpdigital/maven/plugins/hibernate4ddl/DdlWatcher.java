@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a classes directory and regenerates the DDL files if class files
+ * in one of the packages of the {@link DdlGenerator} are created, modified or
+ * deleted. Changes arriving within the debounce window are collected and
+ * cause only one regeneration, which is useful because the IDE writes the
+ * class files one after the other. Changes of classes outside of the
+ * packages are ignored. The changed classes are loaded using a new class
+ * loader for each regeneration, everything else (the JVM, Hibernate and the
+ * Reflections library) stays loaded. Because the {@link DdlGenerator} only
+ * writes output files whose content has changed, only the files of the
+ * affected dialects are touched.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class DdlWatcher {
+
+    private final transient DdlGenerator generator;
+    private final transient List<String> classPathElems;
+    private final transient Path classesDirectory;
+    private final transient long debounceMillis;
+    private final transient GenerationLog log;
+    private final transient Map<WatchKey, Path> directories
+                                                    = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new watcher.
+     *
+     * @param generator        The generator, configured with the packages and
+     *                         dialects.
+     * @param classPathElems   The classpath of the project. Should contain
+     *                         the {@code classesDirectory}.
+     * @param classesDirectory The directory to watch.
+     * @param debounceMillis   The debounce window in milliseconds.
+     * @param log              The log to use.
+     */
+    DdlWatcher(final DdlGenerator generator,
+               final List<String> classPathElems,
+               final Path classesDirectory,
+               final long debounceMillis,
+               final GenerationLog log) {
+        this.generator = generator;
+        this.classPathElems = new ArrayList<>(classPathElems);
+        this.classesDirectory = classesDirectory.toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+        this.log = log;
+    }
+
+    /**
+     * Generates the DDL files and regenerates them after each relevant
+     * change until the current thread is interrupted.
+     *
+     * @throws DdlGenerationException If the classes directory can't be
+     *                                watched.
+     */
+    void watch() throws DdlGenerationException {
+        try (WatchService watchService = FileSystems.getDefault()
+            .newWatchService()) {
+            register(watchService, classesDirectory);
+
+            regenerate();
+            log.info(String.format(
+                "Watching %s for changed entities. Press Ctrl+C to stop.",
+                classesDirectory.toString()));
+
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean relevant = processEvents(watchService,
+                                                 watchService.take());
+
+                //Collect the changes within the debounce window.
+                WatchKey key = watchService.poll(debounceMillis,
+                                                 TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    relevant = processEvents(watchService, key) || relevant;
+                    key = watchService.poll(debounceMillis,
+                                            TimeUnit.MILLISECONDS);
+                }
+
+                if (relevant) {
+                    regenerate();
+                }
+            }
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to watch %s: %s",
+                              classesDirectory.toString(),
+                              ex.getMessage()),
+                ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            log.info("Watch service closed.");
+        }
+    }
+
+    /**
+     * Processes the events of a watch key and resets the key.
+     *
+     * @return {@code true} if one of the events concerns a class in one of
+     *         the packages of the generator.
+     */
+    private boolean processEvents(final WatchService watchService,
+                                  final WatchKey key) throws IOException {
+        final Path directory = directories.get(key);
+        boolean relevant = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+                continue;
+            }
+            if (directory == null) {
+                continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(path)) {
+                register(watchService, path);
+                relevant = relevant || containsEntities(path);
+            } else if (isEntityCandidate(path)) {
+                relevant = true;
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return relevant;
+    }
+
+    /**
+     * Checks if a directory created after the watcher has been started
+     * contains class files which may be entities.
+     */
+    private boolean containsEntities(final Path directory) throws IOException {
+        final boolean[] found = new boolean[]{false};
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(final Path file,
+                                             final BasicFileAttributes attrs) {
+                if (isEntityCandidate(file)) {
+                    found[0] = true;
+                    return FileVisitResult.TERMINATE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+        return found[0];
+    }
+
+    /**
+     * Checks if a path is a class file in one of the packages of the
+     * generator (or in a sub package).
+     *
+     * @param path The path to check.
+     *
+     * @return {@code true} if the path is a class file in one of the
+     *         packages.
+     */
+    private boolean isEntityCandidate(final Path path) {
+        if (!path.getFileName().toString().endsWith(".class")) {
+            return false;
+        }
+        final Path parent = classesDirectory.relativize(path.toAbsolutePath())
+            .getParent();
+        final StringBuilder packageName = new StringBuilder();
+        if (parent != null) {
+            for (final Path element : parent) {
+                if (packageName.length() > 0) {
+                    packageName.append('.');
+                }
+                packageName.append(element.toString());
+            }
+        }
+        for (final String watchedPackage : generator.getOptions().getPackages()) {
+            if (packageName.toString().equals(watchedPackage)
+                    || packageName.toString().startsWith(watchedPackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void register(final WatchService watchService,
+                          final Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(
+                final Path dir, final BasicFileAttributes attrs)
+                throws IOException {
+                final WatchKey key = dir.register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+    }
+
+    /**
+     * Generates the DDL files using a new class loader for the classpath.
+     * Errors are logged but do not stop the watcher because the classes may
+     * be in an inconsistent state while the IDE is compiling them.
+     */
+    private void regenerate() {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextClassLoader = thread.getContextClassLoader();
+        final GenerationReport report = new GenerationReport();
+        ClassLoader classLoader = null;
+        try {
+            final GenerationReport.Timer timer = report.start(
+                GenerationPhase.CLASSPATH, null);
+            classLoader = EntityFinder.createClassLoader(classPathElems,
+                                                         log);
+            timer.stop();
+            generator.setClassLoader(classLoader);
+
+            generator.generate(report);
+            report.finish();
+            log.info(report.getSummary());
+        } catch (DdlGenerationException | RuntimeException ex) {
+            log.error(String.format("Failed to generate the DDL files: %s",
+                                    ex.getMessage()),
+                      ex);
+        } finally {
+            generator.setClassLoader(null);
+            thread.setContextClassLoader(contextClassLoader);
+            if (classLoader instanceof URLClassLoader) {
+                try {
+                    ((URLClassLoader) classLoader).close();
+                } catch (IOException ex) {
+                    log.warn(String.format(
+                        "Failed to close class loader: %s", ex.getMessage()));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.JoinedSubclass;
+import org.hibernate.mapping.PersistentClass;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reports entities at the bottom of deep hierarchies using the
+ * {@code JOINED} inheritance strategy. Loading such an entity joins the
+ * tables of all its superclasses, and polymorphic queries join the tables
+ * of all subclasses.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class DeepJoinedInheritanceRule implements MappingRule {
+
+    /**
+     * Maximum number of tables which are joined for loading an entity.
+     */
+    static final int MAX_TABLES = 3;
+
+    @Override
+    public String getId() {
+        return "deep-joined-inheritance";
+    }
+
+    @Override
+    public String getDescription() {
+        return String.format(
+            "Entities whose JOINED hierarchy spans more than %d tables",
+            MAX_TABLES);
+    }
+
+    @Override
+    public LintSeverity getDefaultSeverity() {
+        return LintSeverity.WARNING;
+    }
+
+    @Override
+    public List<MappingIssue> check(final Configuration configuration) {
+        final List<MappingIssue> issues = new ArrayList<>();
+        final Iterator<PersistentClass> entities = configuration
+            .getClassMappings();
+        while (entities.hasNext()) {
+            final PersistentClass entity = entities.next();
+            if (!(entity instanceof JoinedSubclass) || entity.hasSubclasses()) {
+                continue;
+            }
+
+            int tables = 1;
+            PersistentClass current = entity;
+            while (current instanceof JoinedSubclass) {
+                tables++;
+                current = current.getSuperclass();
+            }
+            if (tables > MAX_TABLES) {
+                issues.add(new MappingIssue(
+                    entity.getEntityName(),
+                    null,
+                    String.format(
+                        "Loading the entity joins %d tables of the JOINED "
+                            + "inheritance hierarchy. Flatten the hierarchy "
+                            + "or use SINGLE_TABLE for parts of it.",
+                        tables)));
+            }
+        }
+        return issues;
+    }
+
+}
@@ -101,4 +101,25 @@ public enum Dialect {
         return dialectClass;
     }
 
+    /**
+     * Creates an instance of the Hibernate dialect class.
+     *
+     * @return A new instance of {@link #getDialectClass()}.
+     *
+     * @throws DdlGenerationException If the dialect class can't be
+     *                                instantiated.
+     */
+    org.hibernate.dialect.Dialect createHibernateDialect()
+        throws DdlGenerationException {
+        try {
+            return (org.hibernate.dialect.Dialect) Class.forName(dialectClass)
+                .getDeclaredConstructor()
+                .newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new DdlGenerationException(String.format(
+                "Failed to create Hibernate dialect %s.", dialectClass),
+                                             ex);
+        }
+    }
+
 }
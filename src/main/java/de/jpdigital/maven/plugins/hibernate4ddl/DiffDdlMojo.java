@@ -0,0 +1,406 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Goal which creates migration scripts by comparing the schema snapshots
+ * written by the {@code gen-ddl} goal with the snapshots of a previous
+ * version. The previous snapshots are either read from a directory or from
+ * a previously released artifact which contains the generated DDL files.
+ * For each dialect a script containing the {@code ALTER} statements needed
+ * for migrating the previous schema to the current schema is written.
+ *
+ * The goal must be executed after the {@code gen-ddl} goal.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Mojo(name = "diff",
+      threadSafe = true)
+public class DiffDdlMojo extends AbstractMojo {
+
+    /**
+     * The directory containing the snapshots of the current schema, usually
+     * the output directory of the {@code gen-ddl} goal.
+     */
+    @Parameter(defaultValue
+                   = "${project.build.directory}/generated-resources/sql/ddl/auto",
+               property = "outputDir",
+               required = true)
+    private File outputDirectory;
+
+    /**
+     * Database dialects for which migration scripts shall be generated. For
+     * available dialects refer to the documentation the {@link Dialect}
+     * enumeration.
+     */
+    @Parameter(required = true)
+    private String[] dialects;
+
+    /**
+     * Directory containing the snapshots of the previous schema. Either this
+     * parameter or {@link #previousArtifact} must be set.
+     */
+    @Parameter(property = "previousSnapshotDirectory", required = false)
+    private File previousSnapshotDirectory;
+
+    /**
+     * Coordinates of a previous version of the artifact containing the
+     * snapshots of the previous schema, in the format
+     * {@code groupId:artifactId[:extension[:classifier]]:version}, for
+     * example {@code org.example:example-model:1.0.0}. The artifact is
+     * resolved from the repositories of the project.
+     */
+    @Parameter(property = "previousArtifact", required = false)
+    private String previousArtifact;
+
+    /**
+     * The path of the snapshots inside the {@link #previousArtifact}.
+     */
+    @Parameter(defaultValue = "sql/ddl/auto",
+               property = "previousArtifactPath",
+               required = false)
+    private String previousArtifactPath = "sql/ddl/auto";
+
+    /**
+     * Directory to which the migration scripts ({@code <dialect>.sql}) are
+     * written.
+     */
+    @Parameter(defaultValue
+                   = "${project.build.directory}/generated-resources/sql/ddl/diff",
+               property = "diffOutputDir",
+               required = true)
+    private File diffOutputDirectory;
+
+    /**
+     * Set this to {@code true} to emit the statements which drop tables,
+     * columns and sequences. By default these statements are only emitted as
+     * comments because they destroy data.
+     */
+    @Parameter(defaultValue = "false",
+               property = "allowDestructiveChanges",
+               required = false)
+    private boolean allowDestructiveChanges;
+
+    /**
+     * Dialects for which the migration statements are rewritten into
+     * variants which do not lock the tables while they are executed, for
+     * example {@code create index concurrently} and foreign keys added as
+     * {@code not valid} and validated separately for PostgreSQL. Supported
+     * are the PostgreSQL, MySQL and Oracle dialects. Empty by default.
+     */
+    @Parameter(required = false)
+    private String[] onlineDdlDialects = new String[]{};
+
+    private transient Set<Dialect> onlineDdl;
+
+    @Component
+    private transient RepositorySystem repositorySystem;
+
+    @Parameter(defaultValue = "${repositorySystemSession}", readonly = true)
+    private transient RepositorySystemSession repositorySystemSession;
+
+    @Parameter(defaultValue = "${project.remoteProjectRepositories}",
+               readonly = true)
+    private transient List<RemoteRepository> remoteRepositories;
+
+    /**
+     * The Mojo's execute method.
+     *
+     * @throws MojoExecutionException if the Mojo can't be executed.
+     * @throws MojoFailureException   if the snapshots can't be read or
+     *                                compared.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final Set<Dialect> dialectsList = new LinkedHashSet<>();
+        for (final String dialect : dialects) {
+            AbstractDdlMojo.convertDialect(dialect, dialectsList);
+        }
+
+        final Set<Dialect> onlineDdlDialectsList = new LinkedHashSet<>();
+        for (final String dialect : onlineDdlDialects) {
+            AbstractDdlMojo.convertDialect(dialect, onlineDdlDialectsList);
+        }
+        for (final Dialect dialect : onlineDdlDialectsList) {
+            if (!OnlineDdlRewriter.isSupported(dialect)) {
+                throw new MojoFailureException(String.format(
+                    "Online DDL is not supported for dialect %s.", dialect));
+            }
+        }
+        onlineDdl = onlineDdlDialectsList;
+
+        if (previousSnapshotDirectory == null
+                && (previousArtifact == null || previousArtifact.isEmpty())) {
+            throw new MojoFailureException(
+                "Either previousSnapshotDirectory or previousArtifact must be "
+                    + "set.");
+        }
+
+        if (!diffOutputDirectory.exists() && !diffOutputDirectory.mkdirs()) {
+            throw new MojoExecutionException(
+                "Failed to create output directory for migration scripts.");
+        }
+
+        if (previousSnapshotDirectory == null) {
+            final File artifactFile = resolvePreviousArtifact();
+            try (ZipFile archive = new ZipFile(artifactFile)) {
+                for (final Dialect dialect : dialectsList) {
+                    final String entryName = String.format(
+                        "%s/%s", trimSlashes(previousArtifactPath),
+                        snapshotFileName(dialect));
+                    final ZipEntry entry = archive.getEntry(entryName);
+                    if (entry == null) {
+                        getLog().warn(String.format(
+                            "Artifact %s contains no snapshot %s. Skipping "
+                                + "dialect %s.",
+                            previousArtifact,
+                            entryName,
+                            dialect));
+                        continue;
+                    }
+                    try (Reader reader = new InputStreamReader(
+                        archive.getInputStream(entry),
+                        Charset.forName("UTF-8"))) {
+                        diff(dialect, SchemaSnapshot.read(reader));
+                    }
+                }
+            } catch (IOException ex) {
+                throw new MojoFailureException(String.format(
+                    "Failed to read the snapshots from artifact %s: %s",
+                    previousArtifact,
+                    ex.getMessage()),
+                                               ex);
+            }
+        } else {
+            for (final Dialect dialect : dialectsList) {
+                final File snapshotFile = new File(previousSnapshotDirectory,
+                                                   snapshotFileName(dialect));
+                if (!snapshotFile.isFile()) {
+                    getLog().warn(String.format(
+                        "No previous snapshot %s found. Skipping dialect %s.",
+                        snapshotFile.getAbsolutePath(),
+                        dialect));
+                    continue;
+                }
+                diff(dialect, readSnapshot(snapshotFile));
+            }
+        }
+    }
+
+    private void diff(final Dialect dialect,
+                      final SchemaSnapshot previousSnapshot)
+        throws MojoFailureException {
+        final File currentSnapshotFile = new File(outputDirectory,
+                                                  snapshotFileName(dialect));
+        if (!currentSnapshotFile.isFile()) {
+            throw new MojoFailureException(String.format(
+                "No snapshot of the current schema found for dialect %s. "
+                    + "Run the gen-ddl goal with writeSnapshots enabled "
+                    + "before the diff goal.",
+                dialect));
+        }
+
+        final SchemaDiff diff;
+        try {
+            diff = new SchemaDiff(previousSnapshot,
+                                  readSnapshot(currentSnapshotFile),
+                                  allowDestructiveChanges);
+        } catch (DdlGenerationException ex) {
+            throw new MojoFailureException(ex.getMessage(), ex);
+        }
+        if (onlineDdl.contains(dialect)) {
+            diff.addStatementRewriter(new OnlineDdlRewriter(dialect));
+        }
+
+        final File scriptFile = new File(
+            diffOutputDirectory,
+            String.format("%s.sql",
+                          dialect.name().toLowerCase(Locale.ENGLISH)));
+        try {
+            Files.write(scriptFile.toPath(),
+                        diff.toScript().getBytes(Charset.forName("UTF-8")));
+        } catch (IOException ex) {
+            throw new MojoFailureException(String.format(
+                "Failed to write migration script %s: %s",
+                scriptFile.getAbsolutePath(),
+                ex.getMessage()),
+                                           ex);
+        }
+
+        if (diff.isEmpty()) {
+            getLog().info(String.format("No schema changes for dialect %s.",
+                                        dialect));
+        } else {
+            getLog().info(String.format(
+                "Wrote %d migration statements for dialect %s to %s.",
+                diff.getStatements().size(),
+                dialect,
+                scriptFile.getAbsolutePath()));
+        }
+    }
+
+    private File resolvePreviousArtifact() throws MojoFailureException {
+        final ArtifactRequest request = new ArtifactRequest();
+        try {
+            request.setArtifact(new DefaultArtifact(previousArtifact));
+        } catch (IllegalArgumentException ex) {
+            throw new MojoFailureException(String.format(
+                "Invalid coordinates '%s' for previousArtifact.",
+                previousArtifact),
+                                           ex);
+        }
+        request.setRepositories(remoteRepositories);
+
+        try {
+            return repositorySystem
+                .resolveArtifact(repositorySystemSession, request)
+                .getArtifact()
+                .getFile();
+        } catch (ArtifactResolutionException ex) {
+            throw new MojoFailureException(String.format(
+                "Failed to resolve previous artifact %s: %s",
+                previousArtifact,
+                ex.getMessage()),
+                                           ex);
+        }
+    }
+
+    private static SchemaSnapshot readSnapshot(final File file)
+        throws MojoFailureException {
+        try (Reader reader = Files.newBufferedReader(
+            file.toPath(), Charset.forName("UTF-8"))) {
+            return SchemaSnapshot.read(reader);
+        } catch (IOException ex) {
+            throw new MojoFailureException(String.format(
+                "Failed to read snapshot %s: %s",
+                file.getAbsolutePath(),
+                ex.getMessage()),
+                                           ex);
+        }
+    }
+
+    private static String snapshotFileName(final Dialect dialect) {
+        return dialect.name().toLowerCase(Locale.ENGLISH)
+                   + SchemaSnapshot.FILE_SUFFIX;
+    }
+
+    private static String trimSlashes(final String path) {
+        String result = path;
+        while (result.startsWith("/")) {
+            result = result.substring(1);
+        }
+        while (result.endsWith("/")) {
+            result = result.substring(0, result.length() - 1);
+        }
+        return result;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(final File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public String[] getDialects() {
+        return Arrays.copyOf(dialects, dialects.length);
+    }
+
+    public void setDialects(final String... dialects) {
+        this.dialects = Arrays.copyOf(dialects, dialects.length);
+    }
+
+    public File getPreviousSnapshotDirectory() {
+        return previousSnapshotDirectory;
+    }
+
+    public void setPreviousSnapshotDirectory(
+        final File previousSnapshotDirectory) {
+        this.previousSnapshotDirectory = previousSnapshotDirectory;
+    }
+
+    public String getPreviousArtifact() {
+        return previousArtifact;
+    }
+
+    public void setPreviousArtifact(final String previousArtifact) {
+        this.previousArtifact = previousArtifact;
+    }
+
+    public String getPreviousArtifactPath() {
+        return previousArtifactPath;
+    }
+
+    public void setPreviousArtifactPath(final String previousArtifactPath) {
+        this.previousArtifactPath = previousArtifactPath;
+    }
+
+    public File getDiffOutputDirectory() {
+        return diffOutputDirectory;
+    }
+
+    public void setDiffOutputDirectory(final File diffOutputDirectory) {
+        this.diffOutputDirectory = diffOutputDirectory;
+    }
+
+    public String[] getOnlineDdlDialects() {
+        return Arrays.copyOf(onlineDdlDialects, onlineDdlDialects.length);
+    }
+
+    public void setOnlineDdlDialects(final String... onlineDdlDialects) {
+        this.onlineDdlDialects = Arrays.copyOf(onlineDdlDialects,
+                                               onlineDdlDialects.length);
+    }
+
+    public boolean isAllowDestructiveChanges() {
+        return allowDestructiveChanges;
+    }
+
+    public void setAllowDestructiveChanges(
+        final boolean allowDestructiveChanges) {
+        this.allowDestructiveChanges = allowDestructiveChanges;
+    }
+
+}
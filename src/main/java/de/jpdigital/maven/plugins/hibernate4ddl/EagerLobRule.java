@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.mapping.Component;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.SimpleValue;
+import org.hibernate.type.BlobType;
+import org.hibernate.type.ClobType;
+import org.hibernate.type.NClobType;
+import org.hibernate.type.Type;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reports {@code @Lob} properties whose content is loaded together with the
+ * entity, for example a {@code String} or a {@code byte[]} mapped to a CLOB
+ * or a BLOB. The content is read each time the entity is loaded, even if it
+ * is not used. Properties of the types {@link java.sql.Blob} and
+ * {@link java.sql.Clob} are not reported because only a locator is loaded
+ * for them.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class EagerLobRule implements MappingRule {
+
+    @Override
+    public String getId() {
+        return "eager-lob";
+    }
+
+    @Override
+    public String getDescription() {
+        return "LOB properties loaded together with the entity";
+    }
+
+    @Override
+    public LintSeverity getDefaultSeverity() {
+        return LintSeverity.WARNING;
+    }
+
+    @Override
+    public List<MappingIssue> check(final Configuration configuration) {
+        final Mapping mapping = configuration.buildMapping();
+        final List<MappingIssue> issues = new ArrayList<>();
+        final Iterator<PersistentClass> entities = configuration
+            .getClassMappings();
+        while (entities.hasNext()) {
+            final PersistentClass entity = entities.next();
+            check(entity.getEntityName(),
+                  null,
+                  entity.getPropertyIterator(),
+                  mapping,
+                  issues);
+        }
+        return issues;
+    }
+
+    private void check(final String entityName,
+                       final String prefix,
+                       final Iterator<?> properties,
+                       final Mapping mapping,
+                       final List<MappingIssue> issues) {
+        while (properties.hasNext()) {
+            final Property property = (Property) properties.next();
+            final String name = prefix == null
+                                    ? property.getName()
+                                    : prefix + "." + property.getName();
+            if (property.getValue() instanceof Component) {
+                check(entityName,
+                      name,
+                      ((Component) property.getValue()).getPropertyIterator(),
+                      mapping,
+                      issues);
+            } else if (property.getValue() instanceof SimpleValue
+                           && !property.isLazy()
+                           && isMaterializedLob(property.getType(), mapping)) {
+                issues.add(new MappingIssue(
+                    entityName,
+                    name,
+                    "The content of the LOB is loaded each time the entity "
+                        + "is loaded. Move it to a separate entity or load "
+                        + "it lazily."));
+            }
+        }
+    }
+
+    private static boolean isMaterializedLob(final Type type,
+                                             final Mapping mapping) {
+        if (type instanceof BlobType
+                || type instanceof ClobType
+                || type instanceof NClobType) {
+            return false;
+        }
+        for (final int sqlType : type.sqlTypes(mapping)) {
+            if (sqlType == Types.BLOB
+                    || sqlType == Types.CLOB
+                    || sqlType == Types.NCLOB) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
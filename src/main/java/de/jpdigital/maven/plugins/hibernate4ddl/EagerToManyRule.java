@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Collection;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reports collections which are fetched eagerly. An eagerly fetched
+ * collection is loaded each time the entity is loaded, even if it is not
+ * used, and several eager collections multiply the size of the result.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class EagerToManyRule implements MappingRule {
+
+    @Override
+    public String getId() {
+        return "eager-to-many";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Collections fetched eagerly";
+    }
+
+    @Override
+    public LintSeverity getDefaultSeverity() {
+        return LintSeverity.WARNING;
+    }
+
+    @Override
+    public List<MappingIssue> check(final Configuration configuration) {
+        final List<MappingIssue> issues = new ArrayList<>();
+        final Iterator<?> collections = configuration.getCollectionMappings();
+        while (collections.hasNext()) {
+            final Collection collection = (Collection) collections.next();
+            if (!collection.isLazy()) {
+                issues.add(new MappingIssue(
+                    collection.getOwnerEntityName(),
+                    MappingLinter.getPropertyName(collection),
+                    "The collection is fetched eagerly and loaded with each "
+                        + "instance of the entity. Use a lazy collection and "
+                        + "fetch it in the queries which need it."));
+            }
+        }
+        return issues;
+    }
+
+}
@@ -16,12 +16,10 @@
  */
 package de.jpdigital.maven.plugins.hibernate4ddl;
 
-import org.apache.maven.artifact.DependencyResolutionRequiredException;
-import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugin.logging.Log;
-import org.apache.maven.project.MavenProject;
 import org.reflections.Reflections;
 import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
 
 import java.io.File;
 import java.net.MalformedURLException;
@@ -38,7 +36,9 @@ import javax.persistence.Entity;
 
 /**
  * Helper class for finding the entity classes. An instance of this class is
- * created using the {@link #forPackage(MavenProject, Log, String)} method.
+ * created using the {@link #forPackage(ClassLoader, String)} method. The
+ * class does not depend on the Maven API because it is also used in a forked
+ * JVM (see {@link ForkedGeneratorMain}).
  *
  * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
  */
@@ -51,60 +51,71 @@ final class EntityFinder {
     }
 
     /**
-     * Creates an {@code EntityFinder} for the provided package.
+     * Creates an {@code EntityFinder} for the provided package using a class
+     * loader created by {@link #createClassLoader(List, GenerationLog)}. If
+     * several packages are scanned the class loader should be created only
+     * once.
      *
-     * @param project     The Maven project in which the calling Mojo is
-     *                    executed. Can be {@code null}.
-     * @param log         An Maven log object for creating output.
+     * @param classLoader The class loader to use for finding the package.
+     *                    Can be {@code null}, in this case the default class
+     *                    loaders are used.
      * @param packageName The name of the package in the class should look for
      *                    entities.
      *
      * @return An {@code EntityFinder} instance.
-     *
-     * @throws MojoFailureException If the {@link Reflections} instance needed
-     *                              by the {@code EntityFinder} can't be
-     *                              created.
      */
-    public static EntityFinder forPackage(final MavenProject project,
-                                          final Log log,
-                                          final String packageName)
-        throws MojoFailureException {
-        final Reflections reflections;
-        if (project == null) {
-            reflections = new Reflections(
-                ClasspathHelper.forPackage(packageName));
+    public static EntityFinder forPackage(final ClassLoader classLoader,
+                                          final String packageName) {
+        final ConfigurationBuilder configuration = new ConfigurationBuilder();
+        if (classLoader == null) {
+            configuration.setUrls(ClasspathHelper.forPackage(packageName));
         } else {
-            final List<String> classPathElems;
-            try {
-                classPathElems = project.getCompileClasspathElements();
-            } catch (DependencyResolutionRequiredException ex) {
-                throw new MojoFailureException(
-                    "Failed to resolve project classpath.", ex);
-            }
-            final List<URL> classPathUrls = new ArrayList<>();
-            for (final String classPathElem : classPathElems) {
-                log.info(String
-                    .format("Adding classpath elemement '%s'...", classPathElem));
-                classPathUrls.add(classPathElemToUrl(classPathElem));
-            }
-
-            log.info("Classpath URLs:");
-            for (final URL url : classPathUrls) {
-                log.info(String.format("\t%s", url.toString()));
-            }
-
-            //Here we have to do some classloader magic to ensure that the Reflections instance
-            //uses the correct class loader. Which is the one which has access to the compiled 
-            //classes
-            final ClassLoader classLoader = AccessController.doPrivileged(
-                new ClassLoaderCreator(classPathUrls));
-
-            reflections = new Reflections(
-                ClasspathHelper.forPackage(packageName, classLoader));
+            configuration.setUrls(ClasspathHelper.forPackage(packageName,
+                                                             classLoader));
+        }
+        //The URLs are the roots of the classpath elements containing the
+        //package. Without a filter all classes in these elements would be
+        //scanned. The trailing dot excludes packages which only start with
+        //the name of the package.
+        configuration.filterInputsBy(new FilterBuilder().includePackage(
+            packageName + "."));
+
+        return new EntityFinder(new Reflections(configuration));
+    }
 
+    /**
+     * Creates a class loader for the compile classpath of the project and
+     * sets it as context class loader of the current thread.
+     *
+     * @param classPathElems The elements of the classpath of the project.
+     * @param log            The log to use.
+     *
+     * @return The class loader.
+     *
+     * @throws DdlGenerationException If one of the classpath elements can't
+     *                                be converted to an URL.
+     */
+    public static ClassLoader createClassLoader(
+        final List<String> classPathElems,
+        final GenerationLog log)
+        throws DdlGenerationException {
+        final List<URL> classPathUrls = new ArrayList<>();
+        for (final String classPathElem : classPathElems) {
+            log.info(String
+                .format("Adding classpath elemement '%s'...", classPathElem));
+            classPathUrls.add(classPathElemToUrl(classPathElem));
         }
 
-        return new EntityFinder(reflections);
+        log.info("Classpath URLs:");
+        for (final URL url : classPathUrls) {
+            log.info(String.format("\t%s", url.toString()));
+        }
+
+        //Here we have to do some classloader magic to ensure that the Reflections instance
+        //uses the correct class loader. Which is the one which has access to the compiled 
+        //classes
+        return AccessController.doPrivileged(
+            new ClassLoaderCreator(classPathUrls));
     }
 
     /**
@@ -116,8 +127,6 @@ final class EntityFinder {
      *
      * @param packageName   The packages in which the entities are found.
      * @param entityClasses A set in which the entity classes are stored.
-     *
-     * @throws MojoFailureException if something goes wrong in the method.
      */
     public Set<Class<?>> findEntities() {
         final Set<Class<?>> entityClasses = new HashSet<>();
@@ -139,16 +148,16 @@ final class EntityFinder {
      *
      * @return A URL for the package.
      *
-     * @throws MojoFailureException If something goes wrong.
+     * @throws DdlGenerationException If something goes wrong.
      */
     private static URL classPathElemToUrl(final String classPathElem) throws
-        MojoFailureException {
+        DdlGenerationException {
         final File file = new File(classPathElem);
         final URL url;
         try {
             url = file.toURI().toURL();
         } catch (MalformedURLException ex) {
-            throw new MojoFailureException(
+            throw new DdlGenerationException(
                 String.format(
                     "Failed to convert classpath element '%s' to an URL.",
                     classPathElem),
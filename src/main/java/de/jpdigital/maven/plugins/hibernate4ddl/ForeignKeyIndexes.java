@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Constraint;
+import org.hibernate.mapping.ForeignKey;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Table;
+import org.hibernate.mapping.UniqueKey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Adds an index for each foreign key of the mapped tables. Hibernate
+ * creates the foreign keys but no indexes for the referencing columns. Most
+ * databases, for example PostgreSQL and Oracle, don't create these indexes
+ * automatically. Without them, deleting or updating a referenced row scans
+ * the referencing table and may lock it.
+ *
+ * No index is added if the columns of the foreign key are already the
+ * leading columns of the primary key, of a unique key or of another index
+ * of the table. The names of the indexes are derived from the names of the
+ * table and the columns in the same way as Hibernate derives the names of
+ * foreign keys and unique keys, therefore they are the same in each run.
+ *
+ * Tables of entities (and the join tables of their collections) can be
+ * excluded using the name of the entity (the simple or fully qualified
+ * class name or the JPA entity name) or the name of the table.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ForeignKeyIndexes {
+
+    /**
+     * Prefix of the names of the generated indexes.
+     */
+    static final String PREFIX = "IDX_";
+
+    private final transient Set<String> excludes = new HashSet<>();
+    private final transient Set<String> indexNames = new TreeSet<>();
+
+    /**
+     * Creates an instance.
+     *
+     * @param excludes The names of entities or tables for which no indexes
+     *                 are added.
+     */
+    ForeignKeyIndexes(final java.util.Collection<String> excludes) {
+        for (final String exclude : excludes) {
+            this.excludes.add(exclude.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Adds the missing indexes to the tables of a configuration. The method
+     * can be called several times for the same configuration, indexes are
+     * only added once.
+     *
+     * @param configuration The configuration. The foreign keys must have
+     *                      been created, which is the case after the second
+     *                      pass compile of the configuration.
+     */
+    void addIndexes(final Configuration configuration) {
+        final Set<Table> excludedTables = findExcludedTables(configuration);
+
+        final Iterator<Table> tables = configuration.getTableMappings();
+        while (tables.hasNext()) {
+            final Table table = tables.next();
+            if (!table.isPhysicalTable()
+                    || excludedTables.contains(table)
+                    || isExcluded(table.getName())) {
+                continue;
+            }
+
+            final List<ForeignKey> foreignKeys = new ArrayList<>();
+            final Iterator<?> iterator = table.getForeignKeyIterator();
+            while (iterator.hasNext()) {
+                foreignKeys.add((ForeignKey) iterator.next());
+            }
+            for (final ForeignKey foreignKey : foreignKeys) {
+                if (!foreignKey.isPhysicalConstraint()
+                        || isCovered(table, getColumns(foreignKey))) {
+                    continue;
+                }
+                final List<Column> columns = getColumns(foreignKey);
+                final String name = Constraint.generateName(PREFIX,
+                                                            table,
+                                                            columns);
+                final Index index = table.getOrCreateIndex(name);
+                for (final Column column : columns) {
+                    index.addColumn(column);
+                }
+                indexNames.add(name);
+            }
+        }
+    }
+
+    /**
+     * @return The names of the indexes added by this instance.
+     */
+    Set<String> getIndexNames() {
+        return Collections.unmodifiableSet(indexNames);
+    }
+
+    private boolean isExcluded(final String name) {
+        return name != null && excludes.contains(name.toLowerCase(
+            Locale.ROOT));
+    }
+
+    private Set<Table> findExcludedTables(final Configuration configuration) {
+        final Set<Table> result = new HashSet<>();
+        if (excludes.isEmpty()) {
+            return result;
+        }
+
+        final Set<PersistentClass> excludedEntities = new HashSet<>();
+        final Iterator<PersistentClass> classes = configuration
+            .getClassMappings();
+        while (classes.hasNext()) {
+            final PersistentClass entity = classes.next();
+            final String className = entity.getClassName();
+            if (isExcluded(entity.getEntityName())
+                    || isExcluded(entity.getJpaEntityName())
+                    || isExcluded(className)
+                    || (className != null && isExcluded(className.substring(
+                        className.lastIndexOf('.') + 1)))) {
+                excludedEntities.add(entity);
+                result.add(entity.getTable());
+            }
+        }
+
+        final Iterator<?> collections = configuration.getCollectionMappings();
+        while (collections.hasNext()) {
+            final Collection collection = (Collection) collections.next();
+            if (excludedEntities.contains(collection.getOwner())) {
+                result.add(collection.getCollectionTable());
+            }
+        }
+
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Column> getColumns(final ForeignKey foreignKey) {
+        return (List<Column>) foreignKey.getColumns();
+    }
+
+    /**
+     * Checks if the columns are the leading columns of the primary key, a
+     * unique key or an index of the table. The order of the columns is not
+     * relevant.
+     */
+    static boolean isCovered(final Table table,
+                                     final List<Column> columns) {
+        if (table.hasPrimaryKey() && isLeading(
+            table.getPrimaryKey().getColumnIterator(), columns)) {
+            return true;
+        }
+        if (columns.size() == 1 && columns.get(0).isUnique()) {
+            return true;
+        }
+        final Iterator<UniqueKey> uniqueKeys = table.getUniqueKeyIterator();
+        while (uniqueKeys.hasNext()) {
+            if (isLeading(uniqueKeys.next().getColumnIterator(), columns)) {
+                return true;
+            }
+        }
+        final Iterator<Index> indexes = table.getIndexIterator();
+        while (indexes.hasNext()) {
+            if (isLeading(indexes.next().getColumnIterator(), columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLeading(final Iterator<Column> keyColumns,
+                                     final List<Column> columns) {
+        final Set<Column> leading = new HashSet<>();
+        while (keyColumns.hasNext() && leading.size() < columns.size()) {
+            leading.add(keyColumns.next());
+        }
+        return leading.size() == columns.size()
+                   && leading.containsAll(columns);
+    }
+
+}
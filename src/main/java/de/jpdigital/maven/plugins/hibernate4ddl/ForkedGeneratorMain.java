@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Entry point of the JVM forked by the {@code gen-ddl} goal if {@code fork}
+ * is set to {@code true} (see {@link ForkedGeneratorProcess}).
+ *
+ * The forked JVM reads the paths of request files from {@code stdin}, one
+ * path per line. For each request the generation is executed using the
+ * {@link DdlGenerator} and the measurements are written to the result file
+ * named in the request. After that {@link #DONE} is written to
+ * {@code stdout}. All other output, including the log, is written to
+ * {@code stderr}. The JVM terminates when {@code stdin} is closed, therefore
+ * one JVM can be used for several executions of the goal.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ForkedGeneratorMain {
+
+    /**
+     * Written to {@code stdout} when a request has been processed.
+     */
+    static final String DONE = "DONE";
+
+    static final String CLASSPATH = "classpath";
+    static final String RESULT_FILE = "resultFile";
+
+    static final String ERROR = "error";
+    static final String JVM = "jvm";
+    static final String ENTITIES = "entities";
+    static final String HEAP_DELTA_BYTES = "heapDeltaBytes";
+    static final String MEASUREMENTS = "measurements";
+    static final String MEASUREMENT = "measurement.%d.%s";
+
+    private ForkedGeneratorMain() {
+        //Nothing
+    }
+
+    public static void main(final String[] args) throws IOException {
+        //The protocol uses stdout, everything else is written to stderr.
+        final PrintStream protocol = System.out;
+        System.setOut(System.err);
+        final GenerationLog log = new StreamGenerationLog(System.err);
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+            System.in, StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        while (line != null) {
+            if (!line.trim().isEmpty()) {
+                processRequest(Paths.get(line.trim()), log);
+                protocol.println(DONE);
+                protocol.flush();
+            }
+            line = reader.readLine();
+        }
+    }
+
+    /**
+     * Processes a single request. Errors are not thrown but written to the
+     * result file.
+     *
+     * @param requestFile The request file.
+     * @param log         The log to use.
+     *
+     * @throws IOException If the request or the result file can't be read or
+     *                     written.
+     */
+    private static void processRequest(final Path requestFile,
+                                       final GenerationLog log)
+        throws IOException {
+        final Properties request = load(requestFile);
+        final GenerationReport report = new GenerationReport();
+        final Properties result = new Properties();
+
+        //Don't chain the class loaders of the requests.
+        Thread.currentThread().setContextClassLoader(
+            ClassLoader.getSystemClassLoader());
+        ClassLoader classLoader = null;
+        try {
+            final GenerationReport.Timer timer = report.start(
+                GenerationPhase.CLASSPATH, null);
+            classLoader = EntityFinder.createClassLoader(
+                DdlOptions.split(request.getProperty(CLASSPATH),
+                                 File.pathSeparator),
+                log);
+            timer.stop();
+
+            final DdlGenerator generator = new DdlGenerator(
+                log, DdlOptions.fromProperties(request));
+            generator.setClassLoader(classLoader);
+            generator.generate(report);
+        } catch (DdlGenerationException | RuntimeException ex) {
+            log.error("DDL generation failed.", ex);
+            result.setProperty(ERROR, String.valueOf(ex.getMessage()));
+        } finally {
+            Thread.currentThread().setContextClassLoader(
+                ClassLoader.getSystemClassLoader());
+            if (classLoader instanceof URLClassLoader) {
+                ((URLClassLoader) classLoader).close();
+            }
+        }
+        report.finish();
+
+        storeReport(report, result);
+        store(result, Paths.get(request.getProperty(RESULT_FILE)));
+    }
+
+    /**
+     * Creates the request for the forked JVM. The request contains the
+     * options of the generation (see {@link DdlOptions#toProperties()}), the
+     * classpath and the path of the result file.
+     *
+     * @param options        The options of the generation.
+     * @param classPathElems The classpath of the project.
+     * @param resultFile     The file to which the forked JVM writes the
+     *                       result.
+     *
+     * @return The request.
+     */
+    static Properties createRequest(final DdlOptions options,
+                                    final List<String> classPathElems,
+                                    final Path resultFile) {
+        final Properties request = options.toProperties();
+        request.setProperty(CLASSPATH,
+                            DdlOptions.join(classPathElems,
+                                            File.pathSeparator));
+        request.setProperty(RESULT_FILE, resultFile.toString());
+
+        return request;
+    }
+
+    private static void storeReport(final GenerationReport report,
+                                    final Properties result) {
+        result.setProperty(JVM, report.getJvm());
+        result.setProperty(ENTITIES,
+                           Integer.toString(report.getEntityCount()));
+        result.setProperty(HEAP_DELTA_BYTES,
+                           Long.toString(report.getHeapDeltaBytes()));
+        final List<PhaseMeasurement> measurements = report.getMeasurements();
+        result.setProperty(MEASUREMENTS,
+                           Integer.toString(measurements.size()));
+        for (int i = 0; i < measurements.size(); i++) {
+            final PhaseMeasurement measurement = measurements.get(i);
+            result.setProperty(String.format(MEASUREMENT, i, "phase"),
+                               measurement.getPhase().name());
+            if (measurement.getDialect() != null) {
+                result.setProperty(String.format(MEASUREMENT, i, "dialect"),
+                                   measurement.getDialect().name());
+            }
+            result.setProperty(String.format(MEASUREMENT, i, "wallTimeNanos"),
+                               Long.toString(measurement.getWallTimeNanos()));
+            result.setProperty(String.format(MEASUREMENT, i, "cpuTimeNanos"),
+                               Long.toString(measurement.getCpuTimeNanos()));
+            result.setProperty(String.format(MEASUREMENT, i,
+                                             "allocatedBytes"),
+                               Long.toString(measurement
+                                   .getAllocatedBytes()));
+        }
+    }
+
+    /**
+     * Adds the measurements from a result file written by the forked JVM to
+     * a report.
+     *
+     * @param result The result.
+     * @param report The report to which the measurements are added.
+     */
+    static void loadReport(final Properties result,
+                           final GenerationReport report) {
+        report.setJvm(result.getProperty(JVM, report.getJvm()));
+        report.setEntityCount(Integer.parseInt(result.getProperty(ENTITIES,
+                                                                  "0")));
+        report.addHeapDeltaBytes(Long.parseLong(result.getProperty(
+            HEAP_DELTA_BYTES, "0")));
+        final int count = Integer.parseInt(result.getProperty(MEASUREMENTS,
+                                                              "0"));
+        for (int i = 0; i < count; i++) {
+            final String dialect = result.getProperty(String.format(
+                MEASUREMENT, i, "dialect"));
+            report.addMeasurement(
+                GenerationPhase.valueOf(result.getProperty(String.format(
+                    MEASUREMENT, i, "phase"))),
+                dialect == null ? null : Dialect.valueOf(dialect),
+                Long.parseLong(result.getProperty(String.format(
+                    MEASUREMENT, i, "wallTimeNanos"))),
+                Long.parseLong(result.getProperty(String.format(
+                    MEASUREMENT, i, "cpuTimeNanos"))),
+                Long.parseLong(result.getProperty(String.format(
+                    MEASUREMENT, i, "allocatedBytes"))));
+        }
+    }
+
+    static Properties load(final Path file) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream inStream = Files.newInputStream(file)) {
+            properties.load(inStream);
+        }
+        return properties;
+    }
+
+    static void store(final Properties properties, final Path file)
+        throws IOException {
+        try (OutputStream outStream = Files.newOutputStream(file)) {
+            properties.store(outStream, null);
+        }
+    }
+
+}
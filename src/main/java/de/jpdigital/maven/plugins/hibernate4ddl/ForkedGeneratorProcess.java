@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A JVM forked for the DDL generation (see {@link ForkedGeneratorMain}). The
+ * forked JVMs are kept in a pool and reused for further generations with
+ * the same JVM arguments, for example for the next dialect or for the next
+ * module of a reactor build. The forked JVMs are terminated when the Maven
+ * JVM terminates.
+ *
+ * Usage:
+ *
+ * <pre>
+ * final ForkedGeneratorProcess process = ForkedGeneratorProcess.acquire(jvmArgs, log);
+ * try {
+ *     process.generate(generator, classPathElems, report);
+ * } finally {
+ *     process.release();
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ForkedGeneratorProcess {
+
+    private static final Map<List<String>, Deque<ForkedGeneratorProcess>> IDLE
+        = new HashMap<>();
+    private static final List<ForkedGeneratorProcess> ALL = new ArrayList<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (ForkedGeneratorProcess.class) {
+                    for (final ForkedGeneratorProcess process : ALL) {
+                        process.process.destroy();
+                    }
+                }
+            }
+
+        }, "hibernate4-ddl-fork-shutdown"));
+    }
+
+    private final transient List<String> command;
+    private final transient Process process;
+    private final transient Writer requests;
+    private final transient BufferedReader responses;
+    private volatile GenerationLog log;
+
+    private ForkedGeneratorProcess(final List<String> command,
+                                   final GenerationLog log)
+        throws IOException {
+        this.command = command;
+        this.log = log;
+        process = new ProcessBuilder(command).start();
+        requests = new OutputStreamWriter(process.getOutputStream(),
+                                                  StandardCharsets.UTF_8);
+        responses = new BufferedReader(new InputStreamReader(
+            process.getInputStream(), StandardCharsets.UTF_8));
+
+        final Thread logPump = new Thread(new LogPump(),
+                                          "hibernate4-ddl-fork-log");
+        logPump.setDaemon(true);
+        logPump.start();
+    }
+
+    /**
+     * Gets an idle forked JVM started with the provided JVM arguments or
+     * forks a new JVM if there is no idle one.
+     *
+     * @param jvmArgs The arguments for the forked JVM.
+     * @param log     The log to which the output of the forked JVM is
+     *                written.
+     *
+     * @return A forked JVM which must be returned using {@link #release()}.
+     *
+     * @throws DdlGenerationException If the JVM can't be forked.
+     */
+    static ForkedGeneratorProcess acquire(final List<String> jvmArgs,
+                                          final GenerationLog log)
+        throws DdlGenerationException {
+        final List<String> command = createCommand(jvmArgs);
+
+        synchronized (ForkedGeneratorProcess.class) {
+            final Deque<ForkedGeneratorProcess> idle = IDLE.get(command);
+            while (idle != null && !idle.isEmpty()) {
+                final ForkedGeneratorProcess process = idle.pop();
+                if (process.isAlive()) {
+                    process.log = log;
+                    log.info("Reusing forked JVM for the DDL generation.");
+                    return process;
+                } else {
+                    ALL.remove(process);
+                }
+            }
+        }
+
+        log.info(String.format(
+            "Forking JVM for the DDL generation with arguments %s.", jvmArgs));
+        final ForkedGeneratorProcess process;
+        try {
+            process = new ForkedGeneratorProcess(command, log);
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to fork JVM: %s", ex.getMessage()), ex);
+        }
+        synchronized (ForkedGeneratorProcess.class) {
+            ALL.add(process);
+        }
+        return process;
+    }
+
+    /**
+     * Returns this JVM into the pool. If the JVM has terminated it is
+     * removed from the pool.
+     */
+    void release() {
+        synchronized (ForkedGeneratorProcess.class) {
+            if (isAlive()) {
+                Deque<ForkedGeneratorProcess> idle = IDLE.get(command);
+                if (idle == null) {
+                    idle = new ArrayDeque<>();
+                    IDLE.put(command, idle);
+                }
+                idle.push(this);
+            } else {
+                ALL.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Executes the generation in the forked JVM and waits until it is
+     * finished.
+     *
+     * @param options        The options of the generation.
+     * @param classPathElems The classpath of the project.
+     * @param report         The report to which the measurements of the
+     *                       forked JVM are added.
+     *
+     * @throws DdlGenerationException If the generation fails.
+     */
+    void generate(final DdlOptions options,
+                  final List<String> classPathElems,
+                  final GenerationReport report)
+        throws DdlGenerationException {
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("maven-hibernate-ddl-fork");
+            final Path requestFile = workDir.resolve("request.properties");
+            final Path resultFile = workDir.resolve("result.properties");
+            ForkedGeneratorMain.store(ForkedGeneratorMain.createRequest(
+                options, classPathElems, resultFile), requestFile);
+
+            requests.write(requestFile.toString());
+            requests.write('\n');
+            requests.flush();
+
+            final String response = responses.readLine();
+            if (!ForkedGeneratorMain.DONE.equals(response)) {
+                process.destroy();
+                throw new DdlGenerationException(
+                    "The forked JVM terminated unexpectedly. Check the log "
+                        + "for errors and the jvmArgs parameter.");
+            }
+
+            final Properties result = ForkedGeneratorMain.load(resultFile);
+            ForkedGeneratorMain.loadReport(result, report);
+            if (result.getProperty(ForkedGeneratorMain.ERROR) != null) {
+                throw new DdlGenerationException(String.format(
+                    "DDL generation in forked JVM failed: %s",
+                    result.getProperty(ForkedGeneratorMain.ERROR)));
+            }
+        } catch (IOException ex) {
+            process.destroy();
+            throw new DdlGenerationException(
+                String.format("Failed to communicate with the forked JVM: %s",
+                              ex.getMessage()),
+                ex);
+        } finally {
+            deleteWorkDir(workDir);
+        }
+    }
+
+    private boolean isAlive() {
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException ex) {
+            return true;
+        }
+    }
+
+    private void deleteWorkDir(final Path workDir) {
+        if (workDir == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(workDir.resolve("request.properties"));
+            Files.deleteIfExists(workDir.resolve("result.properties"));
+            Files.deleteIfExists(workDir);
+        } catch (IOException ex) {
+            log.warn(String.format("Failed to delete %s: %s",
+                                   workDir.toString(),
+                                   ex.getMessage()));
+        }
+    }
+
+    /**
+     * Creates the command for forking the JVM. The forked JVM uses the same
+     * Java installation as the current JVM and the classpath of the plugin.
+     *
+     * @param jvmArgs The arguments for the forked JVM.
+     *
+     * @return The command.
+     *
+     * @throws DdlGenerationException If the classpath of the plugin can't be
+     *                                determined.
+     */
+    static List<String> createCommand(final List<String> jvmArgs)
+        throws DdlGenerationException {
+        final List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java")
+            .toString());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(pluginClassPath());
+        command.add(ForkedGeneratorMain.class.getName());
+        return command;
+    }
+
+    /**
+     * Determines the classpath of the plugin. In Maven the plugin is loaded
+     * by an {@link URLClassLoader}, otherwise (for example in tests) the
+     * classpath of the current JVM is used.
+     */
+    private static String pluginClassPath() throws DdlGenerationException {
+        final ClassLoader classLoader = ForkedGeneratorProcess.class
+            .getClassLoader();
+        if (classLoader instanceof URLClassLoader) {
+            final StringBuilder classPath = new StringBuilder();
+            for (final URL url : ((URLClassLoader) classLoader).getURLs()) {
+                if (classPath.length() > 0) {
+                    classPath.append(File.pathSeparatorChar);
+                }
+                try {
+                    classPath.append(Paths.get(url.toURI()).toString());
+                } catch (URISyntaxException | IllegalArgumentException ex) {
+                    throw new DdlGenerationException(
+                        String.format("Failed to convert classpath URL '%s' "
+                                          + "of the plugin to a path.",
+                                      url),
+                        ex);
+                }
+            }
+            return classPath.toString();
+        } else {
+            return System.getProperty("java.class.path");
+        }
+    }
+
+    /**
+     * Writes the output of the forked JVM to the log of the current
+     * generation.
+     */
+    private class LogPump implements Runnable {
+
+        @Override
+        public void run() {
+            try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getErrorStream(),
+                                      StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                while (line != null) {
+                    forward(line);
+                    line = reader.readLine();
+                }
+            } catch (IOException ex) {
+                log.warn(String.format(
+                    "Failed to read the output of the forked JVM: %s",
+                    ex.getMessage()));
+            }
+        }
+
+        private void forward(final String line) {
+            if (line.startsWith(StreamGenerationLog.WARNING)) {
+                log.warn(line.substring(StreamGenerationLog.WARNING
+                    .length()));
+            } else if (line.startsWith(StreamGenerationLog.ERROR)) {
+                log.error(line.substring(StreamGenerationLog.ERROR.length()),
+                          null);
+            } else if (line.startsWith(StreamGenerationLog.INFO)) {
+                log.info(line.substring(StreamGenerationLog.INFO.length()));
+            } else {
+                log.info(line);
+            }
+        }
+
+    }
+
+}
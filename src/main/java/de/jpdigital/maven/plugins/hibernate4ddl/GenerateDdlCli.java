@@ -0,0 +1,545 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Command line interface for generating the DDL files without Maven. The
+ * generation is done by the same {@link DdlGenerator} used by the
+ * {@code gen-ddl} goal. Example:
+ *
+ * <pre>
+ * java -jar hibernate4-ddl-maven-plugin-cli.jar \
+ *     --classpath target/classes \
+ *     --packages org.example.entities \
+ *     --dialects postgresql9,h2 \
+ *     --output target/ddl
+ * </pre>
+ *
+ * Run with {@code --help} for all options. The log is written to
+ * {@code stderr}. The exit code is {@code 0} if the generation was
+ * successful, {@code 1} if the generation failed and {@code 2} if the
+ * arguments are invalid.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class GenerateDdlCli {
+
+    /**
+     * Exit code for a successful generation.
+     */
+    public static final int EXIT_OK = 0;
+
+    /**
+     * Exit code if the generation failed.
+     */
+    public static final int EXIT_FAILURE = 1;
+
+    /**
+     * Exit code if the arguments are invalid.
+     */
+    public static final int EXIT_USAGE = 2;
+
+    private static final String SEPARATOR = ",";
+
+    private final transient PrintStream err;
+    private final transient GenerationLog log;
+
+    private final List<String> classPathElems = new ArrayList<>();
+    private final DdlOptions options = new DdlOptions();
+    private File reportFile;
+
+    private GenerateDdlCli(final PrintStream err) {
+        this.err = err;
+        log = new StreamGenerationLog(err);
+        options.setOutputDirectory(new File("."));
+    }
+
+    public static void main(final String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs the generation with the provided command line arguments. Unlike
+     * {@link #main(String[])} this method does not terminate the JVM.
+     *
+     * @param args The command line arguments.
+     *
+     * @return The exit code, one of {@link #EXIT_OK}, {@link #EXIT_FAILURE}
+     *         and {@link #EXIT_USAGE}.
+     */
+    public static int run(final String... args) {
+        final GenerateDdlCli cli = new GenerateDdlCli(System.err);
+        try {
+            if (!cli.parseArgs(args)) {
+                cli.printUsage();
+                return EXIT_OK;
+            }
+        } catch (IllegalArgumentException ex) {
+            cli.err.println(ex.getMessage());
+            cli.printUsage();
+            return EXIT_USAGE;
+        }
+
+        return cli.generate();
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args The arguments.
+     *
+     * @return {@code false} if the usage should be printed instead of
+     *         generating the DDL files.
+     *
+     * @throws IllegalArgumentException If the arguments are invalid.
+     */
+    private boolean parseArgs(final String[] args) {
+        if (args.length == 0) {
+            return false;
+        }
+
+        int index = 0;
+        while (index < args.length) {
+            final String arg = args[index];
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    return false;
+                case "--envers":
+                    options.setUseEnvers(true);
+                    break;
+                case "--audit-indexes":
+                    options.setAuditTableIndexes(true);
+                    break;
+                case "--create-drop":
+                    options.setCreateDropStatements(true);
+                    break;
+                case "--no-snapshots":
+                    options.setWriteSnapshots(false);
+                    break;
+                case "--split-phases":
+                    options.setSplitPhases(true);
+                    break;
+                case "--layers":
+                    options.setWriteLayers(true);
+                    break;
+                case "--fk-indexes":
+                    options.setForeignKeyIndexes(true);
+                    break;
+                case "--suggest-indexes":
+                    options.setSuggestIndexes(true);
+                    break;
+                case "--lint":
+                    options.setLint(true);
+                    break;
+                case "--lint-severity":
+                    index++;
+                    final Map<String, String> severities = options
+                        .getLintSeverities();
+                    severities.putAll(MappingLinter.parseSeverities(split(
+                        value(args, index), SEPARATOR)));
+                    options.setLintSeverities(severities);
+                    break;
+                case "--lint-fail-on":
+                    index++;
+                    options.setLintFailOn(MappingLinter.parseFailOn(value(
+                        args, index)));
+                    break;
+                case "--lint-report":
+                    index++;
+                    options.setLintReportDirectory(new File(value(args,
+                                                                  index)));
+                    break;
+                case "--audit-ids":
+                    options.setAuditIdGenerators(true);
+                    break;
+                case "--sequence-cache":
+                    index++;
+                    options.setSequenceCache(parseSequenceCache(value(
+                        args, index)));
+                    break;
+                case "--sequence-noorder":
+                    options.setSequenceNoOrder(true);
+                    break;
+                case "--align-columns":
+                    options.setAlignColumns(true);
+                    break;
+                case "--partition":
+                    index++;
+                    addPartitioning(value(args, index));
+                    break;
+                case "--storage":
+                    index++;
+                    addStorage(value(args, index));
+                    break;
+                case "--row-widths":
+                    options.setEstimateRowWidths(true);
+                    break;
+                case "--max-row-bytes":
+                    index++;
+                    options.setMaxRowBytes(parseBytes(arg,
+                                                      value(args, index)));
+                    break;
+                case "--max-index-key-bytes":
+                    index++;
+                    options.setMaxIndexKeyBytes(parseBytes(
+                        arg, value(args, index)));
+                    break;
+                case "--fk-index-excludes":
+                    index++;
+                    final Set<String> excludes = options
+                        .getForeignKeyIndexExcludes();
+                    excludes.addAll(split(value(args, index), SEPARATOR));
+                    options.setForeignKeyIndexExcludes(excludes);
+                    break;
+                case "--data-load-script":
+                    index++;
+                    options.setDataLoadScript(new File(value(args, index)));
+                    break;
+                case "-cp":
+                case "--classpath":
+                    index++;
+                    classPathElems.addAll(split(value(args, index),
+                                                File.pathSeparator));
+                    break;
+                case "-p":
+                case "--packages":
+                    index++;
+                    final List<String> packages = new ArrayList<>(
+                        Arrays.asList(options.getPackages()));
+                    packages.addAll(split(value(args, index), SEPARATOR));
+                    options.setPackages(packages.toArray(
+                        new String[packages.size()]));
+                    break;
+                case "-d":
+                case "--dialects":
+                    index++;
+                    final Set<Dialect> dialects = options.getDialects();
+                    for (final String dialect : split(value(args, index),
+                                                      SEPARATOR)) {
+                        dialects.add(convertDialect(dialect));
+                    }
+                    options.setDialects(dialects);
+                    break;
+                case "--online-ddl":
+                    index++;
+                    final Set<Dialect> onlineDdlDialects = options
+                        .getOnlineDdlDialects();
+                    for (final String dialect : split(value(args, index),
+                                                      SEPARATOR)) {
+                        onlineDdlDialects.add(convertDialect(dialect));
+                    }
+                    options.setOnlineDdlDialects(onlineDdlDialects);
+                    break;
+                case "--test-profile":
+                    index++;
+                    final Set<Dialect> testProfileDialects = options
+                        .getTestProfileDialects();
+                    for (final String dialect : split(value(args, index),
+                                                      SEPARATOR)) {
+                        testProfileDialects.add(convertDialect(dialect));
+                    }
+                    options.setTestProfileDialects(testProfileDialects);
+                    break;
+                case "--tenants":
+                    index++;
+                    final List<String> tenantSchemas = options
+                        .getTenantSchemas();
+                    tenantSchemas.addAll(split(value(args, index),
+                                               SEPARATOR));
+                    options.setTenantSchemas(tenantSchemas);
+                    break;
+                case "--combine-tenants":
+                    options.setCombineTenantScripts(true);
+                    break;
+                case "-o":
+                case "--output":
+                    index++;
+                    options.setOutputDirectory(new File(value(args, index)));
+                    break;
+                case "--persistence-xml":
+                    index++;
+                    options.setPersistenceXml(new File(value(args, index)));
+                    break;
+                case "--report":
+                    index++;
+                    reportFile = new File(value(args, index));
+                    break;
+                default:
+                    throw new IllegalArgumentException(String.format(
+                        "Unknown option '%s'.", arg));
+            }
+            index++;
+        }
+
+        if (options.getPackages().length == 0) {
+            throw new IllegalArgumentException("No packages set.");
+        }
+        if (options.getDialects().isEmpty()) {
+            throw new IllegalArgumentException("No dialects set.");
+        }
+        final File dataLoadScript = options.getDataLoadScript();
+        if (dataLoadScript != null && !dataLoadScript.isFile()) {
+            throw new IllegalArgumentException(String.format(
+                "Data load script '%s' does not exist.",
+                dataLoadScript.getPath()));
+        }
+        final File persistenceXml = options.getPersistenceXml();
+        if (persistenceXml != null && !persistenceXml.isFile()) {
+            throw new IllegalArgumentException(String.format(
+                "persistence.xml '%s' does not exist.",
+                persistenceXml.getPath()));
+        }
+
+        return true;
+    }
+
+    private int generate() {
+        final GenerationReport report = new GenerationReport();
+
+        final DdlGenerator generator = new DdlGenerator(log, options);
+        generator.setPrintStatements(false);
+
+        final ClassLoader contextClassLoader = Thread.currentThread()
+            .getContextClassLoader();
+        ClassLoader classLoader = null;
+        try {
+            if (!classPathElems.isEmpty()) {
+                final GenerationReport.Timer timer = report.start(
+                    GenerationPhase.CLASSPATH, null);
+                classLoader = EntityFinder.createClassLoader(classPathElems,
+                                                             log);
+                timer.stop();
+                generator.setClassLoader(classLoader);
+            }
+
+            generator.generate(report);
+        } catch (DdlGenerationException ex) {
+            log.error(String.format("DDL generation failed: %s",
+                                    ex.getMessage()),
+                      ex);
+            return EXIT_FAILURE;
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            closeClassLoader(classLoader);
+        }
+        report.finish();
+
+        log.info(report.getSummary());
+        if (reportFile != null) {
+            try {
+                report.writeTo(reportFile.toPath());
+            } catch (IOException ex) {
+                log.error(String.format("Failed to write report file %s: %s",
+                                        reportFile.getAbsolutePath(),
+                                        ex.getMessage()),
+                          ex);
+                return EXIT_FAILURE;
+            }
+        }
+
+        return EXIT_OK;
+    }
+
+    private void closeClassLoader(final ClassLoader classLoader) {
+        if (classLoader instanceof URLClassLoader) {
+            try {
+                ((URLClassLoader) classLoader).close();
+            } catch (IOException ex) {
+                log.warn(String.format("Failed to close class loader: %s",
+                                       ex.getMessage()));
+            }
+        }
+    }
+
+    private void printUsage() {
+        err.println(String.format(
+            "Usage: java %s [options]%n"
+                + "%n"
+                + "Options:%n"
+                + "  -cp, --classpath <path>    Classpath containing the "
+                + "entities, separated by '%s'%n"
+                + "  -p, --packages <packages>  Packages containing the "
+                + "entities, separated by ','%n"
+                + "  -d, --dialects <dialects>  Dialects for which DDL files "
+                + "are generated, separated by ','%n"
+                + "  -o, --output <dir>         Output directory, default is "
+                + "the current directory%n"
+                + "  --envers                   Create the tables for "
+                + "Envers%n"
+                + "  --audit-indexes            Create indexes for the "
+                + "revision columns of the Envers tables%n"
+                + "  --create-drop              Include drop statements%n"
+                + "  --no-snapshots             Don't write the schema "
+                + "snapshots%n"
+                + "  --online-ddl <dialects>    Rewrite the suggested "
+                + "indexes for these dialects into online variants%n"
+                + "  --test-profile <dialects>  Also write a test profile "
+                + "without constraints and indexes (H2, HSQL)%n"
+                + "  --tenants <schemas>        Expand the DDL into scripts "
+                + "for these tenant schemas, separated by ','%n"
+                + "  --combine-tenants          Write the scripts of all "
+                + "tenants into one file%n"
+                + "  --split-phases             Also write one file per "
+                + "phase for each dialect%n"
+                + "  --data-load-script <file>  Script copied into the data "
+                + "phase file%n"
+                + "  --layers                   Also write the statements "
+                + "ordered into dependency layers%n"
+                + "  --fk-indexes               Create indexes for the "
+                + "foreign keys%n"
+                + "  --fk-index-excludes <names> Entities or tables without "
+                + "foreign key indexes, separated by ','%n"
+                + "  --suggest-indexes          Suggest indexes for the "
+                + "named queries%n"
+                + "  --lint                     Check the mapping for "
+                + "performance problems%n"
+                + "  --lint-severity <rules>    Severities of lint rules as "
+                + "rule=severity, separated by ','%n"
+                + "  --lint-fail-on <severity>  Fail on lint issues with "
+                + "this severity or higher (default error, none)%n"
+                + "  --lint-report <dir>        Write the lint report to "
+                + "this directory%n"
+                + "  --audit-ids                Report the id generators of "
+                + "the entities%n"
+                + "  --sequence-cache <n>       Number of cached values of "
+                + "each sequence%n"
+                + "  --sequence-noorder         Create the sequences with "
+                + "noorder (Oracle, DB2)%n"
+                + "  --align-columns            Reorder the columns to reduce "
+                + "the padding (PostgreSQL)%n"
+                + "  --partition <name>=<spec>  Partition the table of an "
+                + "entity, for example events=hash(id): 8%n"
+                + "  --storage <name>=<options> Storage options of a table, "
+                + "for example *_AUD=fillfactor=90%n"
+                + "  --row-widths               Estimate the widths of the "
+                + "rows and index keys%n"
+                + "  --max-row-bytes <n>        Threshold for the row width "
+                + "(default %d)%n"
+                + "  --max-index-key-bytes <n>  Threshold for the index key "
+                + "width (default %d)%n"
+                + "  --persistence-xml <file>   Read properties from this "
+                + "persistence.xml%n"
+                + "  --report <file>            Write the JSON performance "
+                + "report to this file%n"
+                + "  -h, --help                 Print this help%n"
+                + "%n"
+                + "Available dialects: %s",
+            GenerateDdlCli.class.getName(),
+            File.pathSeparator,
+            RowWidthEstimator.DEFAULT_MAX_ROW_BYTES,
+            RowWidthEstimator.DEFAULT_MAX_INDEX_KEY_BYTES,
+            Arrays.toString(Dialect.values())));
+    }
+
+    private static String value(final String[] args, final int index) {
+        if (index >= args.length || args[index].startsWith("-")) {
+            throw new IllegalArgumentException(String.format(
+                "Option '%s' requires a value.", args[index - 1]));
+        }
+        return args[index];
+    }
+
+    private void addPartitioning(final String value) {
+        final int index = value.indexOf('=');
+        if (index <= 0) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid partitioning '%s', expected <name>=<spec>.", value));
+        }
+        final String spec = value.substring(index + 1);
+        PartitionSpec.parse(spec);
+        final Map<String, String> partitioning = options.getPartitioning();
+        partitioning.put(value.substring(0, index).trim(), spec);
+        options.setPartitioning(partitioning);
+    }
+
+    private void addStorage(final String value) {
+        final int index = value.indexOf('=');
+        if (index <= 0) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid storage options '%s', expected <name>=<options>.",
+                value));
+        }
+        final String storageOptions = value.substring(index + 1);
+        StorageOptions.parse(storageOptions);
+        final Map<String, String> storage = options.getStorage();
+        storage.put(value.substring(0, index).trim(), storageOptions);
+        options.setStorage(storage);
+    }
+
+    private static int parseSequenceCache(final String value) {
+        try {
+            final int cache = Integer.parseInt(value);
+            if (cache < 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Invalid sequence cache '%s'.", value));
+            }
+            return cache;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid sequence cache '%s'.", value), ex);
+        }
+    }
+
+    private static int parseBytes(final String option, final String value) {
+        try {
+            final int bytes = Integer.parseInt(value);
+            if (bytes <= 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Invalid value '%s' for option '%s'.", value, option));
+            }
+            return bytes;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid value '%s' for option '%s'.", value, option), ex);
+        }
+    }
+
+    private static Dialect convertDialect(final String dialect) {
+        try {
+            return Dialect.valueOf(dialect.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(String.format(
+                "Unknown dialect '%s'.", dialect), ex);
+        }
+    }
+
+    private static List<String> split(final String value,
+                                      final String separator) {
+        final List<String> values = new ArrayList<>();
+        for (final String token : value.split(Pattern.quote(
+            separator))) {
+            if (!token.trim().isEmpty()) {
+                values.add(token.trim());
+            }
+        }
+        return values;
+    }
+
+}
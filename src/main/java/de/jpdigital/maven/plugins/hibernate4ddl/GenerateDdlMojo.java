@@ -16,7 +16,6 @@
  */
 package de.jpdigital.maven.plugins.hibernate4ddl;
 
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -24,41 +23,20 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Locale;
-import java.util.Set;
-
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
+import java.util.List;
 
 import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.ResolutionScope;
-import org.apache.maven.project.MavenProject;
-import org.hibernate.HibernateException;
-import org.hibernate.cfg.Configuration;
-import org.hibernate.envers.tools.hbm2ddl.EnversSchemaGenerator;
-import org.hibernate.tool.hbm2ddl.SchemaExport;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
-
-import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 
 /**
  * Goal which creates DDL SQL files for the JPA entities in the project (using
- * the Hibernate 4 SchemaExport class}.
+ * the Hibernate 4 SchemaExport class}. The generation itself is done by the
+ * {@link DdlGenerator}, either in the JVM running Maven or in a forked JVM.
+ * The parameters of the generation are shared with the {@code watch} goal
+ * (see {@link AbstractDdlMojo}).
  *
  * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
  */
@@ -72,62 +50,70 @@ import java.util.List;
                    "PMD.NPathComplexity",
                    "PMD.StdCyclomaticComplexity",
                    "PMD.LongVariable"})
-public class GenerateDdlMojo extends AbstractMojo {
+public class GenerateDdlMojo extends AbstractDdlMojo {
 
     /**
-     * Location of the output file.
+     * File to which a JSON report with the wall time, CPU time and allocated
+     * bytes of each phase of the generation (classpath setup, scanning,
+     * binding, export and writing the files) is written. Phases which are
+     * executed for each dialect are reported per dialect. A one line summary
+     * of the report is always written to the log.
      */
-    @Parameter(defaultValue
-                   = "${project.build.directory}/generated-resources/sql/ddl/auto",
-               property = "outputDir",
-               required = true)
-    private File outputDirectory;
+    @Parameter(
+        defaultValue = "${project.build.directory}/hibernate4-ddl-report.json",
+        property = "reportFile",
+        required = false)
+    private File reportFile;
 
     /**
-     * Packages containing the entity files for which the SQL DDL scripts shall
-     * be generated.
+     * Budget for the wall time (in milliseconds) of the phases executed for
+     * each dialect (binding, export and writing the file). Not checked if not
+     * set.
      */
-    @Parameter(required = true)
-    private String[] packages;
+    @Parameter(property = "maxWallTimePerDialect", required = false)
+    private Long maxWallTimePerDialect;
 
     /**
-     * Database dialects for which create scripts shall be generated. For
-     * available dialects refer to the documentation the {@link Dialect}
-     * enumeration.
+     * Budget for the wall time (in milliseconds) of scanning the packages for
+     * entities. Not checked if not set.
      */
-    @Parameter(required = true)
-    private String[] dialects;
+    @Parameter(property = "maxScanTime", required = false)
+    private Long maxScanTime;
 
     /**
-     * Set this to <code>true</code> if you use the Envers feature of Hibernate.
-     * When set to <code>true</code> the {@code SchemaExport} implementation for
-     * Envers is used. This is necessary to create the additional tables
-     * required by Envers. Default value is {@code false}.
+     * Budget for the increase of the used heap (in MB) during the execution
+     * of the goal. Because the garbage collector may run at any time this is
+     * only a rough limit. Not checked if not set.
      */
-    @Parameter(required = false)
-    private boolean useEnvers;
+    @Parameter(property = "maxHeapDeltaMb", required = false)
+    private Long maxHeapDeltaMb;
 
     /**
-     * Set this to {@code true} to include drop statements into the generated
-     * DDL file.
+     * What to do if one of the budgets is exceeded: {@code warn} (the
+     * default) only writes a warning to the log, {@code fail} causes a build
+     * failure. In both cases the exceeded budgets are listed in the report.
      */
-    @Parameter(required = false)
-    private boolean createDropStatments;
+    @Parameter(defaultValue = "warn",
+               property = "budgetAction",
+               required = false)
+    private String budgetAction;
 
     /**
-     * The {@code persistence.xml} file to use to read properties etc. Default
-     * value is {@code src/main/resources/META-INF/persistence.xml}. If the file
-     * is not present it is ignored. If the file is present all properties set
-     * using a {@code <property>} element are set on the Hibernate
-     * configuration.
+     * Set this to {@code true} to execute the scan and the generation in a
+     * forked JVM instead of the JVM running Maven. The forked JVM is reused
+     * for all executions of the goal with the same {@link #jvmArgs}, for
+     * example for all modules of a reactor build.
      */
-    @Parameter(
-        defaultValue = "${basedir}/src/main/resources/META-INF/persistence.xml",
-        required = false)
-    private File persistenceXml;
+    @Parameter(defaultValue = "false", property = "fork", required = false)
+    private boolean fork;
 
-    @Component
-    private transient MavenProject project;
+    /**
+     * Arguments for the forked JVM, separated by whitespace, for example
+     * {@code -Xmx1g -XX:MaxMetaspaceSize=256m}. Only used if {@link #fork}
+     * is {@code true}.
+     */
+    @Parameter(property = "jvmArgs", required = false)
+    private String jvmArgs;
 
     /**
      * The Mojo's execute method.
@@ -138,417 +124,194 @@ public class GenerateDdlMojo extends AbstractMojo {
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        final File outputDir = outputDirectory;
+        //Validate the budget action before spending time on the generation.
+        final boolean failOnBudgetViolation = isFailOnBudgetViolation();
 
-        getLog().info(String.format("Generating DDL SQL files in %s.",
-                                    outputDir.getAbsolutePath()));
+        final DdlOptions options = createOptions();
+        final GenerationLog log = new MavenGenerationLog(getLog());
+        final DdlGenerator generator = new DdlGenerator(log, options);
 
-        //Check if the output directory exists.
-        if (!outputDir.exists()) {
-            final boolean result = outputDir.mkdirs();
-            if (!result) {
-                throw new MojoFailureException(
-                    "Failed to create output directory for SQL DDL files.");
+        final List<String> classPathElems = getClassPathElements(getProject());
+
+        final GenerationReport report = new GenerationReport();
+        try {
+            if (fork) {
+                final ForkedGeneratorProcess process = ForkedGeneratorProcess
+                    .acquire(splitJvmArgs(), log);
+                try {
+                    process.generate(options, classPathElems, report);
+                } finally {
+                    process.release();
+                }
+            } else {
+                //Create the class loader for the classpath of the project.
+                final GenerationReport.Timer timer = report.start(
+                    GenerationPhase.CLASSPATH, null);
+                if (!classPathElems.isEmpty()) {
+                    generator.setClassLoader(EntityFinder.createClassLoader(
+                        classPathElems, log));
+                }
+                timer.stop();
+
+                generator.generate(report);
             }
+        } catch (DdlGenerationException ex) {
+            throw new MojoFailureException(ex.getMessage(), ex);
         }
+        report.finish();
 
-        //Read the dialects from the parameter and convert them to instances of the dialect enum.
-        final Set<Dialect> dialectsList = new HashSet<>();
-        for (final String dialect : dialects) {
-            convertDialect(dialect, dialectsList);
-        }
+        final List<BudgetViolation> violations = new PerformanceBudget(
+            maxWallTimePerDialect, maxScanTime, maxHeapDeltaMb).check(report);
+        report.addBudgetViolations(violations);
 
-        //Find the entity classes in the packages.
-        final Set<Class<?>> entityClasses = new HashSet<>();
-        for (final String packageName : packages) {
-            final Set<Class<?>> packageEntities = EntityFinder.forPackage(
-                project, getLog(), packageName).findEntities();
-            entityClasses.addAll(packageEntities);
+        writeReport(report);
+        checkBudgetViolations(violations, failOnBudgetViolation);
+    }
 
-            //findEntitiesForPackage(packageName, entityClasses);
-        }
-        getLog().info(String.format("Found %d entities.",
-                                    entityClasses.size()));
+    public File getReportFile() {
+        return reportFile;
+    }
 
-        //Generate the SQL scripts
-        for (final Dialect dialect : dialectsList) {
-            generateDdl(dialect, entityClasses);
-        }
+    public void setReportFile(final File reportFile) {
+        this.reportFile = reportFile;
     }
 
-    public File getOutputDirectory() {
-        return outputDirectory;
+    public Long getMaxWallTimePerDialect() {
+        return maxWallTimePerDialect;
     }
 
-    public void setOutputDirectory(final File outputDirectory) {
-        this.outputDirectory = outputDirectory;
+    public void setMaxWallTimePerDialect(final Long maxWallTimePerDialect) {
+        this.maxWallTimePerDialect = maxWallTimePerDialect;
     }
 
-    public String[] getPackages() {
-        return Arrays.copyOf(packages, packages.length);
+    public Long getMaxScanTime() {
+        return maxScanTime;
     }
 
-    public void setPackages(final String... packages) {
-        this.packages = Arrays.copyOf(packages, packages.length);
+    public void setMaxScanTime(final Long maxScanTime) {
+        this.maxScanTime = maxScanTime;
     }
 
-    public String[] getDialects() {
-        return Arrays.copyOf(dialects, dialects.length);
+    public Long getMaxHeapDeltaMb() {
+        return maxHeapDeltaMb;
     }
 
-    public void setDialects(final String... dialects) {
-        this.dialects = Arrays.copyOf(dialects, dialects.length);
+    public void setMaxHeapDeltaMb(final Long maxHeapDeltaMb) {
+        this.maxHeapDeltaMb = maxHeapDeltaMb;
     }
 
-    public boolean isUseEnvers() {
-        return useEnvers;
+    public boolean isFork() {
+        return fork;
     }
 
-    public void setUseEnvers(final boolean useEnvers) {
-        this.useEnvers = useEnvers;
+    public void setFork(final boolean fork) {
+        this.fork = fork;
     }
 
-    public boolean isCreateDropStatments() {
-        return createDropStatments;
+    public String getJvmArgs() {
+        return jvmArgs;
     }
 
-    public void setCreateDropStatements(final boolean createDropStatments) {
-        this.createDropStatments = createDropStatments;
+    public void setJvmArgs(final String jvmArgs) {
+        this.jvmArgs = jvmArgs;
     }
 
-    public File getPersistenceXml() {
-        return persistenceXml;
+    public String getBudgetAction() {
+        return budgetAction;
     }
 
-    public void setPersistenceXml(final File persistenceXml) {
-        this.persistenceXml = persistenceXml;
+    public void setBudgetAction(final String budgetAction) {
+        this.budgetAction = budgetAction;
     }
 
     /**
-     * Helper method for converting the dialects from {@code String} to
-     * instances of the {@link Dialect} enumeration.
-     *
-     * @param dialect      The dialect to convert.
-     * @param dialectsList The lists of dialects where the converted dialect is
-     *                     stored.
+     * Splits the {@link #jvmArgs} at whitespace.
      *
-     * @throws MojoFailureException If the dialect string could not be
-     *                              converted, for example if it is misspelled.
-     *                              This will cause a {@code Build Failure}
+     * @return The arguments for the forked JVM.
      */
-    private void convertDialect(final String dialect,
-                                final Set<Dialect> dialectsList)
-        throws MojoFailureException {
-
-        try {
-            dialectsList.add(Dialect
-                .valueOf(dialect.toUpperCase(Locale.ENGLISH)));
-        } catch (IllegalArgumentException ex) {
-            final StringBuffer buffer = new StringBuffer();
-            for (final Dialect avilable : Dialect.values()) {
-                buffer.append(avilable.toString()).append('\n');
-            }
-
-            throw new MojoFailureException(
-                String.format(
-                    "Can't convert the configured dialect '%s' to a dialect classname. "
-                    + "Available dialects are:%n"
-                        + "%s",
-                    dialect,
-                    buffer.toString()),
-                ex);
+    private List<String> splitJvmArgs() {
+        final List<String> args = new ArrayList<>();
+        if (jvmArgs != null && !jvmArgs.trim().isEmpty()) {
+            args.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
         }
+        return args;
     }
 
     /**
-     * Helper method for generating the DDL classes for a specific dialect. This
-     * is place for the real work is done. The method first creates an instance
-     * of the {@link Configuration} class from Hibernate an puts the appropriate
-     * values into it. It then creates an instance of the {@link SchemaExport}
-     * class from the Hibernate API, configured this class, for example by
-     * setting {@code format} to {@code true} so that the generated SQL files
-     * are formatted nicely. After that it calls the
-     * {@link SchemaExport#execute(boolean, boolean, boolean, boolean)} method
-     * which will create the SQL script file. The method is called in a way
-     * which requires <em>no</em> database connection.
+     * Helper method for parsing {@link #budgetAction}.
      *
+     * @return {@code true} if the build should fail if a budget is exceeded,
+     *         {@code false} if only a warning should be written.
      *
-     * @param dialect       The dialect for which the DDL files is generated.
-     * @param entityClasses The entity classes for which the DDL file is
-     *                      generated.
-     *
-     * @throws MojoFailureException if something goes wrong.
+     * @throws MojoFailureException If the value of {@link #budgetAction} is
+     *                              invalid.
      */
-    private void generateDdl(final Dialect dialect,
-                             final Set<Class<?>> entityClasses)
-        throws MojoFailureException {
-
-        final Configuration configuration = new Configuration() {
-
-            private static final long serialVersionUID = 8818333354983681885L;
-
-            @Override
-            public String[] generateSchemaCreationScript(
-                final org.hibernate.dialect.Dialect dialect)
-                throws HibernateException {
-                final List<String> statements = new ArrayList<>();
-                statements.addAll(Arrays.asList(super
-                    .generateSchemaCreationScript(dialect)));
-
-                final List<String> beforeTablesStatements = new ArrayList<>();
-                final Iterator<String> iterator = statements.iterator();
-                while (iterator.hasNext()) {
-                    final String statement = iterator.next().toLowerCase();
-                    if (statement.startsWith("create schema") || statement
-                        .startsWith("create domain")) {
-                        beforeTablesStatements.add(statement);
-                        iterator.remove();
-                    }
-                }
-
-                for (String beforeTablesStatement : beforeTablesStatements) {
-                    statements.add(0, beforeTablesStatement);
-                }
-
-                return statements.toArray(new String[statements.size()]);
-            }
-
-        };
-
-        processPersistenceXml(configuration);
-
-        if (createDropStatments) {
-            configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+    private boolean isFailOnBudgetViolation() throws MojoFailureException {
+        if (budgetAction == null || "warn".equalsIgnoreCase(budgetAction)) {
+            return false;
+        } else if ("fail".equalsIgnoreCase(budgetAction)) {
+            return true;
         } else {
-            configuration.setProperty("hibernate.hbm2ddl.auto", "create");
-        }
-
-        for (final Class<?> entityClass : entityClasses) {
-            configuration.addAnnotatedClass(entityClass);
-        }
-
-        configuration
-            .setProperty("hibernate.dialect", dialect.getDialectClass());
-
-        final SchemaExport export;
-        if (useEnvers) {
-            export = new EnversSchemaGenerator(configuration).export();
-        } else {
-            export = new SchemaExport(configuration);
-        }
-        export.setDelimiter(";");
-
-        final Path tmpDir;
-        try {
-            tmpDir = Files.createTempDirectory(
-                "maven-hibernate-ddl-plugin");
-        } catch (IOException ex) {
-            throw new MojoFailureException("Failed to create work dir.", ex);
-        }
-        export.setOutputFile(String.format(
-            "%s/%s.sql",
-            tmpDir.toString(),
-            dialect.name().toLowerCase(
-                Locale.ENGLISH)));
-        export.setFormat(true);
-        if (createDropStatments) {
-            export.execute(true, false, false, false);
-        } else {
-            export.execute(true, false, false, true);
-        }
-
-        writeOutputFile(dialect, tmpDir);
-    }
-
-    private void processPersistenceXml(final Configuration configuration) {
-        if (persistenceXml != null) {
-            getLog()
-                .info("persistence.xml available, locking for properties...");
-
-            try (InputStream inStream = new FileInputStream(persistenceXml)) {
-                final SAXParser parser;
-
-                parser = SAXParserFactory.newInstance().newSAXParser();
-
-                parser.parse(inStream, new PersistenceXmlHandler(configuration));
-            } catch (IOException ex) {
-                getLog().error(
-                    "Failed to open persistence.xml. Not processing properties.",
-                    ex);
-            } catch (ParserConfigurationException | SAXException ex) {
-                getLog().error(
-                    "Error parsing persistence.xml. Not processing properties",
-                    ex);
-            }
-        }
-    }
-
-    private class PersistenceXmlHandler extends DefaultHandler {
-
-        private final transient Configuration configuration;
-
-        public PersistenceXmlHandler(final Configuration configuration) {
-            this.configuration = configuration;
+            throw new MojoFailureException(String.format(
+                "Invalid budgetAction '%s'. Valid values are 'warn' and "
+                    + "'fail'.",
+                budgetAction));
         }
-
-        @Override
-        public void startElement(final String uri,
-                                 final String localName,
-                                 final String qName,
-                                 final Attributes attributes) {
-            getLog().info(String.format(
-                "Found element with uri = '%s', localName = '%s', qName = '%s'...",
-                uri,
-                localName,
-                qName));
-
-            if ("property".equals(qName)) {
-                final String propertyName = attributes.getValue("name");
-                final String propertyValue = attributes.getValue("value");
-
-                if (propertyName != null && !propertyName.isEmpty()
-                        && propertyValue != null && !propertyValue.isEmpty()) {
-                    getLog().info(String.format(
-                        "Found property %s = %s in persistence.xml",
-                        propertyName,
-                        propertyValue));
-                    configuration.setProperty(propertyName, propertyValue);
-                }
-            }
-        }
-
     }
 
     /**
-     * Helper method for writing the output files if necessary. The
-     * {@link #generateDdl(Dialect, Set)} method writes the output to temporary
-     * files. This method checks of the output files have changed and copies the
-     * files if necessary.
+     * Helper method for dealing with exceeded performance budgets. Each
+     * violation is written to the log as warning. If {@code fail} is
+     * {@code true} a {@link MojoFailureException} is thrown.
+     *
+     * @param violations The exceeded budgets.
+     * @param fail       Whether exceeded budgets should fail the build.
+     *
+     * @throws MojoFailureException If budgets were exceeded and {@code fail}
+     *                              is {@code true}.
      */
-    private void writeOutputFile(final Dialect dialect,
-                                 final Path tmpDir)
+    private void checkBudgetViolations(final List<BudgetViolation> violations,
+                                       final boolean fail)
         throws MojoFailureException {
-//        final Path outputDir = outputDirectory.toPath();
-//        if (Files.exists(outputDir)) {
-//            if (!Files.isDirectory(outputDir)) {
-//                throw new MojoFailureException("A file with the name of the "
-//                                                   + "output directory already "
-//                                                   + "exists but is not a "
-//                                                   + "directory.");
-//            }
-//        } else {
-//            try {
-//                Files.createDirectory(outputDir);
-//            } catch (IOException ex) {
-//                throw new MojoFailureException(
-//                    String.format("Failed to create the output directory: %s",
-//                                  ex.getMessage()),
-//                    ex);
-//            }
-//        }
-
-        createOutputDir();
-
-//        final String dirPath;
-//        if (outputDirectory.getAbsolutePath().endsWith("/")) {
-//            dirPath = outputDirectory.getAbsolutePath().substring(
-//                0, outputDirectory.getAbsolutePath().length());
-//        } else {
-//            dirPath = outputDirectory.getAbsolutePath();
-//        }
-//
-//        final Path outputFilePath = Paths.get(String.format(
-//            "%s/%s.sql", dirPath, dialect.name().toLowerCase(Locale.ENGLISH)));
-        final Path outputFilePath = createOutputFilePath(dialect);
-        final Path tmpFilePath = Paths.get(String.format(
-            "%s/%s.sql",
-            tmpDir.toString(),
-            dialect.name().toLowerCase(
-                Locale.ENGLISH)));
-
-        if (Files.exists(outputFilePath)) {
-
-            final String outputFileData;
-            final String tmpFileData;
-            try {
-                outputFileData = new String(
-                    Files.readAllBytes(outputFilePath),
-                    Charset.forName("UTF-8"));
-                tmpFileData = new String(
-                    Files.readAllBytes(tmpFilePath),
-                    Charset.forName("UTF-8"));
-            } catch (IOException ex) {
-                throw new MojoFailureException(
-                    String.format("Failed to check if DDL file content has "
-                                      + "changed: %s",
-                                  ex.getMessage()),
-                    ex);
-            }
+        for (final BudgetViolation violation : violations) {
+            getLog().warn(violation.toString());
+        }
 
-            try {
-                if (!tmpFileData.equals(outputFileData)) {
-                    Files.deleteIfExists(outputFilePath);
-                    Files.copy(tmpFilePath, outputFilePath);
-                }
-            } catch (IOException ex) {
-                throw new MojoFailureException(
-                    String.format("Failed to copy DDL file content from tmp "
-                                      + "file to output file: %s",
-                                  ex.getMessage()),
-                    ex);
-            }
-        } else {
-            try {
-                Files.copy(tmpFilePath, outputFilePath);
-            } catch (IOException ex) {
-                throw new MojoFailureException(
-                    String.format("Failed to copy tmp file to output file: %s",
-                                  ex.getMessage()),
-                    ex);
+        if (fail && !violations.isEmpty()) {
+            final StringBuilder buffer = new StringBuilder();
+            for (final BudgetViolation violation : violations) {
+                buffer.append(violation.toString()).append('\n');
             }
+            throw new MojoFailureException(String.format(
+                "%d performance budget(s) exceeded:%n%s",
+                violations.size(),
+                buffer.toString()));
         }
     }
 
     /**
-     * Helper for creating the output directory if it does not exist.
+     * Writes the summary of the report to the log and the report itself to
+     * the {@link #reportFile} if the report file is set.
      *
-     * @return A {@link Path} object describing the output directory.
+     * @param report The report to write.
      *
-     * @throws MojoFailureException If The creation of the output directory
-     *                              fails.
+     * @throws MojoFailureException If the report file can't be written.
      */
-    private void createOutputDir() throws MojoFailureException {
-        final Path outputDir = outputDirectory.toPath();
-        if (Files.exists(outputDir)) {
-            if (!Files.isDirectory(outputDir)) {
-                throw new MojoFailureException("A file with the name of the "
-                                                   + "output directory already "
-                                                   + "exists but is not a "
-                                                   + "directory.");
-            }
-        } else {
+    private void writeReport(final GenerationReport report)
+        throws MojoFailureException {
+        getLog().info(report.getSummary());
+
+        if (reportFile != null) {
             try {
-                Files.createDirectory(outputDir);
+                report.writeTo(reportFile.toPath());
             } catch (IOException ex) {
                 throw new MojoFailureException(
-                    String.format("Failed to create the output directory: %s",
+                    String.format("Failed to write report file %s: %s",
+                                  reportFile.getAbsolutePath(),
                                   ex.getMessage()),
                     ex);
             }
         }
     }
 
-    private Path createOutputFilePath(final Dialect dialect) {
-        final String dirPath;
-        if (outputDirectory.getAbsolutePath().endsWith("/")) {
-            dirPath = outputDirectory.getAbsolutePath().substring(
-                0, outputDirectory.getAbsolutePath().length());
-        } else {
-            dirPath = outputDirectory.getAbsolutePath();
-        }
-
-        return Paths.get(String.format(
-            "%s/%s.sql", dirPath, dialect.name().toLowerCase(Locale.ENGLISH)));
-    }
-
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+/**
+ * Minimal logging interface used by the {@link DdlGenerator}. The generator
+ * does not use the Maven {@code Log} directly because it also runs outside of
+ * Maven, for example in a forked JVM (see {@link ForkedGeneratorMain}) where
+ * the Maven API is not available.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+interface GenerationLog {
+
+    void info(String message);
+
+    void warn(String message);
+
+    void error(String message, Throwable cause);
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+/**
+ * The phases of the DDL generation which are measured and reported by the
+ * {@link GenerationReport}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+enum GenerationPhase {
+
+    /**
+     * Resolving the classpath of the project and creating the class loader.
+     */
+    CLASSPATH("classpath"),
+    /**
+     * Scanning the packages for entity classes.
+     */
+    SCAN("scan"),
+    /**
+     * Creating the Hibernate {@code Configuration} and binding the
+     * annotations of the entities (per dialect).
+     */
+    BINDING("binding"),
+    /**
+     * Rendering the DDL statements using {@code SchemaExport} (per dialect).
+     */
+    EXPORT("export"),
+    /**
+     * Comparing and writing the output files (per dialect).
+     */
+    WRITE("write");
+
+    private final String label;
+
+    private GenerationPhase(final String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return The label of the phase as used in the report and the log.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+}
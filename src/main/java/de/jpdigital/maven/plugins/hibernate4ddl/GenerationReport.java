@@ -0,0 +1,557 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the wall time, CPU time and allocated bytes of the phases of the
+ * DDL generation. The values are measured for the current thread, which is
+ * fine because the generation runs in a single thread. The report can be
+ * written as JSON file ({@link #writeTo(Path)}) and provides a one line
+ * summary for the log ({@link #getSummary()}). If the JVM supports Java
+ * Flight Recorder each measured phase also emits a JFR event (see
+ * {@link JfrPhaseEvents}).
+ *
+ * A phase is measured like this:
+ *
+ * <pre>
+ * final GenerationReport.Timer timer = report.start(GenerationPhase.SCAN, null);
+ * ...
+ * timer.stop();
+ * </pre>
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class GenerationReport {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+    private static final boolean JFR_AVAILABLE
+                                             = JfrPhaseEvents.isAvailable();
+
+    private final transient ThreadMXBean threadBean;
+    private final transient boolean cpuTimeSupported;
+    private final transient boolean allocationSupported;
+
+    private final Map<String, PhaseMeasurement> measurements
+                                                    = new LinkedHashMap<>();
+    private final List<Dialect> dialects = new ArrayList<>();
+    private final List<BudgetViolation> budgetViolations = new ArrayList<>();
+    private int entityCount;
+    private final transient MemoryMXBean memoryBean;
+    private final long heapUsedAtStart;
+    private long heapUsedAtEnd;
+    private long forkedHeapDeltaBytes;
+    private String jvm;
+
+    /**
+     * Creates a new report. The used heap is recorded when the report is
+     * created and when {@link #finish()} is called.
+     */
+    GenerationReport() {
+        memoryBean = ManagementFactory.getMemoryMXBean();
+        heapUsedAtStart = memoryBean.getHeapMemoryUsage().getUsed();
+        heapUsedAtEnd = heapUsedAtStart;
+        threadBean = ManagementFactory.getThreadMXBean();
+        cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported()
+                               && threadBean.isThreadCpuTimeEnabled();
+        allocationSupported = isAllocationSupported(threadBean);
+        jvm = ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    private static boolean isAllocationSupported(final ThreadMXBean bean) {
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunBean
+                                                      = (com.sun.management.ThreadMXBean) bean;
+            return sunBean.isThreadAllocatedMemorySupported()
+                       && sunBean.isThreadAllocatedMemoryEnabled();
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Starts the measurement of a phase.
+     *
+     * @param phase   The phase to measure.
+     * @param dialect The dialect for which the phase is executed or
+     *                {@code null} if the phase is not specific for a dialect.
+     *
+     * @return A timer which must be stopped when the phase is finished.
+     */
+    Timer start(final GenerationPhase phase, final Dialect dialect) {
+        if (dialect != null && !dialects.contains(dialect)) {
+            dialects.add(dialect);
+        }
+        return new Timer(phase, dialect);
+    }
+
+    void setEntityCount(final int entityCount) {
+        this.entityCount = entityCount;
+    }
+
+    int getEntityCount() {
+        return entityCount;
+    }
+
+    /**
+     * Records the used heap at the end of the generation.
+     */
+    void finish() {
+        heapUsedAtEnd = memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return The difference between the heap used when the report was
+     *         created and the heap used when {@link #finish()} was called,
+     *         plus the heap deltas added by {@link #addHeapDeltaBytes(long)}.
+     *         Because the garbage collector may run at any time this is only
+     *         a rough indicator.
+     */
+    long getHeapDeltaBytes() {
+        return heapUsedAtEnd - heapUsedAtStart + forkedHeapDeltaBytes;
+    }
+
+    /**
+     * Adds the heap delta of a generation executed in another JVM (see
+     * {@link ForkedGeneratorMain}) to the heap delta of this report.
+     *
+     * @param heapDeltaBytes The heap delta in the other JVM.
+     */
+    void addHeapDeltaBytes(final long heapDeltaBytes) {
+        forkedHeapDeltaBytes += heapDeltaBytes;
+    }
+
+    /**
+     * @return The name of the JVM which executed the generation, usually
+     *         {@code <pid>@<hostname>}. If the generation was executed in a
+     *         forked JVM (see {@link ForkedGeneratorMain}) this is the name
+     *         of the forked JVM, which is the same for all generations
+     *         executed by a reused JVM.
+     */
+    String getJvm() {
+        return jvm;
+    }
+
+    void setJvm(final String jvm) {
+        this.jvm = jvm;
+    }
+
+    /**
+     * Adds measured values to the report. Values for a phase and dialect
+     * which has already been measured are added to the existing values.
+     * Usually called by {@link Timer#stop()}, but also used to add the
+     * measurements of a generation executed in another JVM.
+     *
+     * @param phase          The phase.
+     * @param dialect        The dialect or {@code null}.
+     * @param wallTimeNanos  The wall time.
+     * @param cpuTimeNanos   The CPU time or
+     *                       {@link PhaseMeasurement#NOT_AVAILABLE}.
+     * @param allocatedBytes The allocated bytes or
+     *                       {@link PhaseMeasurement#NOT_AVAILABLE}.
+     */
+    void addMeasurement(final GenerationPhase phase,
+                        final Dialect dialect,
+                        final long wallTimeNanos,
+                        final long cpuTimeNanos,
+                        final long allocatedBytes) {
+        if (dialect != null && !dialects.contains(dialect)) {
+            dialects.add(dialect);
+        }
+        final String key = String.format("%s:%s",
+                                         phase.name(),
+                                         dialectName(dialect));
+        PhaseMeasurement measurement = measurements.get(key);
+        if (measurement == null) {
+            measurement = new PhaseMeasurement(phase, dialect);
+            measurements.put(key, measurement);
+        }
+        measurement.add(wallTimeNanos, cpuTimeNanos, allocatedBytes);
+    }
+
+    void addBudgetViolations(final List<BudgetViolation> violations) {
+        budgetViolations.addAll(violations);
+    }
+
+    List<BudgetViolation> getBudgetViolations() {
+        return new ArrayList<>(budgetViolations);
+    }
+
+    List<Dialect> getDialects() {
+        return new ArrayList<>(dialects);
+    }
+
+    /**
+     * @return The measurements in the order the phases were started.
+     */
+    List<PhaseMeasurement> getMeasurements() {
+        return new ArrayList<>(measurements.values());
+    }
+
+    /**
+     * Sums up the measurements of a phase for all dialects.
+     *
+     * @param phase The phase.
+     *
+     * @return The sum of all measurements of the phase.
+     */
+    PhaseMeasurement getTotal(final GenerationPhase phase) {
+        final PhaseMeasurement total = new PhaseMeasurement(phase, null);
+        for (final PhaseMeasurement measurement : measurements.values()) {
+            if (measurement.getPhase() == phase) {
+                total.add(measurement.getWallTimeNanos(),
+                          measurement.getCpuTimeNanos(),
+                          measurement.getAllocatedBytes());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return The sum of all measurements.
+     */
+    PhaseMeasurement getTotal() {
+        final PhaseMeasurement total = new PhaseMeasurement(null, null);
+        for (final PhaseMeasurement measurement : measurements.values()) {
+            total.add(measurement.getWallTimeNanos(),
+                      measurement.getCpuTimeNanos(),
+                      measurement.getAllocatedBytes());
+        }
+        return total;
+    }
+
+    /**
+     * Creates a one line summary of the report, for example
+     * {@code DDL generation for 42 entities and 3 dialects took 2310 ms
+     * (classpath 12 ms, scan 350 ms, ...), CPU 2100 ms, allocated 512.0 MB}.
+     *
+     * @return The summary.
+     */
+    String getSummary() {
+        final EnumMap<GenerationPhase, PhaseMeasurement> totals
+                                                             = new EnumMap<>(
+                GenerationPhase.class);
+        for (final GenerationPhase phase : GenerationPhase.values()) {
+            totals.put(phase, getTotal(phase));
+        }
+
+        final StringBuilder phases = new StringBuilder();
+        for (final Map.Entry<GenerationPhase, PhaseMeasurement> entry : totals
+            .entrySet()) {
+            if (phases.length() > 0) {
+                phases.append(", ");
+            }
+            phases.append(String.format(
+                Locale.ENGLISH,
+                "%s %d ms",
+                entry.getKey().getLabel(),
+                TimeUnit.NANOSECONDS.toMillis(
+                    entry.getValue().getWallTimeNanos())));
+        }
+
+        final PhaseMeasurement total = getTotal();
+        final StringBuilder summary = new StringBuilder(String.format(
+            Locale.ENGLISH,
+            "DDL generation for %d entities and %d dialects took %d ms (%s)",
+            entityCount,
+            dialects.size(),
+            TimeUnit.NANOSECONDS.toMillis(total.getWallTimeNanos()),
+            phases.toString()));
+        if (total.getCpuTimeNanos() != PhaseMeasurement.NOT_AVAILABLE) {
+            summary.append(String.format(
+                Locale.ENGLISH,
+                ", CPU %d ms",
+                TimeUnit.NANOSECONDS.toMillis(total.getCpuTimeNanos())));
+        }
+        if (total.getAllocatedBytes() != PhaseMeasurement.NOT_AVAILABLE) {
+            summary.append(String.format(
+                Locale.ENGLISH,
+                ", allocated %.1f MB",
+                total.getAllocatedBytes() / BYTES_PER_MB));
+        }
+
+        return summary.toString();
+    }
+
+    /**
+     * Creates the JSON representation of the report.
+     *
+     * @return The report as JSON.
+     */
+    String toJson() {
+        final StringBuilder json = new StringBuilder(1024);
+        json.append("{\n")
+            .append(String.format("  \"jvm\": %s,%n", jsonString(jvm)))
+            .append(String.format("  \"entities\": %d,%n", entityCount))
+            .append("  \"dialects\": [");
+        for (int i = 0; i < dialects.size(); i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append(jsonString(dialectName(dialects.get(i))));
+        }
+        json.append("],\n");
+
+        json.append("  \"total\": {");
+        appendValues(json, getTotal());
+        json.append("},\n");
+        json.append(String.format("  \"heapDeltaBytes\": %d,%n",
+                                  getHeapDeltaBytes()));
+
+        json.append("  \"phases\": [\n");
+        final List<PhaseMeasurement> values = getMeasurements();
+        for (int i = 0; i < values.size(); i++) {
+            final PhaseMeasurement measurement = values.get(i);
+            json.append(String.format(
+                "    {\"phase\": %s, \"dialect\": %s, ",
+                jsonString(measurement.getPhase().getLabel()),
+                jsonString(dialectName(measurement.getDialect()))));
+            appendValues(json, measurement);
+            json.append('}');
+            if (i < values.size() - 1) {
+                json.append(',');
+            }
+            json.append('\n');
+        }
+        json.append("  ],\n");
+
+        json.append("  \"budgetViolations\": [");
+        for (int i = 0; i < budgetViolations.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\n    ").append(budgetViolations.get(i).toJson());
+        }
+        if (!budgetViolations.isEmpty()) {
+            json.append("\n  ");
+        }
+        json.append("]\n}\n");
+
+        return json.toString();
+    }
+
+    /**
+     * Writes the report as JSON to the provided file. Missing parent
+     * directories are created.
+     *
+     * @param reportFile The file to write.
+     *
+     * @throws IOException If the file can't be written.
+     */
+    void writeTo(final Path reportFile) throws IOException {
+        final Path parent = reportFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(reportFile,
+                                                     StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+    }
+
+    private void appendValues(final StringBuilder json,
+                              final PhaseMeasurement measurement) {
+        json.append(String.format(
+            Locale.ENGLISH,
+            "\"wallTimeMillis\": %.3f, \"cpuTimeMillis\": %s, "
+                + "\"allocatedBytes\": %s",
+            measurement.getWallTimeNanos() / NANOS_PER_MILLI,
+            optionalMillis(measurement.getCpuTimeNanos()),
+            optionalValue(measurement.getAllocatedBytes())));
+    }
+
+    private static String optionalMillis(final long nanos) {
+        if (nanos == PhaseMeasurement.NOT_AVAILABLE) {
+            return "null";
+        } else {
+            return String.format(Locale.ENGLISH, "%.3f",
+                                 nanos / NANOS_PER_MILLI);
+        }
+    }
+
+    private static String optionalValue(final long value) {
+        if (value == PhaseMeasurement.NOT_AVAILABLE) {
+            return "null";
+        } else {
+            return Long.toString(value);
+        }
+    }
+
+    static String dialectName(final Dialect dialect) {
+        if (dialect == null) {
+            return null;
+        } else {
+            return dialect.name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+    /**
+     * Creates a JSON string literal.
+     *
+     * @param value The value, may be {@code null}.
+     *
+     * @return The escaped and quoted value or {@code null}.
+     */
+    static String jsonString(final String value) {
+        if (value == null) {
+            return "null";
+        }
+        final StringBuilder builder = new StringBuilder(value.length() + 2);
+        builder.append('"');
+        for (final char character : value.toCharArray()) {
+            switch (character) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (character < ' ') {
+                        builder.append(String.format("\\u%04x",
+                                                     (int) character));
+                    } else {
+                        builder.append(character);
+                    }
+            }
+        }
+        builder.append('"');
+        return builder.toString();
+    }
+
+    private long currentCpuTime() {
+        if (cpuTimeSupported) {
+            return threadBean.getCurrentThreadCpuTime();
+        } else {
+            return PhaseMeasurement.NOT_AVAILABLE;
+        }
+    }
+
+    private long currentAllocatedBytes() {
+        if (allocationSupported) {
+            return ((com.sun.management.ThreadMXBean) threadBean)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        } else {
+            return PhaseMeasurement.NOT_AVAILABLE;
+        }
+    }
+
+    /**
+     * Measures one execution of a phase.
+     */
+    final class Timer {
+
+        private final GenerationPhase phase;
+        private final Dialect dialect;
+        private final long startWallTime;
+        private final long startCpuTime;
+        private final long startAllocatedBytes;
+        private final PhaseEvent event;
+
+        private Timer(final GenerationPhase phase, final Dialect dialect) {
+            this.phase = phase;
+            this.dialect = dialect;
+            if (JFR_AVAILABLE) {
+                event = JfrPhaseEvents.begin(phase, dialect);
+            } else {
+                event = PhaseEvent.NONE;
+            }
+            startAllocatedBytes = currentAllocatedBytes();
+            startCpuTime = currentCpuTime();
+            startWallTime = System.nanoTime();
+        }
+
+        /**
+         * Sets the number of entities processed in the phase. Only used for
+         * the JFR event.
+         *
+         * @param entityCount The number of entities.
+         */
+        void setEntityCount(final int entityCount) {
+            event.setEntityCount(entityCount);
+        }
+
+        /**
+         * Sets the number of statements created in the phase. Only used for
+         * the JFR event.
+         *
+         * @param statementCount The number of statements.
+         */
+        void setStatementCount(final int statementCount) {
+            event.setStatementCount(statementCount);
+        }
+
+        /**
+         * Sets the number of bytes written in the phase. Only used for the
+         * JFR event.
+         *
+         * @param bytesWritten The number of bytes.
+         */
+        void setBytesWritten(final long bytesWritten) {
+            event.setBytesWritten(bytesWritten);
+        }
+
+        /**
+         * Stops the timer and adds the measured values to the report.
+         */
+        void stop() {
+            final long wallTime = System.nanoTime() - startWallTime;
+            event.end();
+            final long cpuTime;
+            if (startCpuTime == PhaseMeasurement.NOT_AVAILABLE) {
+                cpuTime = PhaseMeasurement.NOT_AVAILABLE;
+            } else {
+                cpuTime = currentCpuTime() - startCpuTime;
+            }
+            final long allocated;
+            if (startAllocatedBytes == PhaseMeasurement.NOT_AVAILABLE) {
+                allocated = PhaseMeasurement.NOT_AVAILABLE;
+            } else {
+                allocated = currentAllocatedBytes() - startAllocatedBytes;
+            }
+
+            addMeasurement(phase, dialect, wallTime, cpuTime, allocated);
+        }
+
+    }
+
+}
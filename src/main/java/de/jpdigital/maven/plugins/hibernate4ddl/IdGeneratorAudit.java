@@ -0,0 +1,456 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.MappingException;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.id.Assigned;
+import org.hibernate.id.ForeignGenerator;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.MultipleHiLoPerTableGenerator;
+import org.hibernate.id.PostInsertIdentifierGenerator;
+import org.hibernate.id.SequenceGenerator;
+import org.hibernate.id.SequenceHiLoGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.mapping.KeyValue;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.RootClass;
+import org.hibernate.mapping.SimpleValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Determines the strategy used for generating the ids of each entity and
+ * reports the strategies which slow down inserts:
+ *
+ * <ul>
+ * <li>Hibernate disables JDBC insert batching for entities with
+ * {@code IDENTITY} ids because it has to execute each insert to get the
+ * id.</li>
+ * <li>Table generators allocate ids by updating a row of the generator table
+ * in a separate transaction. The row is locked until the transaction
+ * commits.</li>
+ * <li>Sequences which provide only one id per call need a round trip for
+ * each insert. A sequence shared by several entities (for example
+ * {@code hibernate_sequence}) is a hotspot under concurrent inserts.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class IdGeneratorAudit {
+
+    /**
+     * Suffix of the report written for each dialect.
+     */
+    static final String REPORT_SUFFIX = ".id-generators.txt";
+
+    /**
+     * Default of the {@code max_lo} parameter of the
+     * {@link SequenceHiLoGenerator}.
+     */
+    private static final int SEQUENCE_MAX_LO = 9;
+
+    /**
+     * The deprecated {@code org.hibernate.id.TableHiLoGenerator}. The legacy
+     * table generators are matched by their names to avoid deprecation
+     * warnings when compiling.
+     */
+    private static final String TABLE_HI_LO_GENERATOR
+                                    = "org.hibernate.id.TableHiLoGenerator";
+
+    /**
+     * The deprecated legacy {@code org.hibernate.id.TableGenerator}.
+     */
+    private static final String LEGACY_TABLE_GENERATOR
+                                    = "org.hibernate.id.TableGenerator";
+
+    private final transient Configuration configuration;
+    private final transient org.hibernate.dialect.Dialect dialect;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Creates an audit for a configuration.
+     *
+     * @param configuration The configuration. The mappings must have been
+     *                      built.
+     * @param dialect       The dialect. The generators depend on the
+     *                      dialect, for example {@code native} ids use a
+     *                      sequence or an identity column.
+     */
+    IdGeneratorAudit(final Configuration configuration,
+                     final org.hibernate.dialect.Dialect dialect) {
+        this.configuration = configuration;
+        this.dialect = dialect;
+    }
+
+    /**
+     * Determines the generators of all root entities.
+     *
+     * @throws MappingException If a generator can't be created.
+     */
+    void analyse() throws MappingException {
+        entries.clear();
+        final Iterator<PersistentClass> classMappings = configuration
+            .getClassMappings();
+        while (classMappings.hasNext()) {
+            final PersistentClass persistentClass = classMappings.next();
+            if (persistentClass instanceof RootClass) {
+                entries.add(createEntry((RootClass) persistentClass));
+            }
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+
+            @Override
+            public int compare(final Entry entry1, final Entry entry2) {
+                return entry1.getEntity().compareTo(entry2.getEntity());
+            }
+
+        });
+
+        //A sequence used by several entities is a hotspot.
+        final Map<String, List<Entry>> sequences = new HashMap<>();
+        for (final Entry entry : entries) {
+            if (entry.getStrategy() == Strategy.SEQUENCE) {
+                if (!sequences.containsKey(entry.getGeneratorName())) {
+                    sequences.put(entry.getGeneratorName(),
+                                  new ArrayList<Entry>());
+                }
+                sequences.get(entry.getGeneratorName()).add(entry);
+            }
+        }
+        for (final Map.Entry<String, List<Entry>> sequence : sequences
+            .entrySet()) {
+            if (sequence.getValue().size() > 1) {
+                for (final Entry entry : sequence.getValue()) {
+                    entry.findings.add(String.format(
+                        "The sequence %s is shared by %d entities and is a "
+                            + "hotspot for concurrent inserts. Use a "
+                            + "sequence per entity.",
+                        sequence.getKey(),
+                        sequence.getValue().size()));
+                }
+            }
+        }
+    }
+
+    private Entry createEntry(final RootClass rootClass) {
+        final KeyValue identifier = rootClass.getIdentifier();
+        final IdentifierGenerator generator = identifier
+            .createIdentifierGenerator(
+                configuration.getIdentifierGeneratorFactory(),
+                dialect,
+                configuration.getProperty(Environment.DEFAULT_CATALOG),
+                configuration.getProperty(Environment.DEFAULT_SCHEMA),
+                rootClass);
+        final Properties parameters;
+        if (identifier instanceof SimpleValue
+                && ((SimpleValue) identifier)
+            .getIdentifierGeneratorProperties() != null) {
+            parameters = ((SimpleValue) identifier)
+                .getIdentifierGeneratorProperties();
+        } else {
+            parameters = new Properties();
+        }
+
+        final Entry entry = new Entry(rootClass.getEntityName(),
+                                      rootClass.getTable().getName(),
+                                      generator.getClass().getName());
+        if (generator instanceof PostInsertIdentifierGenerator) {
+            entry.strategy = Strategy.IDENTITY;
+            entry.findings.add(
+                "Hibernate disables JDBC insert batching for entities with "
+                    + "IDENTITY ids. Use a sequence with an allocationSize "
+                    + "greater than 1.");
+        } else if (generator instanceof SequenceStyleGenerator) {
+            final SequenceStyleGenerator sequenceGenerator
+                                             = (SequenceStyleGenerator) generator;
+            if (sequenceGenerator.getDatabaseStructure()
+                .isPhysicalSequence()) {
+                entry.strategy = Strategy.SEQUENCE;
+            } else {
+                entry.strategy = Strategy.TABLE;
+            }
+            entry.generatorName = sequenceGenerator.getDatabaseStructure()
+                .getName();
+            entry.idsPerRoundTrip = Math.max(1, sequenceGenerator
+                                             .getOptimizer()
+                                             .getIncrementSize());
+        } else if (generator instanceof SequenceGenerator) {
+            entry.strategy = Strategy.SEQUENCE;
+            entry.generatorName = ((SequenceGenerator) generator)
+                .getSequenceName();
+            if (generator instanceof SequenceHiLoGenerator) {
+                entry.idsPerRoundTrip = getMaxLo(parameters,
+                                                 SEQUENCE_MAX_LO) + 1;
+            }
+        } else if (generator instanceof TableGenerator) {
+            entry.strategy = Strategy.TABLE;
+            entry.generatorName = ((TableGenerator) generator).getTableName();
+            entry.idsPerRoundTrip = Math.max(
+                1, ((TableGenerator) generator).getIncrementSize());
+        } else if (isInstance(generator, TABLE_HI_LO_GENERATOR)
+                       || generator instanceof MultipleHiLoPerTableGenerator) {
+            entry.strategy = Strategy.TABLE;
+            entry.generatorName = String.valueOf(
+                ((org.hibernate.id.PersistentIdentifierGenerator) generator)
+                .generatorKey());
+            entry.idsPerRoundTrip = getMaxLo(parameters, Short.MAX_VALUE) + 1;
+        } else if (isInstance(generator, LEGACY_TABLE_GENERATOR)) {
+            entry.strategy = Strategy.TABLE;
+            entry.generatorName = String.valueOf(
+                ((org.hibernate.id.PersistentIdentifierGenerator) generator)
+                .generatorKey());
+        } else if (generator instanceof Assigned
+                       || generator instanceof ForeignGenerator) {
+            entry.strategy = Strategy.ASSIGNED;
+        } else {
+            entry.strategy = Strategy.OTHER;
+        }
+
+        if (entry.strategy == Strategy.TABLE) {
+            entry.findings.add(String.format(
+                "Ids are allocated by updating the generator table %s in a "
+                    + "separate transaction, the row is locked until the "
+                    + "transaction commits. Use a sequence.",
+                entry.generatorName));
+        } else if (entry.strategy == Strategy.SEQUENCE
+                       && entry.idsPerRoundTrip == 1) {
+            //The legacy generators ignore the allocationSize for ids
+            //generated using the default (native) strategy.
+            final String advice;
+            if (generator instanceof SequenceStyleGenerator) {
+                advice = "Use an allocationSize greater than 1.";
+            } else {
+                advice = "Use an allocationSize greater than 1 with "
+                             + "hibernate.id.new_generator_mappings enabled.";
+            }
+            entry.findings.add(String.format(
+                "Each insert needs a round trip to the sequence %s. %s",
+                entry.generatorName,
+                advice));
+        }
+
+        return entry;
+    }
+
+    private static int getMaxLo(final Properties parameters,
+                                final int defaultValue) {
+        final String value = parameters.getProperty(
+            SequenceHiLoGenerator.MAX_LO);
+        final int maxLo;
+        if (value == null) {
+            maxLo = defaultValue;
+        } else {
+            maxLo = Integer.parseInt(value);
+        }
+        return Math.max(0, maxLo);
+    }
+
+    /**
+     * Checks if the generator is an instance of the class with the provided
+     * name, without loading the class.
+     *
+     * @param generator The generator to check.
+     * @param className The fully qualified name of the class.
+     *
+     * @return {@code true} if the class of the generator or one of its super
+     *         classes has the provided name.
+     */
+    private static boolean isInstance(final IdentifierGenerator generator,
+                                      final String className) {
+        Class<?> clazz = generator.getClass();
+        while (clazz != null) {
+            if (className.equals(clazz.getName())) {
+                return true;
+            }
+            clazz = clazz.getSuperclass();
+        }
+        return false;
+    }
+
+    /**
+     * @return The generators of the root entities, sorted by the entity
+     *         name. Only available after {@link #analyse()} was called.
+     */
+    List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return The number of entities using each strategy.
+     */
+    Map<Strategy, Integer> countStrategies() {
+        final Map<Strategy, Integer> counts = new EnumMap<>(Strategy.class);
+        for (final Strategy strategy : Strategy.values()) {
+            counts.put(strategy, 0);
+        }
+        for (final Entry entry : entries) {
+            counts.put(entry.getStrategy(),
+                       counts.get(entry.getStrategy()) + 1);
+        }
+        return counts;
+    }
+
+    /**
+     * @return A summary of the strategies for the log.
+     */
+    String getSummary() {
+        final Map<Strategy, Integer> counts = countStrategies();
+        final StringBuilder builder = new StringBuilder();
+        for (final Map.Entry<Strategy, Integer> count : counts.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(String.format(
+                "%d %s",
+                count.getValue(),
+                count.getKey().name().toLowerCase(Locale.ENGLISH)));
+        }
+        return String.format("ID generators of %d entities: %s.",
+                             entries.size(),
+                             builder.toString());
+    }
+
+    /**
+     * @return The report listing the generator of each entity and the
+     *         findings.
+     */
+    String toReport() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(getSummary()).append(String.format("%n"));
+        for (final Entry entry : entries) {
+            builder.append(String.format("%n%s (%s)%n",
+                                         entry.getEntity(),
+                                         entry.getTable()));
+            builder.append(String.format("    Strategy:  %s (%s)%n",
+                                         entry.getStrategy(),
+                                         entry.getGeneratorClass()));
+            if (entry.getGeneratorName() != null) {
+                builder.append(String.format(
+                    "    Generator: %s, %d id(s) per round trip%n",
+                    entry.getGeneratorName(),
+                    entry.getIdsPerRoundTrip()));
+            }
+            for (final String finding : entry.getFindings()) {
+                builder.append(String.format("    Warning:   %s%n", finding));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The strategies for generating ids.
+     */
+    enum Strategy {
+
+        /**
+         * The id is generated by the database while inserting the row, for
+         * example by an identity column.
+         */
+        IDENTITY,
+        /**
+         * The id is taken from a sequence.
+         */
+        SEQUENCE,
+        /**
+         * The id is allocated using a generator table.
+         */
+        TABLE,
+        /**
+         * The id is assigned by the application or taken from another
+         * entity.
+         */
+        ASSIGNED,
+        /**
+         * Other generators, for example UUIDs, which don't need the
+         * database.
+         */
+        OTHER
+
+    }
+
+    /**
+     * The generator of a root entity.
+     */
+    static final class Entry {
+
+        private final transient String entity;
+        private final transient String table;
+        private final transient String generatorClass;
+        private Strategy strategy;
+        private String generatorName;
+        private int idsPerRoundTrip = 1;
+        private final List<String> findings = new ArrayList<>();
+
+        private Entry(final String entity,
+                      final String table,
+                      final String generatorClass) {
+            this.entity = entity;
+            this.table = table;
+            this.generatorClass = generatorClass;
+        }
+
+        String getEntity() {
+            return entity;
+        }
+
+        String getTable() {
+            return table;
+        }
+
+        String getGeneratorClass() {
+            return generatorClass;
+        }
+
+        Strategy getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * @return The name of the sequence or generator table, {@code null}
+         *         if the generator uses neither.
+         */
+        String getGeneratorName() {
+            return generatorName;
+        }
+
+        /**
+         * @return The number of ids the generator allocates with one access
+         *         to the sequence or generator table.
+         */
+        int getIdsPerRoundTrip() {
+            return idsPerRoundTrip;
+        }
+
+        List<String> getFindings() {
+            return Collections.unmodifiableList(findings);
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.MappingException;
+
+import java.io.IOException;
+
+/**
+ * Writes the report of the {@link IdGeneratorAudit} to the file
+ * {@code <dialect>.id-generators.txt}. The findings are logged as warnings.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class IdGeneratorReportWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return context.getOptions().isAuditIdGenerators();
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        final IdGeneratorAudit audit = new IdGeneratorAudit(
+            context.getConfiguration(), context.getHibernateDialect());
+        try {
+            audit.analyse();
+        } catch (MappingException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to audit the id generators: %s",
+                              ex.getMessage()),
+                ex);
+        }
+        context.getLog().info(String.format("%s (dialect %s)",
+                                            audit.getSummary(),
+                                            context.getDialect()));
+        for (final IdGeneratorAudit.Entry entry : audit.getEntries()) {
+            for (final String finding : entry.getFindings()) {
+                context.getLog().warn(String.format("%s: %s",
+                                                    entry.getEntity(),
+                                                    finding));
+            }
+        }
+
+        try {
+            return OutputContext.writeIfChanged(
+                context.getOutputFile(IdGeneratorAudit.REPORT_SUFFIX),
+                audit.toReport());
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write id generator report: %s",
+                              ex.getMessage()),
+                ex);
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the indexes suggested by the {@link QueryIndexAdvisor} to the files
+ * {@code <dialect>.index-suggestions.sql} and
+ * {@code <dialect>.index-suggestions.txt}. The suggested indexes are created
+ * on existing tables, therefore their statements are rewritten by the
+ * {@link OnlineDdlRewriter} if online DDL is enabled for the dialect.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class IndexSuggestionWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return context.getOptions().isSuggestIndexes();
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        final DdlConfiguration configuration = context.getConfiguration();
+        final QueryIndexAdvisor advisor = new QueryIndexAdvisor(configuration);
+        advisor.analyse();
+        context.getLog().info(String.format(
+            "%d indexes suggested for %d named queries for dialect %s.",
+            advisor.getSuggestions().size(),
+            advisor.getQueryCount(),
+            context.getDialect()));
+        for (final Map.Entry<String, String> query : advisor
+            .getSkippedQueries().entrySet()) {
+            context.getLog().warn(String.format(
+                "Failed to analyse named query %s: %s",
+                query.getKey(),
+                query.getValue()));
+        }
+
+        final List<StatementRewriter> rewriters = new ArrayList<>(
+            configuration.getStatementRewriters());
+        if (context.getOptions().getOnlineDdlDialects().contains(
+            context.getDialect())) {
+            rewriters.add(new OnlineDdlRewriter(context.getDialect()));
+        }
+
+        try {
+            return OutputContext.writeIfChanged(
+                context.getOutputFile(QueryIndexAdvisor.SCRIPT_SUFFIX),
+                advisor.toScript(context.getHibernateDialect(), rewriters))
+                       + OutputContext.writeIfChanged(
+                    context.getOutputFile(QueryIndexAdvisor.REPORT_SUFFIX),
+                    advisor.toReport());
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write index suggestions: %s",
+                              ex.getMessage()),
+                ex);
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Java Flight Recorder events for the phases of the DDL generation. The
+ * events are only emitted if the JVM provides the {@code jdk.jfr} API (Java
+ * 11 or newer). The plugin is compiled for Java 7, therefore the event types
+ * are defined at runtime using the {@code jdk.jfr.EventFactory} and all
+ * {@code jdk.jfr} types are accessed using reflection. Use
+ * {@link #isAvailable()} to check if the events can be used.
+ *
+ * To record the events start the Maven build with JFR enabled, for example
+ * {@code MAVEN_OPTS="-XX:StartFlightRecording=filename=build.jfr" mvn ...}.
+ * The events are shown in the category <em>Maven / Hibernate 4 DDL</em>.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class JfrPhaseEvents {
+
+    private static final String[] CATEGORY = new String[]{
+        "Maven", "Hibernate 4 DDL"
+    };
+
+    /*
+     * Indexes of the fields of the events, see Api#createFields.
+     */
+    private static final int DIALECT = 0;
+    private static final int ENTITY_COUNT = 1;
+    private static final int STATEMENT_COUNT = 2;
+    private static final int BYTES_WRITTEN = 3;
+
+    /**
+     * The reflective access to the JFR API, {@code null} if the API is not
+     * available.
+     */
+    private static final Api API = Api.create();
+
+    private JfrPhaseEvents() {
+        //Nothing
+    }
+
+    /**
+     * Checks if the {@code jdk.jfr} API is available.
+     *
+     * @return {@code true} if the JFR events can be used, {@code false}
+     *         otherwise.
+     */
+    static boolean isAvailable() {
+        return API != null;
+    }
+
+    /**
+     * Begins the event for the provided phase.
+     *
+     * @param phase   The phase.
+     * @param dialect The dialect or {@code null}.
+     *
+     * @return The started event.
+     */
+    static PhaseEvent begin(final GenerationPhase phase,
+                            final Dialect dialect) {
+        if (API == null) {
+            throw new IllegalStateException("JFR is not available.");
+        }
+
+        final JfrPhaseEvent event = new JfrPhaseEvent(
+            API.invoke(API.newEvent, API.factories.get(phase)));
+        event.set(DIALECT, GenerationReport.dialectName(dialect));
+        API.invoke(API.begin, event.event);
+
+        return event;
+    }
+
+    private static final class JfrPhaseEvent implements PhaseEvent {
+
+        private final Object event;
+
+        private JfrPhaseEvent(final Object event) {
+            this.event = event;
+        }
+
+        private void set(final int index, final Object value) {
+            API.invoke(API.set, event, index, value);
+        }
+
+        @Override
+        public void setEntityCount(final int entityCount) {
+            set(ENTITY_COUNT, entityCount);
+        }
+
+        @Override
+        public void setStatementCount(final int statementCount) {
+            set(STATEMENT_COUNT, statementCount);
+        }
+
+        @Override
+        public void setBytesWritten(final long bytesWritten) {
+            set(BYTES_WRITTEN, bytesWritten);
+        }
+
+        @Override
+        public void end() {
+            API.invoke(API.commit, event);
+        }
+
+    }
+
+    /**
+     * The methods of the JFR API and an event factory for each phase. The
+     * factories must be kept, otherwise the event types are unregistered.
+     */
+    private static final class Api {
+
+        private final Map<GenerationPhase, Object> factories
+                                                        = new EnumMap<>(
+                GenerationPhase.class);
+        private final ClassLoader classLoader;
+        private final Constructor<?> annotationElement;
+        private final Method newFactory;
+        private final Method newEvent;
+        private final Method set;
+        private final Method begin;
+        private final Method commit;
+
+        private Api(final ClassLoader classLoader)
+            throws ReflectiveOperationException {
+            this.classLoader = classLoader;
+            final Class<?> elementClass = load("jdk.jfr.AnnotationElement");
+            annotationElement = elementClass.getConstructor(Class.class,
+                                                            Object.class);
+
+            final Class<?> factoryClass = load("jdk.jfr.EventFactory");
+            newFactory = factoryClass.getMethod("create",
+                                                List.class,
+                                                List.class);
+            newEvent = factoryClass.getMethod("newEvent");
+
+            final Class<?> eventClass = load("jdk.jfr.Event");
+            set = eventClass.getMethod("set", int.class, Object.class);
+            begin = eventClass.getMethod("begin");
+            commit = eventClass.getMethod("commit");
+        }
+
+        /**
+         * Creates the event types.
+         *
+         * @return The API or {@code null} if the JFR API is not available.
+         */
+        private static Api create() {
+            try {
+                final Api api = new Api(JfrPhaseEvents.class.getClassLoader());
+                api.createFactory(GenerationPhase.CLASSPATH,
+                                  "de.jpdigital.hibernate4ddl.Classpath",
+                                  "DDL Classpath Setup");
+                api.createFactory(GenerationPhase.SCAN,
+                                  "de.jpdigital.hibernate4ddl.Scan",
+                                  "DDL Entity Scan");
+                api.createFactory(GenerationPhase.BINDING,
+                                  "de.jpdigital.hibernate4ddl.Binding",
+                                  "DDL Hibernate Bootstrap");
+                api.createFactory(GenerationPhase.EXPORT,
+                                  "de.jpdigital.hibernate4ddl.Render",
+                                  "DDL Render");
+                api.createFactory(GenerationPhase.WRITE,
+                                  "de.jpdigital.hibernate4ddl.Write",
+                                  "DDL Write");
+                return api;
+            } catch (ReflectiveOperationException
+                     | LinkageError
+                     | RuntimeException ex) {
+                return null;
+            }
+        }
+
+        private Class<?> load(final String className)
+            throws ClassNotFoundException {
+            return Class.forName(className, true, classLoader);
+        }
+
+        private void createFactory(final GenerationPhase phase,
+                                   final String name,
+                                   final String label)
+            throws ReflectiveOperationException {
+            final List<Object> annotations = Arrays.asList(
+                annotation("jdk.jfr.Name", name),
+                annotation("jdk.jfr.Label", label),
+                annotation("jdk.jfr.Category", CATEGORY));
+
+            factories.put(phase, newFactory.invoke(null,
+                                                   annotations,
+                                                   createFields()));
+        }
+
+        /**
+         * Creates the fields of the events. The order must match the
+         * indexes defined in {@link JfrPhaseEvents}.
+         */
+        private List<Object> createFields()
+            throws ReflectiveOperationException {
+            final List<Object> fields = new ArrayList<>();
+            fields.add(field(String.class, "dialect",
+                             annotation("jdk.jfr.Label", "Dialect"),
+                             annotation(
+                                 "jdk.jfr.Description",
+                                 "The dialect for which the phase was "
+                                     + "executed")));
+            fields.add(field(int.class, "entityCount",
+                             annotation("jdk.jfr.Label", "Entities")));
+            fields.add(field(int.class, "statementCount",
+                             annotation("jdk.jfr.Label", "Statements"),
+                             annotation(
+                                 "jdk.jfr.Description",
+                                 "The number of generated DDL statements")));
+            fields.add(field(long.class, "bytesWritten",
+                             annotation("jdk.jfr.Label", "Bytes Written"),
+                             annotation("jdk.jfr.DataAmount", "BYTES")));
+            return fields;
+        }
+
+        private Object field(final Class<?> type,
+                             final String name,
+                             final Object... annotations)
+            throws ReflectiveOperationException {
+            return load("jdk.jfr.ValueDescriptor")
+                .getConstructor(Class.class, String.class, List.class)
+                .newInstance(type, name, Arrays.asList(annotations));
+        }
+
+        private Object annotation(final String annotationClass,
+                                  final Object value)
+            throws ReflectiveOperationException {
+            final Class<? extends Annotation> type = load(annotationClass)
+                .asSubclass(Annotation.class);
+            return annotationElement.newInstance(type, value);
+        }
+
+        private Object invoke(final Method method,
+                              final Object target,
+                              final Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            } catch (InvocationTargetException ex) {
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+
+    }
+
+}
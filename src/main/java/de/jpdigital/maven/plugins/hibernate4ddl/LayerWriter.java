@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Writes the statements of a dialect ordered into {@link SchemaLayers} to
+ * the file {@code <dialect>.layers.sql}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class LayerWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return context.getOptions().isWriteLayers();
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        final DdlConfiguration configuration = context.getConfiguration();
+        final SchemaLayers layers = SchemaLayers.create(
+            context.getSnapshot(),
+            configuration.getAuxiliaryCreateStatements(context
+                .getHibernateDialect()),
+            configuration.getStatementRewriters());
+        context.getLog().info(String.format(
+            "%d layers for dialect %s, up to %d units per layer.",
+            layers.getLayers().size(),
+            context.getDialect(),
+            layers.getMaxWidth()));
+
+        try {
+            final Path layerFile = context.getOutputFile(
+                SchemaLayers.FILE_SUFFIX);
+            final long bytesWritten = OutputContext.writeIfChanged(
+                layerFile, layers.toScript());
+            //The apply goal uses the layer file only if it is not older than
+            //the DDL file, which may have changed without changing the
+            //layers, for example if drop statements have been enabled.
+            final FileTime ddlFileTime = Files.getLastModifiedTime(
+                context.getDdlFile());
+            if (Files.getLastModifiedTime(layerFile).compareTo(ddlFileTime)
+                    < 0) {
+                Files.setLastModifiedTime(layerFile, ddlFileTime);
+            }
+            return bytesWritten;
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write layer file: %s",
+                              ex.getMessage()),
+                ex);
+        }
+    }
+
+}
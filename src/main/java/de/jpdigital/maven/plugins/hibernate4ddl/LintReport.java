@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The result of a run of the {@link MappingLinter}. The report is written as
+ * JSON ({@link #JSON_FILE}) and as HTML ({@link #HTML_FILE}).
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class LintReport {
+
+    /**
+     * Name of the JSON report.
+     */
+    static final String JSON_FILE = "lint-report.json";
+
+    /**
+     * Name of the HTML report.
+     */
+    static final String HTML_FILE = "lint-report.html";
+
+    private final List<MappingRule> rules;
+    private final List<LintSeverity> ruleSeverities;
+    private final List<MappingIssue> issues;
+
+    /**
+     * Creates a report.
+     *
+     * @param linter The linter which found the issues.
+     * @param issues The issues.
+     */
+    LintReport(final MappingLinter linter, final List<MappingIssue> issues) {
+        rules = linter.getRules();
+        ruleSeverities = new ArrayList<>();
+        for (final MappingRule rule : rules) {
+            ruleSeverities.add(linter.getSeverity(rule));
+        }
+        this.issues = new ArrayList<>(issues);
+    }
+
+    /**
+     * Creates the JSON representation of the report.
+     *
+     * @return The report as JSON.
+     */
+    String toJson() {
+        final StringBuilder json = new StringBuilder(1024);
+        json.append("{\n  \"rules\": [");
+        for (int i = 0; i < rules.size(); i++) {
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append(String.format(
+                "    {\"id\": %s, \"severity\": %s, \"description\": %s}",
+                GenerationReport.jsonString(rules.get(i).getId()),
+                GenerationReport.jsonString(severityName(
+                    ruleSeverities.get(i))),
+                GenerationReport.jsonString(rules.get(i).getDescription())));
+        }
+        json.append(rules.isEmpty() ? "],\n" : "\n  ],\n");
+
+        json.append("  \"issues\": [");
+        for (int i = 0; i < issues.size(); i++) {
+            final MappingIssue issue = issues.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append(String.format(
+                "    {\"rule\": %s, \"severity\": %s, \"entity\": %s, "
+                    + "\"property\": %s, \"message\": %s}",
+                GenerationReport.jsonString(issue.getRuleId()),
+                GenerationReport.jsonString(severityName(
+                    issue.getSeverity())),
+                GenerationReport.jsonString(issue.getEntity()),
+                GenerationReport.jsonString(issue.getProperty()),
+                GenerationReport.jsonString(issue.getMessage())));
+        }
+        json.append(issues.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+
+        return json.toString();
+    }
+
+    /**
+     * Creates the HTML representation of the report.
+     *
+     * @return The report as HTML page.
+     */
+    String toHtml() {
+        final StringBuilder html = new StringBuilder(2048);
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n")
+            .append("<meta charset=\"UTF-8\">\n")
+            .append("<title>Mapping lint report</title>\n")
+            .append("<style>\n")
+            .append("body { font-family: sans-serif; }\n")
+            .append("table { border-collapse: collapse; }\n")
+            .append("th, td { border: 1px solid #ccc; padding: 4px 8px; "
+                        + "text-align: left; vertical-align: top; }\n")
+            .append(".error { color: #b00; font-weight: bold; }\n")
+            .append(".warning { color: #b60; }\n")
+            .append(".info { color: #555; }\n")
+            .append("</style>\n</head>\n<body>\n")
+            .append("<h1>Mapping lint report</h1>\n")
+            .append("<p>").append(escape(MappingLinter.getSummary(issues)))
+            .append("</p>\n");
+
+        html.append("<h2>Issues</h2>\n");
+        if (issues.isEmpty()) {
+            html.append("<p>No issues found.</p>\n");
+        } else {
+            html.append("<table>\n<tr><th>Severity</th><th>Rule</th>"
+                            + "<th>Entity</th><th>Property</th>"
+                            + "<th>Message</th></tr>\n");
+            for (final MappingIssue issue : issues) {
+                final String severity = severityName(issue.getSeverity());
+                html.append(String.format(
+                    "<tr><td class=\"%s\">%s</td><td>%s</td><td>%s</td>"
+                        + "<td>%s</td><td>%s</td></tr>%n",
+                    severity,
+                    severity,
+                    escape(issue.getRuleId()),
+                    escape(issue.getEntity()),
+                    escape(issue.getProperty()),
+                    escape(issue.getMessage())));
+            }
+            html.append("</table>\n");
+        }
+
+        html.append("<h2>Rules</h2>\n<table>\n<tr><th>Rule</th>"
+                        + "<th>Severity</th><th>Description</th></tr>\n");
+        for (int i = 0; i < rules.size(); i++) {
+            html.append(String.format(
+                "<tr><td>%s</td><td>%s</td><td>%s</td></tr>%n",
+                escape(rules.get(i).getId()),
+                severityName(ruleSeverities.get(i)),
+                escape(rules.get(i).getDescription())));
+        }
+        html.append("</table>\n</body>\n</html>\n");
+
+        return html.toString();
+    }
+
+    /**
+     * Writes the JSON and the HTML report into a directory. Missing
+     * directories are created.
+     *
+     * @param directory The directory.
+     *
+     * @throws IOException If the files can't be written.
+     */
+    void writeTo(final Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (Writer writer = Files.newBufferedWriter(
+            directory.resolve(JSON_FILE), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+        try (Writer writer = Files.newBufferedWriter(
+            directory.resolve(HTML_FILE), StandardCharsets.UTF_8)) {
+            writer.write(toHtml());
+        }
+    }
+
+    private static String severityName(final LintSeverity severity) {
+        return severity.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String escape(final String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("&", "&amp;")
+            .replace("<", "&lt;")
+            .replace(">", "&gt;")
+            .replace("\"", "&quot;");
+    }
+
+}
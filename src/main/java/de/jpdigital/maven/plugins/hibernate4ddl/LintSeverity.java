@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.Locale;
+
+/**
+ * Severity of the issues reported by a {@link MappingRule}. The severities
+ * are ordered, {@link #ERROR} is the highest severity.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public enum LintSeverity {
+
+    /**
+     * The mapping may be fine, but should be checked.
+     */
+    INFO,
+    /**
+     * The mapping is likely to cause performance problems.
+     */
+    WARNING,
+    /**
+     * The mapping must be fixed.
+     */
+    ERROR;
+
+    /**
+     * Converts a string (case insensitive) to a severity.
+     *
+     * @param value The string.
+     *
+     * @return The severity.
+     *
+     * @throws IllegalArgumentException If the string is not the name of a
+     *                                  severity.
+     */
+    public static LintSeverity fromString(final String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid severity '%s'. Valid values are 'info', 'warning' "
+                    + "and 'error'.",
+                value),
+                                               ex);
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+/**
+ * An issue found by a {@link MappingRule}. The rule creates the issue using
+ * {@link #MappingIssue(String, String, String)}, the id of the rule and the
+ * severity are set by the linter.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class MappingIssue {
+
+    private final String ruleId;
+    private final LintSeverity severity;
+    private final String entity;
+    private final String property;
+    private final String message;
+
+    /**
+     * Creates a new issue.
+     *
+     * @param entity   The name of the entity.
+     * @param property The name of the property, {@code null} if the issue
+     *                 concerns the entity itself.
+     * @param message  The description of the issue.
+     */
+    public MappingIssue(final String entity,
+                        final String property,
+                        final String message) {
+        this(null, null, entity, property, message);
+    }
+
+    private MappingIssue(final String ruleId,
+                         final LintSeverity severity,
+                         final String entity,
+                         final String property,
+                         final String message) {
+        this.ruleId = ruleId;
+        this.severity = severity;
+        this.entity = entity;
+        this.property = property;
+        this.message = message;
+    }
+
+    /**
+     * Creates a copy of this issue for a rule.
+     *
+     * @param rule     The rule which reported the issue.
+     * @param severity The severity configured for the rule.
+     *
+     * @return The copy.
+     */
+    MappingIssue forRule(final MappingRule rule,
+                         final LintSeverity severity) {
+        return new MappingIssue(rule.getId(),
+                                severity,
+                                entity,
+                                property,
+                                message);
+    }
+
+    /**
+     * @return The id of the rule which reported the issue, {@code null} if
+     *         the issue has not been processed by the linter yet.
+     */
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    /**
+     * @return The severity of the issue, {@code null} if the issue has not
+     *         been processed by the linter yet.
+     */
+    public LintSeverity getSeverity() {
+        return severity;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The entity and the property separated by a dot.
+     */
+    public String getLocation() {
+        if (property == null) {
+            return entity;
+        } else {
+            return String.format("%s.%s", entity, property);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] %s: %s (%s)",
+                             severity,
+                             getLocation(),
+                             message,
+                             ruleId);
+    }
+
+}
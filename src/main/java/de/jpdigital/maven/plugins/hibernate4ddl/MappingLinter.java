@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.OneToMany;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.ToOne;
+import org.hibernate.mapping.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Runs the {@link MappingRule}s against the bound entities. The built-in
+ * rules are always available, additional rules are loaded using the
+ * {@link ServiceLoader} from the class loader of the project. The severity
+ * of each rule can be overridden, rules can be disabled by setting their
+ * severity to {@link #OFF}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class MappingLinter {
+
+    /**
+     * Severity value disabling a rule.
+     */
+    static final String OFF = "off";
+
+    /**
+     * Value of the fail threshold for never failing.
+     */
+    static final String NONE = "none";
+
+    private final transient Map<String, MappingRule> rules
+                                                         = new LinkedHashMap<>();
+    private final transient Map<String, LintSeverity> severities
+                                                          = new LinkedHashMap<>();
+
+    /**
+     * Creates a linter.
+     *
+     * @param classLoader The class loader used to load additional rules.
+     * @param severities  The severities of the rules, mapped by the id of
+     *                    the rule. The values are the names of the
+     *                    {@link LintSeverity} values or {@link #OFF}.
+     *
+     * @throws DdlGenerationException If a rule can't be loaded, a rule id is
+     *                                unknown or a severity is invalid.
+     */
+    MappingLinter(final ClassLoader classLoader,
+                  final Map<String, String> severities)
+        throws DdlGenerationException {
+        for (final MappingRule rule : builtInRules()) {
+            rules.put(rule.getId(), rule);
+        }
+        try {
+            for (final MappingRule rule : ServiceLoader.load(
+                MappingRule.class, classLoader)) {
+                if (rules.containsKey(rule.getId())) {
+                    throw new DdlGenerationException(String.format(
+                        "Mapping rule %s provided by %s conflicts with "
+                            + "another rule with the same id.",
+                        rule.getId(),
+                        rule.getClass().getName()));
+                }
+                rules.put(rule.getId(), rule);
+            }
+        } catch (ServiceConfigurationError ex) {
+            throw new DdlGenerationException(String.format(
+                "Failed to load mapping rules: %s", ex.getMessage()), ex);
+        }
+
+        for (final MappingRule rule : rules.values()) {
+            this.severities.put(rule.getId(), rule.getDefaultSeverity());
+        }
+        for (final Map.Entry<String, String> entry : severities.entrySet()) {
+            if (!rules.containsKey(entry.getKey())) {
+                throw new DdlGenerationException(String.format(
+                    "Unknown mapping rule '%s'. Available rules: %s",
+                    entry.getKey(),
+                    rules.keySet()));
+            }
+            if (OFF.equalsIgnoreCase(entry.getValue().trim())) {
+                this.severities.put(entry.getKey(), null);
+            } else {
+                try {
+                    this.severities.put(entry.getKey(),
+                                        LintSeverity.fromString(
+                                            entry.getValue()));
+                } catch (IllegalArgumentException ex) {
+                    throw new DdlGenerationException(String.format(
+                        "Invalid severity for mapping rule %s: %s",
+                        entry.getKey(),
+                        ex.getMessage()),
+                                                     ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The rules which are not disabled.
+     */
+    List<MappingRule> getRules() {
+        final List<MappingRule> result = new ArrayList<>();
+        for (final MappingRule rule : rules.values()) {
+            if (severities.get(rule.getId()) != null) {
+                result.add(rule);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param rule A rule.
+     *
+     * @return The severity of the rule, {@code null} if the rule is
+     *         disabled.
+     */
+    LintSeverity getSeverity(final MappingRule rule) {
+        return severities.get(rule.getId());
+    }
+
+    /**
+     * Runs all enabled rules.
+     *
+     * @param configuration The configuration containing the bound entities.
+     *
+     * @return The issues found, ordered by severity (highest first), entity
+     *         and property.
+     *
+     * @throws DdlGenerationException If a rule fails.
+     */
+    List<MappingIssue> lint(final Configuration configuration)
+        throws DdlGenerationException {
+        final List<MappingIssue> issues = new ArrayList<>();
+        for (final MappingRule rule : getRules()) {
+            final List<MappingIssue> ruleIssues;
+            try {
+                ruleIssues = rule.check(configuration);
+            } catch (RuntimeException ex) {
+                throw new DdlGenerationException(String.format(
+                    "Mapping rule %s failed: %s", rule.getId(),
+                    ex.getMessage()),
+                                                 ex);
+            }
+            for (final MappingIssue issue : ruleIssues) {
+                issues.add(issue.forRule(rule, getSeverity(rule)));
+            }
+        }
+
+        Collections.sort(issues, new Comparator<MappingIssue>() {
+
+            @Override
+            public int compare(final MappingIssue issue1,
+                               final MappingIssue issue2) {
+                int result = issue2.getSeverity().compareTo(
+                    issue1.getSeverity());
+                if (result == 0) {
+                    result = issue1.getLocation().compareTo(
+                        issue2.getLocation());
+                }
+                if (result == 0) {
+                    result = issue1.getRuleId().compareTo(
+                        issue2.getRuleId());
+                }
+                return result;
+            }
+
+        });
+        return issues;
+    }
+
+    /**
+     * @return New instances of the built-in rules.
+     */
+    static List<MappingRule> builtInRules() {
+        final List<MappingRule> builtIn = new ArrayList<>();
+        builtIn.add(new EagerToManyRule());
+        builtIn.add(new BagCollectionRule());
+        builtIn.add(new DeepJoinedInheritanceRule());
+        builtIn.add(new EagerLobRule());
+        builtIn.add(new MissingMappedByRule());
+        return builtIn;
+    }
+
+    /**
+     * @param collection A collection.
+     *
+     * @return The name of the property of the collection in its owner.
+     */
+    static String getPropertyName(final Collection collection) {
+        final String owner = collection.getOwnerEntityName();
+        final String role = collection.getRole();
+        if (role.startsWith(owner + ".")) {
+            return role.substring(owner.length() + 1);
+        } else {
+            return role;
+        }
+    }
+
+    /**
+     * @param configuration The configuration.
+     * @param collection    A collection.
+     *
+     * @return The entity of the elements of the collection, {@code null} if
+     *         the elements are not entities.
+     */
+    static PersistentClass getElementEntity(final Configuration configuration,
+                                            final Collection collection) {
+        final Value element = collection.getElement();
+        if (element instanceof OneToMany) {
+            return ((OneToMany) element).getAssociatedClass();
+        } else if (element instanceof ToOne) {
+            return configuration.getClassMapping(((ToOne) element)
+                .getReferencedEntityName());
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the fail threshold.
+     *
+     * @param value The name of a {@link LintSeverity} or {@link #NONE}.
+     *
+     * @return The severity, {@code null} for {@link #NONE}.
+     *
+     * @throws IllegalArgumentException If the value is invalid.
+     */
+    static LintSeverity parseFailOn(final String value) {
+        if (NONE.equalsIgnoreCase(value.trim())) {
+            return null;
+        } else {
+            return LintSeverity.fromString(value);
+        }
+    }
+
+    /**
+     * Parses severities of rules in the format {@code rule=severity}.
+     *
+     * @param entries The entries.
+     *
+     * @return The severities mapped by the id of the rule.
+     *
+     * @throws IllegalArgumentException If an entry is invalid.
+     */
+    static Map<String, String> parseSeverities(final List<String> entries) {
+        final Map<String, String> result = new LinkedHashMap<>();
+        for (final String entry : entries) {
+            final int index = entry.indexOf('=');
+            if (index <= 0 || index == entry.length() - 1) {
+                throw new IllegalArgumentException(String.format(
+                    "Invalid rule severity '%s', expected rule=severity.",
+                    entry));
+            }
+            result.put(entry.substring(0, index).trim(),
+                       entry.substring(index + 1).trim());
+        }
+        return result;
+    }
+
+    /**
+     * Formats severities of rules as entries {@code rule=severity}.
+     *
+     * @param severities The severities mapped by the id of the rule.
+     *
+     * @return The entries.
+     */
+    static List<String> formatSeverities(final Map<String, String> severities) {
+        final List<String> entries = new ArrayList<>();
+        for (final Map.Entry<String, String> entry : severities.entrySet()) {
+            entries.add(String.format("%s=%s",
+                                      entry.getKey(),
+                                      entry.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Counts the issues with at least the provided severity.
+     *
+     * @param issues   The issues.
+     * @param severity The minimum severity.
+     *
+     * @return The number of issues.
+     */
+    static int count(final List<MappingIssue> issues,
+                     final LintSeverity severity) {
+        int count = 0;
+        for (final MappingIssue issue : issues) {
+            if (issue.getSeverity().compareTo(severity) >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates the one line summary of the issues.
+     *
+     * @param issues The issues.
+     *
+     * @return The summary.
+     */
+    static String getSummary(final List<MappingIssue> issues) {
+        final Map<LintSeverity, Integer> counts = new LinkedHashMap<>();
+        for (final LintSeverity severity : LintSeverity.values()) {
+            counts.put(severity, 0);
+        }
+        for (final MappingIssue issue : issues) {
+            counts.put(issue.getSeverity(),
+                       counts.get(issue.getSeverity()) + 1);
+        }
+        return String.format(Locale.ENGLISH,
+                             "Mapping lint: %d error(s), %d warning(s), "
+                                 + "%d info(s).",
+                             counts.get(LintSeverity.ERROR),
+                             counts.get(LintSeverity.WARNING),
+                             counts.get(LintSeverity.INFO));
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+
+import java.util.List;
+
+/**
+ * A rule checking the mapping of the entities for choices which hurt the
+ * performance at runtime. Rules are executed by the {@code gen-ddl} goal if
+ * the linter is enabled. Additional rules can be provided by listing their
+ * implementations in a {@code META-INF/services} file for this interface
+ * ({@link java.util.ServiceLoader}) on the classpath of the project.
+ * Implementations must have a public constructor without parameters.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public interface MappingRule {
+
+    /**
+     * @return The unique id of the rule, used in the reports and for
+     *         configuring the severity of the rule.
+     */
+    String getId();
+
+    /**
+     * @return A short description of the rule.
+     */
+    String getDescription();
+
+    /**
+     * @return The severity of the issues reported by this rule if no other
+     *         severity is configured.
+     */
+    LintSeverity getDefaultSeverity();
+
+    /**
+     * Checks the mapping.
+     *
+     * @param configuration The configuration containing the bound entities.
+     *                      The rule must not modify the configuration.
+     *
+     * @return The issues found, an empty list if there are none.
+     */
+    List<MappingIssue> check(Configuration configuration);
+
+}
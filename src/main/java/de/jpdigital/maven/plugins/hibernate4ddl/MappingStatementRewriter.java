@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+
+/**
+ * A {@link StatementRewriter} which needs the mappings of the
+ * configuration, for example to resolve the names of entities to the names
+ * of their tables. The {@link DdlConfiguration} calls
+ * {@link #resolve(Configuration)} after the mappings have been compiled,
+ * which is before the statements are generated. This is important for
+ * Envers, because the {@code EnversSchemaGenerator} generates the
+ * statements while binding the mappings.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+interface MappingStatementRewriter extends StatementRewriter {
+
+    /**
+     * Resolves the configuration of the rewriter against the mappings. The
+     * method may be called several times for the same configuration.
+     *
+     * @param configuration The configuration with the compiled mappings.
+     *
+     * @throws IllegalArgumentException If the configuration of the rewriter
+     *                                  doesn't match the mappings.
+     */
+    void resolve(Configuration configuration);
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Adapter for writing the log of the {@link DdlGenerator} to the Maven log.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class MavenGenerationLog implements GenerationLog {
+
+    private final transient Log log;
+
+    MavenGenerationLog(final Log log) {
+        this.log = log;
+    }
+
+    @Override
+    public void info(final String message) {
+        log.info(message);
+    }
+
+    @Override
+    public void warn(final String message) {
+        log.warn(message);
+    }
+
+    @Override
+    public void error(final String message, final Throwable cause) {
+        log.error(message, cause);
+    }
+
+}
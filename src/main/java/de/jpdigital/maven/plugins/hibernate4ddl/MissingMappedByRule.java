@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.ToOne;
+import org.hibernate.mapping.Value;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reports associations which are mapped on both sides without
+ * {@code mappedBy}. Both sides own the association, therefore Hibernate
+ * creates two join tables for a many-to-many association, or a join table
+ * in addition to the foreign key for a one-to-many association, and writes
+ * each change twice.
+ *
+ * A collection is reported if it is not inverse and the entity of its
+ * elements has an association back to the owner of the collection which
+ * is not inverse either and not mapped to the same columns.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class MissingMappedByRule implements MappingRule {
+
+    @Override
+    public String getId() {
+        return "missing-mapped-by";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Bidirectional associations without mappedBy";
+    }
+
+    @Override
+    public LintSeverity getDefaultSeverity() {
+        return LintSeverity.WARNING;
+    }
+
+    @Override
+    public List<MappingIssue> check(final Configuration configuration) {
+        final List<MappingIssue> issues = new ArrayList<>();
+        final Iterator<?> collections = configuration.getCollectionMappings();
+        while (collections.hasNext()) {
+            final Collection collection = (Collection) collections.next();
+            if (collection.isInverse()) {
+                continue;
+            }
+            final PersistentClass target = MappingLinter.getElementEntity(
+                configuration, collection);
+            if (target == null) {
+                continue;
+            }
+
+            final Iterator<?> properties = target.getPropertyClosureIterator();
+            while (properties.hasNext()) {
+                final Property property = (Property) properties.next();
+                if (isOtherSide(collection, property.getValue())) {
+                    issues.add(new MappingIssue(
+                        collection.getOwnerEntityName(),
+                        MappingLinter.getPropertyName(collection),
+                        String.format(
+                            "The association is also mapped by %s.%s "
+                                + "without mappedBy, therefore both sides "
+                                + "own it. Add mappedBy to one side.",
+                            target.getEntityName(),
+                            property.getName())));
+                }
+            }
+        }
+        return issues;
+    }
+
+    private boolean isOtherSide(final Collection collection,
+                                final Value value) {
+        final String owner = collection.getOwnerEntityName();
+        if (value instanceof ToOne) {
+            //A one-to-many association with a join column mapped to the same
+            //column as the many-to-one side is a valid mapping.
+            return owner.equals(((ToOne) value).getReferencedEntityName())
+                       && !(collection.getCollectionTable().equals(
+                            value.getTable())
+                            && hasSameColumns(collection.getKey(), value));
+        } else if (value instanceof Collection) {
+            final Collection other = (Collection) value;
+            //Report each pair of collections only once.
+            return !other.isInverse()
+                       && other != collection
+                       && other.getElement() instanceof ToOne
+                       && owner.equals(((ToOne) other.getElement())
+                    .getReferencedEntityName())
+                       && collection.getRole().compareTo(other.getRole()) < 0;
+        } else {
+            return false;
+        }
+    }
+
+    private static boolean hasSameColumns(final Value value1,
+                                          final Value value2) {
+        final List<Object> columns = new ArrayList<>();
+        final Iterator<?> iterator1 = value1.getColumnIterator();
+        while (iterator1.hasNext()) {
+            columns.add(iterator1.next());
+        }
+        final List<Object> otherColumns = new ArrayList<>();
+        final Iterator<?> iterator2 = value2.getColumnIterator();
+        while (iterator2.hasNext()) {
+            otherColumns.add(iterator2.next());
+        }
+        return columns.equals(otherColumns);
+    }
+
+}
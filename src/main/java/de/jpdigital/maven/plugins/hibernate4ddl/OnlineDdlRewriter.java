@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rewrites statements into variants which do not block concurrent reads and
+ * writes for the whole time the statement is executed. This allows applying
+ * schema changes to large tables while the application is running:
+ *
+ * <ul>
+ * <li>PostgreSQL: Indexes are created and dropped {@code concurrently}.
+ * Foreign keys are added as {@code not valid} and validated by a separate
+ * statement which does not block writes. Unique constraints are added using
+ * a unique index created concurrently.</li>
+ * <li>MySQL: Indexes, columns, unique keys and foreign keys are added using
+ * {@code algorithm=inplace, lock=none}. Because MySQL can only add foreign
+ * keys in place if {@code foreign_key_checks} is disabled, the foreign keys
+ * are added with disabled checks. The existing rows are not validated.</li>
+ * <li>Oracle: Indexes are created {@code online}. Foreign keys are added
+ * with {@code enable novalidate} and validated by a separate statement.
+ * Unique constraints use an index created online.</li>
+ * </ul>
+ *
+ * Statements which can't be rewritten are kept. The statements created for
+ * PostgreSQL can't be executed in a transaction block.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class OnlineDdlRewriter implements StatementRewriter {
+
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "create (unique )?index (\\S+) on (.+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DROP_INDEX = Pattern.compile(
+        "drop index (\\S+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_FOREIGN_KEY = Pattern.compile(
+        "alter table (\\S+) add constraint (\\S+) foreign key (.+)",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_UNIQUE_KEY = Pattern.compile(
+        "alter table (\\S+) add constraint (\\S+) unique \\((.+)\\)",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern MYSQL_ALTER_TABLE = Pattern.compile(
+        "alter table \\S+ add (index|constraint|column) .+",
+        Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern NON_TRANSACTIONAL = Pattern.compile(
+        "\\s*(create\\s+(unique\\s+)?index|drop\\s+index)\\s+concurrently\\s.*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final String MYSQL_ONLINE_INDEX
+                                    = "algorithm=inplace lock=none";
+    private static final String MYSQL_ONLINE_ALTER
+                                    = "algorithm=inplace, lock=none";
+
+    private final transient Dialect dialect;
+
+    /**
+     * Creates a rewriter for a dialect.
+     *
+     * @param dialect The dialect. Must be supported (see
+     *                {@link #isSupported(Dialect)}).
+     */
+    OnlineDdlRewriter(final Dialect dialect) {
+        if (!isSupported(dialect)) {
+            throw new IllegalArgumentException(String.format(
+                "Online DDL is not supported for dialect %s.", dialect));
+        }
+        this.dialect = dialect;
+    }
+
+    /**
+     * @param dialect A dialect.
+     *
+     * @return {@code true} if statements for the dialect can be rewritten.
+     */
+    static boolean isSupported(final Dialect dialect) {
+        return isPostgreSql(dialect) || isMySql(dialect) || isOracle(dialect);
+    }
+
+    /**
+     * Checks if a statement can't be executed in a transaction block, like
+     * the {@code create index concurrently} statements created for
+     * PostgreSQL. Such statements must be executed on their own, not as part
+     * of a batch.
+     *
+     * @param statement The statement, may be formatted.
+     *
+     * @return {@code true} if the statement must be executed on its own.
+     */
+    static boolean isNonTransactional(final String statement) {
+        return NON_TRANSACTIONAL.matcher(statement).matches();
+    }
+
+    private static boolean isPostgreSql(final Dialect dialect) {
+        return dialect.name().startsWith("POSTGRESQL");
+    }
+
+    private static boolean isMySql(final Dialect dialect) {
+        return dialect.name().startsWith("MYSQL");
+    }
+
+    private static boolean isOracle(final Dialect dialect) {
+        return dialect.name().startsWith("ORACLE")
+                   && dialect != Dialect.ORACLE_TIMES_TEN;
+    }
+
+    @Override
+    public List<String> rewrite(final List<String> statements) {
+        final List<String> result = new ArrayList<>();
+        if (isPostgreSql(dialect)) {
+            for (final String statement : statements) {
+                rewritePostgreSql(statement.trim(), result);
+            }
+        } else if (isMySql(dialect)) {
+            rewriteMySql(statements, result);
+        } else {
+            for (final String statement : statements) {
+                rewriteOracle(statement.trim(), result);
+            }
+        }
+        return result;
+    }
+
+    private void rewritePostgreSql(final String statement,
+                                   final List<String> result) {
+        Matcher matcher = CREATE_INDEX.matcher(statement);
+        if (matcher.matches()) {
+            result.add(String.format("create %sindex concurrently %s on %s",
+                                     nullToEmpty(matcher.group(1)),
+                                     matcher.group(2),
+                                     matcher.group(3)));
+            return;
+        }
+        matcher = DROP_INDEX.matcher(statement);
+        if (matcher.matches()) {
+            result.add(String.format("drop index concurrently %s",
+                                     matcher.group(1)));
+            return;
+        }
+        matcher = ADD_FOREIGN_KEY.matcher(statement);
+        if (matcher.matches()) {
+            result.add(statement + " not valid");
+            result.add(String.format("alter table %s validate constraint %s",
+                                     matcher.group(1),
+                                     matcher.group(2)));
+            return;
+        }
+        matcher = ADD_UNIQUE_KEY.matcher(statement);
+        if (matcher.matches()) {
+            result.add(String.format(
+                "create unique index concurrently %s on %s (%s)",
+                matcher.group(2),
+                matcher.group(1),
+                matcher.group(3)));
+            result.add(String.format(
+                "alter table %s add constraint %s unique using index %s",
+                matcher.group(1),
+                matcher.group(2),
+                matcher.group(2)));
+            return;
+        }
+        result.add(statement);
+    }
+
+    private void rewriteMySql(final List<String> statements,
+                              final List<String> result) {
+        boolean checksDisabled = false;
+        for (final String original : statements) {
+            final String statement = original.trim();
+            final String lowerCase = statement.toLowerCase(Locale.ENGLISH);
+            final boolean foreignKey = lowerCase.startsWith("alter table")
+                                           && lowerCase.contains(
+                    " foreign key ");
+            if (foreignKey && !checksDisabled) {
+                result.add("set foreign_key_checks = 0");
+                checksDisabled = true;
+            } else if (!foreignKey && checksDisabled) {
+                result.add("set foreign_key_checks = 1");
+                checksDisabled = false;
+            }
+
+            if (CREATE_INDEX.matcher(statement).matches()) {
+                result.add(statement + " " + MYSQL_ONLINE_INDEX);
+            } else if (MYSQL_ALTER_TABLE.matcher(statement).matches()) {
+                result.add(statement + ", " + MYSQL_ONLINE_ALTER);
+            } else {
+                result.add(statement);
+            }
+        }
+        if (checksDisabled) {
+            result.add("set foreign_key_checks = 1");
+        }
+    }
+
+    private void rewriteOracle(final String statement,
+                               final List<String> result) {
+        Matcher matcher = CREATE_INDEX.matcher(statement);
+        if (matcher.matches()) {
+            result.add(statement + " online");
+            return;
+        }
+        matcher = ADD_FOREIGN_KEY.matcher(statement);
+        if (matcher.matches()) {
+            result.add(statement + " enable novalidate");
+            result.add(String.format(
+                "alter table %s enable validate constraint %s",
+                matcher.group(1),
+                matcher.group(2)));
+            return;
+        }
+        matcher = ADD_UNIQUE_KEY.matcher(statement);
+        if (matcher.matches()) {
+            result.add(String.format("create unique index %s on %s (%s) online",
+                                     matcher.group(2),
+                                     matcher.group(1),
+                                     matcher.group(3)));
+            result.add(String.format(
+                "alter table %s add constraint %s unique (%s) using index %s",
+                matcher.group(1),
+                matcher.group(2),
+                matcher.group(3),
+                matcher.group(2)));
+            return;
+        }
+        result.add(statement);
+    }
+
+    private static String nullToEmpty(final String value) {
+        if (value == null) {
+            return "";
+        } else {
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The state shared by the {@link OutputWriter}s of a dialect: the options,
+ * the configuration used for generating the DDL and the paths of the output
+ * files.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class OutputContext {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final transient Dialect dialect;
+    private final transient DdlOptions options;
+    private final transient DdlConfiguration configuration;
+    private final transient org.hibernate.dialect.Dialect hibernateDialect;
+    private final transient GenerationLog log;
+    private transient SchemaSnapshot snapshot;
+
+    OutputContext(final Dialect dialect,
+                  final DdlOptions options,
+                  final DdlConfiguration configuration,
+                  final org.hibernate.dialect.Dialect hibernateDialect,
+                  final GenerationLog log) {
+        this.dialect = dialect;
+        this.options = options;
+        this.configuration = configuration;
+        this.hibernateDialect = hibernateDialect;
+        this.log = log;
+    }
+
+    Dialect getDialect() {
+        return dialect;
+    }
+
+    DdlOptions getOptions() {
+        return options;
+    }
+
+    DdlConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    org.hibernate.dialect.Dialect getHibernateDialect() {
+        return hibernateDialect;
+    }
+
+    GenerationLog getLog() {
+        return log;
+    }
+
+    /**
+     * @return The snapshot of the schema. The snapshot is created on the
+     *         first call.
+     */
+    SchemaSnapshot getSnapshot() {
+        if (snapshot == null) {
+            snapshot = SchemaSnapshot.create(configuration,
+                                             dialect,
+                                             hibernateDialect);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return The name of the dialect used as base name of the output
+     *         files.
+     */
+    String getBaseName() {
+        return dialect.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return The path of the DDL file of the dialect.
+     */
+    Path getDdlFile() {
+        return getOutputFile(".sql");
+    }
+
+    /**
+     * @param suffix The suffix of the file.
+     *
+     * @return The path of the file {@code <dialect><suffix>} in the output
+     *         directory.
+     */
+    Path getOutputFile(final String suffix) {
+        return options.getOutputDirectory().toPath().resolve(getBaseName()
+                                                                 + suffix);
+    }
+
+    /**
+     * Writes a file if it does not exist or if its content is different.
+     *
+     * @param path    The path of the file.
+     * @param content The content of the file.
+     *
+     * @return The number of bytes written, {@code 0} if the file has not
+     *         changed.
+     *
+     * @throws IOException If the file can't be read or written.
+     */
+    static long writeIfChanged(final Path path, final String content)
+        throws IOException {
+        final byte[] bytes = content.getBytes(UTF8);
+        if (Files.exists(path)
+                && Arrays.equals(bytes, Files.readAllBytes(path))) {
+            return 0;
+        }
+        Files.write(path, bytes);
+        return bytes.length;
+    }
+
+}
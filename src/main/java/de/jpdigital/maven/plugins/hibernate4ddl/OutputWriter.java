@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+/**
+ * Writes one of the files generated by the {@link DdlGenerator} in addition
+ * to the DDL file of a dialect, for example the {@link SchemaSnapshot} or
+ * the report of the {@link RowWidthEstimator}. The writers are called after
+ * the DDL file has been written. Like the DDL file the files are only
+ * written if they have changed.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+interface OutputWriter {
+
+    /**
+     * @param context The context of the dialect.
+     *
+     * @return {@code true} if the options request the file for the dialect.
+     */
+    boolean isEnabled(OutputContext context);
+
+    /**
+     * Writes the file.
+     *
+     * @param context The context of the dialect.
+     *
+     * @return The number of bytes written, {@code 0} if the file has not
+     *         changed.
+     *
+     * @throws DdlGenerationException If the file can't be written.
+     */
+    long write(OutputContext context) throws DdlGenerationException;
+
+}
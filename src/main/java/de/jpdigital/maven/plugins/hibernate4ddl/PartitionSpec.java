@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The partitioning of a table as configured for the plugin. A specification
+ * has the form {@code <type>(<column>): <partitions>}:
+ *
+ * <dl>
+ * <dt>{@code range(created_on): '2024-01-01', '2025-01-01', maxvalue}</dt>
+ * <dd>Range partitioning. The partitions are the upper bounds (exclusive)
+ * of the partitions as SQL literals in ascending order. The last bound may
+ * be {@code maxvalue} for a partition holding all higher values.</dd>
+ * <dt>{@code list(region): eu='DE'|'FR', us='US', default}</dt>
+ * <dd>List partitioning. Each partition is a name and the values of the
+ * partition as SQL literals separated by {@code |}. {@code default} adds a
+ * partition for all other values.</dd>
+ * <dt>{@code hash(id): 8}</dt>
+ * <dd>Hash partitioning into the provided number of partitions.</dd>
+ * </dl>
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class PartitionSpec {
+
+    /**
+     * Bound of a range partition for all higher values and the name of this
+     * partition.
+     */
+    static final String MAXVALUE = "maxvalue";
+
+    /**
+     * Entry of a list partitioning for all other values.
+     */
+    static final String DEFAULT = "default";
+
+    private static final Pattern SPEC = Pattern.compile(
+        "\\s*(range|list|hash)\\s*\\(\\s*([^()\\s]+)\\s*\\)\\s*:(.*)",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern NAME = Pattern.compile(
+        "[A-Za-z_][A-Za-z0-9_$]*");
+
+    /**
+     * The supported types of partitioning.
+     */
+    enum Type {
+        RANGE,
+        LIST,
+        HASH
+    }
+
+    private final transient String spec;
+    private final transient Type type;
+    private final transient String column;
+    private final transient List<String> bounds = new ArrayList<>();
+    private final transient Map<String, List<String>> lists
+                                                    = new LinkedHashMap<>();
+    private transient boolean maxValue;
+    private transient boolean defaultPartition;
+    private transient int count;
+
+    private PartitionSpec(final String spec,
+                          final Type type,
+                          final String column) {
+        this.spec = spec;
+        this.type = type;
+        this.column = column;
+    }
+
+    /**
+     * Parses a specification.
+     *
+     * @param spec The specification.
+     *
+     * @return The partitioning.
+     *
+     * @throws IllegalArgumentException If the specification is invalid.
+     */
+    static PartitionSpec parse(final String spec) {
+        final Matcher matcher = SPEC.matcher(spec == null ? "" : spec);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid partitioning '%s', expected "
+                    + "range|list|hash(<column>): <partitions>.",
+                spec));
+        }
+        final PartitionSpec result = new PartitionSpec(
+            spec.trim(),
+            Type.valueOf(matcher.group(1).toUpperCase(Locale.ENGLISH)),
+            matcher.group(2));
+        final String partitions = matcher.group(3).trim();
+        if (partitions.isEmpty()) {
+            throw new IllegalArgumentException(String.format(
+                "The partitioning '%s' has no partitions.", spec));
+        }
+        switch (result.type) {
+            case RANGE:
+                result.parseRange(partitions);
+                break;
+            case LIST:
+                result.parseList(partitions);
+                break;
+            default:
+                result.parseHash(partitions);
+                break;
+        }
+        return result;
+    }
+
+    private void parseRange(final String partitions) {
+        final List<String> elements = ColumnAlignmentRewriter.splitTopLevel(
+            partitions);
+        for (int i = 0; i < elements.size(); i++) {
+            final String bound = elements.get(i);
+            if (bound.isEmpty()) {
+                throw new IllegalArgumentException(String.format(
+                    "Empty bound in partitioning '%s'.", spec));
+            }
+            if (MAXVALUE.equalsIgnoreCase(bound)) {
+                if (i != elements.size() - 1 || i == 0) {
+                    throw new IllegalArgumentException(String.format(
+                        "%s must be the last of several bounds in "
+                            + "partitioning '%s'.",
+                        MAXVALUE,
+                        spec));
+                }
+                maxValue = true;
+            } else {
+                bounds.add(bound);
+            }
+        }
+    }
+
+    private void parseList(final String partitions) {
+        for (final String element : ColumnAlignmentRewriter.splitTopLevel(
+            partitions)) {
+            if (DEFAULT.equalsIgnoreCase(element)) {
+                defaultPartition = true;
+                continue;
+            }
+            final int index = element.indexOf('=');
+            final String name = index < 0 ? element : element.substring(
+                0, index).trim();
+            if (index < 0 || !NAME.matcher(name).matches()) {
+                throw new IllegalArgumentException(String.format(
+                    "Invalid list partition '%s' in partitioning '%s', "
+                        + "expected <name>=<value>|<value>.",
+                    element,
+                    spec));
+            }
+            if (lists.containsKey(name.toLowerCase(Locale.ENGLISH))) {
+                throw new IllegalArgumentException(String.format(
+                    "Duplicate list partition '%s' in partitioning '%s'.",
+                    name,
+                    spec));
+            }
+            final List<String> values = new ArrayList<>();
+            for (final String value : ColumnAlignmentRewriter.splitTopLevel(
+                element.substring(index + 1), '|')) {
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException(String.format(
+                        "Empty value in list partition '%s' of partitioning "
+                            + "'%s'.",
+                        name,
+                        spec));
+                }
+                values.add(value);
+            }
+            lists.put(name.toLowerCase(Locale.ENGLISH), values);
+        }
+        if (lists.isEmpty()) {
+            throw new IllegalArgumentException(String.format(
+                "The partitioning '%s' has no list partitions.", spec));
+        }
+    }
+
+    private void parseHash(final String partitions) {
+        try {
+            count = Integer.parseInt(partitions);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid number of hash partitions in partitioning '%s'.",
+                spec), ex);
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException(String.format(
+                "The partitioning '%s' needs at least one hash partition.",
+                spec));
+        }
+    }
+
+    /**
+     * @return The specification as configured.
+     */
+    String getSpec() {
+        return spec;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The name of the partition column.
+     */
+    String getColumn() {
+        return column;
+    }
+
+    /**
+     * @return The upper bounds of the range partitions, without
+     *         {@link #MAXVALUE}.
+     */
+    List<String> getBounds() {
+        return Collections.unmodifiableList(bounds);
+    }
+
+    /**
+     * @return {@code true} if a range partition for all values above the
+     *         last bound is created.
+     */
+    boolean isMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * @return The values of the list partitions mapped by the name of the
+     *         partition.
+     */
+    Map<String, List<String>> getLists() {
+        return Collections.unmodifiableMap(lists);
+    }
+
+    /**
+     * @return {@code true} if a list partition for all other values is
+     *         created.
+     */
+    boolean isDefaultPartition() {
+        return defaultPartition;
+    }
+
+    /**
+     * @return The number of hash partitions.
+     */
+    int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+}
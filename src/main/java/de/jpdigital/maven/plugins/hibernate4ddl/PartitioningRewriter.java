@@ -0,0 +1,595 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates the configured tables as partitioned tables for PostgreSQL, MySQL
+ * and Oracle. The partitioned tables are configured by the name of the
+ * entity (the simple or fully qualified class name or the JPA entity name)
+ * or the name of the table, the partitioning by a {@link PartitionSpec}.
+ *
+ * <ul>
+ * <li>For PostgreSQL (version 11 or newer) a {@code partition by} clause is
+ * added to the {@code create table} statement and each partition is
+ * created by a {@code create table ... partition of} statement. The names
+ * of the partitions are the name of the table and the name of the
+ * partition, for example {@code events_p1}. The partitions are created in
+ * the schema of the table.</li>
+ * <li>For MySQL and Oracle the partitions are part of the
+ * {@code partition by} clause. MySQL uses {@code range columns} and
+ * {@code list columns} partitioning, hash partitioning is done with
+ * {@code partition by key}. For Oracle date literals like
+ * {@code '2024-01-01'} are converted with {@code to_date}.</li>
+ * </ul>
+ *
+ * PostgreSQL and MySQL require that the primary key and the unique keys of
+ * a partitioned table include the partition column. The column is added to
+ * these keys if necessary, which weakens the uniqueness guaranteed by the
+ * keys. The foreign keys referencing such a table can't use the primary key
+ * anymore and are removed. MySQL doesn't support foreign keys for
+ * partitioned tables at all, therefore all foreign keys of and to these
+ * tables are removed (the index created for the foreign key is kept). Each
+ * change to keys is recorded and logged as warning.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class PartitioningRewriter implements MappingStatementRewriter {
+
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "create table (\\S+) \\(.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern PRIMARY_KEY = Pattern.compile(
+        "primary key \\((.*)\\)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern UNIQUE_KEY = Pattern.compile(
+        "alter table (?<table>\\S+) add constraint (?<name>\\S+) unique "
+            + "\\((?<columns>.*)\\)",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern UNIQUE_INDEX = Pattern.compile(
+        "create unique index (?<name>\\S+) on (?<table>\\S+) "
+            + "\\((?<columns>.*)\\)",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern FOREIGN_KEY = Pattern.compile(
+        "alter table (?<table>\\S+) "
+            + "(?:(?<index>add index \\S+ \\([^)]*\\)), )?"
+            + "add constraint (?<name>\\S+) foreign key \\([^)]*\\) "
+            + "references (?<referenced>[^\\s(]+).*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern DATE = Pattern.compile(
+        "'\\d{4}-\\d{2}-\\d{2}'");
+    private static final Pattern TIMESTAMP = Pattern.compile(
+        "'\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}'");
+
+    private final transient Dialect dialect;
+    private final transient Map<String, PartitionSpec> specs;
+    private final transient Map<String, Partitioned> partitioned
+                                                         = new HashMap<>();
+    private final transient Set<String> changes = new TreeSet<>();
+
+    /**
+     * Creates an instance. The names are resolved by
+     * {@link #resolve(Configuration)}.
+     *
+     * @param dialect The dialect for which the statements are rewritten.
+     * @param specs   The partitioning mapped by the name of the entity or
+     *                table.
+     */
+    PartitioningRewriter(final Dialect dialect,
+                         final Map<String, PartitionSpec> specs) {
+        this.dialect = dialect;
+        this.specs = new LinkedHashMap<>(specs);
+    }
+
+    /**
+     * @param dialect A dialect.
+     *
+     * @return {@code true} if tables can be partitioned for the dialect.
+     */
+    static boolean isSupported(final Dialect dialect) {
+        return dialect.name().startsWith("POSTGRESQL")
+                   || dialect.name().startsWith("MYSQL")
+                   || (dialect.name().startsWith("ORACLE")
+                       && dialect != Dialect.ORACLE_TIMES_TEN);
+    }
+
+    /**
+     * Resolves the names of the entities and tables to the partitioned
+     * tables and checks the partitioning against the tables.
+     *
+     * @param configuration The configuration. The mappings must have been
+     *                      compiled.
+     *
+     * @throws IllegalArgumentException If there is no entity or table with
+     *                                  one of the names, if a table has no
+     *                                  column with the name of the partition
+     *                                  column or if the partitioning is not
+     *                                  supported by the dialect.
+     */
+    @Override
+    public void resolve(final Configuration configuration) {
+        partitioned.clear();
+        for (final Map.Entry<String, PartitionSpec> entry : specs.entrySet()) {
+            final Table table = findTable(configuration, entry.getKey());
+            if (table == null) {
+                throw new IllegalArgumentException(String.format(
+                    "No entity or table with the name '%s'.",
+                    entry.getKey()));
+            }
+            final PartitionSpec spec = entry.getValue();
+            final Column column = findColumn(table, spec.getColumn());
+            if (column == null) {
+                throw new IllegalArgumentException(String.format(
+                    "The table %s has no column %s.",
+                    table.getName(),
+                    spec.getColumn()));
+            }
+            if (isMySql() && spec.isDefaultPartition()) {
+                throw new IllegalArgumentException(String.format(
+                    "MySQL doesn't support a default partition for the list "
+                        + "partitioning of table %s.",
+                    table.getName()));
+            }
+            final String key = table.getName().toLowerCase(Locale.ROOT);
+            if (partitioned.containsKey(key)) {
+                throw new IllegalArgumentException(String.format(
+                    "The table %s is partitioned more than once.",
+                    table.getName()));
+            }
+            final boolean keyExtended = requiresKeyColumns()
+                                            && table.hasPrimaryKey()
+                                            && !table.getPrimaryKey()
+                .containsColumn(column);
+            partitioned.put(key, new Partitioned(table.getName(),
+                                                 column.getQuotedName(),
+                                                 spec,
+                                                 keyExtended));
+        }
+    }
+
+    /**
+     * Finds the table of an entity or a table by name.
+     *
+     * @param configuration The configuration. The mappings must have been
+     *                      built.
+     * @param name          The name of the entity (simple or fully
+     *                      qualified class name or JPA entity name) or the
+     *                      table.
+     *
+     * @return The table or {@code null} if there is no entity or table with
+     *         the name.
+     */
+    static Table findTable(final Configuration configuration,
+                           final String name) {
+        final Iterator<PersistentClass> classes = configuration
+            .getClassMappings();
+        while (classes.hasNext()) {
+            final PersistentClass entity = classes.next();
+            final String className = entity.getClassName();
+            if (name.equalsIgnoreCase(entity.getEntityName())
+                    || name.equalsIgnoreCase(entity.getJpaEntityName())
+                    || (className != null && name.equalsIgnoreCase(className
+                        .substring(className.lastIndexOf('.') + 1)))) {
+                return entity.getTable();
+            }
+        }
+        final Iterator<Table> tables = configuration.getTableMappings();
+        while (tables.hasNext()) {
+            final Table table = tables.next();
+            if (table.isPhysicalTable()
+                    && name.equalsIgnoreCase(table.getName())) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    private static Column findColumn(final Table table, final String name) {
+        final Iterator<?> columns = table.getColumnIterator();
+        while (columns.hasNext()) {
+            final Column column = (Column) columns.next();
+            if (name.equalsIgnoreCase(column.getName())) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private boolean isMySql() {
+        return dialect.name().startsWith("MYSQL");
+    }
+
+    private boolean isPostgreSql() {
+        return dialect.name().startsWith("POSTGRESQL");
+    }
+
+    /**
+     * PostgreSQL and MySQL require the partition column in each unique key.
+     */
+    private boolean requiresKeyColumns() {
+        return isPostgreSql() || isMySql();
+    }
+
+    @Override
+    public List<String> rewrite(final List<String> statements) {
+        final List<String> result = new ArrayList<>();
+        for (final String statement : statements) {
+            final String trimmed = statement.trim();
+            final Matcher createTable = CREATE_TABLE.matcher(trimmed);
+            final Matcher uniqueKey = UNIQUE_KEY.matcher(trimmed);
+            final Matcher uniqueIndex = UNIQUE_INDEX.matcher(trimmed);
+            final Matcher foreignKey = FOREIGN_KEY.matcher(trimmed);
+            if (createTable.matches()
+                    && lookup(createTable.group(1)) != null) {
+                final Partitioned table = lookup(createTable.group(1));
+                result.add(createTable(table, trimmed));
+                if (isPostgreSql()) {
+                    result.addAll(createPartitions(table,
+                                                   createTable.group(1)));
+                }
+            } else if (uniqueKey.matches()) {
+                result.add(extendUniqueKey(uniqueKey, trimmed));
+            } else if (uniqueIndex.matches()) {
+                result.add(extendUniqueKey(uniqueIndex, trimmed));
+            } else if (foreignKey.matches()) {
+                final String rewritten = rewriteForeignKey(foreignKey);
+                if (rewritten != null) {
+                    result.add(rewritten);
+                }
+            } else {
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+
+    private Partitioned lookup(final String name) {
+        String table = name;
+        final int index = table.lastIndexOf('.');
+        if (index >= 0) {
+            table = table.substring(index + 1);
+        }
+        table = table.replaceAll("[\"`\\[\\]]", "");
+        return partitioned.get(table.toLowerCase(Locale.ROOT));
+    }
+
+    private String createTable(final Partitioned table,
+                               final String statement) {
+        final int start = statement.indexOf('(');
+        final int end = ColumnAlignmentRewriter.findClosingParenthesis(
+            statement, start);
+        if (end < 0) {
+            return statement;
+        }
+
+        final StringBuilder builder = new StringBuilder(statement.substring(
+            0, start + 1));
+        if (table.keyExtended) {
+            boolean first = true;
+            for (final String element : ColumnAlignmentRewriter
+                .splitTopLevel(statement.substring(start + 1, end))) {
+                if (!first) {
+                    builder.append(", ");
+                }
+                builder.append(extendPrimaryKey(table, element));
+                first = false;
+            }
+        } else {
+            builder.append(statement.substring(start + 1, end));
+        }
+        builder.append(statement.substring(end));
+        builder.append(partitionClause(table));
+        return builder.toString();
+    }
+
+    private String extendPrimaryKey(final Partitioned table,
+                                    final String element) {
+        final Matcher matcher = PRIMARY_KEY.matcher(element);
+        if (matcher.matches()) {
+            changes.add(String.format(
+                "Added the partition column %s to the primary key of table "
+                    + "%s.",
+                table.column,
+                table.name));
+            return String.format("primary key (%s, %s)",
+                                 matcher.group(1),
+                                 table.column);
+        }
+        final String[] tokens = element.split("\\s+", 2);
+        if (tokens[0].equalsIgnoreCase(table.column)
+                && !element.toLowerCase(Locale.ENGLISH).contains(
+                "not null")) {
+            return element + " not null";
+        }
+        return element;
+    }
+
+    private String partitionClause(final Partitioned table) {
+        final PartitionSpec spec = table.spec;
+        final String type = spec.getType().name().toLowerCase(Locale.ENGLISH);
+        if (isPostgreSql()) {
+            return String.format(" partition by %s (%s)", type, table.column);
+        }
+
+        if (spec.getType() == PartitionSpec.Type.HASH) {
+            return String.format(" partition by %s (%s) partitions %d",
+                                 isMySql() ? "key" : "hash",
+                                 table.column,
+                                 spec.getCount());
+        }
+
+        final List<String> partitions = new ArrayList<>();
+        if (spec.getType() == PartitionSpec.Type.RANGE) {
+            final List<String> bounds = spec.getBounds();
+            for (int i = 0; i < bounds.size(); i++) {
+                partitions.add(String.format(
+                    "partition p%d values less than (%s)",
+                    i + 1,
+                    literal(bounds.get(i))));
+            }
+            if (spec.isMaxValue()) {
+                partitions.add(String.format(
+                    "partition pmax values less than (%s)",
+                    PartitionSpec.MAXVALUE));
+            }
+        } else {
+            for (final Map.Entry<String, List<String>> entry : spec.getLists()
+                .entrySet()) {
+                partitions.add(String.format("partition %s values %s(%s)",
+                                             entry.getKey(),
+                                             isMySql() ? "in " : "",
+                                             literals(entry.getValue())));
+            }
+            if (spec.isDefaultPartition()) {
+                partitions.add(String.format("partition pdefault values (%s)",
+                                             PartitionSpec.DEFAULT));
+            }
+        }
+        return String.format(" partition by %s%s (%s) (%s)",
+                             type,
+                             isMySql() ? " columns" : "",
+                             table.column,
+                             join(partitions));
+    }
+
+    /**
+     * Creates the statements creating the partitions of a table for
+     * PostgreSQL. The partitions are created in the schema of the table.
+     *
+     * @param table The partitioned table.
+     * @param name  The name of the table as used in the {@code create table}
+     *              statement, qualified with the schema and quoted if
+     *              necessary.
+     */
+    private List<String> createPartitions(final Partitioned table,
+                                          final String name) {
+        final PartitionSpec spec = table.spec;
+        final List<String> statements = new ArrayList<>();
+        switch (spec.getType()) {
+            case RANGE:
+                final List<String> bounds = spec.getBounds();
+                for (int i = 0; i < bounds.size(); i++) {
+                    statements.add(String.format(
+                        "create table %s partition of %s for values from "
+                            + "(%s) to (%s)",
+                        partitionName(name, "_p" + (i + 1)),
+                        name,
+                        i == 0 ? "minvalue" : bounds.get(i - 1),
+                        bounds.get(i)));
+                }
+                if (spec.isMaxValue()) {
+                    statements.add(String.format(
+                        "create table %s partition of %s for values from "
+                            + "(%s) to (%s)",
+                        partitionName(name, "_pmax"),
+                        name,
+                        bounds.get(bounds.size() - 1),
+                        PartitionSpec.MAXVALUE));
+                }
+                break;
+            case LIST:
+                for (final Map.Entry<String, List<String>> entry : spec
+                    .getLists().entrySet()) {
+                    statements.add(String.format(
+                        "create table %s partition of %s for values in (%s)",
+                        partitionName(name, "_" + entry.getKey()),
+                        name,
+                        join(entry.getValue())));
+                }
+                if (spec.isDefaultPartition()) {
+                    statements.add(String.format(
+                        "create table %s partition of %s %s",
+                        partitionName(name, "_pdefault"),
+                        name,
+                        PartitionSpec.DEFAULT));
+                }
+                break;
+            default:
+                for (int i = 0; i < spec.getCount(); i++) {
+                    statements.add(String.format(
+                        "create table %s partition of %s for values with "
+                            + "(modulus %d, remainder %d)",
+                        partitionName(name, "_p" + i),
+                        name,
+                        spec.getCount(),
+                        i));
+                }
+                break;
+        }
+        return statements;
+    }
+
+    /**
+     * Creates the name of a partition from the name of the table, keeping
+     * the schema and the quotes of the name of the table.
+     *
+     * @param name   The name of the table, qualified with the schema and
+     *               quoted if necessary.
+     * @param suffix The suffix identifying the partition.
+     *
+     * @return The name of the partition, for example
+     *         {@code archive.events_p1} or {@code "order"."events_p1"}.
+     */
+    private static String partitionName(final String name, final String suffix) {
+        final int index = name.lastIndexOf('.');
+        final String schema = name.substring(0, index + 1);
+        final String table = name.substring(index + 1);
+        if (table.length() > 1 && "\"`]".indexOf(
+            table.charAt(table.length() - 1)) >= 0) {
+            return schema + table.substring(0, table.length() - 1) + suffix
+                       + table.charAt(table.length() - 1);
+        }
+        return schema + table + suffix;
+    }
+
+    private String extendUniqueKey(final Matcher matcher,
+                                   final String statement) {
+        final Partitioned table = lookup(matcher.group("table"));
+        if (table == null || !requiresKeyColumns()) {
+            return statement;
+        }
+        for (final String column : ColumnAlignmentRewriter.splitTopLevel(
+            matcher.group("columns"))) {
+            if (column.equalsIgnoreCase(table.column)) {
+                return statement;
+            }
+        }
+        changes.add(String.format(
+            "Added the partition column %s to the unique key %s of table %s.",
+            table.column,
+            matcher.group("name"),
+            table.name));
+        return String.format("%s, %s)",
+                             statement.substring(0, matcher.end("columns")),
+                             table.column);
+    }
+
+    /**
+     * @return The rewritten statement or {@code null} if the statement is
+     *         removed.
+     */
+    private String rewriteForeignKey(final Matcher matcher) {
+        final Partitioned table = lookup(matcher.group("table"));
+        final Partitioned referenced = lookup(matcher.group("referenced"));
+        final String reason;
+        if (isMySql() && (table != null || referenced != null)) {
+            reason = "MySQL doesn't support foreign keys for partitioned "
+                         + "tables";
+        } else if (referenced != null && referenced.keyExtended) {
+            reason = String.format(
+                "the primary key of table %s includes the partition column",
+                referenced.name);
+        } else {
+            return matcher.group();
+        }
+
+        changes.add(String.format(
+            "Removed the foreign key %s of table %s because %s.",
+            matcher.group("name"),
+            matcher.group("table"),
+            reason));
+        if (matcher.group("index") == null) {
+            return null;
+        }
+        return String.format("alter table %s %s",
+                             matcher.group("table"),
+                             matcher.group("index"));
+    }
+
+    private String literals(final List<String> values) {
+        final List<String> literals = new ArrayList<>();
+        for (final String value : values) {
+            literals.add(literal(value));
+        }
+        return join(literals);
+    }
+
+    /**
+     * Oracle converts strings to dates using the date format of the
+     * session, therefore date literals are converted explicitly.
+     */
+    private String literal(final String value) {
+        if (isMySql() || isPostgreSql()) {
+            return value;
+        }
+        if (DATE.matcher(value).matches()) {
+            return String.format("to_date(%s, 'YYYY-MM-DD')", value);
+        }
+        if (TIMESTAMP.matcher(value).matches()) {
+            return String.format("to_date(%s, 'YYYY-MM-DD HH24:MI:SS')",
+                                 value);
+        }
+        return value;
+    }
+
+    private static String join(final List<String> values) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String value : values) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return The changes to the primary keys, unique keys and foreign keys
+     *         of the tables, sorted.
+     */
+    List<String> getChanges() {
+        return Collections.unmodifiableList(new ArrayList<>(changes));
+    }
+
+    /**
+     * A partitioned table.
+     */
+    private static final class Partitioned {
+
+        private final transient String name;
+        private final transient String column;
+        private final transient PartitionSpec spec;
+        private final transient boolean keyExtended;
+
+        Partitioned(final String name,
+                    final String column,
+                    final PartitionSpec spec,
+                    final boolean keyExtended) {
+            this.name = name;
+            this.column = column;
+            this.spec = spec;
+            this.keyExtended = keyExtended;
+        }
+
+    }
+
+}
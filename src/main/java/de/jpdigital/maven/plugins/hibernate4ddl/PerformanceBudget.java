@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Performance budgets for the DDL generation. A budget which is set to
+ * {@code null} is not checked.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class PerformanceBudget {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final Long maxWallTimePerDialect;
+    private final Long maxScanTime;
+    private final Long maxHeapDeltaMb;
+
+    /**
+     * Creates a new budget.
+     *
+     * @param maxWallTimePerDialect Maximum wall time in milliseconds for all
+     *                              phases executed per dialect (binding,
+     *                              export and write).
+     * @param maxScanTime           Maximum wall time in milliseconds for the
+     *                              scan for entities.
+     * @param maxHeapDeltaMb        Maximum increase of the used heap in MB.
+     */
+    PerformanceBudget(final Long maxWallTimePerDialect,
+                      final Long maxScanTime,
+                      final Long maxHeapDeltaMb) {
+        this.maxWallTimePerDialect = maxWallTimePerDialect;
+        this.maxScanTime = maxScanTime;
+        this.maxHeapDeltaMb = maxHeapDeltaMb;
+    }
+
+    /**
+     * Checks the measurements in the provided report against the budgets.
+     *
+     * @param report The report.
+     *
+     * @return A list of all exceeded budgets, empty if all budgets were
+     *         kept.
+     */
+    List<BudgetViolation> check(final GenerationReport report) {
+        final List<BudgetViolation> violations = new ArrayList<>();
+
+        if (maxScanTime != null) {
+            final long scanTime = toMillis(
+                report.getTotal(GenerationPhase.SCAN).getWallTimeNanos());
+            if (scanTime > maxScanTime) {
+                violations.add(new BudgetViolation(
+                    "maxScanTime",
+                    null,
+                    maxScanTime,
+                    scanTime,
+                    "ms"));
+            }
+        }
+
+        if (maxWallTimePerDialect != null) {
+            for (final Dialect dialect : report.getDialects()) {
+                long wallTime = 0;
+                final Map<GenerationPhase, Long> phaseTimes = new EnumMap<>(
+                    GenerationPhase.class);
+                for (final PhaseMeasurement measurement : report
+                    .getMeasurements()) {
+                    if (measurement.getDialect() == dialect) {
+                        wallTime += measurement.getWallTimeNanos();
+                        final Long phaseTime = phaseTimes.get(
+                            measurement.getPhase());
+                        phaseTimes.put(measurement.getPhase(),
+                                       measurement.getWallTimeNanos()
+                                           + (phaseTime == null
+                                              ? 0 : phaseTime));
+                    }
+                }
+                if (!phaseTimes.isEmpty()
+                        && toMillis(wallTime) > maxWallTimePerDialect) {
+                    GenerationPhase largest = null;
+                    for (final Map.Entry<GenerationPhase, Long> entry
+                             : phaseTimes.entrySet()) {
+                        if (largest == null
+                                || entry.getValue()
+                                       > phaseTimes.get(largest)) {
+                            largest = entry.getKey();
+                        }
+                    }
+                    final BudgetViolation violation = new BudgetViolation(
+                        "maxWallTimePerDialect",
+                        dialect,
+                        maxWallTimePerDialect,
+                        toMillis(wallTime),
+                        "ms");
+                    violation.setLargestPhase(
+                        largest.getLabel(),
+                        toMillis(phaseTimes.get(largest)));
+                    violations.add(violation);
+                }
+            }
+        }
+
+        if (maxHeapDeltaMb != null
+                && report.getHeapDeltaBytes() > maxHeapDeltaMb * BYTES_PER_MB) {
+            violations.add(new BudgetViolation(
+                "maxHeapDeltaMb",
+                null,
+                maxHeapDeltaMb * BYTES_PER_MB,
+                report.getHeapDeltaBytes(),
+                "bytes"));
+        }
+
+        return violations;
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+}
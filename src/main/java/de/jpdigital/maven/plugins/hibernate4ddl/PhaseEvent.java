@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+/**
+ * An event emitted for a phase of the DDL generation. Currently the only
+ * implementation emits Java Flight Recorder events (see
+ * {@link JfrPhaseEvents}). If the JVM does not support JFR a no-op
+ * implementation is used.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+interface PhaseEvent {
+
+    /**
+     * An event which does nothing.
+     */
+    PhaseEvent NONE = new PhaseEvent() {
+
+        @Override
+        public void setEntityCount(final int entityCount) {
+            //Nothing
+        }
+
+        @Override
+        public void setStatementCount(final int statementCount) {
+            //Nothing
+        }
+
+        @Override
+        public void setBytesWritten(final long bytesWritten) {
+            //Nothing
+        }
+
+        @Override
+        public void end() {
+            //Nothing
+        }
+
+    };
+
+    void setEntityCount(int entityCount);
+
+    void setStatementCount(int statementCount);
+
+    void setBytesWritten(long bytesWritten);
+
+    /**
+     * Ends the event and commits it.
+     */
+    void end();
+
+}
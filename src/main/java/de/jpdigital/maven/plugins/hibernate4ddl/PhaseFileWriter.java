@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.engine.jdbc.internal.FormatStyle;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PersistentIdentifierGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the statements of a dialect into one file per {@link ScriptPhase}.
+ * The files are written into a directory named like the dialect.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class PhaseFileWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return context.getOptions().isSplitPhases();
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        final DdlConfiguration configuration = context.getConfiguration();
+        final org.hibernate.dialect.Dialect hibernateDialect = context
+            .getHibernateDialect();
+        final boolean createDropStatements = context.getOptions()
+            .isCreateDropStatements();
+
+        final List<String> generatorStatements = new ArrayList<>();
+        final Iterator<IdentifierGenerator> generators = configuration
+            .iterateGenerators(hibernateDialect);
+        while (generators.hasNext()) {
+            final IdentifierGenerator generator = generators.next();
+            if (generator instanceof PersistentIdentifierGenerator) {
+                generatorStatements.addAll(Arrays.asList(
+                    ((PersistentIdentifierGenerator) generator)
+                    .sqlCreateStrings(hibernateDialect)));
+            }
+        }
+
+        final List<String> dropStatements;
+        if (createDropStatements) {
+            dropStatements = configuration.getDropStatements();
+        } else {
+            dropStatements = new ArrayList<>();
+        }
+        final Map<ScriptPhase, List<String>> phases = ScriptPhase.split(
+            dropStatements,
+            configuration.getCreateStatements(),
+            generatorStatements);
+
+        final Path phaseDir = context.getOptions().getOutputDirectory()
+            .toPath().resolve(context.getBaseName());
+        long bytesWritten = 0;
+        try {
+            Files.createDirectories(phaseDir);
+            for (final Map.Entry<ScriptPhase, List<String>> phase : phases
+                .entrySet()) {
+                final Path phaseFile = phaseDir.resolve(phase.getKey()
+                    .getFileName());
+                if (phase.getKey() == ScriptPhase.DROP
+                        && !createDropStatements) {
+                    Files.deleteIfExists(phaseFile);
+                    continue;
+                }
+
+                final String content;
+                if (phase.getKey() == ScriptPhase.DATA) {
+                    content = readDataLoadScript(context.getOptions()
+                        .getDataLoadScript());
+                } else {
+                    final StringBuilder builder = new StringBuilder();
+                    for (final String statement : phase.getValue()) {
+                        builder
+                            .append(FormatStyle.DDL.getFormatter().format(
+                                statement))
+                            .append(";\n");
+                    }
+                    content = builder.toString();
+                }
+                bytesWritten += OutputContext.writeIfChanged(phaseFile,
+                                                             content);
+            }
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write phase files: %s",
+                              ex.getMessage()),
+                ex);
+        }
+        return bytesWritten;
+    }
+
+    private static String readDataLoadScript(final File dataLoadScript)
+        throws IOException {
+        if (dataLoadScript == null) {
+            return "-- Load the data here, before the constraints and indexes "
+                       + "are created.\n";
+        } else {
+            return new String(Files.readAllBytes(dataLoadScript.toPath()),
+                              OutputContext.UTF8);
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+/**
+ * The wall time, CPU time and allocated bytes measured for a phase of the DDL
+ * generation, optionally for a specific dialect. If a phase is executed more
+ * than once (for example the scanning of several packages) the values are
+ * accumulated.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class PhaseMeasurement {
+
+    /**
+     * Value used for the CPU time and the allocated bytes if the JVM does not
+     * support measuring them.
+     */
+    static final long NOT_AVAILABLE = -1;
+
+    private final GenerationPhase phase;
+    private final Dialect dialect;
+    private long wallTimeNanos;
+    private long cpuTimeNanos;
+    private long allocatedBytes;
+
+    PhaseMeasurement(final GenerationPhase phase, final Dialect dialect) {
+        this.phase = phase;
+        this.dialect = dialect;
+    }
+
+    public GenerationPhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return The dialect for which the phase was executed or {@code null}
+     *         for phases which are not specific for a dialect.
+     */
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Adds the values of an execution of the phase.
+     *
+     * @param wallTime  The wall time in nanoseconds.
+     * @param cpuTime   The CPU time in nanoseconds or {@link #NOT_AVAILABLE}.
+     * @param allocated The allocated bytes or {@link #NOT_AVAILABLE}.
+     */
+    void add(final long wallTime, final long cpuTime, final long allocated) {
+        wallTimeNanos += wallTime;
+        cpuTimeNanos = addIfAvailable(cpuTimeNanos, cpuTime);
+        allocatedBytes = addIfAvailable(allocatedBytes, allocated);
+    }
+
+    private static long addIfAvailable(final long current, final long value) {
+        if (current == NOT_AVAILABLE || value == NOT_AVAILABLE) {
+            return NOT_AVAILABLE;
+        } else {
+            return current + value;
+        }
+    }
+
+}
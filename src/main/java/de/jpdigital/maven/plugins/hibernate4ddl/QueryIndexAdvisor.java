@@ -0,0 +1,866 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+import antlr.collections.AST;
+import org.hibernate.MappingException;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.jdbc.internal.FormatStyle;
+import org.hibernate.engine.spi.NamedQueryDefinition;
+import org.hibernate.hql.internal.antlr.HqlTokenTypes;
+import org.hibernate.hql.internal.ast.HqlParser;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Component;
+import org.hibernate.mapping.Constraint;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.OneToMany;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.Table;
+import org.hibernate.mapping.ToOne;
+import org.hibernate.mapping.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Suggests indexes for the named JPQL and HQL queries of the entities. The
+ * queries are parsed using the HQL parser of Hibernate, which only checks
+ * the syntax and requires no session factory. The paths used in the
+ * {@code where}, {@code join} and {@code order by} clauses are resolved to
+ * the columns of the mapped tables.
+ *
+ * For each query and table an index is suggested which contains the
+ * columns compared for equality ({@code =}, {@code in}, {@code is null})
+ * first, then the columns used for sorting and then the first column
+ * compared using a range ({@code <}, {@code between}, {@code like} ...).
+ * For each join the joined columns are suggested. Columns inside function
+ * calls and negated comparisons are ignored because an index on the column
+ * can't be used for them.
+ *
+ * No index is suggested if the columns are already the leading columns of
+ * the primary key, a unique key or an index of the table. Suggestions
+ * whose columns are the leading columns of another suggestion for the same
+ * table are merged into the other suggestion. The indexes are named like
+ * the indexes created by {@link ForeignKeyIndexes}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class QueryIndexAdvisor {
+
+    /**
+     * Suffix of the script containing the suggested indexes.
+     */
+    static final String SCRIPT_SUFFIX = ".index-suggestions.sql";
+
+    /**
+     * Suffix of the report listing the suggested indexes and the queries
+     * they serve.
+     */
+    static final String REPORT_SUFFIX = ".index-suggestions.txt";
+
+    private final transient Configuration configuration;
+    private final transient List<Suggestion> candidates = new ArrayList<>();
+    private final transient Map<String, String> skippedQueries
+                                                    = new TreeMap<>();
+    private transient int queryCount;
+
+    /**
+     * Creates an advisor for the named queries of a configuration.
+     *
+     * @param configuration The configuration. The mappings must have been
+     *                      built.
+     */
+    QueryIndexAdvisor(final Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Analyses all named queries of the configuration. Queries which can't
+     * be parsed or which use unknown entities or properties are skipped and
+     * reported by {@link #getSkippedQueries()}.
+     */
+    void analyse() {
+        final Map<String, NamedQueryDefinition> queries = new TreeMap<>(
+            configuration.getNamedQueries());
+        for (final Map.Entry<String, NamedQueryDefinition> query : queries
+            .entrySet()) {
+            analyse(query.getKey(), query.getValue().getQueryString());
+        }
+    }
+
+    /**
+     * Analyses a single query.
+     *
+     * @param name  The name of the query.
+     * @param query The JPQL or HQL query.
+     */
+    void analyse(final String name, final String query) {
+        queryCount++;
+
+        final HqlParser parser = HqlParser.getInstance(query);
+        try {
+            parser.statement();
+        } catch (RecognitionException | TokenStreamException ex) {
+            skippedQueries.put(name, ex.getMessage());
+            return;
+        }
+        if (parser.getParseErrorHandler().getErrorCount() > 0
+                || parser.getAST() == null) {
+            skippedQueries.put(name, "Invalid syntax.");
+            return;
+        }
+
+        final Scope scope = new Scope(name, null);
+        try {
+            scope.statement(parser.getAST());
+        } catch (UnresolvedPathException ex) {
+            skippedQueries.put(name, ex.getMessage());
+            return;
+        }
+        scope.addCandidates();
+    }
+
+    /**
+     * @return The number of analysed queries.
+     */
+    int getQueryCount() {
+        return queryCount;
+    }
+
+    /**
+     * @return The names of the queries which were skipped mapped to the
+     *         reason.
+     */
+    Map<String, String> getSkippedQueries() {
+        return Collections.unmodifiableMap(skippedQueries);
+    }
+
+    /**
+     * @return The suggested indexes, ordered by table and name.
+     */
+    List<Suggestion> getSuggestions() {
+        final List<Suggestion> sorted = new ArrayList<>(candidates);
+        //Longer suggestions first so that shorter ones can be merged into
+        //them.
+        Collections.sort(sorted, new Comparator<Suggestion>() {
+
+            @Override
+            public int compare(final Suggestion suggestion1,
+                               final Suggestion suggestion2) {
+                return Integer.compare(suggestion2.getColumns().size(),
+                                       suggestion1.getColumns().size());
+            }
+
+        });
+
+        final List<Suggestion> result = new ArrayList<>();
+        for (final Suggestion candidate : sorted) {
+            if (ForeignKeyIndexes.isCovered(candidate.getTable(),
+                                            candidate.getColumns())) {
+                continue;
+            }
+            Suggestion merged = null;
+            for (final Suggestion suggestion : result) {
+                if (suggestion.getTable().equals(candidate.getTable())
+                        && isLeading(suggestion.getColumns(),
+                                     candidate.getColumns())) {
+                    merged = suggestion;
+                    break;
+                }
+            }
+            if (merged == null) {
+                result.add(candidate);
+            } else {
+                merged.queries.addAll(candidate.getQueries());
+            }
+        }
+
+        Collections.sort(result, new Comparator<Suggestion>() {
+
+            @Override
+            public int compare(final Suggestion suggestion1,
+                               final Suggestion suggestion2) {
+                final int result = suggestion1.getTable().getName()
+                    .compareTo(suggestion2.getTable().getName());
+                if (result == 0) {
+                    return suggestion1.getName().compareTo(
+                        suggestion2.getName());
+                }
+                return result;
+            }
+
+        });
+        return result;
+    }
+
+    /**
+     * Creates the script containing the create statements of the suggested
+     * indexes. Each statement is preceded by a comment listing the queries
+     * served by the index.
+     *
+     * @param dialect   The dialect.
+     * @param rewriters The rewriters applied to the statements, for example
+     *                  the {@link OnlineDdlRewriter}.
+     *
+     * @return The script.
+     */
+    String toScript(final org.hibernate.dialect.Dialect dialect,
+                    final List<StatementRewriter> rewriters) {
+        final StringBuilder builder = new StringBuilder();
+        for (final Suggestion suggestion : getSuggestions()) {
+            List<String> statements = Collections.singletonList(
+                Index.buildSqlCreateIndexString(
+                    dialect,
+                    suggestion.getName(),
+                    suggestion.getTable(),
+                    suggestion.getColumns().iterator(),
+                    false,
+                    configuration.getProperty(Environment.DEFAULT_CATALOG),
+                    configuration.getProperty(Environment.DEFAULT_SCHEMA)));
+            for (final StatementRewriter rewriter : rewriters) {
+                statements = rewriter.rewrite(statements);
+            }
+
+            builder.append("-- ").append(join(suggestion.getQueries()))
+                .append('\n');
+            for (final String statement : statements) {
+                builder.append(FormatStyle.DDL.getFormatter().format(
+                    statement)).append(";\n");
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Creates the report listing the suggested indexes together with the
+     * queries they serve and the skipped queries.
+     *
+     * @return The report.
+     */
+    String toReport() {
+        final List<Suggestion> suggestions = getSuggestions();
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format(
+            "%d indexes suggested for %d named queries.%n",
+            suggestions.size(),
+            queryCount));
+        for (final Suggestion suggestion : suggestions) {
+            builder.append(String.format("%n%s on %s (%s)%n",
+                                         suggestion.getName(),
+                                         suggestion.getTable().getName(),
+                                         join(suggestion.getColumnNames())));
+            for (final String query : suggestion.getQueries()) {
+                builder.append(String.format("    %s%n", query));
+            }
+        }
+        if (!skippedQueries.isEmpty()) {
+            builder.append(String.format(
+                "%nQueries which could not be analysed:%n"));
+            for (final Map.Entry<String, String> query : skippedQueries
+                .entrySet()) {
+                builder.append(String.format("    %s: %s%n",
+                                             query.getKey(),
+                                             query.getValue()));
+            }
+        }
+        return builder.toString();
+    }
+
+    private void addCandidate(final String query,
+                              final Table table,
+                              final List<Column> columns) {
+        if (columns.isEmpty() || !table.isPhysicalTable()) {
+            return;
+        }
+        for (final Suggestion candidate : candidates) {
+            if (candidate.getTable().equals(table)
+                    && candidate.getColumns().equals(columns)) {
+                candidate.queries.add(query);
+                return;
+            }
+        }
+        candidates.add(new Suggestion(table, columns, query));
+    }
+
+    private static boolean isLeading(final List<Column> columns,
+                                     final List<Column> leading) {
+        return columns.size() >= leading.size()
+                   && new LinkedHashSet<>(columns.subList(0, leading.size()))
+            .equals(new LinkedHashSet<>(leading));
+    }
+
+    private static String join(final Iterable<String> values) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String value : values) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * An index suggested for one or more queries.
+     */
+    static final class Suggestion {
+
+        private final Table table;
+        private final List<Column> columns;
+        private final Set<String> queries = new TreeSet<>();
+
+        private Suggestion(final Table table,
+                           final List<Column> columns,
+                           final String query) {
+            this.table = table;
+            this.columns = new ArrayList<>(columns);
+            queries.add(query);
+        }
+
+        Table getTable() {
+            return table;
+        }
+
+        List<Column> getColumns() {
+            return Collections.unmodifiableList(columns);
+        }
+
+        List<String> getColumnNames() {
+            final List<String> names = new ArrayList<>();
+            for (final Column column : columns) {
+                names.add(column.getName());
+            }
+            return names;
+        }
+
+        /**
+         * @return The name of the index, derived from the table and the
+         *         columns.
+         */
+        String getName() {
+            return Constraint.generateName(ForeignKeyIndexes.PREFIX,
+                                           table,
+                                           columns);
+        }
+
+        /**
+         * @return The names of the queries served by the index.
+         */
+        Set<String> getQueries() {
+            return Collections.unmodifiableSet(queries);
+        }
+
+    }
+
+    /**
+     * Thrown if a path of a query can't be resolved.
+     */
+    private static class UnresolvedPathException extends RuntimeException {
+
+        private static final long serialVersionUID = -1936203960216870478L;
+
+        UnresolvedPathException(final String message) {
+            super(message);
+        }
+
+    }
+
+    /**
+     * The columns accessed by a query in one table.
+     */
+    private static class TableAccess {
+
+        private final Set<Column> equality = new LinkedHashSet<>();
+        private final Set<Column> order = new LinkedHashSet<>();
+        private final Set<Column> range = new LinkedHashSet<>();
+
+        List<Column> getIndexColumns() {
+            final Set<Column> columns = new LinkedHashSet<>(equality);
+            columns.addAll(order);
+            for (final Column column : range) {
+                if (!columns.contains(column)) {
+                    columns.add(column);
+                    break;
+                }
+            }
+            return new ArrayList<>(columns);
+        }
+
+    }
+
+    /**
+     * A query or subquery. Subqueries can use the aliases of the enclosing
+     * queries.
+     */
+    private class Scope {
+
+        private final String query;
+        private final Map<String, PersistentClass> aliases = new HashMap<>();
+        private final Map<Table, TableAccess> access = new LinkedHashMap<>();
+        private final Map<Table, List<List<Column>>> joins
+                                                         = new LinkedHashMap<>();
+        private final List<Scope> subScopes = new ArrayList<>();
+        private PersistentClass defaultEntity;
+        private int rangeCount;
+
+        Scope(final String query, final Scope parent) {
+            this.query = query;
+            if (parent != null) {
+                aliases.putAll(parent.aliases);
+                defaultEntity = parent.defaultEntity;
+            }
+        }
+
+        void addCandidates() {
+            for (final Map.Entry<Table, TableAccess> entry : access
+                .entrySet()) {
+                addCandidate(query,
+                             entry.getKey(),
+                             entry.getValue().getIndexColumns());
+            }
+            for (final Map.Entry<Table, List<List<Column>>> entry : joins
+                .entrySet()) {
+                for (final List<Column> columns : entry.getValue()) {
+                    addCandidate(query, entry.getKey(), columns);
+                }
+            }
+            for (final Scope subScope : subScopes) {
+                subScope.addCandidates();
+            }
+        }
+
+        void statement(final AST node) {
+            switch (node.getType()) {
+                case HqlTokenTypes.QUERY:
+                case HqlTokenTypes.SELECT_FROM:
+                case HqlTokenTypes.UPDATE:
+                case HqlTokenTypes.DELETE:
+                case HqlTokenTypes.FROM:
+                    for (AST child = node.getFirstChild();
+                         child != null;
+                         child = child.getNextSibling()) {
+                        statement(child);
+                    }
+                    break;
+                case HqlTokenTypes.UNION:
+                    for (AST child = node.getFirstChild();
+                         child != null;
+                         child = child.getNextSibling()) {
+                        subQuery(child);
+                    }
+                    break;
+                case HqlTokenTypes.RANGE:
+                    range(node);
+                    break;
+                case HqlTokenTypes.JOIN:
+                    join(node);
+                    break;
+                case HqlTokenTypes.WHERE:
+                    condition(node.getFirstChild());
+                    break;
+                case HqlTokenTypes.ORDER:
+                    order(node.getFirstChild());
+                    break;
+                default:
+                    //Select clause, group by, having are not relevant.
+                    break;
+            }
+        }
+
+        private void subQuery(final AST node) {
+            final Scope subScope = new Scope(query, this);
+            subScope.statement(node);
+            subScopes.add(subScope);
+        }
+
+        private void range(final AST node) {
+            final AST entityNode = node.getFirstChild();
+            final List<String> path = flatten(entityNode);
+            final String name = path == null ? null : joinPath(path);
+            final String entityName;
+            if (configuration.getImports().containsKey(name)) {
+                entityName = configuration.getImports().get(name);
+            } else {
+                entityName = name;
+            }
+            final PersistentClass entity = entityName == null
+                                               ? null
+                                               : configuration
+                    .getClassMapping(entityName);
+            if (entity == null) {
+                throw new UnresolvedPathException(String.format(
+                    "Unknown entity %s.", name));
+            }
+
+            final AST alias = entityNode.getNextSibling();
+            if (alias != null && alias.getType() == HqlTokenTypes.ALIAS) {
+                aliases.put(alias.getText(), entity);
+            }
+            rangeCount++;
+            defaultEntity = rangeCount == 1 ? entity : null;
+        }
+
+        private void join(final AST node) {
+            AST pathNode = null;
+            AST alias = null;
+            AST with = null;
+            for (AST child = node.getFirstChild();
+                 child != null;
+                 child = child.getNextSibling()) {
+                if (child.getType() == HqlTokenTypes.DOT
+                        || child.getType() == HqlTokenTypes.IDENT) {
+                    pathNode = child;
+                } else if (child.getType() == HqlTokenTypes.ALIAS) {
+                    alias = child;
+                } else if (child.getType() == HqlTokenTypes.WITH) {
+                    with = child;
+                }
+            }
+            if (pathNode == null) {
+                return;
+            }
+
+            final List<String> path = flatten(pathNode);
+            if (path == null || path.size() < 2
+                    || !aliases.containsKey(path.get(0))) {
+                return;
+            }
+            PersistentClass entity = aliases.get(path.get(0));
+            String prefix = null;
+            for (int i = 1; i < path.size(); i++) {
+                final String name = prefix == null
+                                        ? path.get(i)
+                                        : prefix + "." + path.get(i);
+                final Value value = getProperty(entity, name).getValue();
+                final boolean last = i == path.size() - 1;
+                if (value instanceof Component && !last) {
+                    prefix = name;
+                } else if (value instanceof ToOne) {
+                    addJoin(value.getTable(), getColumns(value));
+                    entity = getEntity(((ToOne) value)
+                        .getReferencedEntityName());
+                    prefix = null;
+                } else if (value instanceof Collection && last) {
+                    final Collection collection = (Collection) value;
+                    addJoin(collection.getCollectionTable(),
+                            getColumns(collection.getKey()));
+                    //For many-to-many associations the join table is also
+                    //joined with the table of the elements.
+                    if (collection.getElement() instanceof ToOne) {
+                        addJoin(collection.getCollectionTable(),
+                                getColumns(collection.getElement()));
+                    }
+                    entity = getElementEntity(collection);
+                } else {
+                    return;
+                }
+            }
+
+            if (alias != null && entity != null) {
+                aliases.put(alias.getText(), entity);
+            }
+            if (with != null) {
+                condition(with.getFirstChild());
+            }
+        }
+
+        private void addJoin(final Table table, final List<Column> columns) {
+            if (columns == null) {
+                return;
+            }
+            if (!joins.containsKey(table)) {
+                joins.put(table, new ArrayList<List<Column>>());
+            }
+            joins.get(table).add(columns);
+        }
+
+        private void condition(final AST node) {
+            if (node == null) {
+                return;
+            }
+            switch (node.getType()) {
+                case HqlTokenTypes.EQ:
+                case HqlTokenTypes.IN:
+                case HqlTokenTypes.IS_NULL:
+                    comparison(node, true);
+                    break;
+                case HqlTokenTypes.LT:
+                case HqlTokenTypes.GT:
+                case HqlTokenTypes.LE:
+                case HqlTokenTypes.GE:
+                case HqlTokenTypes.BETWEEN:
+                case HqlTokenTypes.LIKE:
+                    comparison(node, false);
+                    break;
+                case HqlTokenTypes.QUERY:
+                    subQuery(node);
+                    break;
+                default:
+                    for (AST child = node.getFirstChild();
+                         child != null;
+                         child = child.getNextSibling()) {
+                        condition(child);
+                    }
+                    break;
+            }
+        }
+
+        private void comparison(final AST node, final boolean equality) {
+            for (AST child = node.getFirstChild();
+                 child != null;
+                 child = child.getNextSibling()) {
+                final ColumnsRef ref = resolve(child);
+                if (ref == null) {
+                    condition(child);
+                } else if (equality) {
+                    getAccess(ref.table).equality.addAll(ref.columns);
+                } else {
+                    getAccess(ref.table).range.addAll(ref.columns);
+                }
+            }
+        }
+
+        private void order(final AST first) {
+            for (AST child = first;
+                 child != null;
+                 child = child.getNextSibling()) {
+                final ColumnsRef ref = resolve(child);
+                if (ref != null) {
+                    getAccess(ref.table).order.addAll(ref.columns);
+                }
+            }
+        }
+
+        private TableAccess getAccess(final Table table) {
+            if (!access.containsKey(table)) {
+                access.put(table, new TableAccess());
+            }
+            return access.get(table);
+        }
+
+        /**
+         * Resolves a path to the columns it is mapped to.
+         *
+         * @return The table and the columns, or {@code null} if the node is
+         *         not a path of a property mapped to columns.
+         */
+        private ColumnsRef resolve(final AST node) {
+            if (node.getType() != HqlTokenTypes.DOT
+                    && node.getType() != HqlTokenTypes.IDENT) {
+                return null;
+            }
+            final List<String> path = flatten(node);
+            if (path == null) {
+                return null;
+            }
+
+            if (aliases.containsKey(path.get(0))) {
+                return resolve(aliases.get(path.get(0)), path, 1);
+            } else if (defaultEntity != null) {
+                //Properties of the entity of the only range may be used
+                //without an alias. Other paths, for example constants, are
+                //ignored.
+                try {
+                    return resolve(defaultEntity, path, 0);
+                } catch (UnresolvedPathException ex) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        private ColumnsRef resolve(final PersistentClass pathEntity,
+                                   final List<String> path,
+                                   final int start) {
+            if (start == path.size()) {
+                //The entity itself, for example "o.customer = c".
+                return null;
+            }
+
+            PersistentClass entity = pathEntity;
+            String prefix = null;
+            for (int i = start; i < path.size(); i++) {
+                final String name = prefix == null
+                                        ? path.get(i)
+                                        : prefix + "." + path.get(i);
+                final Value value = getProperty(entity, name).getValue();
+                final boolean last = i == path.size() - 1;
+                if (last) {
+                    if (value instanceof Collection) {
+                        return null;
+                    }
+                    final List<Column> columns = getColumns(value);
+                    return columns == null
+                               ? null
+                               : new ColumnsRef(value.getTable(), columns);
+                } else if (value instanceof Component) {
+                    prefix = name;
+                } else if (value instanceof ToOne) {
+                    final PersistentClass target = getEntity(((ToOne) value)
+                        .getReferencedEntityName());
+                    //The foreign key contains the id of the target, no join
+                    //required.
+                    if (i == path.size() - 2 && isIdentifier(
+                        target, path.get(i + 1))) {
+                        final List<Column> columns = getColumns(value);
+                        return columns == null
+                                   ? null
+                                   : new ColumnsRef(value.getTable(),
+                                                    columns);
+                    }
+                    entity = target;
+                    prefix = null;
+                } else {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+    }
+
+    private Property getProperty(final PersistentClass entity,
+                                 final String name) {
+        if (isIdentifier(entity, name)) {
+            return entity.getIdentifierProperty();
+        }
+        try {
+            return entity.getRecursiveProperty(name);
+        } catch (MappingException ex) {
+            throw new UnresolvedPathException(String.format(
+                "Unknown property %s of entity %s.",
+                name,
+                entity.getEntityName()));
+        }
+    }
+
+    private static boolean isIdentifier(final PersistentClass entity,
+                                        final String name) {
+        return entity.hasIdentifierProperty()
+                   && ("id".equals(name) || entity.getIdentifierProperty()
+                   .getName().equals(name));
+    }
+
+    private PersistentClass getEntity(final String entityName) {
+        final PersistentClass entity = configuration.getClassMapping(
+            entityName);
+        if (entity == null) {
+            throw new UnresolvedPathException(String.format(
+                "Unknown entity %s.", entityName));
+        }
+        return entity;
+    }
+
+    private PersistentClass getElementEntity(final Collection collection) {
+        final Value element = collection.getElement();
+        if (element instanceof OneToMany) {
+            return ((OneToMany) element).getAssociatedClass();
+        } else if (element instanceof ToOne) {
+            return getEntity(((ToOne) element).getReferencedEntityName());
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * @return The columns of a value, or {@code null} if the value is mapped
+     *         to a formula.
+     */
+    private static List<Column> getColumns(final Value value) {
+        final List<Column> columns = new ArrayList<>();
+        final Iterator<?> iterator = value.getColumnIterator();
+        while (iterator.hasNext()) {
+            final Object selectable = iterator.next();
+            if (!(selectable instanceof Column)) {
+                return null;
+            }
+            columns.add((Column) selectable);
+        }
+        return columns;
+    }
+
+    /**
+     * Converts a path ({@code DOT} nodes with {@code IDENT} leafs) into a
+     * list of identifiers.
+     *
+     * @return The identifiers or {@code null} if the node is not a path.
+     */
+    private static List<String> flatten(final AST node) {
+        if (node.getType() == HqlTokenTypes.IDENT) {
+            final List<String> path = new ArrayList<>();
+            path.add(node.getText());
+            return path;
+        } else if (node.getType() == HqlTokenTypes.DOT) {
+            final AST left = node.getFirstChild();
+            final AST right = left == null ? null : left.getNextSibling();
+            if (right == null || right.getType() != HqlTokenTypes.IDENT) {
+                return null;
+            }
+            final List<String> path = flatten(left);
+            if (path != null) {
+                path.add(right.getText());
+            }
+            return path;
+        } else {
+            return null;
+        }
+    }
+
+    private static String joinPath(final List<String> path) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String element : path) {
+            if (builder.length() > 0) {
+                builder.append('.');
+            }
+            builder.append(element);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Columns of a table referenced by a path.
+     */
+    private static class ColumnsRef {
+
+        private final Table table;
+        private final List<Column> columns;
+
+        ColumnsRef(final Table table, final List<Column> columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+    }
+
+}
@@ -0,0 +1,578 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.MappingException;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.Table;
+import org.hibernate.mapping.UniqueKey;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Estimates the width of the rows and of the index keys of the tables for a
+ * dialect, for capacity planning. The estimation uses the JDBC type, the
+ * length and the precision of each column and the SQL type the dialect
+ * maps the column to:
+ *
+ * <ul>
+ * <li>Numeric, date and time columns have a fixed width.</li>
+ * <li>Variable length columns ({@code varchar}, {@code varbinary}, ...)
+ * need between nothing and their length, the average is estimated as half
+ * of the length. Characters are counted as one byte.</li>
+ * <li>The content of LOB columns (including types like {@code text} or
+ * {@code bytea} which are stored outside of the row if they are large) is
+ * not counted, only the reference stored in the row.</li>
+ * <li>Nullable columns are counted as empty for the minimum.</li>
+ * <li>The header of each row depends on the database: 24 bytes for
+ * PostgreSQL, 18 bytes for MySQL (InnoDB), 3 bytes for Oracle and 4 bytes
+ * for SQL Server. For other databases no header is counted. A bitmap for
+ * the nullable columns is added.</li>
+ * </ul>
+ *
+ * The width of an index key is the sum of the maximum widths of its
+ * columns. The estimates are not exact but good enough to find tables
+ * with very wide rows or index keys exceeding the limits of a database.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class RowWidthEstimator {
+
+    /**
+     * Suffix of the report written for each dialect.
+     */
+    static final String REPORT_SUFFIX = ".row-widths.txt";
+
+    /**
+     * Default threshold for the maximum width of a row. Rows wider than this
+     * don't fit into a page of 8 KB.
+     */
+    static final int DEFAULT_MAX_ROW_BYTES = 8000;
+
+    /**
+     * Default threshold for the maximum width of an index key, the limit of
+     * InnoDB for the {@code COMPACT} row format.
+     */
+    static final int DEFAULT_MAX_INDEX_KEY_BYTES = 767;
+
+    /**
+     * Bytes of the length prefix of a variable length column.
+     */
+    private static final int LENGTH_PREFIX = 2;
+
+    /**
+     * Bytes of the reference to the content of a LOB stored in the row.
+     */
+    private static final int LOB_REFERENCE = 20;
+
+    /**
+     * SQL types which are stored outside of the row if the content is
+     * large.
+     */
+    private static final Pattern LOB_TYPE = Pattern.compile(
+        ".*(lob|text|bytea|oid|image|long).*",
+        Pattern.CASE_INSENSITIVE);
+
+    private final transient Configuration configuration;
+    private final transient Dialect dialect;
+    private final transient org.hibernate.dialect.Dialect hibernateDialect;
+    private final transient int maxRowBytes;
+    private final transient int maxIndexKeyBytes;
+    private final List<TableWidth> tables = new ArrayList<>();
+
+    /**
+     * Creates an estimator.
+     *
+     * @param configuration    The configuration. The mappings must have been
+     *                         built.
+     * @param dialect          The dialect.
+     * @param hibernateDialect The Hibernate dialect providing the SQL types.
+     * @param maxRowBytes      Threshold for the maximum width of a row.
+     * @param maxIndexKeyBytes Threshold for the width of an index key.
+     */
+    RowWidthEstimator(final Configuration configuration,
+                      final Dialect dialect,
+                      final org.hibernate.dialect.Dialect hibernateDialect,
+                      final int maxRowBytes,
+                      final int maxIndexKeyBytes) {
+        this.configuration = configuration;
+        this.dialect = dialect;
+        this.hibernateDialect = hibernateDialect;
+        this.maxRowBytes = maxRowBytes;
+        this.maxIndexKeyBytes = maxIndexKeyBytes;
+    }
+
+    /**
+     * Estimates the widths of all physical tables.
+     */
+    void estimate() {
+        tables.clear();
+        final Mapping mapping = configuration.buildMapping();
+        final Iterator<Table> tableIter = configuration.getTableMappings();
+        while (tableIter.hasNext()) {
+            final Table table = tableIter.next();
+            if (table.isPhysicalTable()) {
+                tables.add(estimate(table, mapping));
+            }
+        }
+        Collections.sort(tables, new Comparator<TableWidth>() {
+
+            @Override
+            public int compare(final TableWidth table1,
+                               final TableWidth table2) {
+                return table1.getName().compareTo(table2.getName());
+            }
+
+        });
+    }
+
+    private TableWidth estimate(final Table table, final Mapping mapping) {
+        final TableWidth tableWidth = new TableWidth(table.getName());
+        final int header = getRowHeader(dialect);
+        tableWidth.minBytes = header;
+        tableWidth.avgBytes = header;
+        tableWidth.maxBytes = header;
+
+        int nullableColumns = 0;
+        final Iterator<?> columnIter = table.getColumnIterator();
+        while (columnIter.hasNext()) {
+            final Column column = (Column) columnIter.next();
+            final ColumnWidth width = estimate(column, mapping);
+            tableWidth.columnCount++;
+            if (width.lob) {
+                tableWidth.lobCount++;
+            } else if (width.variable) {
+                tableWidth.variableCount++;
+            }
+            if (column.isNullable()) {
+                nullableColumns++;
+            } else {
+                tableWidth.minBytes += width.min;
+            }
+            tableWidth.avgBytes += width.avg;
+            tableWidth.maxBytes += width.max;
+        }
+        if (header > 0) {
+            final int nullBitmap = (nullableColumns + 7) / 8;
+            tableWidth.minBytes += nullBitmap;
+            tableWidth.avgBytes += nullBitmap;
+            tableWidth.maxBytes += nullBitmap;
+        }
+
+        if (table.hasPrimaryKey()) {
+            tableWidth.indexes.add(estimate(
+                "primary key",
+                table,
+                table.getPrimaryKey().getColumnIterator(),
+                mapping));
+        }
+        final Iterator<UniqueKey> ukIter = table.getUniqueKeyIterator();
+        while (ukIter.hasNext()) {
+            final UniqueKey uniqueKey = ukIter.next();
+            tableWidth.indexes.add(estimate(uniqueKey.getName(),
+                                            table,
+                                            uniqueKey.getColumnIterator(),
+                                            mapping));
+        }
+        final Iterator<Index> indexIter = table.getIndexIterator();
+        while (indexIter.hasNext()) {
+            final Index index = indexIter.next();
+            tableWidth.indexes.add(estimate(index.getName(),
+                                            table,
+                                            index.getColumnIterator(),
+                                            mapping));
+        }
+
+        return tableWidth;
+    }
+
+    private IndexWidth estimate(final String name,
+                                final Table table,
+                                final Iterator<?> columns,
+                                final Mapping mapping) {
+        final List<String> columnNames = new ArrayList<>();
+        int bytes = 0;
+        while (columns.hasNext()) {
+            //The columns of indexes defined using @Index are not bound to
+            //a value, the type is taken from the column of the table.
+            Column column = (Column) columns.next();
+            if (table.getColumn(column) != null) {
+                column = table.getColumn(column);
+            }
+            columnNames.add(column.getName());
+            bytes += estimate(column, mapping).max;
+        }
+        return new IndexWidth(name, columnNames, bytes);
+    }
+
+    private ColumnWidth estimate(final Column column, final Mapping mapping) {
+        int typeCode;
+        String sqlType;
+        if (column.getValue() == null) {
+            return ColumnWidth.fixed(8);
+        }
+        try {
+            typeCode = column.getSqlTypeCode(mapping);
+            sqlType = column.getSqlType(hibernateDialect, mapping);
+        } catch (MappingException ex) {
+            typeCode = Types.OTHER;
+            sqlType = "";
+        }
+
+        switch (typeCode) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+            case Types.TINYINT:
+                return ColumnWidth.fixed(1);
+            case Types.SMALLINT:
+                return ColumnWidth.fixed(2);
+            case Types.INTEGER:
+            case Types.REAL:
+            case Types.DATE:
+                return ColumnWidth.fixed(4);
+            case Types.BIGINT:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return ColumnWidth.fixed(8);
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return ColumnWidth.fixed(column.getPrecision() / 2 + 2);
+            case Types.CHAR:
+            case Types.NCHAR:
+            case Types.BINARY:
+                if (LOB_TYPE.matcher(sqlType).matches()) {
+                    return ColumnWidth.lob();
+                }
+                return ColumnWidth.fixed(Math.max(1, column.getLength()));
+            case Types.VARCHAR:
+            case Types.NVARCHAR:
+            case Types.VARBINARY:
+                if (LOB_TYPE.matcher(sqlType).matches()) {
+                    return ColumnWidth.lob();
+                }
+                return ColumnWidth.variable(column.getLength());
+            case Types.BLOB:
+            case Types.CLOB:
+            case Types.NCLOB:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.LONGVARBINARY:
+                return ColumnWidth.lob();
+            default:
+                if (LOB_TYPE.matcher(sqlType).matches()) {
+                    return ColumnWidth.lob();
+                }
+                return ColumnWidth.fixed(8);
+        }
+    }
+
+    /**
+     * @param dialect A dialect.
+     *
+     * @return The bytes of the header of each row.
+     */
+    private static int getRowHeader(final Dialect dialect) {
+        final String name = dialect.name();
+        if (name.startsWith("POSTGRESQL")) {
+            return 24;
+        } else if (name.startsWith("MYSQL")) {
+            return 18;
+        } else if (name.startsWith("ORACLE")) {
+            return 3;
+        } else if (name.startsWith("SQLSERVER")) {
+            return 4;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * @return The estimated widths of the tables, sorted by the name of the
+     *         table. Only available after {@link #estimate()} was called.
+     */
+    List<TableWidth> getTables() {
+        return Collections.unmodifiableList(tables);
+    }
+
+    /**
+     * @param table A table.
+     *
+     * @return {@code true} if the maximum width of the table exceeds the
+     *         threshold.
+     */
+    boolean isRowTooWide(final TableWidth table) {
+        return table.getMaxBytes() > maxRowBytes;
+    }
+
+    /**
+     * @param index An index key.
+     *
+     * @return {@code true} if the width of the key exceeds the threshold.
+     */
+    boolean isKeyTooWide(final IndexWidth index) {
+        return index.getBytes() > maxIndexKeyBytes;
+    }
+
+    /**
+     * @return Descriptions of the tables and index keys which exceed the
+     *         thresholds.
+     */
+    List<String> getWarnings() {
+        final List<String> warnings = new ArrayList<>();
+        for (final TableWidth table : tables) {
+            if (isRowTooWide(table)) {
+                warnings.add(String.format(
+                    "Rows of table %s are up to %d bytes wide (threshold "
+                        + "%d bytes).",
+                    table.getName(),
+                    table.getMaxBytes(),
+                    maxRowBytes));
+            }
+            for (final IndexWidth index : table.getIndexes()) {
+                if (isKeyTooWide(index)) {
+                    warnings.add(String.format(
+                        "Key of %s on table %s is up to %d bytes wide "
+                            + "(threshold %d bytes).",
+                        index.getName(),
+                        table.getName(),
+                        index.getBytes(),
+                        maxIndexKeyBytes));
+                }
+            }
+        }
+        return warnings;
+    }
+
+    /**
+     * @return The report listing the estimated widths of the rows and index
+     *         keys of each table. Values exceeding the thresholds are marked
+     *         with {@code !}.
+     */
+    String toReport() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format(
+            "Estimated row widths for dialect %s in bytes (thresholds: rows "
+                + "%d, index keys %d).%n%n",
+            dialect,
+            maxRowBytes,
+            maxIndexKeyBytes));
+        int nameWidth = "table".length();
+        for (final TableWidth table : tables) {
+            nameWidth = Math.max(nameWidth, table.getName().length());
+        }
+        final String format = "%-" + nameWidth
+                                  + "s %7s %4s %4s %8s %8s %8s %s";
+        builder.append(String.format(format,
+                                     "table",
+                                     "columns",
+                                     "var",
+                                     "lob",
+                                     "min",
+                                     "avg",
+                                     "max",
+                                     "").trim());
+        builder.append(String.format("%n"));
+        for (final TableWidth table : tables) {
+            builder.append(String.format(
+                Locale.ENGLISH,
+                format,
+                table.getName(),
+                table.getColumnCount(),
+                table.getVariableCount(),
+                table.getLobCount(),
+                table.getMinBytes(),
+                table.getAvgBytes(),
+                table.getMaxBytes(),
+                isRowTooWide(table) ? "!" : "").trim());
+            builder.append(String.format("%n"));
+        }
+
+        builder.append(String.format("%nIndex keys:%n"));
+        for (final TableWidth table : tables) {
+            for (final IndexWidth index : table.getIndexes()) {
+                builder.append(String.format(
+                    "%s %s (%s): %d%s%n",
+                    table.getName(),
+                    index.getName(),
+                    join(index.getColumns()),
+                    index.getBytes(),
+                    isKeyTooWide(index) ? " !" : ""));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String join(final List<String> values) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String value : values) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The estimated width of a column.
+     */
+    private static final class ColumnWidth {
+
+        private final transient int min;
+        private final transient int avg;
+        private final transient int max;
+        private final transient boolean variable;
+        private final transient boolean lob;
+
+        private ColumnWidth(final int min,
+                            final int avg,
+                            final int max,
+                            final boolean variable,
+                            final boolean lob) {
+            this.min = min;
+            this.avg = avg;
+            this.max = max;
+            this.variable = variable;
+            this.lob = lob;
+        }
+
+        static ColumnWidth fixed(final int bytes) {
+            return new ColumnWidth(bytes, bytes, bytes, false, false);
+        }
+
+        static ColumnWidth variable(final int length) {
+            return new ColumnWidth(LENGTH_PREFIX,
+                                   LENGTH_PREFIX + length / 2,
+                                   LENGTH_PREFIX + length,
+                                   true,
+                                   false);
+        }
+
+        static ColumnWidth lob() {
+            return new ColumnWidth(LOB_REFERENCE,
+                                   LOB_REFERENCE,
+                                   LOB_REFERENCE,
+                                   true,
+                                   true);
+        }
+
+    }
+
+    /**
+     * The estimated width of the rows of a table.
+     */
+    static final class TableWidth {
+
+        private final transient String name;
+        private int columnCount;
+        private int variableCount;
+        private int lobCount;
+        private int minBytes;
+        private int avgBytes;
+        private int maxBytes;
+        private final List<IndexWidth> indexes = new ArrayList<>();
+
+        private TableWidth(final String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        int getColumnCount() {
+            return columnCount;
+        }
+
+        /**
+         * @return The number of variable length columns, without the LOB
+         *         columns.
+         */
+        int getVariableCount() {
+            return variableCount;
+        }
+
+        int getLobCount() {
+            return lobCount;
+        }
+
+        int getMinBytes() {
+            return minBytes;
+        }
+
+        int getAvgBytes() {
+            return avgBytes;
+        }
+
+        int getMaxBytes() {
+            return maxBytes;
+        }
+
+        /**
+         * @return The primary key, the unique keys and the indexes of the
+         *         table.
+         */
+        List<IndexWidth> getIndexes() {
+            return Collections.unmodifiableList(indexes);
+        }
+
+    }
+
+    /**
+     * The estimated width of an index key.
+     */
+    static final class IndexWidth {
+
+        private final transient String name;
+        private final transient List<String> columns;
+        private final transient int bytes;
+
+        private IndexWidth(final String name,
+                           final List<String> columns,
+                           final int bytes) {
+            this.name = name;
+            this.columns = columns;
+            this.bytes = bytes;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<String> getColumns() {
+            return Collections.unmodifiableList(columns);
+        }
+
+        int getBytes() {
+            return bytes;
+        }
+
+    }
+
+}
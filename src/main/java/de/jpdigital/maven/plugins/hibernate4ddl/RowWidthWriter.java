@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the report of the {@link RowWidthEstimator} to the file
+ * {@code <dialect>.row-widths.txt}. Tables and index keys exceeding the
+ * thresholds are logged as warnings.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class RowWidthWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return context.getOptions().isEstimateRowWidths();
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        final RowWidthEstimator estimator = new RowWidthEstimator(
+            context.getConfiguration(),
+            context.getDialect(),
+            context.getHibernateDialect(),
+            context.getOptions().getMaxRowBytes(),
+            context.getOptions().getMaxIndexKeyBytes());
+        estimator.estimate();
+        final List<String> warnings = estimator.getWarnings();
+        context.getLog().info(String.format(
+            "Estimated row widths of %d tables for dialect %s, %d exceed "
+                + "the thresholds.",
+            estimator.getTables().size(),
+            context.getDialect(),
+            warnings.size()));
+        for (final String warning : warnings) {
+            context.getLog().warn(warning);
+        }
+
+        try {
+            return OutputContext.writeIfChanged(
+                context.getOutputFile(RowWidthEstimator.REPORT_SUFFIX),
+                estimator.toReport());
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write row width report: %s",
+                              ex.getMessage()),
+                ex);
+        }
+    }
+
+}
@@ -0,0 +1,545 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaSnapshot.ColumnSnapshot;
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaSnapshot.ConstraintSnapshot;
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaSnapshot.GeneratorSnapshot;
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaSnapshot.TableSnapshot;
+
+import org.hibernate.engine.jdbc.internal.FormatStyle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two {@link SchemaSnapshot}s of the same dialect and creates the
+ * statements for migrating a database from the previous to the current
+ * schema.
+ *
+ * The statements are ordered so that they can be executed one after
+ * another: Foreign keys, unique keys and indexes which have been removed or
+ * changed are dropped first, then new generators and tables are created and
+ * changed columns are altered. After that removed columns, tables and
+ * generators are dropped and the new or changed keys and indexes are
+ * created. Statements which destroy data (dropping tables, columns and
+ * generators) are only emitted as comments unless destructive changes are
+ * allowed. Changes of a primary key can't be migrated automatically and are
+ * reported as a comment.
+ *
+ * Adding and changing columns uses the syntax of the database family of the
+ * dialect because Hibernate does not provide statements for altering
+ * columns.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class SchemaDiff {
+
+    private static final String COMMENT = "-- ";
+
+    private final transient SchemaSnapshot previous;
+    private final transient SchemaSnapshot current;
+    private final transient org.hibernate.dialect.Dialect hibernateDialect;
+    private final transient DatabaseFamily family;
+    private final transient boolean allowDestructiveChanges;
+
+    private final transient List<String> dropConstraints = new ArrayList<>();
+    private final transient List<String> create = new ArrayList<>();
+    private final transient List<String> alter = new ArrayList<>();
+    private final transient List<String> drop = new ArrayList<>();
+    private final transient List<String> addConstraints = new ArrayList<>();
+    private final transient List<String> addForeignKeys = new ArrayList<>();
+    private final transient List<String> manual = new ArrayList<>();
+    private final transient List<StatementRewriter> rewriters
+                                                        = new ArrayList<>();
+
+    /**
+     * Creates a new diff.
+     *
+     * @param previous                The snapshot of the previous schema.
+     * @param current                 The snapshot of the current schema.
+     * @param allowDestructiveChanges If {@code true} statements dropping
+     *                                tables, columns and generators are
+     *                                emitted. Otherwise these statements are
+     *                                only emitted as comments.
+     *
+     * @throws DdlGenerationException If the snapshots are for different
+     *                                dialects or the Hibernate dialect can't
+     *                                be created.
+     */
+    SchemaDiff(final SchemaSnapshot previous,
+               final SchemaSnapshot current,
+               final boolean allowDestructiveChanges)
+        throws DdlGenerationException {
+        if (previous.getDialect() != current.getDialect()) {
+            throw new DdlGenerationException(String.format(
+                "Can't compare a snapshot for dialect %s with a snapshot for "
+                    + "dialect %s.",
+                previous.getDialect(),
+                current.getDialect()));
+        }
+        this.previous = previous;
+        this.current = current;
+        this.hibernateDialect = current.getDialect().createHibernateDialect();
+        this.family = DatabaseFamily.of(current.getDialect());
+        this.allowDestructiveChanges = allowDestructiveChanges;
+
+        compareTables();
+        compareGenerators();
+    }
+
+    /**
+     * Adds a rewriter which is applied to the migration statements. The
+     * rewriters are applied in the order in which they were added.
+     *
+     * @param rewriter The rewriter.
+     */
+    void addStatementRewriter(final StatementRewriter rewriter) {
+        rewriters.add(rewriter);
+    }
+
+    /**
+     * @return {@code true} if the schemas are equal.
+     */
+    boolean isEmpty() {
+        return getStatements().isEmpty();
+    }
+
+    /**
+     * @return The migration statements in the order in which they have to be
+     *         executed. Statements which are not executed (destructive
+     *         changes if not allowed and changes which have to be migrated
+     *         manually) start with {@code --}.
+     */
+    List<String> getStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.addAll(dropConstraints);
+        statements.addAll(create);
+        statements.addAll(alter);
+        statements.addAll(drop);
+        statements.addAll(addConstraints);
+        statements.addAll(addForeignKeys);
+        statements.addAll(manual);
+        for (final StatementRewriter rewriter : rewriters) {
+            statements = rewriter.rewrite(statements);
+        }
+        return Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * Renders the statements in the same format as the DDL files created by
+     * the {@code gen-ddl} goal.
+     *
+     * @return The migration script.
+     */
+    String toScript() {
+        final StringBuilder builder = new StringBuilder();
+        for (final String statement : getStatements()) {
+            if (statement.startsWith(COMMENT)) {
+                builder.append('\n').append(statement).append('\n');
+            } else {
+                builder
+                    .append(FormatStyle.DDL.getFormatter().format(statement))
+                    .append(";\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    private void compareTables() {
+        final Map<String, TableSnapshot> previousTables = previous.getTables();
+        final Map<String, TableSnapshot> currentTables = current.getTables();
+
+        for (final TableSnapshot table : currentTables.values()) {
+            final TableSnapshot previousTable = previousTables.get(table
+                .getName());
+            if (previousTable == null) {
+                create.add(table.getCreateStatement());
+                addConstraints(table.getUniqueKeys(), null);
+                addConstraints(table.getIndexes(), null);
+                addForeignKeys(table.getForeignKeys(), null);
+            } else {
+                compareTable(previousTable, table);
+            }
+        }
+
+        for (final TableSnapshot previousTable : previousTables.values()) {
+            if (!currentTables.containsKey(previousTable.getName())) {
+                //The foreign keys of the table are dropped before because
+                //they may reference other tables which are dropped.
+                for (final ConstraintSnapshot foreignKey : previousTable
+                    .getForeignKeys().values()) {
+                    dropConstraints.add(foreignKey.getDropStatement());
+                }
+                destructive(previousTable.getDropStatement());
+            }
+        }
+    }
+
+    private void compareTable(final TableSnapshot previousTable,
+                              final TableSnapshot table) {
+        dropConstraints(previousTable.getForeignKeys(), table.getForeignKeys());
+        dropConstraints(previousTable.getUniqueKeys(), table.getUniqueKeys());
+        dropConstraints(previousTable.getIndexes(), table.getIndexes());
+
+        final Map<String, ColumnSnapshot> previousColumns = previousTable
+            .getColumns();
+        for (final ColumnSnapshot column : table.getColumns().values()) {
+            final ColumnSnapshot previousColumn = previousColumns.get(column
+                .getName());
+            if (previousColumn == null) {
+                alter.add(addColumn(table, column));
+            } else {
+                alterColumn(table, previousColumn, column);
+            }
+        }
+        for (final ColumnSnapshot previousColumn : previousColumns.values()) {
+            if (!table.getColumns().containsKey(previousColumn.getName())) {
+                destructive(String.format("alter table %s drop column %s",
+                                          table.getName(),
+                                          previousColumn.getName()));
+            }
+        }
+
+        if (!previousTable.getPrimaryKey().equals(table.getPrimaryKey())) {
+            manual.add(String.format(
+                "%sThe primary key of table %s has changed from (%s) to (%s). "
+                    + "This change must be migrated manually.",
+                COMMENT,
+                table.getName(),
+                SchemaSnapshot.joinColumns(previousTable.getPrimaryKey()),
+                SchemaSnapshot.joinColumns(table.getPrimaryKey())));
+        }
+
+        addConstraints(table.getUniqueKeys(), previousTable.getUniqueKeys());
+        addConstraints(table.getIndexes(), previousTable.getIndexes());
+        addForeignKeys(table.getForeignKeys(), previousTable.getForeignKeys());
+    }
+
+    /**
+     * Drops all constraints of the previous snapshot which do not exist in
+     * the current snapshot or have changed.
+     */
+    private void dropConstraints(
+        final Map<String, ConstraintSnapshot> previousConstraints,
+        final Map<String, ConstraintSnapshot> constraints) {
+        for (final ConstraintSnapshot previousConstraint : previousConstraints
+            .values()) {
+            final ConstraintSnapshot constraint = constraints.get(
+                previousConstraint.getName());
+            if (constraint == null
+                    || !constraint.getCreateStatement().equals(
+                    previousConstraint.getCreateStatement())) {
+                dropConstraints.add(previousConstraint.getDropStatement());
+            }
+        }
+    }
+
+    private void addConstraints(
+        final Map<String, ConstraintSnapshot> constraints,
+        final Map<String, ConstraintSnapshot> previousConstraints) {
+        addConstraints(constraints, previousConstraints, addConstraints);
+    }
+
+    private void addForeignKeys(
+        final Map<String, ConstraintSnapshot> foreignKeys,
+        final Map<String, ConstraintSnapshot> previousForeignKeys) {
+        addConstraints(foreignKeys, previousForeignKeys, addForeignKeys);
+    }
+
+    /**
+     * Creates all constraints which do not exist in the previous snapshot or
+     * have changed.
+     */
+    private void addConstraints(
+        final Map<String, ConstraintSnapshot> constraints,
+        final Map<String, ConstraintSnapshot> previousConstraints,
+        final List<String> statements) {
+        for (final ConstraintSnapshot constraint : constraints.values()) {
+            final ConstraintSnapshot previousConstraint;
+            if (previousConstraints == null) {
+                previousConstraint = null;
+            } else {
+                previousConstraint = previousConstraints.get(constraint
+                    .getName());
+            }
+            if (previousConstraint == null
+                    || !previousConstraint.getCreateStatement().equals(
+                    constraint.getCreateStatement())) {
+                statements.add(constraint.getCreateStatement());
+            }
+        }
+    }
+
+    private String addColumn(final TableSnapshot table,
+                             final ColumnSnapshot column) {
+        final StringBuilder builder = new StringBuilder();
+        builder
+            .append("alter table ")
+            .append(table.getName())
+            .append(' ')
+            .append(hibernateDialect.getAddColumnString())
+            .append(' ')
+            .append(column.getName())
+            .append(' ')
+            .append(column.getSqlType());
+        if (column.getDefaultValue() != null) {
+            builder.append(" default ").append(column.getDefaultValue());
+        }
+        if (column.isNullable()) {
+            builder.append(hibernateDialect.getNullColumnString());
+        } else {
+            builder.append(" not null");
+        }
+        builder.append(hibernateDialect.getAddColumnSuffixString());
+        return builder.toString();
+    }
+
+    private void alterColumn(final TableSnapshot table,
+                             final ColumnSnapshot previousColumn,
+                             final ColumnSnapshot column) {
+        final boolean typeChanged = !column.hasSameType(previousColumn);
+        final boolean nullableChanged = column.isNullable() != previousColumn
+            .isNullable();
+
+        if (typeChanged || nullableChanged) {
+            alter.addAll(family.alterColumn(table.getName(),
+                                            column,
+                                            typeChanged,
+                                            nullableChanged));
+        }
+        if (!column.hasSameDefault(previousColumn)) {
+            alter.add(family.alterDefault(table.getName(), column));
+        }
+    }
+
+    private void compareGenerators() {
+        final Map<String, GeneratorSnapshot> previousGenerators = previous
+            .getGenerators();
+        final Map<String, GeneratorSnapshot> currentGenerators = current
+            .getGenerators();
+
+        for (final GeneratorSnapshot generator : currentGenerators.values()) {
+            if (!previousGenerators.containsKey(generator.getKey())) {
+                //Generators must exist before the tables which use them.
+                create.addAll(0, generator.getCreateStatements());
+            }
+        }
+        for (final GeneratorSnapshot generator : previousGenerators.values()) {
+            if (!currentGenerators.containsKey(generator.getKey())) {
+                for (final String statement : generator.getDropStatements()) {
+                    destructive(statement);
+                }
+            }
+        }
+    }
+
+    private void destructive(final String statement) {
+        if (allowDestructiveChanges) {
+            drop.add(statement);
+        } else {
+            drop.add(COMMENT + statement + ";");
+        }
+    }
+
+    /**
+     * The syntax for altering columns differs between the database
+     * families.
+     */
+    private enum DatabaseFamily {
+
+        /**
+         * The syntax of the SQL standard, also supported by PostgreSQL, H2,
+         * HSQLDB and Derby.
+         */
+        STANDARD {
+
+            @Override
+            List<String> alterColumn(final String table,
+                                     final ColumnSnapshot column,
+                                     final boolean typeChanged,
+                                     final boolean nullableChanged) {
+                final List<String> statements = new ArrayList<>();
+                if (typeChanged) {
+                    statements.add(String.format(
+                        "alter table %s alter column %s set data type %s",
+                        table,
+                        column.getName(),
+                        column.getSqlType()));
+                }
+                if (nullableChanged) {
+                    statements.add(String.format(
+                        "alter table %s alter column %s %s not null",
+                        table,
+                        column.getName(),
+                        column.isNullable() ? "drop" : "set"));
+                }
+                return statements;
+            }
+
+        },
+        POSTGRESQL {
+
+            @Override
+            List<String> alterColumn(final String table,
+                                     final ColumnSnapshot column,
+                                     final boolean typeChanged,
+                                     final boolean nullableChanged) {
+                final List<String> statements = new ArrayList<>();
+                if (typeChanged) {
+                    statements.add(String.format(
+                        "alter table %s alter column %s type %s",
+                        table,
+                        column.getName(),
+                        column.getSqlType()));
+                }
+                if (nullableChanged) {
+                    statements.add(String.format(
+                        "alter table %s alter column %s %s not null",
+                        table,
+                        column.getName(),
+                        column.isNullable() ? "drop" : "set"));
+                }
+                return statements;
+            }
+
+        },
+        MYSQL {
+
+            @Override
+            List<String> alterColumn(final String table,
+                                     final ColumnSnapshot column,
+                                     final boolean typeChanged,
+                                     final boolean nullableChanged) {
+                //MODIFY replaces the complete definition of the column.
+                final StringBuilder builder = new StringBuilder();
+                builder.append(String.format("alter table %s modify column %s %s",
+                                             table,
+                                             column.getName(),
+                                             column.getSqlType()));
+                if (column.getDefaultValue() != null) {
+                    builder.append(" default ").append(column
+                        .getDefaultValue());
+                }
+                builder.append(column.isNullable() ? " null" : " not null");
+                return Collections.singletonList(builder.toString());
+            }
+
+        },
+        ORACLE {
+
+            @Override
+            List<String> alterColumn(final String table,
+                                     final ColumnSnapshot column,
+                                     final boolean typeChanged,
+                                     final boolean nullableChanged) {
+                final StringBuilder builder = new StringBuilder();
+                builder.append(String.format("alter table %s modify %s",
+                                             table,
+                                             column.getName()));
+                if (typeChanged) {
+                    builder.append(' ').append(column.getSqlType());
+                }
+                //Oracle fails if the nullability is set to the current value.
+                if (nullableChanged) {
+                    builder.append(column.isNullable() ? " null" : " not null");
+                }
+                return Collections.singletonList(builder.toString());
+            }
+
+            @Override
+            String alterDefault(final String table,
+                                final ColumnSnapshot column) {
+                return String.format(
+                    "alter table %s modify %s default %s",
+                    table,
+                    column.getName(),
+                    column.getDefaultValue() == null
+                        ? "null" : column.getDefaultValue());
+            }
+
+        },
+        SQLSERVER {
+
+            @Override
+            List<String> alterColumn(final String table,
+                                     final ColumnSnapshot column,
+                                     final boolean typeChanged,
+                                     final boolean nullableChanged) {
+                return Collections.singletonList(String.format(
+                    "alter table %s alter column %s %s %s",
+                    table,
+                    column.getName(),
+                    column.getSqlType(),
+                    column.isNullable() ? "null" : "not null"));
+            }
+
+            @Override
+            String alterDefault(final String table,
+                                final ColumnSnapshot column) {
+                return String.format(
+                    "%sThe default value of column %s.%s has changed to %s. "
+                        + "SQL Server stores defaults as named constraints, "
+                        + "this change must be migrated manually.",
+                    COMMENT,
+                    table,
+                    column.getName(),
+                    column.getDefaultValue());
+            }
+
+        };
+
+        static DatabaseFamily of(final Dialect dialect) {
+            final String name = dialect.name();
+            if (name.startsWith("POSTGRES")) {
+                return POSTGRESQL;
+            } else if (name.startsWith("MYSQL")) {
+                return MYSQL;
+            } else if (name.startsWith("ORACLE")
+                           && dialect != Dialect.ORACLE_TIMES_TEN) {
+                return ORACLE;
+            } else if (name.startsWith("SQLSERVER")) {
+                return SQLSERVER;
+            } else {
+                return STANDARD;
+            }
+        }
+
+        abstract List<String> alterColumn(String table,
+                                          ColumnSnapshot column,
+                                          boolean typeChanged,
+                                          boolean nullableChanged);
+
+        String alterDefault(final String table, final ColumnSnapshot column) {
+            if (column.getDefaultValue() == null) {
+                return String.format("alter table %s alter column %s drop default",
+                                     table,
+                                     column.getName());
+            } else {
+                return String.format(
+                    "alter table %s alter column %s set default %s",
+                    table,
+                    column.getName(),
+                    column.getDefaultValue());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.jdbc.internal.FormatStyle;
+import org.hibernate.envers.configuration.spi.AuditConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates the DDL statements for a set of entities in memory, without
+ * Maven and without writing files. This is useful for tests which need the
+ * schema, for example for creating an in-memory database:
+ *
+ * <pre>
+ * final List&lt;String&gt; statements = SchemaGenerator
+ *     .forPackages("org.example.entities")
+ *     .generate(Dialect.H2);
+ * </pre>
+ *
+ * The Hibernate configuration created for a set of entities and a dialect
+ * (together with the options and the properties) is cached, as are the
+ * generated statements and the result of scanning packages. Therefore only
+ * the first test class in a JVM pays for scanning and bootstrapping
+ * Hibernate. The configuration can't be shared between dialects because
+ * Hibernate caches dialect specific values, for example the SQL types of
+ * the columns, in the bound mappings. The
+ * statements are the same as in the files created by the {@code gen-ddl}
+ * goal, {@link #generateScript(Dialect)} creates exactly the content of such
+ * a file. Instances of this class are cheap and can be used by several
+ * threads.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class SchemaGenerator {
+
+    /**
+     * Maximum number of cached configurations and package scans. If more
+     * are needed the least recently used ones are removed.
+     */
+    private static final int CACHE_SIZE = 16;
+
+    private static final Map<List<Object>, Set<Class<?>>> SCANS
+                                                               = new LruCache<>();
+    private static final Map<List<Object>, BoundConfiguration> CONFIGURATIONS
+                                                                   = new LruCache<>();
+
+    private final Set<Class<?>> entityClasses;
+    private final Map<String, String> properties = new TreeMap<>();
+    private DdlOptions options = new DdlOptions();
+
+    private SchemaGenerator(final Set<Class<?>> entityClasses) {
+        this.entityClasses = entityClasses;
+    }
+
+    /**
+     * Creates a generator for the provided entity classes.
+     *
+     * @param entityClasses The entity classes.
+     *
+     * @return A new generator.
+     */
+    public static SchemaGenerator forClasses(final Class<?>... entityClasses) {
+        return forClasses(Arrays.asList(entityClasses));
+    }
+
+    /**
+     * Creates a generator for the provided entity classes.
+     *
+     * @param entityClasses The entity classes.
+     *
+     * @return A new generator.
+     */
+    public static SchemaGenerator forClasses(
+        final Collection<Class<?>> entityClasses) {
+        return new SchemaGenerator(Collections.unmodifiableSet(
+            new HashSet<>(entityClasses)));
+    }
+
+    /**
+     * Creates a generator for all entities in the provided packages. The
+     * packages are scanned using the context class loader of the current
+     * thread.
+     *
+     * @param packages The packages containing the entities.
+     *
+     * @return A new generator.
+     */
+    public static SchemaGenerator forPackages(final String... packages) {
+        return forPackages(Thread.currentThread().getContextClassLoader(),
+                           packages);
+    }
+
+    /**
+     * Creates a generator for all entities in the provided packages. The
+     * result of the scan is cached.
+     *
+     * @param classLoader The class loader used for scanning the packages.
+     * @param packages    The packages containing the entities.
+     *
+     * @return A new generator.
+     */
+    public static SchemaGenerator forPackages(final ClassLoader classLoader,
+                                              final String... packages) {
+        final List<Object> key = Arrays.<Object>asList(
+            classLoader, new HashSet<>(Arrays.asList(packages)));
+
+        Set<Class<?>> entityClasses;
+        synchronized (SCANS) {
+            entityClasses = SCANS.get(key);
+        }
+        if (entityClasses == null) {
+            final Set<Class<?>> found = new HashSet<>();
+            for (final String packageName : packages) {
+                found.addAll(EntityFinder.forPackage(classLoader, packageName)
+                    .findEntities());
+            }
+            entityClasses = Collections.unmodifiableSet(found);
+            synchronized (SCANS) {
+                SCANS.put(key, entityClasses);
+            }
+        }
+
+        return new SchemaGenerator(entityClasses);
+    }
+
+    /**
+     * Removes all cached configurations, statements and package scans.
+     */
+    public static void clearCache() {
+        synchronized (SCANS) {
+            SCANS.clear();
+        }
+        synchronized (CONFIGURATIONS) {
+            CONFIGURATIONS.clear();
+        }
+    }
+
+    public Set<Class<?>> getEntityClasses() {
+        return entityClasses;
+    }
+
+    public DdlOptions getOptions() {
+        return options.copy();
+    }
+
+    /**
+     * Sets the options of the generation. The options changing the
+     * statements, for example {@link DdlOptions#setForeignKeyIndexes(boolean)}
+     * or {@link DdlOptions#setPartitioning(java.util.Map)}, are applied in
+     * the same way as by the {@code gen-ddl} goal. Options which are not
+     * supported for a dialect are ignored. The options controlling which
+     * files are written, the packages, the dialects and the
+     * {@code persistence.xml} are not used, use
+     * {@link #setProperty(String, String)} for setting properties.
+     *
+     * @param options The options. The generator uses a copy.
+     *
+     * @return This generator.
+     */
+    public SchemaGenerator setOptions(final DdlOptions options) {
+        this.options = options.copy();
+        return this;
+    }
+
+    public boolean isUseEnvers() {
+        return options.isUseEnvers();
+    }
+
+    /**
+     * Set this to {@code true} to create the additional tables required by
+     * Envers.
+     *
+     * @param useEnvers Use Envers?
+     *
+     * @return This generator.
+     */
+    public SchemaGenerator setUseEnvers(final boolean useEnvers) {
+        options.setUseEnvers(useEnvers);
+        return this;
+    }
+
+    public boolean isCreateDropStatements() {
+        return options.isCreateDropStatements();
+    }
+
+    /**
+     * Set this to {@code true} to put drop statements before the create
+     * statements.
+     *
+     * @param createDropStatements Create drop statements?
+     *
+     * @return This generator.
+     */
+    public SchemaGenerator setCreateDropStatements(
+        final boolean createDropStatements) {
+        options.setCreateDropStatements(createDropStatements);
+        return this;
+    }
+
+    public Map<String, String> getProperties() {
+        return Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * Sets a property on the Hibernate configuration, for example one of the
+     * properties of Envers like {@code org.hibernate.envers.audit_table_suffix}.
+     *
+     * @param name  The name of the property.
+     * @param value The value of the property.
+     *
+     * @return This generator.
+     */
+    public SchemaGenerator setProperty(final String name, final String value) {
+        properties.put(name, value);
+        return this;
+    }
+
+    /**
+     * Generates the DDL statements for the provided dialect. The statements
+     * are not formatted and have no delimiter, therefore they can be executed
+     * using JDBC.
+     *
+     * @param dialect The dialect.
+     *
+     * @return The statements.
+     *
+     * @throws DdlGenerationException If the statements can't be generated.
+     */
+    public List<String> generate(final Dialect dialect)
+        throws DdlGenerationException {
+        final BoundConfiguration configuration = getConfiguration(dialect);
+        final List<String> statements = new ArrayList<>();
+        if (options.isCreateDropStatements()) {
+            statements.addAll(configuration.getDropStatements());
+        }
+        statements.addAll(configuration.getCreateStatements());
+
+        return Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * Generates the DDL script for the provided dialect. The script is the
+     * same as the file created by the {@code gen-ddl} goal: the statements
+     * are formatted and terminated by {@code ;}.
+     *
+     * @param dialect The dialect.
+     *
+     * @return The script.
+     *
+     * @throws DdlGenerationException If the statements can't be generated.
+     */
+    public String generateScript(final Dialect dialect)
+        throws DdlGenerationException {
+        final StringBuilder script = new StringBuilder();
+        for (final String statement : generate(dialect)) {
+            script
+                .append(FormatStyle.DDL.getFormatter().format(statement))
+                .append(";\n");
+        }
+        return script.toString();
+    }
+
+    private BoundConfiguration getConfiguration(final Dialect dialect) {
+        final List<Object> key = Arrays.<Object>asList(
+            entityClasses, options.toProperties(), new TreeMap<>(properties),
+            dialect);
+
+        synchronized (CONFIGURATIONS) {
+            BoundConfiguration configuration = CONFIGURATIONS.get(key);
+            if (configuration == null) {
+                configuration = new BoundConfiguration(
+                    entityClasses, options, properties, dialect);
+                CONFIGURATIONS.put(key, configuration);
+            }
+            return configuration;
+        }
+    }
+
+    /**
+     * A Hibernate configuration for a set of entities and a dialect. The
+     * configuration is bound when the statements are requested for the first
+     * time. The statements are cached.
+     */
+    private static final class BoundConfiguration {
+
+        private final transient Set<Class<?>> entityClasses;
+        private final transient DdlOptions options;
+        private final transient Map<String, String> properties;
+        private final transient Dialect dialect;
+        private DdlConfiguration configuration;
+        private List<String> createStatements;
+        private List<String> dropStatements;
+
+        BoundConfiguration(final Set<Class<?>> entityClasses,
+                           final DdlOptions options,
+                           final Map<String, String> properties,
+                           final Dialect dialect) {
+            this.entityClasses = entityClasses;
+            this.options = options.copy();
+            this.properties = new TreeMap<>(properties);
+            this.dialect = dialect;
+        }
+
+        synchronized List<String> getCreateStatements()
+            throws DdlGenerationException {
+            if (createStatements == null) {
+                try {
+                    createStatements = Collections.unmodifiableList(Arrays
+                        .asList(bind().generateSchemaCreationScript(
+                            dialect.createHibernateDialect())));
+                } catch (HibernateException | IllegalArgumentException ex) {
+                    throw new DdlGenerationException(String.format(
+                        "Failed to generate create statements for dialect "
+                            + "%s: %s",
+                        dialect,
+                        ex.getMessage()),
+                                                     ex);
+                }
+            }
+            return createStatements;
+        }
+
+        synchronized List<String> getDropStatements()
+            throws DdlGenerationException {
+            if (dropStatements == null) {
+                try {
+                    dropStatements = Collections.unmodifiableList(Arrays
+                        .asList(bind().generateDropSchemaScript(
+                            dialect.createHibernateDialect())));
+                } catch (HibernateException | IllegalArgumentException ex) {
+                    throw new DdlGenerationException(String.format(
+                        "Failed to generate drop statements for dialect "
+                            + "%s: %s",
+                        dialect,
+                        ex.getMessage()),
+                                                     ex);
+                }
+            }
+            return dropStatements;
+        }
+
+        /**
+         * Creates and binds the configuration if not done yet. The
+         * annotations are bound and the options are applied in the same way
+         * as by the {@link DdlGenerator}.
+         */
+        private DdlConfiguration bind() throws DdlGenerationException {
+            if (configuration != null) {
+                return configuration;
+            }
+
+            //Hibernate loads the targets of associations using the context
+            //class loader.
+            final Thread thread = Thread.currentThread();
+            final ClassLoader contextClassLoader = thread
+                .getContextClassLoader();
+            if (!entityClasses.isEmpty()) {
+                thread.setContextClassLoader(entityClasses.iterator().next()
+                    .getClassLoader());
+            }
+            try {
+                final DdlConfiguration newConfiguration
+                                           = new DdlConfiguration();
+                newConfiguration.setProperty("hibernate.dialect",
+                                             dialect.getDialectClass());
+                for (final Map.Entry<String, String> property : properties
+                    .entrySet()) {
+                    newConfiguration.setProperty(property.getKey(),
+                                                 property.getValue());
+                }
+                for (final Class<?> entityClass : entityClasses) {
+                    newConfiguration.addAnnotatedClass(entityClass);
+                }
+                options.validate();
+                newConfiguration.applyOptions(options, dialect);
+                newConfiguration.buildMappings();
+                if (options.isUseEnvers()) {
+                    //This is what the EnversSchemaGenerator does, without
+                    //creating a SchemaExport for a specific dialect.
+                    AuditConfiguration.getFor(newConfiguration);
+                }
+                configuration = newConfiguration;
+            } finally {
+                thread.setContextClassLoader(contextClassLoader);
+            }
+            return configuration;
+        }
+
+    }
+
+    /**
+     * A map which removes the least recently used entry if it contains more
+     * than {@link #CACHE_SIZE} entries.
+     */
+    private static final class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = -3213785218917326544L;
+
+        LruCache() {
+            super(CACHE_SIZE, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            return size() > CACHE_SIZE;
+        }
+
+    }
+
+}
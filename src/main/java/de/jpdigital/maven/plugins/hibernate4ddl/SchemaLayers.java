@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaSnapshot.ConstraintSnapshot;
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaSnapshot.GeneratorSnapshot;
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaSnapshot.TableSnapshot;
+
+import org.hibernate.engine.jdbc.internal.FormatStyle;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Orders the statements of a schema into layers based on the foreign key
+ * dependencies between the tables. A table is placed in the layer after the
+ * last layer containing a table it references. Therefore all statements of
+ * a layer can be executed concurrently, for example using several
+ * connections, once the previous layer is complete.
+ *
+ * Each layer consists of units. A unit contains the statements for one
+ * table (the table, its unique keys, its indexes and its foreign keys) or
+ * for one generator. The statements of a unit must be executed one after
+ * another, the units of a layer can be executed concurrently. The
+ * auxiliary database objects are placed in a unit in the first layer
+ * because they may create objects which are required by the tables.
+ *
+ * Tables which reference each other in a cycle are placed in the same
+ * layer. The foreign keys between these tables are created in an additional
+ * last layer.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class SchemaLayers {
+
+    /**
+     * Suffix of the layer files. The layers for a dialect are stored in the
+     * file {@code <dialect>.layers.sql}.
+     */
+    static final String FILE_SUFFIX = ".layers.sql";
+
+    /**
+     * Prefix of the comment starting a layer in the script created by
+     * {@link #toScript()}.
+     */
+    static final String LAYER_MARKER = "-- layer ";
+
+    /**
+     * Prefix of the comment starting a unit in the script created by
+     * {@link #toScript()}.
+     */
+    static final String UNIT_MARKER = "-- unit ";
+
+    private static final String AUXILIARY_UNIT = "auxiliary database objects";
+
+    private final transient List<List<Unit>> layers;
+
+    private SchemaLayers(final List<List<Unit>> layers) {
+        this.layers = layers;
+    }
+
+    /**
+     * Computes the layers for a schema.
+     *
+     * @param snapshot             The snapshot of the schema.
+     * @param auxiliaryStatements  The create statements of the auxiliary
+     *                             database objects.
+     * @param rewriters            Rewriters which are applied to the
+     *                             statements of each unit.
+     *
+     * @return The layers.
+     */
+    static SchemaLayers create(final SchemaSnapshot snapshot,
+                               final List<String> auxiliaryStatements,
+                               final List<StatementRewriter> rewriters) {
+        final Map<String, TableSnapshot> tables = snapshot.getTables();
+
+        final List<Set<String>> components = new StronglyConnectedComponents(
+            tables).compute();
+        final Map<String, Integer> componentOfTable = new HashMap<>();
+        for (int i = 0; i < components.size(); i++) {
+            for (final String table : components.get(i)) {
+                componentOfTable.put(table, i);
+            }
+        }
+
+        //The components are ordered so that referenced components come
+        //first.
+        final int[] layerOfComponent = new int[components.size()];
+        for (int i = 0; i < components.size(); i++) {
+            int layer = 0;
+            for (final String table : components.get(i)) {
+                for (final ConstraintSnapshot foreignKey : tables.get(table)
+                    .getForeignKeys().values()) {
+                    final Integer referenced = componentOfTable.get(
+                        foreignKey.getReferencedTable());
+                    if (referenced != null && referenced != i) {
+                        layer = Math.max(layer,
+                                         layerOfComponent[referenced] + 1);
+                    }
+                }
+            }
+            layerOfComponent[i] = layer;
+        }
+
+        final Map<Integer, List<Unit>> layerMap = new TreeMap<>();
+        final List<Unit> deferred = new ArrayList<>();
+        for (final TableSnapshot table : tables.values()) {
+            final int component = componentOfTable.get(table.getName());
+            final List<String> statements = new ArrayList<>();
+            final List<String> deferredStatements = new ArrayList<>();
+            statements.add(table.getCreateStatement());
+            for (final ConstraintSnapshot uniqueKey : table.getUniqueKeys()
+                .values()) {
+                statements.add(uniqueKey.getCreateStatement());
+            }
+            for (final ConstraintSnapshot index : table.getIndexes()
+                .values()) {
+                statements.add(index.getCreateStatement());
+            }
+            for (final ConstraintSnapshot foreignKey : table.getForeignKeys()
+                .values()) {
+                final Integer referenced = componentOfTable.get(foreignKey
+                    .getReferencedTable());
+                if (referenced != null
+                        && referenced == component
+                        && !table.getName().equals(foreignKey
+                        .getReferencedTable())) {
+                    deferredStatements.add(foreignKey.getCreateStatement());
+                } else {
+                    statements.add(foreignKey.getCreateStatement());
+                }
+            }
+            addUnit(layerMap,
+                    layerOfComponent[component],
+                    new Unit(table.getName(), rewrite(statements, rewriters)));
+            if (!deferredStatements.isEmpty()) {
+                deferred.add(new Unit(table.getName(),
+                                      rewrite(deferredStatements, rewriters)));
+            }
+        }
+
+        for (final GeneratorSnapshot generator : snapshot.getGenerators()
+            .values()) {
+            addUnit(layerMap, 0, new Unit(generator.getKey(),
+                                          rewrite(generator
+                                              .getCreateStatements(),
+                                                  rewriters)));
+        }
+
+        final List<List<Unit>> layers = new ArrayList<>();
+        if (!auxiliaryStatements.isEmpty()) {
+            layers.add(Collections.singletonList(new Unit(
+                AUXILIARY_UNIT, rewrite(auxiliaryStatements, rewriters))));
+        }
+        layers.addAll(layerMap.values());
+        if (!deferred.isEmpty()) {
+            layers.add(deferred);
+        }
+
+        return new SchemaLayers(layers);
+    }
+
+    private static void addUnit(final Map<Integer, List<Unit>> layerMap,
+                                final int layer,
+                                final Unit unit) {
+        if (!layerMap.containsKey(layer)) {
+            layerMap.put(layer, new ArrayList<Unit>());
+        }
+        layerMap.get(layer).add(unit);
+    }
+
+    private static List<String> rewrite(
+        final List<String> statements,
+        final List<StatementRewriter> rewriters) {
+        List<String> result = statements;
+        for (final StatementRewriter rewriter : rewriters) {
+            result = rewriter.rewrite(result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads layers from a script created by {@link #toScript()}.
+     *
+     * @param reader The reader for the script.
+     *
+     * @return The layers.
+     *
+     * @throws IOException If the script can't be read or contains statements
+     *                     outside of a unit.
+     */
+    static SchemaLayers read(final Reader reader) throws IOException {
+        final List<List<Unit>> layers = new ArrayList<>();
+        final BufferedReader lines = new BufferedReader(reader);
+        String unitName = null;
+        final StringBuilder unitText = new StringBuilder();
+        String line = lines.readLine();
+        int lineNumber = 1;
+        while (line != null) {
+            if (line.startsWith(LAYER_MARKER) || line.startsWith(UNIT_MARKER)) {
+                if (unitName != null) {
+                    layers.get(layers.size() - 1).add(new Unit(
+                        unitName,
+                        ScriptExecutor.readStatements(new StringReader(
+                            unitText.toString()))));
+                }
+                unitName = null;
+                unitText.setLength(0);
+                if (line.startsWith(LAYER_MARKER)) {
+                    layers.add(new ArrayList<Unit>());
+                } else if (layers.isEmpty()) {
+                    throw new IOException(String.format(
+                        "Unit outside of a layer in line %d.", lineNumber));
+                } else {
+                    unitName = line.substring(UNIT_MARKER.length()).trim();
+                }
+            } else if (!line.trim().isEmpty()) {
+                if (unitName == null) {
+                    throw new IOException(String.format(
+                        "Statement outside of a unit in line %d.",
+                        lineNumber));
+                }
+                unitText.append(line).append('\n');
+            }
+            line = lines.readLine();
+            lineNumber++;
+        }
+        if (unitName != null) {
+            layers.get(layers.size() - 1).add(new Unit(
+                unitName,
+                ScriptExecutor.readStatements(new StringReader(
+                    unitText.toString()))));
+        }
+        return new SchemaLayers(layers);
+    }
+
+    /**
+     * @return The layers in the order in which they must be executed.
+     */
+    List<List<Unit>> getLayers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    /**
+     * @return The number of units of the largest layer, which is the
+     *         maximum number of connections which can be used.
+     */
+    int getMaxWidth() {
+        int width = 0;
+        for (final List<Unit> layer : layers) {
+            width = Math.max(width, layer.size());
+        }
+        return width;
+    }
+
+    /**
+     * Renders the layers as script. Each layer starts with a comment
+     * {@code -- layer <n>} and each unit with a comment
+     * {@code -- unit <name>}. The statements are formatted in the same way as
+     * in the DDL files.
+     *
+     * @return The script.
+     */
+    String toScript() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < layers.size(); i++) {
+            builder.append(LAYER_MARKER).append(i + 1).append('\n');
+            for (final Unit unit : layers.get(i)) {
+                builder.append(UNIT_MARKER).append(unit.getName()).append(
+                    '\n');
+                for (final String statement : unit.getStatements()) {
+                    builder
+                        .append(FormatStyle.DDL.getFormatter().format(
+                            statement))
+                        .append(";\n");
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The statements for one table or generator.
+     */
+    static final class Unit {
+
+        private final transient String name;
+        private final transient List<String> statements;
+
+        Unit(final String name, final List<String> statements) {
+            this.name = name;
+            this.statements = new ArrayList<>(statements);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getStatements() {
+            return Collections.unmodifiableList(statements);
+        }
+
+    }
+
+    /**
+     * Computes the strongly connected components of the graph of the
+     * foreign keys using the algorithm of Tarjan. The components are
+     * returned in an order in which each component comes after all
+     * components it references.
+     */
+    private static final class StronglyConnectedComponents {
+
+        private final transient Map<String, TableSnapshot> tables;
+        private final transient Map<String, Integer> index = new HashMap<>();
+        private final transient Map<String, Integer> lowLink = new HashMap<>();
+        private final transient List<String> stack = new ArrayList<>();
+        private final transient Set<String> onStack = new HashSet<>();
+        private final transient List<Set<String>> components
+                                                       = new ArrayList<>();
+        private int nextIndex;
+
+        StronglyConnectedComponents(final Map<String, TableSnapshot> tables) {
+            this.tables = tables;
+        }
+
+        List<Set<String>> compute() {
+            for (final String table : tables.keySet()) {
+                if (!index.containsKey(table)) {
+                    visit(table);
+                }
+            }
+            return components;
+        }
+
+        private void visit(final String table) {
+            index.put(table, nextIndex);
+            lowLink.put(table, nextIndex);
+            nextIndex++;
+            stack.add(table);
+            onStack.add(table);
+
+            for (final ConstraintSnapshot foreignKey : tables.get(table)
+                .getForeignKeys().values()) {
+                final String referenced = foreignKey.getReferencedTable();
+                if (!tables.containsKey(referenced)) {
+                    continue;
+                }
+                if (!index.containsKey(referenced)) {
+                    visit(referenced);
+                    lowLink.put(table, Math.min(lowLink.get(table),
+                                                lowLink.get(referenced)));
+                } else if (onStack.contains(referenced)) {
+                    lowLink.put(table, Math.min(lowLink.get(table),
+                                                index.get(referenced)));
+                }
+            }
+
+            if (lowLink.get(table).equals(index.get(table))) {
+                final Set<String> component = new HashSet<>();
+                String member;
+                do {
+                    member = stack.remove(stack.size() - 1);
+                    onStack.remove(member);
+                    component.add(member);
+                } while (!member.equals(table));
+                components.add(component);
+            }
+        }
+
+    }
+
+}
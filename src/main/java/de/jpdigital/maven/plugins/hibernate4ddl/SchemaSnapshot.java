@@ -0,0 +1,718 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.ForeignKey;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.Table;
+import org.hibernate.mapping.UniqueKey;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A compact model of the schema generated for one dialect. The
+ * {@link DdlGenerator} writes a snapshot next to each DDL script (see
+ * {@link #FILE_SUFFIX}). The {@code diff} goal compares the snapshot of a
+ * previous release with the current one and creates the {@code ALTER}
+ * statements needed for migrating the schema (see {@link SchemaDiff}).
+ *
+ * The snapshot is stored as a line oriented text file with tab separated
+ * fields. The lines describing the columns, keys and indexes of a table
+ * follow the {@code table} line of the table:
+ *
+ * <pre>
+ * hibernate4-ddl-snapshot  1  postgresql9
+ * table       name  create statement  drop statement
+ * column      name  sql type  nullable  default value
+ * primarykey  column, column
+ * foreignkey  name  create statement  drop statement  referenced table
+ * uniquekey   name  create statement  drop statement
+ * index       name  create statement  drop statement
+ * generator   key
+ * create      statement
+ * drop        statement
+ * </pre>
+ *
+ * All statements are rendered by Hibernate for the dialect of the snapshot,
+ * therefore a snapshot can only be compared with a snapshot of the same
+ * dialect. Tables, keys, indexes and generators are sorted by their names so
+ * that the snapshot of an unchanged model does not change.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class SchemaSnapshot {
+
+    /**
+     * Suffix of the snapshot files. The snapshot for a dialect is stored in
+     * the file {@code <dialect>.snapshot}.
+     */
+    static final String FILE_SUFFIX = ".snapshot";
+
+    private static final String HEADER = "hibernate4-ddl-snapshot";
+    private static final int VERSION = 1;
+
+    private final transient Dialect dialect;
+    private final transient Map<String, TableSnapshot> tables
+                                                           = new TreeMap<>();
+    private final transient Map<String, GeneratorSnapshot> generators
+                                                               = new TreeMap<>();
+
+    SchemaSnapshot(final Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    /**
+     * Creates a snapshot from a bound configuration.
+     *
+     * @param configuration    The configuration. The mappings must already be
+     *                         built.
+     * @param dialect          The dialect.
+     * @param hibernateDialect The Hibernate dialect used for rendering the
+     *                         statements.
+     *
+     * @return The snapshot of the schema of the configuration.
+     */
+    static SchemaSnapshot create(final Configuration configuration,
+                                 final Dialect dialect,
+                                 final org.hibernate.dialect.Dialect hibernateDialect) {
+        final SchemaSnapshot snapshot = new SchemaSnapshot(dialect);
+        final Mapping mapping = configuration.buildMapping();
+        final String catalog = configuration.getProperty(
+            Environment.DEFAULT_CATALOG);
+        final String schema = configuration.getProperty(
+            Environment.DEFAULT_SCHEMA);
+
+        final Iterator<Table> tableIter = configuration.getTableMappings();
+        while (tableIter.hasNext()) {
+            final Table table = tableIter.next();
+            if (!table.isPhysicalTable()) {
+                continue;
+            }
+            final TableSnapshot tableSnapshot = new TableSnapshot(
+                table.getQualifiedName(hibernateDialect, catalog, schema),
+                table.sqlCreateString(hibernateDialect,
+                                      mapping,
+                                      catalog,
+                                      schema),
+                table.sqlDropString(hibernateDialect, catalog, schema));
+
+            final Iterator<?> columnIter = table.getColumnIterator();
+            while (columnIter.hasNext()) {
+                final Column column = (Column) columnIter.next();
+                tableSnapshot.addColumn(new ColumnSnapshot(
+                    column.getQuotedName(hibernateDialect),
+                    column.getSqlType(hibernateDialect, mapping),
+                    column.isNullable(),
+                    column.getDefaultValue()));
+            }
+
+            if (table.hasPrimaryKey()) {
+                final List<String> primaryKey = new ArrayList<>();
+                for (final Object column : table.getPrimaryKey().getColumns()) {
+                    primaryKey.add(((Column) column).getQuotedName(
+                        hibernateDialect));
+                }
+                tableSnapshot.setPrimaryKey(primaryKey);
+            }
+
+            final Iterator<?> fkIter = table.getForeignKeyIterator();
+            while (fkIter.hasNext()) {
+                final ForeignKey foreignKey = (ForeignKey) fkIter.next();
+                if (foreignKey.isPhysicalConstraint()
+                        && hibernateDialect.hasAlterTable()) {
+                    tableSnapshot.addForeignKey(new ConstraintSnapshot(
+                        foreignKey.getName(),
+                        foreignKey.sqlCreateString(hibernateDialect,
+                                                   mapping,
+                                                   catalog,
+                                                   schema),
+                        foreignKey.sqlDropString(hibernateDialect,
+                                                 catalog,
+                                                 schema),
+                        foreignKey.getReferencedTable().getQualifiedName(
+                            hibernateDialect, catalog, schema)));
+                }
+            }
+
+            final Iterator<UniqueKey> ukIter = table.getUniqueKeyIterator();
+            while (ukIter.hasNext()) {
+                final UniqueKey uniqueKey = ukIter.next();
+                final String createString = uniqueKey.sqlCreateString(
+                    hibernateDialect, mapping, catalog, schema);
+                if (createString != null) {
+                    tableSnapshot.addUniqueKey(new ConstraintSnapshot(
+                        uniqueKey.getName(),
+                        createString,
+                        uniqueKey.sqlDropString(hibernateDialect,
+                                                catalog,
+                                                schema)));
+                }
+            }
+
+            final Iterator<Index> indexIter = table.getIndexIterator();
+            while (indexIter.hasNext()) {
+                final Index index = indexIter.next();
+                tableSnapshot.addIndex(new ConstraintSnapshot(
+                    index.getName(),
+                    index.sqlCreateString(hibernateDialect,
+                                          mapping,
+                                          catalog,
+                                          schema),
+                    index.sqlDropString(hibernateDialect, catalog, schema)));
+            }
+
+            snapshot.tables.put(tableSnapshot.getName(), tableSnapshot);
+        }
+
+        final Iterator<IdentifierGenerator> generatorIter = configuration
+            .iterateGenerators(hibernateDialect);
+        while (generatorIter.hasNext()) {
+            final PersistentIdentifierGenerator generator
+                                                    = (PersistentIdentifierGenerator) generatorIter
+                .next();
+            snapshot.generators.put(
+                generator.generatorKey().toString(),
+                new GeneratorSnapshot(
+                    generator.generatorKey().toString(),
+                    Arrays.asList(generator.sqlCreateStrings(hibernateDialect)),
+                    Arrays.asList(generator.sqlDropStrings(hibernateDialect))));
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param reader The reader providing the snapshot.
+     *
+     * @return The snapshot.
+     *
+     * @throws IOException If the snapshot can't be read or is not a valid
+     *                     snapshot.
+     */
+    static SchemaSnapshot read(final Reader reader) throws IOException {
+        final BufferedReader lines = new BufferedReader(reader);
+        final String header = lines.readLine();
+        final String[] headerFields;
+        if (header == null) {
+            headerFields = new String[]{};
+        } else {
+            headerFields = header.split("\t", -1);
+        }
+        if (headerFields.length != 3 || !HEADER.equals(headerFields[0])) {
+            throw new IOException("Not a schema snapshot.");
+        }
+        if (!Integer.toString(VERSION).equals(headerFields[1])) {
+            throw new IOException(String.format(
+                "Unsupported snapshot version %s.", headerFields[1]));
+        }
+        final Dialect dialect;
+        try {
+            dialect = Dialect.valueOf(headerFields[2].toUpperCase(
+                Locale.ENGLISH));
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(String.format(
+                "Unknown dialect %s in snapshot.", headerFields[2]), ex);
+        }
+
+        final SchemaSnapshot snapshot = new SchemaSnapshot(dialect);
+        TableSnapshot table = null;
+        GeneratorSnapshot generator = null;
+        String line = lines.readLine();
+        int lineNumber = 2;
+        while (line != null) {
+            if (!line.isEmpty()) {
+                final String[] fields = line.split("\t", -1);
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = unescape(fields[i]);
+                }
+                switch (fields[0]) {
+                    case "table":
+                        checkFields(fields, 4, lineNumber);
+                        table = new TableSnapshot(fields[1],
+                                                  fields[2],
+                                                  fields[3]);
+                        generator = null;
+                        snapshot.tables.put(table.getName(), table);
+                        break;
+                    case "column":
+                        checkFields(fields, 5, lineNumber);
+                        checkTable(table, lineNumber);
+                        table.addColumn(new ColumnSnapshot(
+                            fields[1],
+                            fields[2],
+                            Boolean.parseBoolean(fields[3]),
+                            fields[4].isEmpty() ? null : fields[4]));
+                        break;
+                    case "primarykey":
+                        checkFields(fields, 2, lineNumber);
+                        checkTable(table, lineNumber);
+                        table.setPrimaryKey(Arrays.asList(
+                            fields[1].split(", ")));
+                        break;
+                    case "foreignkey":
+                        checkFields(fields, 5, lineNumber);
+                        checkTable(table, lineNumber);
+                        table.addForeignKey(new ConstraintSnapshot(
+                            fields[1], fields[2], fields[3], fields[4]));
+                        break;
+                    case "uniquekey":
+                        checkFields(fields, 4, lineNumber);
+                        checkTable(table, lineNumber);
+                        table.addUniqueKey(new ConstraintSnapshot(
+                            fields[1], fields[2], fields[3]));
+                        break;
+                    case "index":
+                        checkFields(fields, 4, lineNumber);
+                        checkTable(table, lineNumber);
+                        table.addIndex(new ConstraintSnapshot(
+                            fields[1], fields[2], fields[3]));
+                        break;
+                    case "generator":
+                        checkFields(fields, 2, lineNumber);
+                        generator = new GeneratorSnapshot(
+                            fields[1],
+                            new ArrayList<String>(),
+                            new ArrayList<String>());
+                        table = null;
+                        snapshot.generators.put(generator.getKey(), generator);
+                        break;
+                    case "create":
+                        checkFields(fields, 2, lineNumber);
+                        checkGenerator(generator, lineNumber);
+                        generator.getCreateStatements().add(fields[1]);
+                        break;
+                    case "drop":
+                        checkFields(fields, 2, lineNumber);
+                        checkGenerator(generator, lineNumber);
+                        generator.getDropStatements().add(fields[1]);
+                        break;
+                    default:
+                        throw new IOException(String.format(
+                            "Unknown entry '%s' in line %d of snapshot.",
+                            fields[0],
+                            lineNumber));
+                }
+            }
+            line = lines.readLine();
+            lineNumber++;
+        }
+
+        return snapshot;
+    }
+
+    private static void checkFields(final String[] fields,
+                                    final int expected,
+                                    final int lineNumber)
+        throws IOException {
+        if (fields.length != expected) {
+            throw new IOException(String.format(
+                "Line %d of snapshot has %d fields instead of %d.",
+                lineNumber,
+                fields.length,
+                expected));
+        }
+    }
+
+    private static void checkTable(final TableSnapshot table,
+                                   final int lineNumber)
+        throws IOException {
+        if (table == null) {
+            throw new IOException(String.format(
+                "Line %d of snapshot does not belong to a table.",
+                lineNumber));
+        }
+    }
+
+    private static void checkGenerator(final GeneratorSnapshot generator,
+                                       final int lineNumber)
+        throws IOException {
+        if (generator == null) {
+            throw new IOException(String.format(
+                "Line %d of snapshot does not belong to a generator.",
+                lineNumber));
+        }
+    }
+
+    /**
+     * Renders the snapshot in the format described in the class
+     * documentation.
+     *
+     * @return The text of the snapshot.
+     */
+    String toText() {
+        final StringBuilder builder = new StringBuilder();
+        appendLine(builder,
+                   HEADER,
+                   Integer.toString(VERSION),
+                   dialect.name().toLowerCase(Locale.ENGLISH));
+        for (final TableSnapshot table : tables.values()) {
+            appendLine(builder,
+                       "table",
+                       table.getName(),
+                       table.getCreateStatement(),
+                       table.getDropStatement());
+            for (final ColumnSnapshot column : table.getColumns().values()) {
+                appendLine(builder,
+                           "column",
+                           column.getName(),
+                           column.getSqlType(),
+                           Boolean.toString(column.isNullable()),
+                           column.getDefaultValue() == null
+                               ? "" : column.getDefaultValue());
+            }
+            if (!table.getPrimaryKey().isEmpty()) {
+                appendLine(builder,
+                           "primarykey",
+                           joinColumns(table.getPrimaryKey()));
+            }
+            for (final ConstraintSnapshot foreignKey : table.getForeignKeys()
+                .values()) {
+                appendLine(builder,
+                           "foreignkey",
+                           foreignKey.getName(),
+                           foreignKey.getCreateStatement(),
+                           foreignKey.getDropStatement(),
+                           foreignKey.getReferencedTable());
+            }
+            appendConstraints(builder, "uniquekey", table.getUniqueKeys());
+            appendConstraints(builder, "index", table.getIndexes());
+        }
+        for (final GeneratorSnapshot generator : generators.values()) {
+            appendLine(builder, "generator", generator.getKey());
+            for (final String statement : generator.getCreateStatements()) {
+                appendLine(builder, "create", statement);
+            }
+            for (final String statement : generator.getDropStatements()) {
+                appendLine(builder, "drop", statement);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void appendConstraints(
+        final StringBuilder builder,
+        final String type,
+        final Map<String, ConstraintSnapshot> constraints) {
+        for (final ConstraintSnapshot constraint : constraints.values()) {
+            appendLine(builder,
+                       type,
+                       constraint.getName(),
+                       constraint.getCreateStatement(),
+                       constraint.getDropStatement());
+        }
+    }
+
+    private static void appendLine(final StringBuilder builder,
+                                   final String... fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                builder.append('\t');
+            }
+            builder.append(escape(fields[i]));
+        }
+        builder.append('\n');
+    }
+
+    static String joinColumns(final List<String> columns) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String column : columns) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(column);
+        }
+        return builder.toString();
+    }
+
+    private static String escape(final String value) {
+        return value
+            .replace("\\", "\\\\")
+            .replace("\t", "\\t")
+            .replace("\n", "\\n")
+            .replace("\r", "\\r");
+    }
+
+    private static String unescape(final String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        final StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                i++;
+                switch (value.charAt(i)) {
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    default:
+                        builder.append(value.charAt(i));
+                        break;
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public Map<String, TableSnapshot> getTables() {
+        return Collections.unmodifiableMap(tables);
+    }
+
+    public Map<String, GeneratorSnapshot> getGenerators() {
+        return Collections.unmodifiableMap(generators);
+    }
+
+    /**
+     * A table in the snapshot.
+     */
+    static final class TableSnapshot {
+
+        private final transient String name;
+        private final transient String createStatement;
+        private final transient String dropStatement;
+        private final transient Map<String, ColumnSnapshot> columns
+                                                                = new LinkedHashMap<>();
+        private final transient Map<String, ConstraintSnapshot> foreignKeys
+                                                                    = new TreeMap<>();
+        private final transient Map<String, ConstraintSnapshot> uniqueKeys
+                                                                    = new TreeMap<>();
+        private final transient Map<String, ConstraintSnapshot> indexes
+                                                                = new TreeMap<>();
+        private List<String> primaryKey = Collections.emptyList();
+
+        TableSnapshot(final String name,
+                      final String createStatement,
+                      final String dropStatement) {
+            this.name = name;
+            this.createStatement = createStatement;
+            this.dropStatement = dropStatement;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getCreateStatement() {
+            return createStatement;
+        }
+
+        public String getDropStatement() {
+            return dropStatement;
+        }
+
+        public Map<String, ColumnSnapshot> getColumns() {
+            return Collections.unmodifiableMap(columns);
+        }
+
+        void addColumn(final ColumnSnapshot column) {
+            columns.put(column.getName(), column);
+        }
+
+        public List<String> getPrimaryKey() {
+            return Collections.unmodifiableList(primaryKey);
+        }
+
+        void setPrimaryKey(final List<String> primaryKey) {
+            this.primaryKey = new ArrayList<>(primaryKey);
+        }
+
+        public Map<String, ConstraintSnapshot> getForeignKeys() {
+            return Collections.unmodifiableMap(foreignKeys);
+        }
+
+        void addForeignKey(final ConstraintSnapshot foreignKey) {
+            foreignKeys.put(foreignKey.getName(), foreignKey);
+        }
+
+        public Map<String, ConstraintSnapshot> getUniqueKeys() {
+            return Collections.unmodifiableMap(uniqueKeys);
+        }
+
+        void addUniqueKey(final ConstraintSnapshot uniqueKey) {
+            uniqueKeys.put(uniqueKey.getName(), uniqueKey);
+        }
+
+        public Map<String, ConstraintSnapshot> getIndexes() {
+            return Collections.unmodifiableMap(indexes);
+        }
+
+        void addIndex(final ConstraintSnapshot index) {
+            indexes.put(index.getName(), index);
+        }
+
+    }
+
+    /**
+     * A column of a table in the snapshot.
+     */
+    static final class ColumnSnapshot {
+
+        private final transient String name;
+        private final transient String sqlType;
+        private final transient boolean nullable;
+        private final transient String defaultValue;
+
+        ColumnSnapshot(final String name,
+                       final String sqlType,
+                       final boolean nullable,
+                       final String defaultValue) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.nullable = nullable;
+            this.defaultValue = defaultValue;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSqlType() {
+            return sqlType;
+        }
+
+        public boolean isNullable() {
+            return nullable;
+        }
+
+        public String getDefaultValue() {
+            return defaultValue;
+        }
+
+        boolean hasSameType(final ColumnSnapshot other) {
+            return sqlType.equalsIgnoreCase(other.getSqlType());
+        }
+
+        boolean hasSameDefault(final ColumnSnapshot other) {
+            return Objects.equals(defaultValue, other.getDefaultValue());
+        }
+
+    }
+
+    /**
+     * A foreign key, unique key or index in the snapshot. Constraints with
+     * the same name are considered equal if their create statements are
+     * equal.
+     */
+    static final class ConstraintSnapshot {
+
+        private final transient String name;
+        private final transient String createStatement;
+        private final transient String dropStatement;
+        private final transient String referencedTable;
+
+        ConstraintSnapshot(final String name,
+                           final String createStatement,
+                           final String dropStatement) {
+            this(name, createStatement, dropStatement, null);
+        }
+
+        ConstraintSnapshot(final String name,
+                           final String createStatement,
+                           final String dropStatement,
+                           final String referencedTable) {
+            this.name = name;
+            this.createStatement = createStatement;
+            this.dropStatement = dropStatement;
+            this.referencedTable = referencedTable;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getCreateStatement() {
+            return createStatement;
+        }
+
+        public String getDropStatement() {
+            return dropStatement;
+        }
+
+        /**
+         * @return The table referenced by a foreign key, {@code null} for
+         *         unique keys and indexes.
+         */
+        public String getReferencedTable() {
+            return referencedTable;
+        }
+
+    }
+
+    /**
+     * A sequence or generator table in the snapshot.
+     */
+    static final class GeneratorSnapshot {
+
+        private final transient String key;
+        private final transient List<String> createStatements;
+        private final transient List<String> dropStatements;
+
+        GeneratorSnapshot(final String key,
+                          final List<String> createStatements,
+                          final List<String> dropStatements) {
+            this.key = key;
+            this.createStatements = new ArrayList<>(createStatements);
+            this.dropStatements = new ArrayList<>(dropStatements);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public List<String> getCreateStatements() {
+            return createStatements;
+        }
+
+        public List<String> getDropStatements() {
+            return dropStatements;
+        }
+
+    }
+
+}
@@ -0,0 +1,531 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes DDL statements over JDBC. The statements are grouped into layers
+ * of units like the {@link SchemaLayers}: the units of a layer are executed
+ * concurrently, each using a connection from a small pool, the layers are
+ * executed one after another. The statements of a unit are executed in
+ * batches if the driver supports batch updates, except for statements which
+ * can't be executed in a transaction block (see
+ * {@link OnlineDdlRewriter#isNonTransactional(String)}). The time of each
+ * execution (a single statement or a batch) is measured.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ScriptExecutor {
+
+    /**
+     * Maximum time to wait for running statements after the execution has
+     * failed or finished.
+     */
+    private static final long TERMINATION_TIMEOUT_SECONDS = 60;
+
+    private final transient String url;
+    private final transient Properties connectionProperties;
+    private final transient int threads;
+    private final transient int batchSize;
+
+    /**
+     * Creates an executor.
+     *
+     * @param url                  The JDBC URL of the database.
+     * @param connectionProperties The properties for the connections, for
+     *                             example {@code user} and {@code password}.
+     * @param threads              The maximum number of connections used
+     *                             concurrently.
+     * @param batchSize            The maximum number of statements per
+     *                             batch, {@code 1} to disable batching.
+     */
+    ScriptExecutor(final String url,
+                   final Properties connectionProperties,
+                   final int threads,
+                   final int batchSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                "The number of threads must be at least 1.");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException(
+                "The batch size must be at least 1.");
+        }
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Splits a script into statements. Statements end with a {@code ;} at the
+     * end of a line, lines starting with {@code --} are ignored.
+     *
+     * @param reader The reader for the script.
+     *
+     * @return The statements without the terminating {@code ;}.
+     *
+     * @throws IOException If the script can't be read.
+     */
+    static List<String> readStatements(final Reader reader)
+        throws IOException {
+        final List<String> statements = new ArrayList<>();
+        final BufferedReader lines = new BufferedReader(reader);
+        final StringBuilder statement = new StringBuilder();
+        String line = lines.readLine();
+        while (line != null) {
+            final String trimmed = line.trim();
+            if (!trimmed.startsWith("--")) {
+                statement.append(line).append('\n');
+                if (trimmed.endsWith(";")) {
+                    addStatement(statements, statement);
+                }
+            }
+            line = lines.readLine();
+        }
+        addStatement(statements, statement);
+        return statements;
+    }
+
+    private static void addStatement(final List<String> statements,
+                                     final StringBuilder statement) {
+        final String trimmed = statement.toString().trim();
+        statement.setLength(0);
+        if (trimmed.isEmpty()) {
+            return;
+        }
+        if (trimmed.endsWith(";")) {
+            final String withoutTerminator = trimmed.substring(
+                0, trimmed.length() - 1).trim();
+            if (!withoutTerminator.isEmpty()) {
+                statements.add(withoutTerminator);
+            }
+        } else {
+            statements.add(trimmed);
+        }
+    }
+
+    /**
+     * Executes the layers.
+     *
+     * @param layers The layers in the order in which they are executed.
+     *
+     * @return The result containing the timings.
+     *
+     * @throws SQLException If a connection can't be opened or a statement
+     *                      fails. The remaining statements are not executed.
+     */
+    Result execute(final List<List<SchemaLayers.Unit>> layers)
+        throws SQLException {
+        int width = 1;
+        for (final List<SchemaLayers.Unit> layer : layers) {
+            width = Math.max(width, layer.size());
+        }
+        final int poolSize = Math.min(threads, width);
+
+        final long start = System.nanoTime();
+        final BlockingQueue<Connection> pool = new ArrayBlockingQueue<>(
+            poolSize);
+        final List<Connection> connections = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+            poolSize);
+        SQLException failure = null;
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                final Connection connection = DriverManager.getConnection(
+                    url, connectionProperties);
+                connection.setAutoCommit(true);
+                connections.add(connection);
+                pool.add(connection);
+            }
+            final boolean batched = batchSize > 1 && connections.get(0)
+                .getMetaData().supportsBatchUpdates();
+
+            final List<Timing> timings = new ArrayList<>();
+            for (int i = 0; i < layers.size(); i++) {
+                final List<Future<List<Timing>>> futures = new ArrayList<>();
+                for (final SchemaLayers.Unit unit : layers.get(i)) {
+                    futures.add(executor.submit(new UnitTask(
+                        pool, i + 1, unit, batched)));
+                }
+                for (final Future<List<Timing>> future : futures) {
+                    timings.addAll(await(future, futures));
+                }
+            }
+
+            return new Result(timings,
+                              System.nanoTime() - start,
+                              poolSize,
+                              batched);
+        } catch (SQLException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            shutdown(executor);
+            close(connections, failure);
+        }
+    }
+
+    /**
+     * Stops the worker threads. JDBC calls don't react to interrupts,
+     * therefore the method waits (up to {@link #TERMINATION_TIMEOUT_SECONDS})
+     * until the running statements have finished before the connections are
+     * closed.
+     */
+    private static void shutdown(final ExecutorService executor) {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(TERMINATION_TIMEOUT_SECONDS,
+                                      TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes the connections. If the execution has failed, errors while
+     * closing the connections are added as suppressed exceptions to the
+     * failure, which remains the reported error.
+     *
+     * @param connections The connections.
+     * @param failure     The error of the execution, {@code null} if the
+     *                    execution was successful.
+     *
+     * @throws SQLException If the execution was successful but a connection
+     *                      can't be closed.
+     */
+    private static void close(final List<Connection> connections,
+                              final SQLException failure)
+        throws SQLException {
+        SQLException first = failure;
+        for (final Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                if (first == null) {
+                    first = ex;
+                } else {
+                    first.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure == null && first != null) {
+            throw first;
+        }
+    }
+
+    private static List<Timing> await(
+        final Future<List<Timing>> future,
+        final List<Future<List<Timing>>> futures) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while executing the script.",
+                                   ex);
+        } catch (ExecutionException ex) {
+            for (final Future<List<Timing>> other : futures) {
+                other.cancel(true);
+            }
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            throw new SQLException(ex.getCause().getMessage(), ex.getCause());
+        }
+    }
+
+    /**
+     * Executes the statements of one unit using a connection from the pool.
+     */
+    private final class UnitTask implements Callable<List<Timing>> {
+
+        private final transient BlockingQueue<Connection> pool;
+        private final transient int layer;
+        private final transient SchemaLayers.Unit unit;
+        private final transient boolean batched;
+
+        UnitTask(final BlockingQueue<Connection> pool,
+                 final int layer,
+                 final SchemaLayers.Unit unit,
+                 final boolean batched) {
+            this.pool = pool;
+            this.layer = layer;
+            this.unit = unit;
+            this.batched = batched;
+        }
+
+        @Override
+        public List<Timing> call() throws SQLException, InterruptedException {
+            final Connection connection = pool.take();
+            try (Statement statement = connection.createStatement()) {
+                final List<Timing> timings = new ArrayList<>();
+                final int size = batched ? batchSize : 1;
+                final List<String> part = new ArrayList<>(size);
+                for (final String sql : unit.getStatements()) {
+                    //Statements which can't be executed in a transaction
+                    //block are never part of a batch.
+                    if (OnlineDdlRewriter.isNonTransactional(sql)) {
+                        flush(statement, part, timings);
+                        timings.add(executePart(
+                            statement, Collections.singletonList(sql)));
+                    } else {
+                        part.add(sql);
+                        if (part.size() == size) {
+                            flush(statement, part, timings);
+                        }
+                    }
+                }
+                flush(statement, part, timings);
+                return timings;
+            } finally {
+                pool.put(connection);
+            }
+        }
+
+        /**
+         * Executes the collected statements, if any, and clears the list.
+         */
+        private void flush(final Statement statement,
+                           final List<String> part,
+                           final List<Timing> timings) throws SQLException {
+            if (!part.isEmpty()) {
+                timings.add(executePart(statement, part));
+                part.clear();
+            }
+        }
+
+        private Timing executePart(final Statement statement,
+                                   final List<String> part)
+            throws SQLException {
+            final long start = System.nanoTime();
+            if (part.size() == 1) {
+                try {
+                    statement.execute(part.get(0));
+                } catch (SQLException ex) {
+                    throw failed(part.get(0), ex);
+                }
+            } else {
+                for (final String sql : part) {
+                    statement.addBatch(sql);
+                }
+                try {
+                    statement.executeBatch();
+                } catch (BatchUpdateException ex) {
+                    throw failed(part.get(failedIndex(ex, part.size())),
+                                 ex);
+                } catch (SQLException ex) {
+                    throw failed(part.get(0), ex);
+                } finally {
+                    statement.clearBatch();
+                }
+            }
+            return new Timing(layer,
+                              unit.getName(),
+                              part,
+                              System.nanoTime() - start);
+        }
+
+        /**
+         * Determines the failed statement of a batch. Drivers either stop at
+         * the failed statement (the update counts contain the statements
+         * before it) or mark it with {@link Statement#EXECUTE_FAILED}.
+         */
+        private int failedIndex(final BatchUpdateException ex,
+                                final int size) {
+            final int[] counts = ex.getUpdateCounts();
+            if (counts == null) {
+                return 0;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.EXECUTE_FAILED) {
+                    return i;
+                }
+            }
+            return Math.min(counts.length, size - 1);
+        }
+
+        private SQLException failed(final String sql,
+                                    final SQLException ex) {
+            return new SQLException(String.format(
+                "Failed to execute statement of unit %s in layer %d: %s%n"
+                    + "Statement: %s",
+                unit.getName(),
+                layer,
+                ex.getMessage(),
+                sql.replaceAll("\\s+", " ")),
+                                    ex.getSQLState(),
+                                    ex.getErrorCode(),
+                                    ex);
+        }
+
+    }
+
+    /**
+     * The time of one execution, which is a single statement or a batch of
+     * statements.
+     */
+    static final class Timing {
+
+        private final transient int layer;
+        private final transient String unit;
+        private final transient List<String> statements;
+        private final transient long nanos;
+
+        Timing(final int layer,
+               final String unit,
+               final List<String> statements,
+               final long nanos) {
+            this.layer = layer;
+            this.unit = unit;
+            this.statements = new ArrayList<>(statements);
+            this.nanos = nanos;
+        }
+
+        public int getLayer() {
+            return layer;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+
+        public List<String> getStatements() {
+            return Collections.unmodifiableList(statements);
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+    }
+
+    /**
+     * The result of an execution.
+     */
+    static final class Result {
+
+        private final transient List<Timing> timings;
+        private final transient long totalNanos;
+        private final transient int connectionCount;
+        private final transient boolean batched;
+
+        Result(final List<Timing> timings,
+               final long totalNanos,
+               final int connectionCount,
+               final boolean batched) {
+            this.timings = new ArrayList<>(timings);
+            this.totalNanos = totalNanos;
+            this.connectionCount = connectionCount;
+            this.batched = batched;
+        }
+
+        /**
+         * @return The timings of the executions in the order of the layers
+         *         and units.
+         */
+        public List<Timing> getTimings() {
+            return Collections.unmodifiableList(timings);
+        }
+
+        /**
+         * @return The wall time of the complete execution, including opening
+         *         the connections.
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return The number of connections used.
+         */
+        public int getConnectionCount() {
+            return connectionCount;
+        }
+
+        /**
+         * @return {@code true} if the statements were executed in batches.
+         */
+        public boolean isBatched() {
+            return batched;
+        }
+
+        /**
+         * @return The number of executed statements.
+         */
+        public int getStatementCount() {
+            int count = 0;
+            for (final Timing timing : timings) {
+                count += timing.getStatements().size();
+            }
+            return count;
+        }
+
+        /**
+         * Renders the timings as text report. The first line contains the
+         * totals, each following line the layer, the unit, the number of
+         * statements, the time in milliseconds and the (first) statement of
+         * an execution, separated by tabs.
+         *
+         * @return The report.
+         */
+        String toReport() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append(String.format(
+                Locale.ROOT,
+                "total\t%d statements\t%d executions\t%d connections\t"
+                    + "%.3f ms%n",
+                getStatementCount(),
+                timings.size(),
+                connectionCount,
+                totalNanos / 1e6));
+            for (final Timing timing : timings) {
+                builder.append(String.format(
+                    Locale.ROOT,
+                    "%d\t%s\t%d\t%.3f\t%s%n",
+                    timing.getLayer(),
+                    timing.getUnit(),
+                    timing.getStatements().size(),
+                    timing.getNanos() / 1e6,
+                    timing.getStatements().get(0).replaceAll("\\s+", " ")));
+            }
+            return builder.toString();
+        }
+
+    }
+
+}
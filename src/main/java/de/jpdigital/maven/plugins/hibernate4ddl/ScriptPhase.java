@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The phases of a DDL script. If the {@code splitPhases} option of the
+ * {@code gen-ddl} goal is enabled the statements for each dialect are also
+ * written into one file per phase, so that data can be loaded after the
+ * tables have been created but before the constraints and indexes are
+ * created. The files are named so that executing them in alphabetical order
+ * executes the phases in the correct order.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+enum ScriptPhase {
+
+    /**
+     * The drop statements, only written if drop statements are enabled.
+     */
+    DROP("00-drop.sql"),
+    /**
+     * Schemas, domains, sequences and the tables used by table generators.
+     */
+    SCHEMA("01-schema.sql"),
+    /**
+     * The tables including their primary keys.
+     */
+    TABLES("02-tables.sql"),
+    /**
+     * Hook for loading the data. Contains the content of the configured data
+     * load script.
+     */
+    DATA("03-data.sql"),
+    /**
+     * Unique keys, foreign keys and other constraints.
+     */
+    CONSTRAINTS("04-constraints.sql"),
+    /**
+     * The indexes.
+     */
+    INDEXES("05-indexes.sql");
+
+    private static final Pattern SCHEMA_STATEMENT = Pattern.compile(
+        "create (schema|domain|sequence) .*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "create (unique )?index .*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final String fileName;
+
+    private ScriptPhase(final String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return The name of the file for the phase.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Assigns the statements of a script to the phases. The order of the
+     * statements within a phase is preserved. The {@link #DATA} phase is
+     * always empty.
+     *
+     * @param dropStatements      The drop statements, may be empty.
+     * @param createStatements    The create statements.
+     * @param generatorStatements The statements creating the sequences and
+     *                            generator tables. These statements are
+     *                            assigned to the {@link #SCHEMA} phase.
+     *
+     * @return The statements of each phase.
+     */
+    static Map<ScriptPhase, List<String>> split(
+        final List<String> dropStatements,
+        final List<String> createStatements,
+        final Collection<String> generatorStatements) {
+
+        final Map<ScriptPhase, List<String>> phases = new EnumMap<>(
+            ScriptPhase.class);
+        for (final ScriptPhase phase : values()) {
+            phases.put(phase, new ArrayList<String>());
+        }
+        phases.get(DROP).addAll(dropStatements);
+
+        final Set<String> generators = new HashSet<>(generatorStatements);
+        for (final String statement : createStatements) {
+            phases.get(phaseOf(statement, generators)).add(statement);
+        }
+
+        return phases;
+    }
+
+    private static ScriptPhase phaseOf(final String statement,
+                                       final Set<String> generators) {
+        final String trimmed = statement.trim();
+        if (generators.contains(statement)
+                || SCHEMA_STATEMENT.matcher(trimmed).matches()) {
+            return SCHEMA;
+        }
+        if (CREATE_INDEX.matcher(trimmed).matches()) {
+            return INDEXES;
+        }
+        if (trimmed.toLowerCase(Locale.ENGLISH).startsWith("alter table")) {
+            return CONSTRAINTS;
+        }
+        return TABLES;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Adds a {@code cache} clause and optionally a {@code noorder} clause to the
+ * {@code create sequence} statements. With a cache the database hands out
+ * the values of a sequence from memory instead of updating the sequence for
+ * each value, which reduces the contention if many sessions insert rows
+ * concurrently. {@code noorder} (Oracle and DB2) allows the nodes of a
+ * cluster to use their own cache. The clauses are supported for:
+ *
+ * <ul>
+ * <li>Oracle: {@code cache n noorder}</li>
+ * <li>DB2: {@code cache n no order}</li>
+ * <li>PostgreSQL, H2 and SQL Server 2012: {@code cache n}. These databases
+ * don't guarantee the order of cached values anyway.</li>
+ * </ul>
+ *
+ * The increment of the sequences is not changed. It is determined by
+ * Hibernate: the enhanced generators (enabled by
+ * {@code hibernate.id.new_generator_mappings}) use the
+ * {@code allocationSize} as increment, the legacy generators require an
+ * increment of 1. Statements which already contain a {@code cache} clause
+ * are kept.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class SequenceCacheRewriter implements StatementRewriter {
+
+    private static final Pattern CREATE_SEQUENCE = Pattern.compile(
+        "create sequence \\S+.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CACHE = Pattern.compile(
+        ".*\\s(no)?cache(\\s.*)?", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final transient Dialect dialect;
+    private final transient int cache;
+    private final transient boolean noOrder;
+
+    /**
+     * Creates a rewriter for a dialect.
+     *
+     * @param dialect The dialect. Must be supported (see
+     *                {@link #isSupported(Dialect)}).
+     * @param cache   The number of cached values, {@code 0} for no
+     *                {@code cache} clause.
+     * @param noOrder Add a {@code noorder} clause (only used for Oracle and
+     *                DB2)?
+     */
+    SequenceCacheRewriter(final Dialect dialect,
+                          final int cache,
+                          final boolean noOrder) {
+        if (!isSupported(dialect)) {
+            throw new IllegalArgumentException(String.format(
+                "Sequence options are not supported for dialect %s.",
+                dialect));
+        }
+        if (cache < 0) {
+            throw new IllegalArgumentException(
+                "The sequence cache can't be negative.");
+        }
+        this.dialect = dialect;
+        this.cache = cache;
+        this.noOrder = noOrder;
+    }
+
+    /**
+     * @param dialect A dialect.
+     *
+     * @return {@code true} if the sequences of the dialect support a
+     *         {@code cache} clause.
+     */
+    static boolean isSupported(final Dialect dialect) {
+        return isOracle(dialect)
+                   || isDb2(dialect)
+                   || dialect.name().startsWith("POSTGRESQL")
+                   || dialect == Dialect.H2
+                   || dialect == Dialect.SQLSERVER2012;
+    }
+
+    private static boolean isOracle(final Dialect dialect) {
+        return dialect.name().startsWith("ORACLE")
+                   && dialect != Dialect.ORACLE_TIMES_TEN;
+    }
+
+    private static boolean isDb2(final Dialect dialect) {
+        return dialect.name().startsWith("DB2");
+    }
+
+    /**
+     * @return The clauses appended to each {@code create sequence}
+     *         statement, an empty string if there are none.
+     */
+    String getClauses() {
+        final StringBuilder builder = new StringBuilder();
+        if (cache > 0) {
+            builder.append(String.format(Locale.ENGLISH, " cache %d", cache));
+        }
+        if (noOrder && isOracle(dialect)) {
+            builder.append(" noorder");
+        } else if (noOrder && isDb2(dialect)) {
+            builder.append(" no order");
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public List<String> rewrite(final List<String> statements) {
+        final String clauses = getClauses();
+        final List<String> result = new ArrayList<>();
+        for (final String statement : statements) {
+            final String trimmed = statement.trim();
+            final Matcher matcher = CREATE_SEQUENCE.matcher(trimmed);
+            if (!clauses.isEmpty()
+                    && matcher.matches()
+                    && !CACHE.matcher(trimmed).matches()) {
+                result.add(trimmed + clauses);
+            } else {
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+
+}
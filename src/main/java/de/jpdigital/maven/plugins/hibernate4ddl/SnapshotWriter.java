@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+
+/**
+ * Writes the {@link SchemaSnapshot} of a dialect to the file
+ * {@code <dialect>.snapshot}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class SnapshotWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return context.getOptions().isWriteSnapshots();
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        try {
+            return OutputContext.writeIfChanged(
+                context.getOutputFile(SchemaSnapshot.FILE_SUFFIX),
+                context.getSnapshot().toText());
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write schema snapshot: %s",
+                              ex.getMessage()),
+                ex);
+        }
+    }
+
+}
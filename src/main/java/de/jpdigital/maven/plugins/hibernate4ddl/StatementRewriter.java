@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.List;
+
+/**
+ * A stage which rewrites the statements generated by Hibernate before they
+ * are written, for example to replace statements with variants which are
+ * better suited for a specific database. Rewriters are registered at the
+ * {@link DdlConfiguration} for the create scripts and at the
+ * {@link SchemaDiff} for migration scripts.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+interface StatementRewriter {
+
+    /**
+     * Rewrites statements.
+     *
+     * @param statements The statements, without delimiter. Statements
+     *                   starting with {@code --} are comments and should be
+     *                   passed through.
+     *
+     * @return The rewritten statements. Statements can be replaced by any
+     *         number of statements.
+     */
+    List<String> rewrite(List<String> statements);
+
+}
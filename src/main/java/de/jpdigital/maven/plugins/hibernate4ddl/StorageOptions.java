@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The physical storage options of a table as configured for the plugin.
+ * The options are a list of {@code <option>=<value>} entries separated by
+ * {@code ,}, for example
+ * {@code fillfactor=70, tablespace=audit_data, lob=securefile}. The options
+ * are independent of the dialect, the {@link StorageRewriter} translates
+ * them into the clauses of each dialect and ignores the options a dialect
+ * doesn't support.
+ *
+ * <dl>
+ * <dt>{@code fillfactor}</dt>
+ * <dd>Percentage (10 to 100) to which the blocks of the table are filled
+ * by inserts (PostgreSQL {@code fillfactor}, Oracle
+ * {@code pctfree 100 - fillfactor}).</dd>
+ * <dt>{@code tablespace}</dt>
+ * <dd>The tablespace of the table (PostgreSQL, MySQL, Oracle).</dd>
+ * <dt>{@code compress}</dt>
+ * <dd>{@code true} or {@code false} (Oracle {@code compress} or
+ * {@code nocompress}, MySQL {@code row_format=compressed}).</dd>
+ * <dt>{@code row_format}</dt>
+ * <dd>{@code compact}, {@code dynamic}, {@code compressed} or
+ * {@code redundant} (MySQL).</dd>
+ * <dt>{@code key_block_size}</dt>
+ * <dd>1, 2, 4, 8 or 16 (MySQL).</dd>
+ * <dt>{@code toast}</dt>
+ * <dd>{@code plain}, {@code main}, {@code external} or {@code extended},
+ * the storage of the {@code text} and {@code bytea} columns
+ * (PostgreSQL).</dd>
+ * <dt>{@code toast_tuple_target}</dt>
+ * <dd>128 to 8160, the row size from which on values are moved to the
+ * TOAST table (PostgreSQL 11 or newer).</dd>
+ * <dt>{@code lob}</dt>
+ * <dd>{@code securefile} or {@code basicfile}, the storage of the
+ * {@code clob}, {@code nclob} and {@code blob} columns (Oracle).</dd>
+ * <dt>{@code lob_tablespace}</dt>
+ * <dd>The tablespace of the LOB columns (Oracle).</dd>
+ * <dt>{@code lob_compress}</dt>
+ * <dd>{@code low}, {@code medium} or {@code high} (Oracle SecureFiles).</dd>
+ * <dt>{@code lob_deduplicate}</dt>
+ * <dd>{@code true} or {@code false} (Oracle SecureFiles).</dd>
+ * <dt>{@code lob_cache}</dt>
+ * <dd>{@code true} or {@code false} (Oracle).</dd>
+ * </dl>
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class StorageOptions {
+
+    static final String FILLFACTOR = "fillfactor";
+    static final String TABLESPACE = "tablespace";
+    static final String COMPRESS = "compress";
+    static final String ROW_FORMAT = "row_format";
+    static final String KEY_BLOCK_SIZE = "key_block_size";
+    static final String TOAST = "toast";
+    static final String TOAST_TUPLE_TARGET = "toast_tuple_target";
+    static final String LOB = "lob";
+    static final String LOB_TABLESPACE = "lob_tablespace";
+    static final String LOB_COMPRESS = "lob_compress";
+    static final String LOB_DEDUPLICATE = "lob_deduplicate";
+    static final String LOB_CACHE = "lob_cache";
+
+    private static final Pattern IDENTIFIER = Pattern.compile(
+        "[A-Za-z_][A-Za-z0-9_$]*");
+    private static final List<String> BOOLEANS = Arrays.asList("true",
+                                                               "false");
+
+    private final transient Map<String, String> options
+                                                    = new LinkedHashMap<>();
+
+    private StorageOptions() {
+        //Use parse or merge
+    }
+
+    /**
+     * Parses the options.
+     *
+     * @param spec The options as configured.
+     *
+     * @return The options.
+     *
+     * @throws IllegalArgumentException If the options are invalid.
+     */
+    static StorageOptions parse(final String spec) {
+        final StorageOptions result = new StorageOptions();
+        for (final String entry : ColumnAlignmentRewriter.splitTopLevel(
+            spec == null ? "" : spec)) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            final int index = entry.indexOf('=');
+            if (index <= 0 || index == entry.length() - 1) {
+                throw new IllegalArgumentException(String.format(
+                    "Invalid storage option '%s', expected option=value.",
+                    entry));
+            }
+            final String option = entry.substring(0, index).trim()
+                .toLowerCase(Locale.ENGLISH);
+            final String value = entry.substring(index + 1).trim();
+            validate(option, value);
+            result.options.put(option, value);
+        }
+        if (result.options.isEmpty()) {
+            throw new IllegalArgumentException("No storage options.");
+        }
+        return result;
+    }
+
+    private static void validate(final String option, final String value) {
+        final String lowerCase = value.toLowerCase(Locale.ENGLISH);
+        final boolean valid;
+        switch (option) {
+            case FILLFACTOR:
+                valid = isInRange(value, 10, 100);
+                break;
+            case TOAST_TUPLE_TARGET:
+                valid = isInRange(value, 128, 8160);
+                break;
+            case KEY_BLOCK_SIZE:
+                valid = Arrays.asList("1", "2", "4", "8", "16").contains(
+                    value);
+                break;
+            case TABLESPACE:
+            case LOB_TABLESPACE:
+                valid = IDENTIFIER.matcher(value).matches();
+                break;
+            case COMPRESS:
+            case LOB_DEDUPLICATE:
+            case LOB_CACHE:
+                valid = BOOLEANS.contains(lowerCase);
+                break;
+            case ROW_FORMAT:
+                valid = Arrays.asList("compact",
+                                      "dynamic",
+                                      "compressed",
+                                      "redundant").contains(lowerCase);
+                break;
+            case TOAST:
+                valid = Arrays.asList("plain",
+                                      "main",
+                                      "external",
+                                      "extended").contains(lowerCase);
+                break;
+            case LOB:
+                valid = Arrays.asList("securefile",
+                                      "basicfile").contains(lowerCase);
+                break;
+            case LOB_COMPRESS:
+                valid = Arrays.asList("low",
+                                      "medium",
+                                      "high").contains(lowerCase);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format(
+                    "Unknown storage option '%s'.", option));
+        }
+        if (!valid) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid value '%s' for storage option '%s'.",
+                value,
+                option));
+        }
+    }
+
+    private static boolean isInRange(final String value,
+                                     final int min,
+                                     final int max) {
+        try {
+            final int number = Integer.parseInt(value);
+            return number >= min && number <= max;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Merges options. Options of later instances override the options of
+     * earlier instances.
+     *
+     * @param options The options to merge.
+     *
+     * @return The merged options.
+     */
+    static StorageOptions merge(final List<StorageOptions> options) {
+        final StorageOptions result = new StorageOptions();
+        for (final StorageOptions option : options) {
+            result.options.putAll(option.options);
+        }
+        return result;
+    }
+
+    /**
+     * @param option The name of an option.
+     *
+     * @return The value of the option or {@code null} if the option is not
+     *         set.
+     */
+    String get(final String option) {
+        return options.get(option);
+    }
+
+    /**
+     * @param option The name of a boolean option.
+     *
+     * @return {@code true} if the option is set to {@code true}.
+     */
+    boolean isTrue(final String option) {
+        return "true".equalsIgnoreCase(options.get(option));
+    }
+
+    /**
+     * @return The options mapped by their names.
+     */
+    Map<String, String> getOptions() {
+        return Collections.unmodifiableMap(options);
+    }
+
+    @Override
+    public String toString() {
+        return options.toString();
+    }
+
+}
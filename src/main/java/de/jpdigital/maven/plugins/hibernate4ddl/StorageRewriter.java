@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.Table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Adds the configured {@link StorageOptions} to the {@code create table}
+ * statements for PostgreSQL, MySQL and Oracle. The tables are configured by
+ * the name of the entity (the simple or fully qualified class name or the
+ * JPA entity name), the name of the table or a pattern for the names of
+ * tables, for example {@code *_AUD}, in which {@code *} matches any number
+ * of characters and {@code ?} matches one character. If several entries
+ * match a table their options are merged: the options for the name of the
+ * entity or table override the options of the patterns, the options of
+ * longer patterns override the options of shorter patterns.
+ *
+ * <ul>
+ * <li>PostgreSQL: {@code with (fillfactor=..., toast_tuple_target=...)}
+ * and {@code tablespace} are appended. For tables partitioned by a
+ * {@link PartitioningRewriter} the storage parameters are added to the
+ * partitions, because PostgreSQL doesn't accept them for the partitioned
+ * table. The storage of the {@code text} and {@code bytea} columns is set
+ * by {@code alter table ... alter column ... set storage}.</li>
+ * <li>MySQL: {@code tablespace}, {@code row_format} and
+ * {@code key_block_size} are added to the table options.</li>
+ * <li>Oracle: {@code pctfree}, {@code tablespace},
+ * {@code compress}/{@code nocompress} and a
+ * {@code lob (...) store as securefile (...)} clause for each
+ * {@code clob}, {@code nclob} and {@code blob} column are added.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class StorageRewriter implements MappingStatementRewriter {
+
+    private static final Pattern PARTITION_OF = Pattern.compile(
+        "create table (\\S+) partition of (\\S+) .*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "create table (\\S+) \\(.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern TABLE_CONSTRAINT = Pattern.compile(
+        "(primary key|unique|check|constraint|foreign key)\\b.*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final String PARTITION_BY = " partition by ";
+
+    private static final String[] POSTGRESQL_LOBS = {"text", "bytea"};
+    private static final String[] ORACLE_LOBS = {"clob", "nclob", "blob"};
+
+    private final transient Dialect dialect;
+    private final transient Map<String, StorageOptions> specs;
+    private final transient Map<String, StorageOptions> tableOptions
+                                                      = new HashMap<>();
+    private final transient Map<Pattern, StorageOptions> patternOptions
+                                                       = new LinkedHashMap<>();
+    private final transient Set<String> tables = new TreeSet<>();
+
+    /**
+     * Creates an instance. The names are resolved by
+     * {@link #resolve(Configuration)}.
+     *
+     * @param dialect The dialect for which the statements are rewritten.
+     * @param specs   The storage options mapped by the name of the entity or
+     *                table or by a pattern for the names of tables.
+     */
+    StorageRewriter(final Dialect dialect,
+                    final Map<String, StorageOptions> specs) {
+        this.dialect = dialect;
+        this.specs = new LinkedHashMap<>(specs);
+    }
+
+    /**
+     * @param dialect A dialect.
+     *
+     * @return {@code true} if storage options are supported for the
+     *         dialect.
+     */
+    static boolean isSupported(final Dialect dialect) {
+        return PartitioningRewriter.isSupported(dialect);
+    }
+
+    /**
+     * Resolves the names of the entities and tables.
+     *
+     * @param configuration The configuration. The mappings must have been
+     *                      compiled.
+     *
+     * @throws IllegalArgumentException If there is no entity or table with
+     *                                  one of the names.
+     */
+    @Override
+    public void resolve(final Configuration configuration) {
+        tableOptions.clear();
+        patternOptions.clear();
+        final List<String> patterns = new ArrayList<>();
+        for (final Map.Entry<String, StorageOptions> entry : specs
+            .entrySet()) {
+            final String name = entry.getKey();
+            if (name.contains("*") || name.contains("?")) {
+                patterns.add(name);
+                continue;
+            }
+            final Table table = PartitioningRewriter.findTable(configuration,
+                                                               name);
+            if (table == null) {
+                throw new IllegalArgumentException(String.format(
+                    "No entity or table with the name '%s'.", name));
+            }
+            tableOptions.put(table.getName().toLowerCase(Locale.ROOT),
+                             entry.getValue());
+        }
+
+        //Shorter patterns first, the options of longer patterns override
+        //them.
+        Collections.sort(patterns, new Comparator<String>() {
+
+            @Override
+            public int compare(final String pattern1, final String pattern2) {
+                return Integer.compare(pattern1.length(), pattern2.length());
+            }
+
+        });
+        for (final String pattern : patterns) {
+            patternOptions.put(toRegex(pattern), specs.get(pattern));
+        }
+    }
+
+    private static Pattern toRegex(final String pattern) {
+        final StringBuilder regex = new StringBuilder();
+        for (final char character : pattern.toCharArray()) {
+            if (character == '*') {
+                regex.append(".*");
+            } else if (character == '?') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(Character.toString(character)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * @return The options for a table or {@code null} if no options are
+     *         configured for the table.
+     */
+    private StorageOptions findOptions(final String name) {
+        String table = name;
+        final int index = table.lastIndexOf('.');
+        if (index >= 0) {
+            table = table.substring(index + 1);
+        }
+        table = table.replaceAll("[\"`\\[\\]]", "");
+
+        final List<StorageOptions> options = new ArrayList<>();
+        for (final Map.Entry<Pattern, StorageOptions> entry : patternOptions
+            .entrySet()) {
+            if (entry.getKey().matcher(table).matches()) {
+                options.add(entry.getValue());
+            }
+        }
+        final StorageOptions exact = tableOptions.get(table.toLowerCase(
+            Locale.ROOT));
+        if (exact != null) {
+            options.add(exact);
+        }
+        if (options.isEmpty()) {
+            return null;
+        }
+        return StorageOptions.merge(options);
+    }
+
+    @Override
+    public List<String> rewrite(final List<String> statements) {
+        final List<String> result = new ArrayList<>();
+        for (final String statement : statements) {
+            final String trimmed = statement.trim();
+            final Matcher partitionOf = PARTITION_OF.matcher(trimmed);
+            final Matcher createTable = CREATE_TABLE.matcher(trimmed);
+            if (partitionOf.matches()) {
+                result.add(createPartition(partitionOf, trimmed));
+            } else if (createTable.matches()
+                           && findOptions(createTable.group(1)) != null) {
+                result.addAll(createTable(
+                    createTable.group(1),
+                    trimmed,
+                    findOptions(createTable.group(1))));
+            } else {
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the options of the partitioned table and the partition to a
+     * {@code create table ... partition of} statement for PostgreSQL.
+     */
+    private String createPartition(final Matcher matcher,
+                                   final String statement) {
+        final List<StorageOptions> list = new ArrayList<>();
+        final StorageOptions parent = findOptions(matcher.group(2));
+        if (parent != null) {
+            list.add(parent);
+        }
+        final StorageOptions own = findOptions(matcher.group(1));
+        if (own != null) {
+            list.add(own);
+        }
+        if (list.isEmpty()) {
+            return statement;
+        }
+        final StorageOptions options = StorageOptions.merge(list);
+        final String clause = withClause(options) + tablespaceClause(options);
+        if (!clause.isEmpty()) {
+            tables.add(matcher.group(1));
+        }
+        return statement + clause;
+    }
+
+    private List<String> createTable(final String table,
+                                     final String statement,
+                                     final StorageOptions options) {
+        final List<String> result = new ArrayList<>();
+        final int start = statement.indexOf('(');
+        final int end = ColumnAlignmentRewriter.findClosingParenthesis(
+            statement, start);
+        if (end < 0) {
+            result.add(statement);
+            return result;
+        }
+        final List<String[]> columns = getColumns(statement.substring(
+            start + 1, end));
+        final String tail = statement.substring(end + 1);
+        final int partitionBy = tail.toLowerCase(Locale.ENGLISH).indexOf(
+            PARTITION_BY);
+
+        final String clause;
+        if (dialect.name().startsWith("POSTGRESQL")) {
+            //The storage parameters of partitioned tables are set for the
+            //partitions.
+            if (partitionBy < 0) {
+                clause = withClause(options) + tablespaceClause(options);
+            } else {
+                clause = tablespaceClause(options);
+            }
+            result.add(statement + clause);
+            result.addAll(toastStatements(table, columns, options));
+        } else {
+            if (dialect.name().startsWith("MYSQL")) {
+                clause = mySqlClause(options);
+            } else {
+                clause = oracleClause(columns, options);
+            }
+            final int index = partitionBy < 0
+                                  ? statement.length()
+                                  : end + 1 + partitionBy;
+            result.add(statement.substring(0, index)
+                           + clause
+                           + statement.substring(index));
+        }
+        if (!clause.isEmpty() || result.size() > 1) {
+            tables.add(table);
+        }
+        return result;
+    }
+
+    /**
+     * @return The name and the type (in lower case) of each column of a
+     *         {@code create table} statement.
+     */
+    private static List<String[]> getColumns(final String body) {
+        final List<String[]> columns = new ArrayList<>();
+        for (final String element : ColumnAlignmentRewriter.splitTopLevel(
+            body)) {
+            if (TABLE_CONSTRAINT.matcher(element).matches()) {
+                continue;
+            }
+            final String[] tokens = element.split("\\s+", 3);
+            if (tokens.length > 1) {
+                columns.add(new String[]{
+                    tokens[0], tokens[1].toLowerCase(Locale.ENGLISH)});
+            }
+        }
+        return columns;
+    }
+
+    private static boolean hasType(final String[] column,
+                                   final String[] types) {
+        for (final String type : types) {
+            if (column[1].equals(type) || column[1].startsWith(type + "(")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withClause(final StorageOptions options) {
+        final List<String> parameters = new ArrayList<>();
+        if (options.get(StorageOptions.FILLFACTOR) != null) {
+            parameters.add(StorageOptions.FILLFACTOR + "="
+                               + options.get(StorageOptions.FILLFACTOR));
+        }
+        if (options.get(StorageOptions.TOAST_TUPLE_TARGET) != null) {
+            parameters.add(StorageOptions.TOAST_TUPLE_TARGET + "="
+                               + options.get(
+                    StorageOptions.TOAST_TUPLE_TARGET));
+        }
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        return String.format(" with (%s)", join(parameters));
+    }
+
+    private static String tablespaceClause(final StorageOptions options) {
+        if (options.get(StorageOptions.TABLESPACE) == null) {
+            return "";
+        }
+        return " tablespace " + options.get(StorageOptions.TABLESPACE);
+    }
+
+    private static List<String> toastStatements(final String table,
+                                                final List<String[]> columns,
+                                                final StorageOptions options) {
+        final List<String> statements = new ArrayList<>();
+        final String toast = options.get(StorageOptions.TOAST);
+        if (toast == null) {
+            return statements;
+        }
+        for (final String[] column : columns) {
+            if (hasType(column, POSTGRESQL_LOBS)) {
+                statements.add(String.format(
+                    "alter table %s alter column %s set storage %s",
+                    table,
+                    column[0],
+                    toast.toLowerCase(Locale.ENGLISH)));
+            }
+        }
+        return statements;
+    }
+
+    private static String mySqlClause(final StorageOptions options) {
+        final StringBuilder builder = new StringBuilder(tablespaceClause(
+            options));
+        String rowFormat = options.get(StorageOptions.ROW_FORMAT);
+        if (rowFormat == null && (options.isTrue(StorageOptions.COMPRESS)
+                                  || options.get(
+                                      StorageOptions.KEY_BLOCK_SIZE) != null)) {
+            rowFormat = "compressed";
+        }
+        if (rowFormat != null) {
+            builder.append(" row_format=").append(rowFormat.toLowerCase(
+                Locale.ENGLISH));
+        }
+        if (options.get(StorageOptions.KEY_BLOCK_SIZE) != null) {
+            builder.append(" key_block_size=").append(options.get(
+                StorageOptions.KEY_BLOCK_SIZE));
+        }
+        return builder.toString();
+    }
+
+    private static String oracleClause(final List<String[]> columns,
+                                       final StorageOptions options) {
+        final StringBuilder builder = new StringBuilder();
+        if (options.get(StorageOptions.FILLFACTOR) != null) {
+            builder.append(" pctfree ").append(100 - Integer.parseInt(
+                options.get(StorageOptions.FILLFACTOR)));
+        }
+        builder.append(tablespaceClause(options));
+        if (options.get(StorageOptions.COMPRESS) != null) {
+            builder.append(options.isTrue(StorageOptions.COMPRESS)
+                               ? " compress"
+                               : " nocompress");
+        }
+
+        final String lobStorage = lobStorage(options);
+        if (lobStorage.isEmpty()) {
+            return builder.toString();
+        }
+        for (final String[] column : columns) {
+            if (hasType(column, ORACLE_LOBS)) {
+                builder.append(String.format(" lob (%s) store as%s",
+                                             column[0],
+                                             lobStorage));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return The storage clause for the LOB columns for Oracle, for
+     *         example {@code  securefile (compress medium)}, or an empty
+     *         string if no LOB options are set.
+     */
+    private static String lobStorage(final StorageOptions options) {
+        final List<String> parameters = new ArrayList<>();
+        if (options.get(StorageOptions.LOB_TABLESPACE) != null) {
+            parameters.add("tablespace " + options.get(
+                StorageOptions.LOB_TABLESPACE));
+        }
+        if (options.get(StorageOptions.LOB_COMPRESS) != null) {
+            parameters.add("compress " + options.get(
+                StorageOptions.LOB_COMPRESS).toLowerCase(Locale.ENGLISH));
+        }
+        if (options.isTrue(StorageOptions.LOB_DEDUPLICATE)) {
+            parameters.add("deduplicate");
+        }
+        if (options.get(StorageOptions.LOB_CACHE) != null) {
+            parameters.add(options.isTrue(StorageOptions.LOB_CACHE)
+                               ? "cache"
+                               : "nocache");
+        }
+
+        String type = options.get(StorageOptions.LOB);
+        if (type == null && (options.get(StorageOptions.LOB_COMPRESS) != null
+                                 || options.isTrue(
+                                     StorageOptions.LOB_DEDUPLICATE))) {
+            //Compression and deduplication require SecureFiles
+            type = "securefile";
+        }
+        final StringBuilder builder = new StringBuilder();
+        if (type != null) {
+            builder.append(' ').append(type.toLowerCase(Locale.ENGLISH));
+        }
+        if (!parameters.isEmpty()) {
+            final StringBuilder list = new StringBuilder();
+            for (final String parameter : parameters) {
+                if (list.length() > 0) {
+                    list.append(' ');
+                }
+                list.append(parameter);
+            }
+            builder.append(String.format(" (%s)", list));
+        }
+        return builder.toString();
+    }
+
+    private static String join(final List<String> values) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String value : values) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return The names of the tables to which storage options were added,
+     *         sorted.
+     */
+    List<String> getTables() {
+        return Collections.unmodifiableList(new ArrayList<>(tables));
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.PrintStream;
+
+/**
+ * {@link GenerationLog} implementation which writes to a
+ * {@link PrintStream}, using the same prefixes as Maven ({@code [INFO]},
+ * {@code [WARNING]} and {@code [ERROR]}).
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class StreamGenerationLog implements GenerationLog {
+
+    static final String INFO = "[INFO] ";
+    static final String WARNING = "[WARNING] ";
+    static final String ERROR = "[ERROR] ";
+
+    private final transient PrintStream stream;
+
+    StreamGenerationLog(final PrintStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public void info(final String message) {
+        stream.println(INFO + message);
+    }
+
+    @Override
+    public void warn(final String message) {
+        stream.println(WARNING + message);
+    }
+
+    @Override
+    public void error(final String message, final Throwable cause) {
+        stream.println(ERROR + message);
+        if (cause != null) {
+            cause.printStackTrace(stream);
+        }
+    }
+
+}
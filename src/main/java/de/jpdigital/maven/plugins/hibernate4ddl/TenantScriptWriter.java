@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Expands the template file of a dialect
+ * ({@code <dialect>.tenant-template.sql}), which was rendered with the
+ * {@link TenantTemplate#PLACEHOLDER} as default schema, into the scripts for
+ * the tenants. Depending on {@link DdlOptions#isCombineTenantScripts()} the
+ * scripts are written to {@code <dialect>.tenants.sql} or to
+ * {@code <dialect>/tenants/}. Files of tenants which are no longer
+ * configured are removed.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class TenantScriptWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return !context.getOptions().getTenantSchemas().isEmpty();
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        final List<String> tenantSchemas = context.getOptions()
+            .getTenantSchemas();
+        final org.hibernate.dialect.Dialect hibernateDialect = context
+            .getHibernateDialect();
+        final Path combinedFile = context.getOutputFile(
+            TenantTemplate.COMBINED_FILE_SUFFIX);
+        final Path tenantDir = context.getOptions().getOutputDirectory()
+            .toPath()
+            .resolve(context.getBaseName())
+            .resolve(TenantTemplate.TENANT_DIRECTORY);
+        long bytesWritten = 0;
+        try {
+            final TenantTemplate template = TenantTemplate.parse(new String(
+                Files.readAllBytes(context.getOutputFile(
+                    TenantTemplate.TEMPLATE_FILE_SUFFIX)),
+                OutputContext.UTF8));
+            if (template.getPlaceholderCount() == 0) {
+                context.getLog().warn(String.format(
+                    "The DDL for dialect %s contains no references to the "
+                        + "default schema, the scripts of all tenants are "
+                        + "identical.",
+                    context.getDialect()));
+            }
+
+            if (context.getOptions().isCombineTenantScripts()) {
+                final StringBuilder builder = new StringBuilder(
+                    tenantSchemas.size() * (template.getLength() + 64));
+                for (final String tenant : tenantSchemas) {
+                    builder.append(TenantTemplate.TENANT_MARKER)
+                        .append(tenant)
+                        .append('\n');
+                    template.appendTo(builder, TenantTemplate.quote(
+                                      tenant, hibernateDialect));
+                    builder.append('\n');
+                }
+                bytesWritten += OutputContext.writeIfChanged(
+                    combinedFile, builder.toString());
+                deleteTenantFiles(tenantDir, new HashSet<String>());
+            } else {
+                Files.createDirectories(tenantDir);
+                final Set<String> fileNames = new HashSet<>();
+                for (final String tenant : tenantSchemas) {
+                    final String fileName = tenant + ".sql";
+                    fileNames.add(fileName);
+                    bytesWritten += OutputContext.writeIfChanged(
+                        tenantDir.resolve(fileName),
+                        template.render(TenantTemplate.quote(
+                            tenant, hibernateDialect)));
+                }
+                deleteTenantFiles(tenantDir, fileNames);
+                Files.deleteIfExists(combinedFile);
+            }
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write tenant scripts: %s",
+                              ex.getMessage()),
+                ex);
+        }
+        context.getLog().info(String.format(
+            "Expanded the DDL for dialect %s into the scripts of %d tenants.",
+            context.getDialect(),
+            tenantSchemas.size()));
+
+        return bytesWritten;
+    }
+
+    /**
+     * Deletes the scripts in the tenant directory which don't belong to a
+     * configured tenant.
+     */
+    private static void deleteTenantFiles(final Path tenantDir,
+                                          final Set<String> keep)
+        throws IOException {
+        if (!Files.isDirectory(tenantDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(
+            tenantDir, "*.sql")) {
+            for (final Path file : files) {
+                if (!keep.contains(file.getFileName().toString())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A DDL script rendered with a placeholder instead of the name of the
+ * schema, which is expanded into the scripts for several tenants. If
+ * tenant schemas are configured for the {@code gen-ddl} goal the DDL is
+ * additionally exported once per dialect with {@link #PLACEHOLDER} as
+ * default schema to {@code <dialect>.tenant-template.sql}. The DDL file
+ * itself is not affected.
+ * Hibernate uses the default schema to qualify the names of all tables and
+ * sequences which don't declare a schema, therefore the script for a
+ * tenant is obtained by replacing the placeholder with the name of the
+ * schema of the tenant.
+ *
+ * The script is split at the placeholders once, rendering the script for a
+ * tenant only concatenates the parts and the (quoted) name of the schema.
+ * The names of the schemas are quoted using the quotes of the dialect if
+ * they are not plain identifiers or if they are reserved words.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class TenantTemplate {
+
+    /**
+     * The placeholder used as name of the default schema.
+     */
+    static final String PLACEHOLDER = "__tenant__";
+
+    /**
+     * Suffix of the file containing the DDL rendered with the
+     * {@link #PLACEHOLDER}.
+     */
+    static final String TEMPLATE_FILE_SUFFIX = ".tenant-template.sql";
+
+    /**
+     * Suffix of the file containing the scripts for all tenants.
+     */
+    static final String COMBINED_FILE_SUFFIX = ".tenants.sql";
+
+    /**
+     * Name of the directory (in the directory of the dialect) containing
+     * one script per tenant.
+     */
+    static final String TENANT_DIRECTORY = "tenants";
+
+    /**
+     * Prefix of the comment starting the script of a tenant in the combined
+     * script.
+     */
+    static final String TENANT_MARKER = "-- tenant ";
+
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile(
+        "(?<![\\w$])" + Pattern.quote(PLACEHOLDER) + "(?![\\w$])");
+    private static final Pattern PLAIN_IDENTIFIER = Pattern.compile(
+        "[A-Za-z_][A-Za-z0-9_]*");
+    private static final Pattern INVALID_NAME = Pattern.compile(
+        ".*[,/\\\\:*?\"<>|\\p{Cntrl}].*|\\s.*|.*\\s|\\.+",
+        Pattern.DOTALL);
+
+    /**
+     * Words which are reserved in SQL and in most databases. The keywords
+     * registered by the Hibernate dialect are checked too.
+     */
+    private static final Set<String> RESERVED_WORDS = new HashSet<>(
+        Arrays.asList("all", "alter", "and", "any", "as", "between", "by",
+                      "case", "check", "column", "constraint", "create",
+                      "cross", "default", "delete", "distinct", "drop",
+                      "else", "end", "exists", "for", "foreign", "from",
+                      "full", "grant", "group", "having", "in", "index",
+                      "inner", "insert", "into", "is", "join", "key", "left",
+                      "like", "not", "null", "of", "on", "or", "order",
+                      "outer", "primary", "references", "right", "schema",
+                      "select", "set", "table", "then", "to", "union",
+                      "unique", "update", "user", "using", "values", "when",
+                      "where", "with"));
+
+    private final transient List<String> parts;
+    private final transient int length;
+
+    private TenantTemplate(final List<String> parts) {
+        this.parts = parts;
+        int partsLength = 0;
+        for (final String part : parts) {
+            partsLength += part.length();
+        }
+        this.length = partsLength;
+    }
+
+    /**
+     * Splits a script rendered with the {@link #PLACEHOLDER} as default
+     * schema at the placeholders.
+     *
+     * @param script The script.
+     *
+     * @return The template.
+     */
+    static TenantTemplate parse(final String script) {
+        final List<String> parts = new ArrayList<>();
+        final Matcher matcher = PLACEHOLDER_PATTERN.matcher(script);
+        int start = 0;
+        while (matcher.find()) {
+            parts.add(script.substring(start, matcher.start()));
+            start = matcher.end();
+        }
+        parts.add(script.substring(start));
+        return new TenantTemplate(parts);
+    }
+
+    /**
+     * Checks if a string can be used as name of a tenant schema. The names
+     * are also used as file names and are passed as comma separated lists,
+     * therefore they may not contain commas, characters which are not
+     * allowed in file names or control characters and may not start or end
+     * with whitespace.
+     *
+     * @param name The name to check.
+     *
+     * @return {@code true} if the name is valid.
+     */
+    static boolean isValidName(final String name) {
+        return name != null
+                   && !name.isEmpty()
+                   && !PLACEHOLDER.equalsIgnoreCase(name)
+                   && !INVALID_NAME.matcher(name).matches();
+    }
+
+    /**
+     * Quotes the name of a schema if necessary. The name is quoted if it is
+     * not a plain identifier (letters, digits and underscores, not starting
+     * with a digit) or if it is a reserved word. Closing quotes in the name
+     * are doubled.
+     *
+     * @param name    The name of the schema.
+     * @param dialect The Hibernate dialect providing the quotes.
+     *
+     * @return The name to use in the statements.
+     */
+    static String quote(final String name,
+                        final org.hibernate.dialect.Dialect dialect) {
+        final String lowerCase = name.toLowerCase(Locale.ROOT);
+        if (PLAIN_IDENTIFIER.matcher(name).matches()
+                && !RESERVED_WORDS.contains(lowerCase)
+                && !containsIgnoreCase(dialect.getKeywords(), lowerCase)) {
+            return name;
+        }
+        final String closeQuote = String.valueOf(dialect.closeQuote());
+        return dialect.openQuote()
+                   + name.replace(closeQuote, closeQuote + closeQuote)
+                   + dialect.closeQuote();
+    }
+
+    private static boolean containsIgnoreCase(final Set<String> words,
+                                              final String lowerCase) {
+        for (final String word : words) {
+            if (word.toLowerCase(Locale.ROOT).equals(lowerCase)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of placeholders in the script.
+     */
+    int getPlaceholderCount() {
+        return parts.size() - 1;
+    }
+
+    /**
+     * Renders the script for a tenant.
+     *
+     * @param schema The name of the schema of the tenant, already quoted
+     *               using {@link #quote(String, org.hibernate.dialect.Dialect)}.
+     *
+     * @return The script for the tenant.
+     */
+    String render(final String schema) {
+        final StringBuilder builder = new StringBuilder(
+            length + getPlaceholderCount() * schema.length());
+        appendTo(builder, schema);
+        return builder.toString();
+    }
+
+    /**
+     * Renders the script for a tenant into a builder, used for the combined
+     * script of all tenants.
+     *
+     * @param builder The builder.
+     * @param schema  The name of the schema of the tenant, already quoted.
+     */
+    void appendTo(final StringBuilder builder, final String schema) {
+        boolean first = true;
+        for (final String part : parts) {
+            if (!first) {
+                builder.append(schema);
+            }
+            builder.append(part);
+            first = false;
+        }
+    }
+
+    /**
+     * @return The approximate length of a rendered script, used to size the
+     *         buffers.
+     */
+    int getLength() {
+        return length;
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.hibernate.engine.jdbc.internal.FormatStyle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A reduced variant of the schema for tests using an embedded database (H2
+ * or HSQLDB). Most tests don't depend on foreign keys, check constraints or
+ * secondary indexes, but creating them takes most of the time needed to
+ * create the schema. The test profile leaves them out and creates the
+ * tables as memory tables. Primary keys, unique constraints and unique
+ * indexes are kept because they affect the behaviour of the application
+ * (for example duplicate key errors).
+ *
+ * If the {@code testProfileDialects} option of the {@code gen-ddl} goal
+ * contains a dialect the test profile is written to
+ * {@code <dialect>.test.sql} next to the complete script.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class TestProfile {
+
+    /**
+     * Suffix of the files containing the test profile.
+     */
+    static final String FILE_SUFFIX = ".test.sql";
+
+    private static final Pattern FOREIGN_KEY = Pattern.compile(
+        "alter table \\S+ add constraint (\\S+) foreign key .*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CHECK_CONSTRAINT = Pattern.compile(
+        "alter table \\S+ add (constraint \\S+ )?check\\b.*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "create index .*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "create table (.*)",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CREATE_MEMORY_TABLE = Pattern.compile(
+        "create memory table (.*)",
+        Pattern.DOTALL);
+    private static final Pattern DROP_CONSTRAINT = Pattern.compile(
+        "alter table \\S+ drop constraint (if exists )?(\\S+).*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern COLUMN_CHECK = Pattern.compile(
+        "\\scheck\\s*\\(",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_CHECK = Pattern.compile(
+        "(constraint \\S+ )?check\\s*\\(.*",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final transient List<String> dropStatements;
+    private final transient List<String> createStatements;
+    private final transient int foreignKeyCount;
+    private final transient int checkConstraintCount;
+    private final transient int indexCount;
+
+    private TestProfile(final List<String> dropStatements,
+                        final List<String> createStatements,
+                        final int foreignKeyCount,
+                        final int checkConstraintCount,
+                        final int indexCount) {
+        this.dropStatements = dropStatements;
+        this.createStatements = createStatements;
+        this.foreignKeyCount = foreignKeyCount;
+        this.checkConstraintCount = checkConstraintCount;
+        this.indexCount = indexCount;
+    }
+
+    /**
+     * Checks if the test profile is supported for a dialect.
+     *
+     * @param dialect The dialect.
+     *
+     * @return {@code true} for the H2 and HSQLDB dialects.
+     */
+    static boolean isSupported(final Dialect dialect) {
+        return dialect == Dialect.H2 || dialect == Dialect.HSQL;
+    }
+
+    /**
+     * Creates the test profile from the statements of the complete script.
+     *
+     * @param dropStatements   The drop statements, may be empty.
+     * @param createStatements The create statements.
+     *
+     * @return The test profile.
+     */
+    static TestProfile create(final List<String> dropStatements,
+                              final List<String> createStatements) {
+        final Set<String> foreignKeys = new HashSet<>();
+        int checkConstraints = 0;
+        int indexes = 0;
+
+        final List<String> creates = new ArrayList<>();
+        for (final String statement : createStatements) {
+            final String trimmed = statement.trim();
+            final Matcher foreignKey = FOREIGN_KEY.matcher(trimmed);
+            if (foreignKey.matches()) {
+                foreignKeys.add(foreignKey.group(1).toLowerCase(
+                    Locale.ROOT));
+                continue;
+            }
+            if (CHECK_CONSTRAINT.matcher(trimmed).matches()) {
+                checkConstraints++;
+                continue;
+            }
+            if (CREATE_INDEX.matcher(trimmed).matches()) {
+                indexes++;
+                continue;
+            }
+            final Matcher createTable = CREATE_TABLE.matcher(trimmed);
+            if (createTable.matches()) {
+                final StringBuilder builder = new StringBuilder(
+                    "create memory table ");
+                checkConstraints += removeChecks(createTable.group(1),
+                                                 builder);
+                creates.add(builder.toString());
+                continue;
+            }
+            creates.add(statement);
+        }
+
+        final List<String> drops = new ArrayList<>();
+        for (final String statement : dropStatements) {
+            final Matcher dropConstraint = DROP_CONSTRAINT.matcher(
+                statement.trim());
+            if (dropConstraint.matches() && foreignKeys.contains(
+                dropConstraint.group(2).toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            drops.add(statement);
+        }
+
+        return new TestProfile(drops,
+                               creates,
+                               foreignKeys.size(),
+                               checkConstraints,
+                               indexes);
+    }
+
+    /**
+     * Removes the column and table check constraints from the definition of
+     * a table (everything after {@code create table}) and appends the
+     * result to the builder.
+     *
+     * @return The number of removed check constraints.
+     */
+    private static int removeChecks(final String definition,
+                                    final StringBuilder builder) {
+        final int start = definition.indexOf('(');
+        final int end = ColumnAlignmentRewriter.findClosingParenthesis(
+            definition, start);
+        if (start < 0 || end < 0) {
+            builder.append(definition);
+            return 0;
+        }
+
+        int removed = 0;
+        final List<String> elements = new ArrayList<>();
+        for (final String element : ColumnAlignmentRewriter.splitTopLevel(
+            definition.substring(start + 1, end))) {
+            if (TABLE_CHECK.matcher(element).matches()) {
+                removed++;
+                continue;
+            }
+            String result = element;
+            Matcher check = COLUMN_CHECK.matcher(result);
+            while (check.find()) {
+                final int close = ColumnAlignmentRewriter
+                    .findClosingParenthesis(result, check.end() - 1);
+                if (close < 0) {
+                    break;
+                }
+                result = result.substring(0, check.start())
+                             + result.substring(close + 1);
+                removed++;
+                check = COLUMN_CHECK.matcher(result);
+            }
+            elements.add(result);
+        }
+
+        builder.append(definition.substring(0, start + 1));
+        boolean first = true;
+        for (final String element : elements) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(element);
+            first = false;
+        }
+        builder.append(definition.substring(end));
+        return removed;
+    }
+
+    /**
+     * @return The drop statements of the test profile.
+     */
+    List<String> getDropStatements() {
+        return Collections.unmodifiableList(dropStatements);
+    }
+
+    /**
+     * @return The create statements of the test profile.
+     */
+    List<String> getCreateStatements() {
+        return Collections.unmodifiableList(createStatements);
+    }
+
+    /**
+     * @return The number of foreign keys left out.
+     */
+    int getForeignKeyCount() {
+        return foreignKeyCount;
+    }
+
+    /**
+     * @return The number of check constraints left out.
+     */
+    int getCheckConstraintCount() {
+        return checkConstraintCount;
+    }
+
+    /**
+     * @return The number of (non unique) indexes left out.
+     */
+    int getIndexCount() {
+        return indexCount;
+    }
+
+    /**
+     * @return The drop and create statements of the test profile, formatted
+     *         like the complete script.
+     */
+    String toScript() {
+        final StringBuilder builder = new StringBuilder();
+        for (final String statement : dropStatements) {
+            builder
+                .append(FormatStyle.DDL.getFormatter().format(statement))
+                .append(";\n");
+        }
+        for (final String statement : createStatements) {
+            //The formatter of Hibernate only formats create table statements
+            //starting with "create table".
+            final Matcher memoryTable = CREATE_MEMORY_TABLE.matcher(
+                statement);
+            if (memoryTable.matches()) {
+                builder
+                    .append(FormatStyle.DDL.getFormatter().format(
+                        "create table " + memoryTable.group(1))
+                        .replaceFirst("create table", "create memory table"))
+                    .append(";\n");
+            } else {
+                builder
+                    .append(FormatStyle.DDL.getFormatter().format(statement))
+                    .append(";\n");
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the {@link TestProfile} of a dialect to the file
+ * {@code <dialect>.test.sql}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class TestProfileWriter implements OutputWriter {
+
+    @Override
+    public boolean isEnabled(final OutputContext context) {
+        return context.getOptions().getTestProfileDialects().contains(
+            context.getDialect());
+    }
+
+    @Override
+    public long write(final OutputContext context)
+        throws DdlGenerationException {
+        final DdlConfiguration configuration = context.getConfiguration();
+        final List<String> dropStatements;
+        if (context.getOptions().isCreateDropStatements()) {
+            dropStatements = configuration.getDropStatements();
+        } else {
+            dropStatements = new ArrayList<>();
+        }
+        final TestProfile profile = TestProfile.create(
+            dropStatements, configuration.getCreateStatements());
+        context.getLog().info(String.format(
+            "Test profile for dialect %s leaves out %d foreign keys, %d check "
+                + "constraints and %d indexes.",
+            context.getDialect(),
+            profile.getForeignKeyCount(),
+            profile.getCheckConstraintCount(),
+            profile.getIndexCount()));
+
+        try {
+            return OutputContext.writeIfChanged(
+                context.getOutputFile(TestProfile.FILE_SUFFIX),
+                profile.toScript());
+        } catch (IOException ex) {
+            throw new DdlGenerationException(
+                String.format("Failed to write test profile: %s",
+                              ex.getMessage()),
+                ex);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Goal which watches the classes directory of the project and regenerates
+ * the DDL files when entity classes are recompiled, for example by the IDE.
+ * The goal runs until it is stopped using Ctrl+C. The JVM, Hibernate and the
+ * other libraries stay loaded between the regenerations, therefore the DDL
+ * files are updated much faster than by a new Maven run. The goal uses the
+ * same parameters as the {@code gen-ddl} goal (see {@link AbstractDdlMojo})
+ * and therefore writes the same files, only the parameters for the report,
+ * the budgets and the forked JVM are not available.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Mojo(name = "watch",
+      requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME,
+      threadSafe = true)
+public class WatchDdlMojo extends AbstractDdlMojo {
+
+    /**
+     * The directory to watch for changed class files.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}",
+               property = "classesDirectory",
+               required = true)
+    private File classesDirectory;
+
+    /**
+     * Time in milliseconds to wait for further changes after a class file
+     * has changed. All changes within this window cause only one
+     * regeneration.
+     */
+    @Parameter(defaultValue = "300",
+               property = "debounceMillis",
+               required = false)
+    private long debounceMillis = 300;
+
+    /**
+     * The Mojo's execute method. Returns when the thread is interrupted.
+     *
+     * @throws MojoExecutionException if the Mojo can't be executed.
+     * @throws MojoFailureException   if the classes directory can't be
+     *                                watched.
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        final GenerationLog log = new MavenGenerationLog(getLog());
+        final DdlGenerator generator = new DdlGenerator(log,
+                                                        createOptions());
+        generator.setPrintStatements(false);
+
+        final List<String> classPathElems = new ArrayList<>(
+            getClassPathElements(getProject()));
+        if (!classPathElems.contains(classesDirectory.getAbsolutePath())) {
+            classPathElems.add(0, classesDirectory.getAbsolutePath());
+        }
+
+        try {
+            new DdlWatcher(generator,
+                           classPathElems,
+                           classesDirectory.toPath(),
+                           debounceMillis,
+                           log).watch();
+        } catch (DdlGenerationException ex) {
+            throw new MojoFailureException(ex.getMessage(), ex);
+        }
+    }
+
+    public File getClassesDirectory() {
+        return classesDirectory;
+    }
+
+    public void setClassesDirectory(final File classesDirectory) {
+        this.classesDirectory = classesDirectory;
+    }
+
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    public void setDebounceMillis(final long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+}
@@ -0,0 +1,85 @@
+#!/bin/sh
+#
+# Copyright (C) 2016 Jens Pelzetter
+#
+# This program is free software: you can redistribute it and/or modify
+# it under the terms of the GNU General Public License as published by
+# the Free Software Foundation, either version 3 of the License, or
+# (at your option) any later version.
+#
+# This program is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+# GNU General Public License for more details.
+#
+# You should have received a copy of the GNU General Public License
+# along with this program.  If not, see <http://www.gnu.org/licenses/>.
+#
+
+# Creates an application class data sharing (AppCDS) archive for the command
+# line interface of the plugin (the jar with the classifier "cli"). The
+# archive contains the classes loaded by a training run, including the
+# classes of Hibernate needed for the bootstrap, which reduces the startup
+# time of further runs.
+#
+# Usage:
+#
+#   create-cds-archive.sh <cli jar> <archive> <arguments for the training run>
+#
+# Example:
+#
+#   create-cds-archive.sh hibernate4-ddl-maven-plugin-1.0.0-cli.jar \
+#       hibernate4-ddl.jsa \
+#       --classpath target/classes --packages org.example.entities \
+#       --dialects postgresql9 --output target/cds-training
+#
+# Use the archive with the same jar (the path must not change):
+#
+#   java -XX:SharedArchiveFile=hibernate4-ddl.jsa -jar <cli jar> [options]
+#
+# Java 13 and newer create the archive at the end of the training run
+# (-XX:ArchiveClassesAtExit). For Java 10 to 12 the list of loaded classes
+# is dumped first and the archive is created from this list. Java 10 only
+# archives the application classes with -XX:+UseAppCDS, which is therefore
+# added to the training run, the dump and the runs using the archive if the
+# JVM knows the flag (Java 11 and newer enable AppCDS by default).
+
+set -e
+
+APP_CDS=
+
+if [ $# -lt 3 ]; then
+    echo "Usage: $0 <cli jar> <archive> <arguments for the training run>" >&2
+    exit 2
+fi
+
+CLI_JAR=$1
+ARCHIVE=$2
+shift 2
+
+if [ -n "$JAVA_HOME" ]; then
+    JAVA="$JAVA_HOME/bin/java"
+else
+    JAVA=java
+fi
+
+if "$JAVA" -XX:+PrintFlagsFinal -version 2>/dev/null \
+        | grep -q ArchiveClassesAtExit; then
+    "$JAVA" -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$CLI_JAR" "$@"
+else
+    if "$JAVA" -XX:+PrintFlagsFinal -version 2>/dev/null \
+            | grep -qw UseAppCDS; then
+        APP_CDS=-XX:+UseAppCDS
+    fi
+    CLASS_LIST="$ARCHIVE.classlist"
+    "$JAVA" $APP_CDS -XX:DumpLoadedClassList="$CLASS_LIST" \
+            -jar "$CLI_JAR" "$@"
+    "$JAVA" $APP_CDS -Xshare:dump \
+            -XX:SharedClassListFile="$CLASS_LIST" \
+            -XX:SharedArchiveFile="$ARCHIVE" \
+            -cp "$CLI_JAR"
+    rm -f "$CLASS_LIST"
+fi
+
+echo "Created $ARCHIVE. Use it with:" >&2
+echo "  $JAVA ${APP_CDS:+$APP_CDS }-XX:SharedArchiveFile=$ARCHIVE -jar $CLI_JAR [options]" >&2
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.ApplyDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@code apply} goal using an in-memory H2 database.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class ApplyDdlMojoTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/apply";
+
+    private Path outputDir;
+    private File reportFile;
+    private String url;
+    private ApplyDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException,
+                               MojoExecutionException,
+                               MojoFailureException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+        reportFile = new File(TEST_DIR, "apply.txt");
+        url = String.format("jdbc:h2:mem:apply%d;DB_CLOSE_DELAY=-1",
+                            System.nanoTime());
+
+        final GenerateDdlMojo generateMojo = new GenerateDdlMojo();
+        generateMojo.setOutputDirectory(outputDir.toFile());
+        generateMojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities3",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities5");
+        generateMojo.setDialects("h2");
+        generateMojo.setCreateDropStatements(true);
+        generateMojo.setWriteLayers(true);
+        generateMojo.setReportFile(new File(TEST_DIR, "report.json"));
+        generateMojo.execute();
+
+        mojo = new ApplyDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setDialect("h2");
+        mojo.setJdbcUrl(url);
+        mojo.setJdbcUser("sa");
+        mojo.setJdbcPassword("");
+        mojo.setReportFile(reportFile);
+    }
+
+    /**
+     * Executes the layers concurrently with batches and checks that the
+     * schema has been created and that the report contains the timings.
+     *
+     * @throws IOException            if the report can't be read.
+     * @throws SQLException           if the database can't be queried.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void applyLayers() throws IOException,
+                                     SQLException,
+                                     MojoExecutionException,
+                                     MojoFailureException {
+        mojo.setThreads(4);
+        mojo.execute();
+
+        assertThat(queryNames("select table_name "
+                                  + "from information_schema.tables "
+                                  + "where table_schema = 'PUBLIC'"),
+                   hasItems("AUTHORS", "BOOKS", "BOOK_TAGS", "CUSTOMERS",
+                            "ORDERS", "ORDER_LINES", "REVIEWS", "TAGS"));
+        assertThat(queryNames(
+            "select constraint_name "
+                + "from information_schema.constraints "
+                + "where constraint_type = 'REFERENTIAL'").size(),
+                   is(7));
+
+        final List<String> report = Files.readAllLines(
+            reportFile.toPath(), StandardCharsets.UTF_8);
+        assertThat(report.get(0), startsWith("total\t"));
+        //The largest layer contains three tables.
+        assertThat(report.get(0), containsString("\t3 connections\t"));
+        final Set<String> units = new TreeSet<>();
+        for (final String line : report.subList(1, report.size())) {
+            final String[] fields = line.split("\t");
+            assertThat(fields.length, is(5));
+            units.add(fields[1]);
+        }
+        assertThat(units, hasItems("drop statements", "authors", "books",
+                                   "customers", "tags"));
+
+    }
+
+    /**
+     * Executes the DDL file using one connection without batches and checks
+     * that each statement is measured separately.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws SQLException           if the database can't be queried.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void applySequential() throws IOException,
+                                         SQLException,
+                                         MojoExecutionException,
+                                         MojoFailureException {
+        mojo.setThreads(1);
+        mojo.setBatchSize(1);
+        mojo.execute();
+
+        assertThat(queryNames("select index_name "
+                                  + "from information_schema.indexes "
+                                  + "where table_name = 'ORDERS'"),
+                   hasItem("IDX_ORDERS_ORDER_DATE"));
+
+        final String script = new String(Files.readAllBytes(outputDir.resolve(
+            "h2.sql")), StandardCharsets.UTF_8);
+        int statements = 0;
+        for (final String line : script.split("\n")) {
+            if (line.trim().endsWith(";")) {
+                statements++;
+            }
+        }
+        final List<String> report = Files.readAllLines(
+            reportFile.toPath(), StandardCharsets.UTF_8);
+        assertThat(report.get(0), startsWith(String.format(
+                   "total\t%d statements\t%d executions\t1 connections\t",
+                   statements,
+                   statements)));
+        assertThat(report.size(), is(statements + 1));
+    }
+
+    /**
+     * Checks that a failing statement fails the goal and that the message
+     * contains the statement.
+     *
+     * @throws IOException            if the script can't be written.
+     * @throws MojoExecutionException if the goal fails.
+     */
+    @Test
+    public void failingStatement() throws IOException,
+                                          MojoExecutionException {
+        final Path script = Paths.get(TEST_DIR, "broken.sql");
+        Files.write(script,
+                    ("create table a (id bigint not null, primary key (id));\n"
+                         + "create table b (id bigint,\n"
+                         + "    a_id bigint references missing);\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        mojo.setScript(script.toFile());
+        try {
+            mojo.execute();
+            fail("Expected a MojoFailureException.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), containsString(
+                       "Statement: create table b (id bigint, a_id bigint "
+                           + "references missing)"));
+        }
+
+        mojo.setScript(null);
+        mojo.setDialect("postgresql9");
+        try {
+            mojo.execute();
+            fail("Expected a MojoFailureException.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), containsString(
+                       "Run the gen-ddl goal before the apply goal."));
+        }
+    }
+
+    /**
+     * Checks that a layer file which is older than the DDL file is not used.
+     *
+     * @throws IOException            if the report can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void staleLayerFile() throws IOException,
+                                        MojoExecutionException,
+                                        MojoFailureException {
+        final File ddlFile = outputDir.resolve("h2.sql").toFile();
+        assertTrue(outputDir.resolve("h2.layers.sql").toFile().setLastModified(
+            ddlFile.lastModified() - 60000));
+
+        mojo.setThreads(4);
+        mojo.execute();
+
+        final List<String> report = Files.readAllLines(
+            reportFile.toPath(), StandardCharsets.UTF_8);
+        assertThat(report.get(0), containsString("\t1 connections\t"));
+        assertThat(report.get(1), containsString("\th2.sql\t"));
+    }
+
+    /**
+     * Checks that a statement which can't be executed in a transaction block
+     * is not added to a batch. H2 executes the remaining statements of a
+     * batch after a failed statement, therefore the statement after the
+     * failing {@code create index concurrently} would be executed if the
+     * statements were batched.
+     *
+     * @throws IOException            if the script can't be written.
+     * @throws SQLException           if the database can't be queried.
+     * @throws MojoExecutionException if the goal fails.
+     */
+    @Test
+    public void nonTransactionalStatement() throws IOException,
+                                                   SQLException,
+                                                   MojoExecutionException {
+        final Path script = Paths.get(TEST_DIR, "online.sql");
+        Files.write(script,
+                    ("create table a (id bigint not null, primary key (id));\n"
+                         + "create index concurrently idx_a_id\n"
+                         + "    on a (id);\n"
+                         + "create table b (id bigint not null);\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        mojo.setScript(script.toFile());
+        mojo.setBatchSize(50);
+        try {
+            mojo.execute();
+            fail("Expected a MojoFailureException.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), containsString(
+                       "Statement: create index concurrently idx_a_id"));
+        }
+
+        final Set<String> tables = queryNames(
+            "select table_name from information_schema.tables "
+                + "where table_schema = 'PUBLIC'");
+        assertThat(tables, hasItem("A"));
+        assertThat(tables, not(hasItem("B")));
+    }
+
+    private Set<String> queryNames(final String query) throws SQLException {
+        final Set<String> names = new TreeSet<>();
+        try (Connection connection = DriverManager.getConnection(url,
+                                                                 "sa",
+                                                                 "");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            while (resultSet.next()) {
+                names.add(resultSet.getString(1));
+            }
+        }
+        return names;
+    }
+
+}
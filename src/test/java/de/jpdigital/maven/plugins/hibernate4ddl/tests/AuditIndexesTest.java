@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the indexes created for the audit tables of Envers.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class AuditIndexesTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/auditindexes";
+
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "create index (\\S+) on (\\S+) \\((.*?)\\)");
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities");
+        mojo.setDialects("postgresql9", "oracle10g");
+        mojo.setUseEnvers(true);
+        mojo.setAuditTableIndexes(true);
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks the indexes for the validity audit strategy. The index for the
+     * id and the revision is covered by the primary key. The names of the
+     * revision columns are taken from the {@code persistence.xml}, the name
+     * of the index for the revision end timestamp is too long and is
+     * replaced by a generated name.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void validityAuditStrategy() throws IOException,
+                                               MojoExecutionException,
+                                               MojoFailureException {
+        mojo.setPersistenceXml(new File(
+            "src/test/resources/test-persistence-validity.xml"));
+        mojo.execute();
+
+        final Map<String, String> postgresql = readIndexes("postgresql9");
+        assertThat(postgresql.size(), is(2));
+        assertThat(postgresql, hasEntry("IDX_reports_revisions_rev_end",
+                                        "reports_revisions(reportId, rev_end)"));
+        assertThat(postgresql.values(),
+                   hasItem("reports_revisions(rev_end_timestamp)"));
+        for (final String name : postgresql.keySet()) {
+            assertThat(name, startsWith("IDX_"));
+            assertThat(name.length(), is(lessThanOrEqualTo(30)));
+        }
+
+        assertThat(readIndexes("oracle10g"), is(equalTo(postgresql)));
+
+        TestFiles.deleteDirectory(outputDir);
+        mojo.execute();
+        assertThat(readIndexes("postgresql9"), is(equalTo(postgresql)));
+    }
+
+    /**
+     * Checks that no indexes are added for the default audit strategy,
+     * because the primary key of the audit tables covers the id and the
+     * revision.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void defaultAuditStrategy() throws IOException,
+                                              MojoExecutionException,
+                                              MojoFailureException {
+        mojo.setPersistenceXml(new File(
+            "src/test/resources/test-persistence.xml"));
+        mojo.execute();
+
+        assertThat(readIndexes("postgresql9").isEmpty(), is(true));
+        assertThat(read("postgresql9"),
+                   containsString("primary key (reportId, rev)"));
+    }
+
+    /**
+     * Checks that no indexes are created if the option is not enabled.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void disabled() throws IOException,
+                                  MojoExecutionException,
+                                  MojoFailureException {
+        mojo.setPersistenceXml(new File(
+            "src/test/resources/test-persistence-validity.xml"));
+        mojo.setAuditTableIndexes(false);
+        mojo.execute();
+
+        assertThat(readIndexes("postgresql9").isEmpty(), is(true));
+        assertThat(read("postgresql9"), containsString("rev_end"));
+    }
+
+    private String read(final String dialect) throws IOException {
+        return new String(Files.readAllBytes(outputDir.resolve(
+            String.format("%s.sql", dialect))), StandardCharsets.UTF_8)
+            .replaceAll("\\s+", " ")
+            .replace("( ", "(")
+            .replace(" )", ")");
+    }
+
+    private Map<String, String> readIndexes(final String dialect)
+        throws IOException {
+        final Map<String, String> indexes = new TreeMap<>();
+        final Matcher matcher = CREATE_INDEX.matcher(read(dialect));
+        while (matcher.find()) {
+            indexes.put(matcher.group(1),
+                        String.format("%s(%s)",
+                                      matcher.group(2),
+                                      matcher.group(3)));
+        }
+        return indexes;
+    }
+
+}
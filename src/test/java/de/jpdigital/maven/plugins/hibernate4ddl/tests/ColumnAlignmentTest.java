@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for reordering the columns for PostgreSQL.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class ColumnAlignmentTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/alignment";
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities5",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities8");
+        mojo.setDialects("postgresql9", "mysql5");
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks the order of the columns and the report.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void alignColumns() throws IOException,
+                                      MojoExecutionException,
+                                      MojoFailureException {
+        mojo.setAlignColumns(true);
+        mojo.setSplitPhases(true);
+        mojo.execute();
+
+        final String reordered = "create table measurements (\n"
+                                     + "        measurement_id int8 not null,\n"
+                                     + "        amount float8 not null,\n"
+                                     + "        created_on timestamp,\n"
+                                     + "        sample_count int4 not null,\n"
+                                     + "        level int2 not null,\n"
+                                     + "        active boolean not null,\n"
+                                     + "        label varchar(20),\n"
+                                     + "        primary key (measurement_id)\n"
+                                     + "    );";
+        assertThat(read("postgresql9.sql"), containsString(reordered));
+        assertThat(read("postgresql9/02-tables.sql"),
+                   containsString(reordered));
+        //The primary key stays in front of the other columns.
+        assertThat(read("postgresql9.sql"), containsString(
+                   "create table reviews (\n"
+                       + "        review_id int8 not null,\n"
+                       + "        created_on timestamp,\n"
+                       + "        book_id int8 not null,\n"
+                       + "        reviewer_id int8,\n"));
+
+        final String report = read("postgresql9.column-order.txt");
+        assertThat(report, startsWith(
+                   "Estimated bytes per row (without header) before and "
+                       + "after reordering the columns of 6 tables. 8 bytes "
+                       + "saved in total."));
+        assertThat(report.replaceAll(" +", " "), allOf(
+                   containsString("measurements 56 48 8\n"),
+                   containsString("authors 144 144 0\n")));
+
+        //Only the columns for PostgreSQL are reordered.
+        assertThat(read("mysql5.sql"), containsString(
+                   "create table measurements (\n"
+                       + "        measurement_id bigint not null "
+                       + "auto_increment,\n"
+                       + "        active bit not null,\n"));
+        assertThat(Files.exists(outputDir.resolve("mysql5.column-order.txt")),
+                   is(false));
+    }
+
+    /**
+     * Checks that the columns are kept in the order of the mapping if the
+     * option is not set.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void mappingOrder() throws IOException,
+                                      MojoExecutionException,
+                                      MojoFailureException {
+        mojo.execute();
+
+        assertThat(read("postgresql9.sql"), containsString(
+                   "create table measurements (\n"
+                       + "        measurement_id int8 not null,\n"
+                       + "        active boolean not null,\n"));
+        assertThat(Files.exists(outputDir.resolve(
+            "postgresql9.column-order.txt")), is(false));
+    }
+
+    private String read(final String fileName) throws IOException {
+        return new String(Files.readAllBytes(outputDir.resolve(fileName)),
+                          StandardCharsets.UTF_8);
+    }
+
+}
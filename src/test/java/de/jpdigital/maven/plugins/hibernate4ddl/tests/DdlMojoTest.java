@@ -16,16 +16,23 @@
  */
 package de.jpdigital.maven.plugins.hibernate4ddl.tests;
 
+import de.jpdigital.maven.plugins.hibernate4ddl.DdlOptions;
 import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -438,18 +445,61 @@ public class DdlMojoTest {
     }
 
     /**
-     * Check if the DDL files are generated and have the expected content, but
-     * this time with Envers enabled.
+     * Checks that the properties from the {@code persistence.xml} are set on
+     * the configuration by {@code DdlGenerator#processPersistenceXml}.
+     *
+     * @throws ReflectiveOperationException if the generator can't be
+     *                                      created or invoked.
+     */
+    @Test
+    public void generateDdlWithProperties()
+        throws ReflectiveOperationException {
+        final DdlOptions options = new DdlOptions();
+        options.setPersistenceXml(new File(TEST_PERSISTENCE_XML));
+
+        final Class<?> logClass = Class.forName(
+            "de.jpdigital.maven.plugins.hibernate4ddl.StreamGenerationLog");
+        final Constructor<?> logConstructor = logClass.getDeclaredConstructor(
+            PrintStream.class);
+        logConstructor.setAccessible(true);
+        final Class<?> generatorClass = Class.forName(
+            "de.jpdigital.maven.plugins.hibernate4ddl.DdlGenerator");
+        final Constructor<?> generatorConstructor = generatorClass
+            .getDeclaredConstructor(Class.forName(
+                "de.jpdigital.maven.plugins.hibernate4ddl.GenerationLog"),
+                                    DdlOptions.class);
+        generatorConstructor.setAccessible(true);
+        final Object generator = generatorConstructor.newInstance(
+            logConstructor.newInstance(System.err), options);
+
+        final Configuration configuration = new Configuration();
+        final Method processMethod = generatorClass.getDeclaredMethod(
+            "processPersistenceXml", Configuration.class);
+        processMethod.setAccessible(true);
+        processMethod.invoke(generator, configuration);
+
+        assertThat(configuration.getProperty(
+            "org.hibernate.envers.audit_table_suffix"),
+                   is(equalTo("_audit")));
+        assertThat(configuration.getProperty(
+            "org.hibernate.envers.revision_type_field_name"),
+                   is(equalTo("rev_type")));
+    }
+
+    /**
+     * Checks if the JSON report with the measurements of the phases is
+     * written.
      *
-     * @throws NoSuchMethodException     if something went wrong...
-     * @throws IllegalAccessException    if something went wrong...
-     * @throws InvocationTargetException if something went wrong...
+     * @throws MojoExecutionException if something wants wrong when executing
+     *                                the Mojo.
+     * @throws MojoFailureException   if something wants wrong when executing
+     *                                the Mojo.
+     * @throws IOException            if the report can't be read.
      */
     @Test
-    public void generateDdlWithProperties() throws NoSuchMethodException,
-                                                   IllegalAccessException,
-                                                   IllegalArgumentException,
-                                                   InvocationTargetException {
+    public void generateReport() throws MojoExecutionException,
+                                        MojoFailureException,
+                                        IOException {
         mojo.setOutputDirectory(new File(TEST_DIR));
 
         final String[] packages = new String[]{
@@ -465,24 +515,183 @@ public class DdlMojoTest {
         };
         mojo.setDialects(dialects);
 
-        mojo.setPersistenceXml(new File(TEST_PERSISTENCE_XML));
-        assertThat(mojo.getPersistenceXml(), is(notNullValue()));
+        final String reportPath = String.format("%s/report.json", TEST_DIR);
+        mojo.setReportFile(new File(reportPath));
 
-        final Configuration configuration = new Configuration();
-        final Method processMethod = mojo.getClass().getDeclaredMethod(
-            "processPersistenceXml", Configuration.class
-        );
-        processMethod.setAccessible(true);
+        mojo.execute();
 
-        processMethod.invoke(mojo, configuration);
+        assertTrue("Report file was not generated.", fileExists(reportPath));
+
+        final String report = new String(
+            Files.readAllBytes(Paths.get(reportPath)), StandardCharsets.UTF_8);
+        assertThat(report, containsString("\"entities\": 3"));
+        for (final String phase : new String[]{"classpath",
+                                               "scan",
+                                               "binding",
+                                               "export",
+                                               "write"}) {
+            assertThat(report,
+                       containsString(String.format("\"phase\": \"%s\"",
+                                                    phase)));
+        }
+        for (final String dialect : dialects) {
+            assertThat(report,
+                       containsString(String.format(
+                           "\"dialect\": \"%s\"",
+                           dialect.toLowerCase(Locale.ENGLISH))));
+        }
+    }
 
-        assertThat(configuration.getProperty(
-            "org.hibernate.envers.audit_table_suffix"),
-                   is(equalTo("_audit")));
-        assertThat(configuration.getProperty(
-            "org.hibernate.envers.revision_type_field_name"),
-                   is(equalTo("rev_type")));
+    /**
+     * Checks that an exceeded budget is listed in the report but does not
+     * fail the build if {@code budgetAction} is not set.
+     *
+     * @throws MojoExecutionException if something wants wrong when executing
+     *                                the Mojo.
+     * @throws MojoFailureException   if something wants wrong when executing
+     *                                the Mojo.
+     * @throws IOException            if the report can't be read.
+     */
+    @Test
+    public void budgetExceededWarns() throws MojoExecutionException,
+                                             MojoFailureException,
+                                             IOException {
+        mojo.setOutputDirectory(new File(TEST_DIR));
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities2");
+        mojo.setDialects("hsql");
+
+        final String reportPath = String.format("%s/report.json", TEST_DIR);
+        mojo.setReportFile(new File(reportPath));
+        mojo.setMaxWallTimePerDialect(0L);
+
+        mojo.execute();
+
+        final String report = new String(
+            Files.readAllBytes(Paths.get(reportPath)), StandardCharsets.UTF_8);
+        assertThat(report,
+                   containsString("\"budget\": \"maxWallTimePerDialect\""));
+        assertThat(report, containsString("\"dialect\": \"hsql\""));
+        assertThat(report, containsString("\"largestPhase\": "));
+    }
+
+    /**
+     * Checks that an invalid {@code budgetAction} fails the build before the
+     * DDL files are generated.
+     *
+     * @throws MojoExecutionException if something wants wrong when executing
+     *                                the Mojo.
+     */
+    @Test
+    public void invalidBudgetAction() throws MojoExecutionException {
+        final File outputDir = new File(TEST_DIR, "invalidBudgetAction");
+        mojo.setOutputDirectory(outputDir);
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities");
+        mojo.setDialects("hsql");
+        mojo.setBudgetAction("abort");
+
+        try {
+            mojo.execute();
+            fail("Expected a MojoFailureException.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(),
+                       containsString("Invalid budgetAction 'abort'"));
+        }
+        assertThat(new File(outputDir, "hsql.sql").exists(), is(false));
+    }
+
+    /**
+     * Checks that the build fails if a budget is exceeded and
+     * {@code budgetAction} is set to {@code fail}.
+     *
+     * @throws MojoExecutionException if something wants wrong when executing
+     *                                the Mojo.
+     * @throws MojoFailureException   expected.
+     */
+    @Test(expected = MojoFailureException.class)
+    public void budgetExceededFails() throws MojoExecutionException,
+                                             MojoFailureException {
+        mojo.setOutputDirectory(new File(TEST_DIR));
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities2");
+        mojo.setDialects("hsql");
+        mojo.setMaxWallTimePerDialect(0L);
+        mojo.setBudgetAction("fail");
+
+        mojo.execute();
+    }
+
+    /**
+     * Checks if the DDL files are generated in a forked JVM and if the forked
+     * JVM is reused by a second execution.
+     *
+     * @throws MojoExecutionException if something wants wrong when executing
+     *                                the Mojo.
+     * @throws MojoFailureException   if something wants wrong when executing
+     *                                the Mojo.
+     * @throws IOException            if the report can't be read.
+     */
+    @Test
+    public void generateDdlForked() throws MojoExecutionException,
+                                           MojoFailureException,
+                                           IOException {
+        final String[] dialects = new String[]{
+            "hsql",
+            "POSTGRESQL9"
+        };
+        final String reportPath = String.format("%s/report.json", TEST_DIR);
+        final Pattern jvmPattern = Pattern.compile("\"jvm\": \"([^\"]+)\"");
+        final List<String> jvms = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            mojo = new GenerateDdlMojo();
+            mojo.setOutputDirectory(new File(TEST_DIR));
+            mojo.setPackages(
+                "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities",
+                "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities2");
+            mojo.setDialects(dialects);
+            mojo.setReportFile(new File(reportPath));
+            mojo.setFork(true);
+            mojo.setJvmArgs(" -Xmx256m  -XX:+UseSerialGC ");
+
+            mojo.execute();
+
+            for (final String dialect : dialects) {
+                final String path = String.format(
+                    "%s/%s.sql", TEST_DIR, dialect.toLowerCase(Locale.ENGLISH));
+                assertTrue(String.format("DDL file '%s' was not generated.",
+                                         path),
+                           fileExists(path));
+                assertTrue(String.format(
+                    "DDL file '%s' does not contain 'create table' statement "
+                        + "for persons entity",
+                    path),
+                           fileContainsPersonEntity(path));
+            }
+
+            final String report = new String(
+                Files.readAllBytes(Paths.get(reportPath)),
+                StandardCharsets.UTF_8);
+            assertThat(report, containsString("\"entities\": 3"));
+            assertThat(report, containsString("\"phase\": \"export\""));
+            assertThat(report, containsString("\"dialect\": \"hsql\""));
+
+            final Matcher jvmMatcher = jvmPattern.matcher(report);
+            assertTrue("The report does not contain the JVM.",
+                       jvmMatcher.find());
+            jvms.add(jvmMatcher.group(1));
+        }
 
+        assertThat("The generation was not executed in a forked JVM.",
+                   jvms.get(0),
+                   not(equalTo(ManagementFactory.getRuntimeMXBean()
+                       .getName())));
+        assertThat("The forked JVM was not reused.",
+                   jvms.get(1),
+                   is(equalTo(jvms.get(0))));
     }
 
     /**
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.DiffDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the schema snapshots and the {@link DiffDdlMojo}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class DiffDdlMojoTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/diff";
+
+    private static final String[] DIALECTS = new String[]{
+        "hsql", "mysql5", "postgresql9"};
+
+    private Path currentDir;
+    private Path previousDir;
+    private Path diffDir;
+
+    @Before
+    public void setUp() throws IOException, MojoExecutionException,
+                               MojoFailureException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        currentDir = Paths.get(TEST_DIR, "current");
+        previousDir = Paths.get(TEST_DIR, "previous");
+        diffDir = Paths.get(TEST_DIR, "migration");
+
+        final GenerateDdlMojo mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(currentDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities2");
+        mojo.setDialects(DIALECTS);
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+        mojo.execute();
+    }
+
+    /**
+     * Checks that a snapshot is written for each dialect and that the
+     * snapshot contains the tables and columns.
+     *
+     * @throws IOException if the snapshot can't be read.
+     */
+    @Test
+    public void writeSnapshots() throws IOException {
+        for (final String dialect : DIALECTS) {
+            final Path snapshot = currentDir.resolve(dialect + ".snapshot");
+            assertTrue(String.format("Snapshot %s does not exist.", snapshot),
+                       Files.isRegularFile(snapshot));
+            final List<String> lines = Files.readAllLines(
+                snapshot, StandardCharsets.UTF_8);
+            assertThat(lines.get(0),
+                       is(equalTo("hibernate4-ddl-snapshot\t1\t" + dialect)));
+            assertThat(lines, hasItem(startsWith("table\tpersons\t")));
+            assertThat(lines, hasItem(startsWith("table\tcompanies\t")));
+            assertThat(lines, hasItem(startsWith("column\tgiven_name\t")));
+        }
+    }
+
+    /**
+     * Compares the current snapshots with modified snapshots and checks the
+     * migration statements.
+     *
+     * @throws IOException            if the snapshots can't be read or
+     *                                written.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void diff() throws IOException,
+                              MojoExecutionException,
+                              MojoFailureException {
+        writePreviousSnapshots();
+
+        createDiffMojo(false).execute();
+
+        for (final String dialect : DIALECTS) {
+            final String script = readScript(dialect);
+            assertThat(script, containsString("create table companies"));
+            assertThat(script,
+                       containsString("alter table persons add column "
+                                          + "given_name varchar(255)"));
+            assertThat(script, containsString("-- drop table old_table;"));
+            assertThat(script,
+                       not(containsString("drop table persons")));
+            assertThat(script,
+                       not(containsString("create table persons")));
+        }
+        assertThat(readScript("postgresql9"),
+                   containsString("alter table persons alter column surname "
+                                      + "type varchar(255)"));
+        assertThat(readScript("postgresql9"),
+                   containsString("create sequence hibernate_sequence"));
+        assertThat(readScript("mysql5"),
+                   containsString("alter table persons modify column surname "
+                                      + "varchar(255) null"));
+        assertThat(readScript("hsql"),
+                   containsString("alter table persons alter column surname "
+                                      + "set data type varchar(255)"));
+    }
+
+    /**
+     * Checks that the statements dropping tables are only emitted if
+     * destructive changes are allowed.
+     *
+     * @throws IOException            if the snapshots can't be read or
+     *                                written.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void diffDestructive() throws IOException,
+                                         MojoExecutionException,
+                                         MojoFailureException {
+        writePreviousSnapshots();
+
+        createDiffMojo(true).execute();
+
+        for (final String dialect : DIALECTS) {
+            final String script = readScript(dialect);
+            assertThat(script, containsString("drop table old_table;"));
+            assertThat(script, not(containsString("-- drop table old_table")));
+        }
+    }
+
+    /**
+     * Checks that the migration script is empty if the schema has not
+     * changed.
+     *
+     * @throws IOException            if the script can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void diffUnchanged() throws IOException,
+                                       MojoExecutionException,
+                                       MojoFailureException {
+        final DiffDdlMojo mojo = createDiffMojo(false);
+        mojo.setPreviousSnapshotDirectory(currentDir.toFile());
+        mojo.execute();
+
+        for (final String dialect : DIALECTS) {
+            assertThat(readScript(dialect), is(equalTo("")));
+        }
+    }
+
+    private DiffDdlMojo createDiffMojo(final boolean allowDestructiveChanges) {
+        final DiffDdlMojo mojo = new DiffDdlMojo();
+        mojo.setOutputDirectory(currentDir.toFile());
+        mojo.setDialects(DIALECTS);
+        mojo.setPreviousSnapshotDirectory(previousDir.toFile());
+        mojo.setDiffOutputDirectory(diffDir.toFile());
+        mojo.setAllowDestructiveChanges(allowDestructiveChanges);
+        return mojo;
+    }
+
+    /**
+     * Creates the snapshots of a "previous" schema from the current
+     * snapshots: The column {@code given_name}, the table {@code companies}
+     * and all sequences are removed, the type of the column {@code surname}
+     * is changed and a table {@code old_table} is added.
+     */
+    private void writePreviousSnapshots() throws IOException {
+        Files.createDirectories(previousDir);
+        for (final String dialect : DIALECTS) {
+            final List<String> lines = Files.readAllLines(
+                currentDir.resolve(dialect + ".snapshot"),
+                StandardCharsets.UTF_8);
+            final List<String> previous = new ArrayList<>();
+            boolean skip = false;
+            for (final String line : lines) {
+                if (line.startsWith("table\t") || line.startsWith(
+                    "generator\t")) {
+                    skip = line.startsWith("table\tcompanies\t")
+                               || line.startsWith("generator\t");
+                }
+                if (skip || line.startsWith("column\tgiven_name\t")) {
+                    continue;
+                }
+                if (line.startsWith("column\tsurname\t")) {
+                    final String[] fields = line.split("\t", -1);
+                    fields[2] = "varchar(100)";
+                    previous.add(join(fields));
+                } else {
+                    previous.add(line);
+                }
+            }
+            previous.add("table\told_table\tcreate table old_table "
+                             + "(id integer)\tdrop table old_table");
+            previous.add("column\tid\tinteger\tfalse\t");
+            Files.write(previousDir.resolve(dialect + ".snapshot"),
+                        previous,
+                        StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads a migration script and normalises the whitespace.
+     */
+    private String readScript(final String dialect) throws IOException {
+        final String script = new String(
+            Files.readAllBytes(diffDir.resolve(dialect + ".sql")),
+            StandardCharsets.UTF_8);
+        return script.replaceAll("[ \\t\\n]+", " ").trim();
+    }
+
+    private static String join(final String[] fields) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String field : fields) {
+            if (builder.length() > 0) {
+                builder.append('\t');
+            }
+            builder.append(field);
+        }
+        return builder.toString();
+    }
+
+}
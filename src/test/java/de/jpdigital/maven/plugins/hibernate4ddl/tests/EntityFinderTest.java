@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaGenerator;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.entities.Person;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.entities.Report;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for scanning packages for entities. The scan uses the package
+ * filter of the {@code EntityFinder}, which is reached through the
+ * {@link SchemaGenerator}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class EntityFinderTest {
+
+    private static final String PACKAGE
+                                    = "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities";
+
+    /**
+     * Checks that only the entities of the scanned package are found, not
+     * the entities of the other packages in the same classpath element and
+     * not the entities of packages whose names start with the name of the
+     * scanned package ({@code entities2}, {@code entities10}).
+     */
+    @Test
+    public void scanOnlyPackage() {
+        final Set<Class<?>> entityClasses = SchemaGenerator
+            .forPackages(getClass().getClassLoader(), PACKAGE)
+            .getEntityClasses();
+
+        assertThat(entityClasses,
+                   containsInAnyOrder(new Class<?>[]{Person.class,
+                                                     Report.class}));
+        for (final Class<?> entityClass : entityClasses) {
+            assertThat(entityClass.getPackage().getName(),
+                       is(equalTo(PACKAGE)));
+        }
+    }
+
+}
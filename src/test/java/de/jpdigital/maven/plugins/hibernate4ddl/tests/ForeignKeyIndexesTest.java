@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the indexes created for the foreign keys.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class ForeignKeyIndexesTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/fkindexes";
+
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "create index (\\S+) on (\\S+) \\((.*?)\\)");
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities5");
+        mojo.setDialects("postgresql9", "oracle10g");
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks that indexes are only created for the foreign keys which are
+     * not covered by the primary key, a unique key or an index, and that
+     * the names of the indexes don't depend on the dialect or the run.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void foreignKeyIndexes() throws IOException,
+                                           MojoExecutionException,
+                                           MojoFailureException {
+        mojo.setForeignKeyIndexes(true);
+        mojo.execute();
+
+        final Map<String, String> postgresql = readIndexes("postgresql9");
+        assertThat(postgresql.size(), is(3));
+        assertThat(postgresql.values(), containsInAnyOrder(
+                   "reviews(book_id, created_on)",
+                   "books(author_id)",
+                   "book_tags(tag_id)"));
+        for (final Map.Entry<String, String> index : postgresql.entrySet()) {
+            if (!index.getKey().equals("idx_reviews_book_created")) {
+                assertThat(index.getKey(), startsWith("IDX_"));
+            }
+        }
+
+        assertThat(readIndexes("oracle10g"), is(equalTo(postgresql)));
+
+        TestFiles.deleteDirectory(outputDir);
+        mojo.execute();
+        assertThat(readIndexes("postgresql9"), is(equalTo(postgresql)));
+    }
+
+    /**
+     * Checks that no indexes are created for the foreign keys of excluded
+     * entities and tables.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void foreignKeyIndexExcludes() throws IOException,
+                                                 MojoExecutionException,
+                                                 MojoFailureException {
+        mojo.setForeignKeyIndexes(true);
+        mojo.setForeignKeyIndexExcludes("Book");
+        mojo.execute();
+        assertThat(readIndexes("postgresql9").values(),
+                   contains("reviews(book_id, created_on)"));
+
+        mojo.setForeignKeyIndexExcludes(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities5.Book");
+        mojo.execute();
+        assertThat(readIndexes("postgresql9").values(),
+                   contains("reviews(book_id, created_on)"));
+
+        mojo.setForeignKeyIndexExcludes("book_tags");
+        mojo.execute();
+        assertThat(readIndexes("postgresql9").values(),
+                   containsInAnyOrder("reviews(book_id, created_on)",
+                                      "books(author_id)"));
+    }
+
+    /**
+     * Checks that no indexes are created if the option is not enabled.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void noForeignKeyIndexes() throws IOException,
+                                             MojoExecutionException,
+                                             MojoFailureException {
+        mojo.execute();
+        assertThat(readIndexes("postgresql9").values(),
+                   contains("reviews(book_id, created_on)"));
+    }
+
+    /**
+     * Reads the indexes from the DDL file of a dialect.
+     *
+     * @return The names of the indexes mapped to the table and the columns.
+     */
+    private Map<String, String> readIndexes(final String dialect)
+        throws IOException {
+        final String sql = new String(
+            Files.readAllBytes(outputDir.resolve(dialect + ".sql")),
+            StandardCharsets.UTF_8).replaceAll("\\s+", " ");
+        final Map<String, String> indexes = new TreeMap<>();
+        final Matcher matcher = CREATE_INDEX.matcher(sql);
+        while (matcher.find()) {
+            indexes.put(matcher.group(1), String.format(
+                        "%s(%s)", matcher.group(2), matcher.group(3)));
+        }
+        return indexes;
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlCli;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.EntityModelGenerator;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.GeneratedEntityModel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the command line interface {@link GenerateDdlCli}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class GenerateDdlCliTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/cli";
+
+    private ClassLoader contextClassLoader;
+
+    @Before
+    public void setUp() {
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+
+    /**
+     * Generates the DDL files for a model which is only available on the
+     * classpath passed to the CLI.
+     *
+     * @throws IOException if the model can't be generated or the DDL files
+     *                     can't be read.
+     */
+    @Test
+    public void generateDdl() throws IOException {
+        final EntityModelGenerator generator = new EntityModelGenerator();
+        generator.setPackageName(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.synthetic.cli");
+        generator.setEntityCount(10);
+
+        try (GeneratedEntityModel model = generator.generate()) {
+            final String reportPath = String.format("%s/report.json",
+                                                    TEST_DIR);
+            final int exitCode = GenerateDdlCli.run(
+                "--classpath", model.getClassesDirectory().toString(),
+                "--packages", model.getPackageName(),
+                "--dialects", "hsql,postgresql9",
+                "--output", TEST_DIR,
+                "--report", reportPath);
+
+            assertThat(exitCode, is(GenerateDdlCli.EXIT_OK));
+            assertThat("The CLI has changed the context class loader.",
+                       Thread.currentThread().getContextClassLoader(),
+                       is(sameInstance(contextClassLoader)));
+            for (final String dialect : new String[]{"hsql", "postgresql9"}) {
+                final Path path = Paths.get(String.format("%s/%s.sql",
+                                                          TEST_DIR,
+                                                          dialect));
+                assertTrue(String.format("DDL file '%s' was not generated.",
+                                         path),
+                           Files.exists(path));
+                assertThat(new String(Files.readAllBytes(path),
+                                      StandardCharsets.UTF_8),
+                           containsString("synthetic_entity00009"));
+            }
+            assertThat(new String(Files.readAllBytes(Paths.get(reportPath)),
+                                  StandardCharsets.UTF_8),
+                       containsString("\"entities\": 10"));
+        }
+    }
+
+    /**
+     * Checks that invalid arguments are reported with the exit code
+     * {@link GenerateDdlCli#EXIT_USAGE}.
+     */
+    @Test
+    public void invalidArguments() {
+        assertThat(GenerateDdlCli.run("--packages", "org.example",
+                                      "--dialects", "foo"),
+                   is(GenerateDdlCli.EXIT_USAGE));
+        assertThat(GenerateDdlCli.run("--dialects", "hsql"),
+                   is(GenerateDdlCli.EXIT_USAGE));
+        assertThat(GenerateDdlCli.run("--packages"),
+                   is(GenerateDdlCli.EXIT_USAGE));
+        assertThat(GenerateDdlCli.run("--unknown"),
+                   is(GenerateDdlCli.EXIT_USAGE));
+        assertThat(GenerateDdlCli.run("--help"),
+                   is(GenerateDdlCli.EXIT_OK));
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the audit of the id generators and the options of the
+ * sequences.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class IdGeneratorsTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/idgenerators";
+
+    private static final String PACKAGE
+                                    = "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities7";
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(PACKAGE);
+        mojo.setDialects("postgresql9", "db2", "h2");
+        mojo.setAuditIdGenerators(true);
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks the report of the id generators for the legacy generators
+     * used by Hibernate by default.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void auditIdGenerators() throws IOException,
+                                           MojoExecutionException,
+                                           MojoFailureException {
+        mojo.execute();
+
+        final String report = read("postgresql9.id-generators.txt");
+        assertThat(report, startsWith(
+                   "ID generators of 5 entities: 1 identity, 3 sequence, "
+                       + "1 table, 0 assigned, 0 other."));
+        assertThat(entry(report, "Invoice"), allOf(
+                   containsString("Strategy:  IDENTITY"),
+                   containsString("disables JDBC insert batching")));
+        assertThat(entry(report, "Payment"), allOf(
+                   containsString("Strategy:  TABLE"),
+                   containsString("Generator: id_generators, 20 id(s) per "
+                                      + "round trip"),
+                   containsString("the row is locked")));
+        assertThat(entry(report, "Shipment"), allOf(
+                   containsString("Strategy:  SEQUENCE"),
+                   containsString("Generator: shipment_seq, 50 id(s) per "
+                                      + "round trip"),
+                   not(containsString("Warning"))));
+        assertThat(entry(report, "Parcel"), allOf(
+                   containsString("Generator: hibernate_sequence, 1 id(s) "
+                                      + "per round trip"),
+                   containsString("Each insert needs a round trip"),
+                   containsString("shared by 2 entities")));
+        assertThat(entry(report, "Carrier"),
+                   containsString("shared by 2 entities"));
+
+        //H2 uses an identity column for native ids.
+        assertThat(read("h2.id-generators.txt"), startsWith(
+                   "ID generators of 5 entities: 3 identity, 1 sequence, "
+                       + "1 table, 0 assigned, 0 other."));
+        assertThat(read("postgresql9.sql"),
+                   not(containsString("cache")));
+    }
+
+    /**
+     * Checks the {@code cache} and {@code noorder} clauses and the increment
+     * of the sequences if the enhanced generators are used.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void sequenceOptions() throws IOException,
+                                         MojoExecutionException,
+                                         MojoFailureException {
+        mojo.setPersistenceXml(new File(
+            "src/test/resources/test-persistence.xml"));
+        mojo.setSequenceCache(100);
+        mojo.setSequenceNoOrder(true);
+        mojo.setSplitPhases(true);
+        mojo.execute();
+
+        assertThat(read("postgresql9.sql"), allOf(
+                   containsString("create sequence shipment_seq start 1 "
+                                      + "increment 50 cache 100;"),
+                   containsString("create sequence hibernate_sequence start "
+                                      + "1 increment 1 cache 100;")));
+        assertThat(read("db2.sql"), containsString(
+                   "create sequence shipment_seq start with 1 increment by 50 "
+                       + "cache 100 no order;"));
+        assertThat(read("h2.sql"), containsString(
+                   "create sequence shipment_seq start with 1 increment by 50 "
+                       + "cache 100;"));
+        assertThat(read("postgresql9/01-schema.sql"), containsString(
+                   "create sequence shipment_seq start 1 increment 50 "
+                       + "cache 100;"));
+
+        final String report = read("postgresql9.id-generators.txt");
+        assertThat(entry(report, "Shipment"), allOf(
+                   containsString("org.hibernate.id.enhanced"
+                                      + ".SequenceStyleGenerator"),
+                   containsString("Generator: shipment_seq, 50 id(s) per "
+                                      + "round trip")));
+    }
+
+    /**
+     * Checks that a negative cache is rejected.
+     *
+     * @throws MojoExecutionException if the goal fails.
+     */
+    @Test(expected = MojoFailureException.class)
+    public void negativeSequenceCache() throws MojoExecutionException,
+                                               MojoFailureException {
+        mojo.setSequenceCache(-1);
+        mojo.execute();
+    }
+
+    /**
+     * Extracts the entry of an entity from the report.
+     */
+    private static String entry(final String report, final String entity) {
+        final int start = report.indexOf(PACKAGE + "." + entity + " ");
+        assertThat(start, is(greaterThanOrEqualTo(0)));
+        final int end = report.indexOf(String.format("%n%n"), start);
+        if (end < 0) {
+            return report.substring(start);
+        } else {
+            return report.substring(start, end);
+        }
+    }
+
+    private String read(final String fileName) throws IOException {
+        return new String(Files.readAllBytes(outputDir.resolve(fileName)),
+                          StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the indexes suggested for the named queries.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class IndexSuggestionsTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/suggestions";
+
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+        "-- (.*?)\\s+create index (\\S+) on (\\S+) \\((.*?)\\);");
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities5");
+        mojo.setDialects("postgresql9");
+        mojo.setSuggestIndexes(true);
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks the suggested indexes and the queries they serve.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void suggestIndexes() throws IOException,
+                                        MojoExecutionException,
+                                        MojoFailureException {
+        mojo.execute();
+
+        assertThat(readSuggestions("postgresql9"), containsInAnyOrder(
+                   "authors(name): Book.findByAuthorName, "
+                       + "Review.countByReviewerName",
+                   "book_tags(tag_id): Book.findByTag",
+                   "books(author_id, title): Book.findByAuthor, "
+                       + "Book.findByAuthorName",
+                   "tags(name): Book.findByTag"));
+
+        final String report = read("postgresql9.index-suggestions.txt");
+        assertThat(report,
+                   startsWith("4 indexes suggested for 8 named queries."));
+        assertThat(report, containsString(
+                   "Review.findByRating: Unknown property rating"));
+        assertThat(report, containsString("Review.invalid: "));
+
+        //The suggestions are not part of the DDL
+        assertThat(read("postgresql9.sql"),
+                   not(containsString("author_id, title")));
+    }
+
+    /**
+     * Checks that no index is suggested for foreign keys which are already
+     * indexed and that the online DDL rewriting is applied to the suggested
+     * indexes but not to the DDL file.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void suggestIndexesWithForeignKeyIndexes()
+        throws IOException, MojoExecutionException, MojoFailureException {
+        mojo.setForeignKeyIndexes(true);
+        mojo.setOnlineDdlDialects("postgresql9");
+        mojo.execute();
+
+        final String script = read("postgresql9.index-suggestions.sql");
+        assertThat(script, not(containsString("(tag_id)")));
+        assertThat(script, containsString(
+                   "create index concurrently"));
+        assertThat(read("postgresql9.index-suggestions.txt"),
+                   startsWith("3 indexes suggested for 8 named queries."));
+        assertThat(read("postgresql9.sql"),
+                   not(containsString("concurrently")));
+    }
+
+    private String read(final String fileName) throws IOException {
+        return new String(Files.readAllBytes(outputDir.resolve(fileName)),
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the suggestions from the script of a dialect.
+     *
+     * @return The suggestions formatted as
+     *         {@code table(columns): queries}.
+     */
+    private List<String> readSuggestions(final String dialect)
+        throws IOException {
+        final String script = read(dialect + ".index-suggestions.sql")
+            .replaceAll("[ \\t\\x0B\\f\\r]+", " ");
+        final List<String> suggestions = new ArrayList<>();
+        final Matcher matcher = CREATE_INDEX.matcher(script);
+        while (matcher.find()) {
+            assertThat(matcher.group(2), startsWith("IDX_"));
+            suggestions.add(String.format("%s(%s): %s",
+                                          matcher.group(3),
+                                          matcher.group(4),
+                                          matcher.group(1)));
+        }
+        return suggestions;
+    }
+
+}
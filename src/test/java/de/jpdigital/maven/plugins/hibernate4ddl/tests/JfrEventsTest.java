@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link GenerateDdlMojo} emits Java Flight Recorder events
+ * for the phases of the generation. The test is skipped if the JVM does not
+ * support JFR. Like the plugin the test is compiled for Java 7, therefore the
+ * {@code jdk.jfr} API is accessed using reflection.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class JfrEventsTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/jfr";
+
+    private static final String[] EVENTS = new String[]{
+        "de.jpdigital.hibernate4ddl.Classpath",
+        "de.jpdigital.hibernate4ddl.Scan",
+        "de.jpdigital.hibernate4ddl.Binding",
+        "de.jpdigital.hibernate4ddl.Render",
+        "de.jpdigital.hibernate4ddl.Write"
+    };
+
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("JFR is not available.", isJfrAvailable());
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(new File(TEST_DIR));
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities2");
+        mojo.setDialects("h2", "postgresql9");
+        mojo.setCreateDropStatements(true);
+    }
+
+    /**
+     * Records the execution of the Mojo and checks the events.
+     *
+     * @throws Exception if something wants wrong when executing the Mojo or
+     *                   if the recording can't be written or read.
+     */
+    @Test
+    public void phasesEmitEvents() throws Exception {
+        final Path recordingFile = Files.createTempFile("hibernate4-ddl",
+                                                        ".jfr");
+        final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        final Object recording = recordingClass.getDeclaredConstructor()
+            .newInstance();
+        try {
+            final Method enable = recordingClass.getMethod("enable",
+                                                           String.class);
+            for (final String event : EVENTS) {
+                enable.invoke(recording, event);
+            }
+            recordingClass.getMethod("start").invoke(recording);
+            mojo.execute();
+            recordingClass.getMethod("stop").invoke(recording);
+            recordingClass.getMethod("dump", Path.class)
+                .invoke(recording, recordingFile);
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+        }
+
+        final List<?> events = (List<?>) Class
+            .forName("jdk.jfr.consumer.RecordingFile")
+            .getMethod("readAllEvents", Path.class)
+            .invoke(null, recordingFile);
+        Files.deleteIfExists(recordingFile);
+
+        final List<String> names = new ArrayList<>();
+        for (final Object event : events) {
+            final Object eventType = invoke(event, "getEventType");
+            final String name = (String) invoke(eventType, "getName");
+            names.add(name);
+
+            switch (name) {
+                case "de.jpdigital.hibernate4ddl.Scan":
+                    assertThat(invoke(event, "getInt", "entityCount"),
+                               is((Object) 3));
+                    break;
+                case "de.jpdigital.hibernate4ddl.Render":
+                    assertThat(invoke(event, "getString", "dialect"),
+                               isOneOf((Object) "h2", "postgresql9"));
+                    assertThat((Integer) invoke(event,
+                                                "getInt",
+                                                "statementCount"),
+                               greaterThan(0));
+                    break;
+                case "de.jpdigital.hibernate4ddl.Write":
+                    assertThat(invoke(event, "getString", "dialect"),
+                               isOneOf((Object) "h2", "postgresql9"));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        for (final String event : EVENTS) {
+            assertThat(names, hasItem(event));
+        }
+    }
+
+    private static Object invoke(final Object target,
+                                 final String method,
+                                 final String... args) throws Exception {
+        final Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = String.class;
+        }
+        return target.getClass().getMethod(method, types).invoke(target,
+                                                                (Object[]) args);
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Recording");
+            return true;
+        } catch (ClassNotFoundException ex) {
+            return false;
+        }
+    }
+
+}
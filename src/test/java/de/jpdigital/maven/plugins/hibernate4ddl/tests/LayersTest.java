@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.EntityModelGenerator;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.GeneratedEntityModel;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the scripts ordered into dependency layers.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class LayersTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/layers";
+
+    private static final Pattern FOREIGN_KEY = Pattern.compile(
+        "alter table (\\S+) add constraint \\S+ foreign key \\(.*?\\) "
+            + "references (\\S+).*");
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+    private ClassLoader contextClassLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setWriteLayers(true);
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+
+    /**
+     * Checks that the tables are placed after the tables they reference.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void layers() throws IOException,
+                                MojoExecutionException,
+                                MojoFailureException {
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities3");
+        mojo.setDialects("postgresql9");
+        mojo.execute();
+
+        final List<List<Unit>> layers = readLayers("postgresql9");
+        final Map<String, Integer> layerOfUnit = layerOfUnit(layers);
+        assertThat(layers.size(), is(3));
+        assertThat(layerOfUnit.get("customers"), is(0));
+        assertThat(layerOfUnit.get("hibernate_sequence"), is(0));
+        assertThat(layerOfUnit.get("orders"), is(1));
+        assertThat(layerOfUnit.get("order_lines"), is(2));
+
+        checkStatements("postgresql9", layers);
+    }
+
+    /**
+     * Checks that the foreign keys of tables referencing each other are
+     * deferred to the last layer.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void layersWithCycle() throws IOException,
+                                         MojoExecutionException,
+                                         MojoFailureException {
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities4");
+        mojo.setDialects("hsql");
+        mojo.execute();
+
+        final List<List<Unit>> layers = readLayers("hsql");
+        assertThat(layers.size(), is(2));
+        final List<String> tables = new ArrayList<>();
+        for (final Unit unit : layers.get(0)) {
+            tables.add(unit.name);
+            for (final String statement : unit.statements) {
+                assertThat(statement, not(containsString("foreign key")));
+            }
+        }
+        assertThat(tables, hasItems("departments", "employees"));
+
+        final List<String> foreignKeys = new ArrayList<>();
+        for (final Unit unit : layers.get(1)) {
+            for (final String statement : unit.statements) {
+                final Matcher matcher = FOREIGN_KEY.matcher(statement);
+                assertThat(matcher.matches(), is(true));
+                foreignKeys.add(matcher.group(1) + "->" + matcher.group(2));
+            }
+        }
+        assertThat(foreignKeys, containsInAnyOrder(
+                   "departments->employees", "employees->departments"));
+
+        checkStatements("hsql", layers);
+    }
+
+    /**
+     * Checks the layers for a larger synthetic model.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void layersForSyntheticModel() throws IOException,
+                                                 MojoExecutionException,
+                                                 MojoFailureException {
+        final EntityModelGenerator generator = new EntityModelGenerator();
+        generator.setPackageName(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.synthetic.layers");
+        generator.setEntityCount(60);
+        generator.setRelationshipDensity(0.8);
+
+        final String[] dialects = new String[]{"hsql", "postgresql9"};
+        try (GeneratedEntityModel model = generator.generate()) {
+            Thread.currentThread().setContextClassLoader(
+                model.getClassLoader());
+            mojo.setPackages(model.getPackageName());
+            mojo.setDialects(dialects);
+            mojo.execute();
+        }
+
+        for (final String dialect : dialects) {
+            final List<List<Unit>> layers = readLayers(dialect);
+            final Map<String, Integer> layerOfUnit = layerOfUnit(layers);
+            assertThat(layers.size(), is(greaterThan(2)));
+
+            for (int i = 0; i < layers.size(); i++) {
+                for (final Unit unit : layers.get(i)) {
+                    for (final String statement : unit.statements) {
+                        final Matcher matcher = FOREIGN_KEY.matcher(
+                            statement);
+                        if (!matcher.matches()
+                                || matcher.group(1).equals(matcher.group(2))
+                                || i == layers.size() - 1) {
+                            continue;
+                        }
+                        assertThat(String.format(
+                            "Table %s is not created before the foreign key "
+                                + "'%s' in layer %d.",
+                            matcher.group(2),
+                            statement,
+                            i),
+                                   layerOfUnit.get(matcher.group(2)),
+                                   is(lessThan(i)));
+                    }
+                }
+            }
+
+            checkStatements(dialect, layers);
+        }
+    }
+
+    /**
+     * Checks that the layers contain the same statements as the DDL file.
+     */
+    private void checkStatements(final String dialect,
+                                 final List<List<Unit>> layers)
+        throws IOException {
+        final List<String> layerStatements = new ArrayList<>();
+        for (final List<Unit> layer : layers) {
+            for (final Unit unit : layer) {
+                layerStatements.addAll(unit.statements);
+            }
+        }
+        final List<String> statements = new ArrayList<>();
+        for (final String statement : new String(
+            Files.readAllBytes(outputDir.resolve(dialect + ".sql")),
+            StandardCharsets.UTF_8).split(";")) {
+            final String normalised = normalise(statement);
+            if (!normalised.isEmpty()) {
+                statements.add(normalised);
+            }
+        }
+        Collections.sort(layerStatements);
+        Collections.sort(statements);
+        assertThat(layerStatements, is(equalTo(statements)));
+    }
+
+    private Map<String, Integer> layerOfUnit(final List<List<Unit>> layers) {
+        final Map<String, Integer> result = new HashMap<>();
+        for (int i = 0; i < layers.size(); i++) {
+            for (final Unit unit : layers.get(i)) {
+                if (!result.containsKey(unit.name)) {
+                    result.put(unit.name, i);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<List<Unit>> readLayers(final String dialect)
+        throws IOException {
+        final List<List<Unit>> layers = new ArrayList<>();
+        Unit unit = null;
+        final StringBuilder statement = new StringBuilder();
+        for (final String line : Files.readAllLines(
+            outputDir.resolve(dialect + ".layers.sql"),
+            StandardCharsets.UTF_8)) {
+            if (line.startsWith("-- layer ")) {
+                layers.add(new ArrayList<Unit>());
+            } else if (line.startsWith("-- unit ")) {
+                unit = new Unit(line.substring("-- unit ".length()));
+                layers.get(layers.size() - 1).add(unit);
+            } else {
+                statement.append(line).append(' ');
+                if (line.endsWith(";")) {
+                    final String text = statement.toString();
+                    unit.statements.add(normalise(text.substring(
+                        0, text.lastIndexOf(';'))));
+                    statement.setLength(0);
+                }
+            }
+        }
+        return layers;
+    }
+
+    private static String normalise(final String statement) {
+        return statement.replaceAll("\\s+", " ").trim();
+    }
+
+    private static final class Unit {
+
+        private final String name;
+        private final List<String> statements = new ArrayList<>();
+
+        Unit(final String name) {
+            this.name = name;
+        }
+
+    }
+
+}
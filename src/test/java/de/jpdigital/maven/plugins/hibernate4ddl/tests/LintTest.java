@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the mapping linter.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class LintTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/lint";
+
+    private static final String PACKAGE
+                                    = "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities6";
+
+    private static final Pattern ISSUE = Pattern.compile(
+        "\\{\"rule\": \"([^\"]*)\", \"severity\": \"([^\"]*)\", "
+            + "\"entity\": \"([^\"]*)\", \"property\": (?:\"([^\"]*)\"|null)");
+
+    private Path reportDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        reportDir = Paths.get(TEST_DIR, "lint");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(new File(TEST_DIR, "auto"));
+        mojo.setPackages(PACKAGE);
+        mojo.setDialects("hsql", "postgresql9");
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+        mojo.setLint(true);
+        mojo.setLintReportDirectory(reportDir.toFile());
+    }
+
+    /**
+     * Checks the issues reported by the built-in rules and by the rule
+     * registered as service, and the reports.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void lint() throws IOException,
+                              MojoExecutionException,
+                              MojoFailureException {
+        mojo.execute();
+
+        assertThat(readIssues(), contains(
+                   "warning deep-joined-inheritance BluRay",
+                   "warning list-without-order-column Library.members",
+                   "warning missing-mapped-by Library.members",
+                   "warning eager-to-many Library.shelves",
+                   "warning eager-lob Shelf.notes",
+                   "info missing-version Item",
+                   "info missing-version Library",
+                   "info missing-version Member",
+                   "info missing-version Shelf"));
+
+        final String html = new String(
+            Files.readAllBytes(reportDir.resolve("lint-report.html")),
+            StandardCharsets.UTF_8);
+        assertThat(html, containsString(
+                   "Mapping lint: 0 error(s), 5 warning(s), 4 info(s)."));
+        assertThat(html, containsString("<td>missing-version</td>"));
+    }
+
+    /**
+     * Checks that the build fails if there are issues with the configured
+     * severity or higher.
+     *
+     * @throws MojoExecutionException if the goal fails.
+     */
+    @Test
+    public void failOnWarning() throws MojoExecutionException {
+        mojo.setLintFailOn("warning");
+        try {
+            mojo.execute();
+            fail("Expected the lint to fail the build.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), is(equalTo(
+                       "5 mapping issue(s) with severity warning or "
+                           + "higher.")));
+        }
+        assertThat(Files.exists(reportDir.resolve("lint-report.json")),
+                   is(true));
+    }
+
+    /**
+     * Checks that the severities of the rules can be changed and that
+     * rules can be disabled.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void severities() throws IOException,
+                                    MojoExecutionException,
+                                    MojoFailureException {
+        final Map<String, String> severities = new HashMap<>();
+        severities.put("eager-lob", "error");
+        mojo.setLintSeverities(severities);
+        try {
+            mojo.execute();
+            fail("Expected the lint to fail the build.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), is(equalTo(
+                       "1 mapping issue(s) with severity error or higher.")));
+        }
+        assertThat(readIssues().get(0), is(equalTo(
+                   "error eager-lob Shelf.notes")));
+
+        severities.put("eager-lob", "off");
+        severities.put("eager-to-many", "off");
+        severities.put("list-without-order-column", "off");
+        severities.put("missing-mapped-by", "off");
+        severities.put("deep-joined-inheritance", "info");
+        severities.put("missing-version", "OFF");
+        mojo.setLintSeverities(severities);
+        mojo.setLintFailOn("warning");
+        mojo.execute();
+        assertThat(readIssues(), contains(
+                   "info deep-joined-inheritance BluRay"));
+    }
+
+    /**
+     * Checks that unknown rules and invalid severities are rejected.
+     *
+     * @throws MojoExecutionException if the goal fails.
+     */
+    @Test
+    public void invalidConfiguration() throws MojoExecutionException {
+        final Map<String, String> severities = new HashMap<>();
+        severities.put("unknown-rule", "error");
+        mojo.setLintSeverities(severities);
+        try {
+            mojo.execute();
+            fail("Expected an unknown rule to fail the build.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), startsWith(
+                       "Unknown mapping rule 'unknown-rule'."));
+        }
+
+        mojo.setLintSeverities(new HashMap<String, String>());
+        mojo.setLintFailOn("fatal");
+        try {
+            mojo.execute();
+            fail("Expected an invalid severity to fail the build.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), containsString(
+                       "Invalid severity 'fatal'"));
+        }
+    }
+
+    /**
+     * Reads the issues from the JSON report.
+     *
+     * @return The issues formatted as {@code severity rule location}, the
+     *         package of the entities is removed from the location.
+     */
+    private List<String> readIssues() throws IOException {
+        final String json = new String(
+            Files.readAllBytes(reportDir.resolve("lint-report.json")),
+            StandardCharsets.UTF_8);
+        final List<String> issues = new ArrayList<>();
+        final Matcher matcher = ISSUE.matcher(json);
+        while (matcher.find()) {
+            String location = matcher.group(3).substring(
+                PACKAGE.length() + 1);
+            if (matcher.group(4) != null) {
+                location = location + "." + matcher.group(4);
+            }
+            issues.add(String.format("%s %s %s",
+                                     matcher.group(2),
+                                     matcher.group(1),
+                                     location));
+        }
+        return issues;
+    }
+
+}
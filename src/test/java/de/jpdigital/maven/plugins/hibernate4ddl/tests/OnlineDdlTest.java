@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.DiffDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for rewriting the statements into online variants.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class OnlineDdlTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/online";
+
+    private static final String PACKAGE
+                                    = "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities3";
+
+    private static final String[] DIALECTS = {"hsql",
+                                              "mysql5",
+                                              "oracle10g",
+                                              "postgresql9"};
+
+    private Path outputDir;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+    }
+
+    /**
+     * Checks that the create statements are not rewritten, even for the
+     * dialects for which online DDL is enabled. The DDL file creates a new
+     * schema, the online variants would only make it slower and, for
+     * PostgreSQL, impossible to execute in a transaction.
+     *
+     * @throws IOException            if the DDL files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void generateDdl() throws IOException,
+                                     MojoExecutionException,
+                                     MojoFailureException {
+        createMojo("postgresql9", "mysql5", "oracle10g").execute();
+
+        for (final String dialect : DIALECTS) {
+            final String script = readScript(outputDir, dialect);
+            assertThat(dialect, script,
+                       containsString("create index idx_orders_order_date on "
+                                          + "orders (order_date);"));
+            assertThat(dialect, script, not(containsString("concurrently")));
+            assertThat(dialect, script, not(containsString("not valid")));
+            assertThat(dialect, script, not(containsString("validate")));
+            assertThat(dialect, script, not(containsString("lock=none")));
+            assertThat(dialect, script,
+                       not(containsString("foreign_key_checks")));
+            assertThat(dialect, script, not(containsString(" online")));
+        }
+    }
+
+    /**
+     * Checks that dialects which are not supported are rejected.
+     *
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   expected.
+     */
+    @Test(expected = MojoFailureException.class)
+    public void unsupportedDialect() throws MojoExecutionException,
+                                            MojoFailureException {
+        createMojo("hsql").execute();
+    }
+
+    /**
+     * Checks the rewritten migration statements for each supported dialect
+     * and that the statements for other dialects are not changed.
+     *
+     * @throws IOException            if the snapshots can't be read or
+     *                                written.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void diff() throws IOException,
+                              MojoExecutionException,
+                              MojoFailureException {
+        createMojo().execute();
+
+        //The previous schema has no foreign keys, unique keys and indexes.
+        final Path previousDir = Paths.get(TEST_DIR, "previous");
+        Files.createDirectories(previousDir);
+        for (final String dialect : DIALECTS) {
+            final List<String> previous = new ArrayList<>();
+            for (final String line : Files.readAllLines(
+                outputDir.resolve(dialect + ".snapshot"),
+                StandardCharsets.UTF_8)) {
+                if (!line.startsWith("foreignkey\t")
+                        && !line.startsWith("uniquekey\t")
+                        && !line.startsWith("index\t")) {
+                    previous.add(line);
+                }
+            }
+            Files.write(previousDir.resolve(dialect + ".snapshot"),
+                        previous,
+                        StandardCharsets.UTF_8);
+        }
+
+        final Path diffDir = Paths.get(TEST_DIR, "migration");
+        final DiffDdlMojo mojo = new DiffDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setDialects(DIALECTS);
+        mojo.setPreviousSnapshotDirectory(previousDir.toFile());
+        mojo.setDiffOutputDirectory(diffDir.toFile());
+        mojo.setOnlineDdlDialects("postgresql9", "mysql5", "oracle10g");
+        mojo.execute();
+
+        final String postgreSql = readScript(diffDir, "postgresql9");
+        assertThat(postgreSql,
+                   containsString("create index concurrently "
+                                      + "idx_orders_order_date on orders "
+                                      + "(order_date);"));
+        assertThat(postgreSql,
+                   containsString("references customers not valid;"));
+        assertThat(postgreSql,
+                   containsString("alter table order_lines validate "
+                                      + "constraint"));
+        assertThat(postgreSql,
+                   containsString("create unique index concurrently"));
+        assertThat(postgreSql, containsString("unique using index"));
+
+        final String mySql = readScript(diffDir, "mysql5");
+        assertThat(mySql,
+                   containsString("create index idx_orders_order_date on "
+                                      + "orders (order_date) "
+                                      + "algorithm=inplace lock=none;"));
+        assertThat(mySql, containsString("set foreign_key_checks = 0;"));
+        assertThat(mySql, containsString("set foreign_key_checks = 1;"));
+        assertThat(mySql,
+                   containsString("references customers (customer_id), "
+                                      + "algorithm=inplace, lock=none;"));
+
+        final String oracle = readScript(diffDir, "oracle10g");
+        assertThat(oracle,
+                   containsString("create index idx_orders_order_date on "
+                                      + "orders (order_date) online;"));
+        assertThat(oracle,
+                   containsString("references customers enable novalidate;"));
+        assertThat(oracle,
+                   containsString("alter table orders enable validate "
+                                      + "constraint"));
+
+        final String hsql = readScript(diffDir, "hsql");
+        assertThat(hsql,
+                   containsString("create index idx_orders_order_date on "
+                                      + "orders (order_date);"));
+        assertThat(hsql, not(containsString("concurrently")));
+        assertThat(hsql, not(containsString("online")));
+    }
+
+    private GenerateDdlMojo createMojo(final String... onlineDdlDialects) {
+        final GenerateDdlMojo mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(PACKAGE);
+        mojo.setDialects(DIALECTS);
+        mojo.setOnlineDdlDialects(onlineDdlDialects);
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+        return mojo;
+    }
+
+    /**
+     * Reads a script and normalises the whitespace.
+     */
+    private static String readScript(final Path dir, final String dialect)
+        throws IOException {
+        final String script = new String(
+            Files.readAllBytes(dir.resolve(dialect + ".sql")),
+            StandardCharsets.UTF_8);
+        return script.replaceAll("\\s+", " ").trim();
+    }
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the partitioning of tables.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class PartitioningTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/partitioning";
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+    private Map<String, String> partitioning;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities9");
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+
+        partitioning = new HashMap<>();
+        partitioning.put("events",
+                         "range(created_on): '2024-01-01', '2025-01-01', "
+                             + "maxvalue");
+        partitioning.put("AuditEntry",
+                         "list(region): eu='DE'|'FR', us='US'");
+        partitioning.put("EventNote", "hash(note_id): 4");
+    }
+
+    /**
+     * Checks the partitioned tables for PostgreSQL.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void postgresql() throws IOException,
+                                    MojoExecutionException,
+                                    MojoFailureException {
+        partitioning.put("AuditEntry",
+                         "list(region): eu='DE'|'FR', us='US', default");
+        mojo.setPartitioning(partitioning);
+        mojo.setDialects("postgresql9");
+        mojo.setSplitPhases(true);
+        mojo.execute();
+
+        final String ddl = read("postgresql9.sql");
+        assertThat(ddl, allOf(
+                   containsString("create table events (event_id int8 not "
+                                      + "null, code varchar(64), created_on "
+                                      + "timestamp not null, primary key "
+                                      + "(event_id, created_on)) partition by "
+                                      + "range (created_on);"),
+                   containsString("create table events_p1 partition of "
+                                      + "events for values from (minvalue) "
+                                      + "to ('2024-01-01');"),
+                   containsString("create table events_p2 partition of "
+                                      + "events for values from "
+                                      + "('2024-01-01') to ('2025-01-01');"),
+                   containsString("create table events_pmax partition of "
+                                      + "events for values from "
+                                      + "('2025-01-01') to (maxvalue);")));
+        assertThat(ddl, allOf(
+                   containsString("primary key (audit_entry_id, region)) "
+                                      + "partition by list (region);"),
+                   containsString("create table audit_entries_eu partition "
+                                      + "of audit_entries for values in "
+                                      + "('DE', 'FR');"),
+                   containsString("create table audit_entries_pdefault "
+                                      + "partition of audit_entries "
+                                      + "default;")));
+        //The partition column is already part of the primary key.
+        assertThat(ddl, allOf(
+                   containsString("primary key (note_id)) partition by hash "
+                                      + "(note_id);"),
+                   containsString("create table event_notes_p3 partition of "
+                                      + "event_notes for values with "
+                                      + "(modulus 4, remainder 3);")));
+        assertThat(ddl, containsString("unique (code, created_on);"));
+        //The foreign key can't reference the extended primary key.
+        assertThat(ddl, not(containsString("references events")));
+        assertThat(read("postgresql9/02-tables.sql"),
+                   containsString("create table events_pmax partition of"));
+    }
+
+    /**
+     * Checks that the partitions for PostgreSQL are created in the schema of
+     * the partitioned table, for an explicit schema of the table as well as
+     * for the schema of the tenants.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void postgresqlSchema() throws IOException,
+                                          MojoExecutionException,
+                                          MojoFailureException {
+        partitioning.put("ArchivedEvent", "hash(event_id): 2");
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities9",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities11");
+        mojo.setPartitioning(partitioning);
+        mojo.setDialects("postgresql9");
+        mojo.setTenantSchemas("acme");
+        mojo.execute();
+
+        final String ddl = read("postgresql9.sql");
+        assertThat(ddl, allOf(
+                   containsString("create table archive.archived_events "
+                                      + "(event_id int8 not null, created_on "
+                                      + "timestamp, primary key (event_id)) "
+                                      + "partition by hash (event_id);"),
+                   containsString("create table archive.archived_events_p1 "
+                                      + "partition of archive.archived_events "
+                                      + "for values with (modulus 2, "
+                                      + "remainder 1);"),
+                   containsString("create table events_p1 partition of "
+                                      + "events for values from (minvalue)")));
+
+        assertThat(read("postgresql9.tenant-template.sql"), allOf(
+                   containsString("create table __tenant__.events_p1 "
+                                      + "partition of __tenant__.events for "
+                                      + "values from (minvalue)"),
+                   containsString("create table archive.archived_events_p0 "
+                                      + "partition of "
+                                      + "archive.archived_events")));
+        assertThat(read("postgresql9/tenants/acme.sql"),
+                   containsString("create table acme.audit_entries_eu "
+                                      + "partition of acme.audit_entries for "
+                                      + "values in ('DE', 'FR');"));
+    }
+
+    /**
+     * Checks the partitioned tables for MySQL and Oracle and that the other
+     * dialects are not affected.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void mysqlAndOracle() throws IOException,
+                                        MojoExecutionException,
+                                        MojoFailureException {
+        mojo.setPartitioning(partitioning);
+        mojo.setDialects("mysql5", "oracle10g", "h2");
+        mojo.execute();
+
+        final String mysql = read("mysql5.sql");
+        assertThat(mysql, allOf(
+                   containsString("created_on datetime not null, primary key "
+                                      + "(event_id, created_on)) partition by "
+                                      + "range columns (created_on) "
+                                      + "(partition p1 values less than "
+                                      + "('2024-01-01'), partition p2 values "
+                                      + "less than ('2025-01-01'), partition "
+                                      + "pmax values less than (maxvalue));"),
+                   containsString("partition by list columns (region) "
+                                      + "(partition eu values in ('DE', "
+                                      + "'FR'), partition us values in "
+                                      + "('US'));"),
+                   containsString("partition by key (note_id) "
+                                      + "partitions 4;"),
+                   containsString("unique (code, created_on);")));
+        //MySQL doesn't support foreign keys for partitioned tables.
+        assertThat(mysql, not(containsString("foreign key")));
+
+        final String oracle = read("oracle10g.sql");
+        assertThat(oracle, allOf(
+                   containsString("created_on timestamp, primary key "
+                                      + "(event_id)) partition by range "
+                                      + "(created_on) (partition p1 values "
+                                      + "less than (to_date('2024-01-01', "
+                                      + "'YYYY-MM-DD')), partition p2 values "
+                                      + "less than (to_date('2025-01-01', "
+                                      + "'YYYY-MM-DD')), partition pmax "
+                                      + "values less than (maxvalue));"),
+                   containsString("partition by list (region) (partition eu "
+                                      + "values ('DE', 'FR'), partition us "
+                                      + "values ('US'));"),
+                   containsString("partition by hash (note_id) "
+                                      + "partitions 4;"),
+                   containsString("unique (code);"),
+                   containsString("references events;")));
+
+        assertThat(read("h2.sql"), not(containsString("partition")));
+    }
+
+    /**
+     * Checks that invalid partitioning fails the goal.
+     *
+     * @throws MojoExecutionException if the goal fails unexpectedly.
+     */
+    @Test
+    public void invalidPartitioning() throws MojoExecutionException {
+        mojo.setDialects("mysql5");
+
+        final Map<String, String> invalid = new HashMap<>();
+        invalid.put("events", "range(updated_on): '2024-01-01'");
+        assertFailure(invalid, "The table events has no column updated_on.");
+
+        invalid.put("events", "range(created_on) '2024-01-01'");
+        assertFailure(invalid, "Invalid partitioning of events");
+
+        invalid.put("events", "hash(event_id): 4");
+        invalid.put("Invoice", "hash(invoice_id): 4");
+        assertFailure(invalid, "No entity or table with the name 'Invoice'.");
+
+        invalid.clear();
+        invalid.put("AuditEntry", "list(region): eu='DE', default");
+        assertFailure(invalid, "MySQL doesn't support a default partition");
+    }
+
+    private void assertFailure(final Map<String, String> invalid,
+                               final String message)
+        throws MojoExecutionException {
+        mojo.setPartitioning(invalid);
+        try {
+            mojo.execute();
+            fail("Expected a MojoFailureException.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), containsString(message));
+        }
+    }
+
+    /**
+     * Reads a file from the output directory and collapses the whitespace
+     * which the formatter of Hibernate inserts around the parentheses.
+     */
+    private String read(final String fileName) throws IOException {
+        return new String(Files.readAllBytes(outputDir.resolve(fileName)),
+                          StandardCharsets.UTF_8)
+            .replaceAll("\\s+", " ")
+            .replace("( ", "(")
+            .replace(" )", ")");
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the estimated widths of the rows and index keys.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class RowWidthsTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/rowwidths";
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities5",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities6");
+        mojo.setDialects("postgresql9", "mysql5");
+        mojo.setEstimateRowWidths(true);
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks the estimated widths and the tables and keys exceeding the
+     * thresholds.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void rowWidths() throws IOException,
+                                   MojoExecutionException,
+                                   MojoFailureException {
+        mojo.setMaxRowBytes(290);
+        mojo.setMaxIndexKeyBytes(8);
+        mojo.execute();
+
+        final String postgreSql = read("postgresql9.row-widths.txt");
+        assertThat(postgreSql, startsWith(
+                   "Estimated row widths for dialect POSTGRESQL9 in bytes "
+                       + "(thresholds: rows 290, index keys 8)."));
+        //Row header (24), bigint (8), varchar(255) (2 to 257) and the null
+        //bitmap (1)
+        assertThat(row(postgreSql, "authors"),
+                   is(equalTo("authors 2 1 0 33 162 290")));
+        assertThat(row(postgreSql, "books"),
+                   is(equalTo("books 3 1 0 33 170 298 !")));
+        //The content of LOBs is not counted.
+        assertThat(row(postgreSql, "shelves"),
+                   is(equalTo("shelves 3 0 1 33 61 61")));
+        assertThat(postgreSql, allOf(
+                   containsString("books primary key (book_id): 8\n"),
+                   containsString("book_tags primary key (book_id, tag_id): "
+                                      + "16 !\n"),
+                   containsString("reviews idx_reviews_book_created "
+                                      + "(book_id, created_on): 16 !\n")));
+
+        //MySQL has a smaller row header.
+        assertThat(row(read("mysql5.row-widths.txt"), "authors"),
+                   is(equalTo("authors 2 1 0 27 156 284")));
+    }
+
+    /**
+     * Checks that no report is written if the estimation is disabled.
+     *
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void disabled() throws MojoExecutionException,
+                                  MojoFailureException {
+        mojo.setEstimateRowWidths(false);
+        mojo.execute();
+
+        assertThat(Files.exists(outputDir.resolve(
+            "postgresql9.row-widths.txt")), is(false));
+    }
+
+    /**
+     * Returns the line of a table from the report, with single spaces
+     * between the values.
+     */
+    private static String row(final String report, final String table) {
+        for (final String line : report.split("\n")) {
+            if (line.startsWith(table + " ")) {
+                return line.trim().replaceAll("\\s+", " ");
+            }
+        }
+        fail(String.format("No row for table %s.", table));
+        return null;
+    }
+
+    private String read(final String fileName) throws IOException {
+        return new String(Files.readAllBytes(outputDir.resolve(fileName)),
+                          StandardCharsets.UTF_8);
+    }
+
+}
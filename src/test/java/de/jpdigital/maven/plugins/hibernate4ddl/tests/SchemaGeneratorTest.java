@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.DdlGenerationException;
+import de.jpdigital.maven.plugins.hibernate4ddl.DdlOptions;
+import de.jpdigital.maven.plugins.hibernate4ddl.Dialect;
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.SchemaGenerator;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.entities.Person;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.entities.Report;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.entities2.Company;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link SchemaGenerator}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class SchemaGeneratorTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/schema-generator";
+
+    private static final String[] PACKAGES = new String[]{
+        "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities",
+        "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities2"
+    };
+
+    /**
+     * Checks that the generated script is the same as the file generated by
+     * the {@link GenerateDdlMojo}.
+     *
+     * @throws MojoExecutionException if something goes wrong when executing
+     *                                the Mojo.
+     * @throws MojoFailureException   if something goes wrong when executing
+     *                                the Mojo.
+     * @throws IOException            if the DDL files can't be read.
+     * @throws DdlGenerationException if the statements can't be generated.
+     */
+    @Test
+    public void sameAsMojo() throws MojoExecutionException,
+                                    MojoFailureException,
+                                    IOException,
+                                    DdlGenerationException {
+        final Dialect[] dialects = new Dialect[]{Dialect.HSQL,
+                                                 Dialect.MYSQL5,
+                                                 Dialect.POSTGRESQL9};
+
+        for (final boolean useEnvers : new boolean[]{false, true}) {
+            final GenerateDdlMojo mojo = new GenerateDdlMojo();
+            mojo.setOutputDirectory(new File(TEST_DIR));
+            mojo.setPackages(PACKAGES);
+            final String[] dialectNames = new String[dialects.length];
+            for (int i = 0; i < dialects.length; i++) {
+                dialectNames[i] = dialects[i].name();
+            }
+            mojo.setDialects(dialectNames);
+            mojo.setUseEnvers(useEnvers);
+            mojo.setCreateDropStatements(true);
+            mojo.execute();
+
+            final SchemaGenerator generator = SchemaGenerator
+                .forPackages(PACKAGES)
+                .setUseEnvers(useEnvers)
+                .setCreateDropStatements(true);
+            for (final Dialect dialect : dialects) {
+                final String file = new String(
+                    Files.readAllBytes(Paths.get(String.format(
+                        "%s/%s.sql",
+                        TEST_DIR,
+                        dialect.name().toLowerCase(Locale.ENGLISH)))),
+                    StandardCharsets.UTF_8);
+                assertThat(String.format(
+                    "Script for %s (Envers: %b) differs from the DDL file.",
+                    dialect,
+                    useEnvers),
+                           generator.generateScript(dialect),
+                           is(equalTo(file)));
+            }
+        }
+    }
+
+    /**
+     * Checks that statements are generated for the provided classes and
+     * that the bootstrap state and the statements are cached.
+     *
+     * @throws DdlGenerationException if the statements can't be generated.
+     */
+    @Test
+    public void generateForClasses() throws DdlGenerationException {
+        final List<String> statements = SchemaGenerator
+            .forClasses(Person.class, Report.class, Company.class)
+            .generate(Dialect.H2);
+
+        assertThat(statements, hasItem(startsWith("create table persons")));
+        assertThat(statements, hasItem(startsWith("create table companies")));
+        for (final String statement : statements) {
+            assertThat(statement, not(endsWith(";")));
+        }
+
+        final List<String> cached = SchemaGenerator
+            .forClasses(Company.class, Report.class, Person.class)
+            .generate(Dialect.H2);
+        assertThat(cached, is(equalTo(statements)));
+        assertThat(SchemaGenerator.forPackages(PACKAGES).getEntityClasses(),
+                   is(sameInstance(SchemaGenerator.forPackages(PACKAGES)
+                       .getEntityClasses())));
+
+        final List<String> withProperty = SchemaGenerator
+            .forClasses(Person.class, Report.class, Company.class)
+            .setUseEnvers(true)
+            .setProperty("org.hibernate.envers.revision_type_field_name",
+                         "rev_type")
+            .generate(Dialect.H2);
+        assertThat(withProperty,
+                   hasItem(containsString("rev_type")));
+    }
+
+    /**
+     * Checks that the options changing the statements are applied in the
+     * same way as by the {@link GenerateDdlMojo}.
+     *
+     * @throws MojoExecutionException if something goes wrong when executing
+     *                                the Mojo.
+     * @throws MojoFailureException   if something goes wrong when executing
+     *                                the Mojo.
+     * @throws IOException            if the DDL file can't be read.
+     * @throws DdlGenerationException if the statements can't be generated.
+     */
+    @Test
+    public void sameAsMojoWithOptions() throws MojoExecutionException,
+                                               MojoFailureException,
+                                               IOException,
+                                               DdlGenerationException {
+        final String outputDir = TEST_DIR + "/options";
+        final GenerateDdlMojo mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(new File(outputDir));
+        mojo.setPackages(PACKAGES);
+        mojo.setDialects(Dialect.POSTGRESQL9.name());
+        mojo.setUseEnvers(true);
+        mojo.setAuditTableIndexes(true);
+        mojo.setForeignKeyIndexes(true);
+        mojo.setAlignColumns(true);
+        mojo.setSequenceCache(20);
+        mojo.execute();
+
+        final DdlOptions options = new DdlOptions();
+        options.setUseEnvers(true);
+        options.setAuditTableIndexes(true);
+        options.setForeignKeyIndexes(true);
+        options.setAlignColumns(true);
+        options.setSequenceCache(20);
+        options.setDialects(Arrays.asList(Dialect.H2));
+        final String script = SchemaGenerator
+            .forPackages(PACKAGES)
+            .setOptions(options)
+            .generateScript(Dialect.POSTGRESQL9);
+
+        assertThat(script, containsString("cache 20"));
+        assertThat(script, is(equalTo(new String(
+            Files.readAllBytes(Paths.get(outputDir, "postgresql9.sql")),
+            StandardCharsets.UTF_8))));
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for splitting the scripts into one file per phase.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class SplitPhasesTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/phases";
+
+    private static final String PACKAGE
+                                    = "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities3";
+
+    private static final String DATA
+                                    = "insert into customers (customer_id, email) "
+                                          + "values (1, 'jane@example.org');\n";
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        final Path dataLoadScript = Paths.get(TEST_DIR, "data.sql");
+        Files.createDirectories(dataLoadScript.getParent());
+        Files.write(dataLoadScript, DATA.getBytes(StandardCharsets.UTF_8));
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(PACKAGE);
+        mojo.setDialects("hsql", "postgresql9");
+        mojo.setSplitPhases(true);
+        mojo.setDataLoadScript(dataLoadScript.toFile());
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks the content of the phase files and that the phase files
+     * contain the same statements as the complete script.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void splitPhases() throws IOException,
+                                     MojoExecutionException,
+                                     MojoFailureException {
+        mojo.execute();
+
+        for (final String dialect : new String[]{"hsql", "postgresql9"}) {
+            final Path phaseDir = outputDir.resolve(dialect);
+            assertFalse(Files.exists(phaseDir.resolve("00-drop.sql")));
+
+            final String tables = read(phaseDir.resolve("02-tables.sql"));
+            assertThat(tables, containsString("create table customers"));
+            assertThat(tables, containsString("create table orders"));
+            assertThat(tables, containsString("create table order_lines"));
+            assertThat(tables, not(containsString("alter table")));
+            assertThat(tables, not(containsString("create index")));
+
+            assertThat(read(phaseDir.resolve("03-data.sql")),
+                       is(equalTo(DATA)));
+
+            final String constraints = read(phaseDir.resolve(
+                "04-constraints.sql"));
+            assertThat(constraints, containsString("foreign key"));
+            assertThat(constraints, containsString("unique"));
+            assertThat(constraints, not(containsString("create table")));
+
+            final String indexes = read(phaseDir.resolve("05-indexes.sql"));
+            assertThat(indexes, containsString("create index "
+                                                   + "idx_orders_order_date"));
+
+            final List<String> phaseStatements = new ArrayList<>();
+            for (final String phase : new String[]{"01-schema.sql",
+                                                   "02-tables.sql",
+                                                   "04-constraints.sql",
+                                                   "05-indexes.sql"}) {
+                phaseStatements.addAll(statements(read(phaseDir.resolve(
+                    phase))));
+            }
+            final List<String> allStatements = statements(read(outputDir
+                .resolve(dialect + ".sql")));
+            Collections.sort(phaseStatements);
+            Collections.sort(allStatements);
+            assertThat(phaseStatements, is(equalTo(allStatements)));
+        }
+
+        assertThat(read(outputDir.resolve("postgresql9").resolve(
+            "01-schema.sql")),
+                   containsString("create sequence hibernate_sequence"));
+    }
+
+    /**
+     * Checks that the drop statements are written to their own file and
+     * that the phase files are not rewritten into online variants, even if
+     * online DDL is enabled for the dialect.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void splitPhasesDropAndOnline() throws IOException,
+                                                  MojoExecutionException,
+                                                  MojoFailureException {
+        mojo.setCreateDropStatements(true);
+        mojo.setOnlineDdlDialects("postgresql9");
+        mojo.execute();
+
+        final Path phaseDir = outputDir.resolve("postgresql9");
+        assertThat(read(phaseDir.resolve("00-drop.sql")),
+                   containsString("drop table orders cascade"));
+
+        final String constraints = read(phaseDir.resolve(
+            "04-constraints.sql"));
+        assertThat(constraints, containsString("unique (email)"));
+        assertThat(constraints, not(containsString("not valid")));
+        final String indexes = read(phaseDir.resolve("05-indexes.sql"));
+        assertThat(indexes, containsString("create index "
+                                               + "idx_orders_order_date"));
+        assertThat(indexes, not(containsString("concurrently")));
+    }
+
+    private static String read(final Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits a script into statements with normalised whitespace.
+     */
+    private static List<String> statements(final String script) {
+        final List<String> statements = new ArrayList<>();
+        for (final String statement : Arrays.asList(script.split(";"))) {
+            final String normalised = statement.replaceAll("\\s+", " ").trim();
+            if (!normalised.isEmpty()) {
+                statements.add(normalised);
+            }
+        }
+        return statements;
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the storage options of tables.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class StorageTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/storage";
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+    private Map<String, String> storage;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities",
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities6");
+        mojo.setUseEnvers(true);
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+
+        storage = new HashMap<>();
+        storage.put("shelves",
+                    "fillfactor=80, toast=external, lob_compress=medium, "
+                        + "lob_deduplicate=true, key_block_size=8");
+        storage.put("report*", "fillfactor=90, tablespace=reports");
+        storage.put("*_revisions", "fillfactor=100, compress=true");
+        storage.put("Report", "tablespace=report_data");
+    }
+
+    /**
+     * Checks the storage clauses for PostgreSQL, MySQL and Oracle, including
+     * the merging of the options of patterns and names.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void storage() throws IOException,
+                                 MojoExecutionException,
+                                 MojoFailureException {
+        mojo.setStorage(storage);
+        mojo.setDialects("postgresql9", "mysql5", "oracle10g", "h2");
+        mojo.execute();
+
+        final String postgresql = read("postgresql9.sql");
+        assertThat(postgresql, allOf(
+                   containsString("primary key (reportId)) with "
+                                      + "(fillfactor=90) tablespace "
+                                      + "report_data;"),
+                   containsString("primary key (reportId, REV)) with "
+                                      + "(fillfactor=100) tablespace "
+                                      + "reports;"),
+                   containsString("primary key (shelf_id)) with "
+                                      + "(fillfactor=80);"),
+                   containsString("alter table shelves alter column notes "
+                                      + "set storage external;")));
+
+        final String mysql = read("mysql5.sql");
+        assertThat(mysql, allOf(
+                   containsString("primary key (reportId)) tablespace "
+                                      + "report_data;"),
+                   containsString("primary key (reportId, REV)) tablespace "
+                                      + "reports row_format=compressed;"),
+                   containsString("primary key (shelf_id)) "
+                                      + "row_format=compressed "
+                                      + "key_block_size=8;")));
+
+        final String oracle = read("oracle10g.sql");
+        assertThat(oracle, allOf(
+                   containsString("primary key (reportId)) pctfree 10 "
+                                      + "tablespace report_data;"),
+                   containsString("primary key (reportId, REV)) pctfree 0 "
+                                      + "tablespace reports compress;"),
+                   containsString("primary key (shelf_id)) pctfree 20 lob "
+                                      + "(notes) store as securefile "
+                                      + "(compress medium deduplicate);")));
+
+        assertThat(read("h2.sql"), not(containsString("tablespace")));
+    }
+
+    /**
+     * Checks that the storage parameters of partitioned tables are set for
+     * the partitions for PostgreSQL.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void partitions() throws IOException,
+                                    MojoExecutionException,
+                                    MojoFailureException {
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities9");
+        mojo.setUseEnvers(false);
+        final Map<String, String> partitioning = new HashMap<>();
+        partitioning.put("Event", "range(created_on): '2024-01-01'");
+        mojo.setPartitioning(partitioning);
+        storage.clear();
+        storage.put("events", "fillfactor=70, tablespace=events_data");
+        mojo.setStorage(storage);
+        mojo.setDialects("postgresql9", "mysql5");
+        mojo.execute();
+
+        assertThat(read("postgresql9.sql"), allOf(
+                   containsString("partition by range (created_on) "
+                                      + "tablespace events_data;"),
+                   containsString("create table events_p1 partition of "
+                                      + "events for values from (minvalue) "
+                                      + "to ('2024-01-01') with "
+                                      + "(fillfactor=70) tablespace "
+                                      + "events_data;")));
+        //The table options are placed before the partitioning for MySQL.
+        assertThat(read("mysql5.sql"), containsString(
+                   "primary key (event_id, created_on)) tablespace "
+                       + "events_data partition by range columns "
+                       + "(created_on)"));
+    }
+
+    /**
+     * Checks that invalid storage options fail the goal.
+     *
+     * @throws MojoExecutionException if the goal fails unexpectedly.
+     */
+    @Test
+    public void invalidOptions() throws MojoExecutionException {
+        mojo.setDialects("postgresql9");
+
+        storage.clear();
+        storage.put("shelves", "fillfactor=5");
+        assertFailure("Invalid value '5' for storage option 'fillfactor'.");
+
+        storage.put("shelves", "pctused=40");
+        assertFailure("Unknown storage option 'pctused'.");
+
+        storage.put("shelves", "fillfactor=90");
+        storage.put("Invoice", "fillfactor=90");
+        assertFailure("No entity or table with the name 'Invoice'.");
+    }
+
+    private void assertFailure(final String message)
+        throws MojoExecutionException {
+        mojo.setStorage(storage);
+        try {
+            mojo.execute();
+            fail("Expected a MojoFailureException.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), containsString(message));
+        }
+    }
+
+    /**
+     * Reads a file from the output directory and collapses the whitespace
+     * which the formatter of Hibernate inserts around the parentheses.
+     */
+    private String read(final String fileName) throws IOException {
+        return new String(Files.readAllBytes(outputDir.resolve(fileName)),
+                          StandardCharsets.UTF_8)
+            .replaceAll("\\s+", " ")
+            .replace("( ", "(")
+            .replace(" )", ")");
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.EntityModelGenerator;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.GeneratedEntityModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.InheritanceType;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link GenerateDdlMojo} against synthetic models created by the
+ * {@link EntityModelGenerator}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class SyntheticModelTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/synthetic";
+
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+        "create table");
+
+    private GenerateDdlMojo mojo;
+
+    private ClassLoader contextClassLoader;
+
+    @Before
+    public void setUp() {
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(new File(TEST_DIR));
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+        mojo = null;
+    }
+
+    /**
+     * Generates a model using all features of the generator and checks that
+     * a create table statement is generated for every table of the model.
+     *
+     * @throws IOException            if the model can't be generated.
+     * @throws MojoExecutionException if something goes wrong when executing
+     *                                the Mojo.
+     * @throws MojoFailureException   if something goes wrong when executing
+     *                                the Mojo.
+     */
+    @Test
+    public void generateDdlForSyntheticModel() throws IOException,
+                                                      MojoExecutionException,
+                                                      MojoFailureException {
+        final EntityModelGenerator generator = new EntityModelGenerator();
+        generator.setPackageName(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.synthetic.full");
+        generator.setEntityCount(60);
+        generator.setRelationshipDensity(0.5);
+        generator.setInheritanceStrategies(InheritanceType.SINGLE_TABLE,
+                                           InheritanceType.JOINED,
+                                           InheritanceType.TABLE_PER_CLASS);
+        generator.setInheritanceRatio(0.3);
+        generator.setEmbeddableRatio(0.5);
+        generator.setElementCollectionRatio(0.3);
+        generator.setAudited(true);
+        generator.setPlainClassCount(20);
+
+        final String[] dialects = new String[]{"hsql", "postgresql9"};
+
+        try (GeneratedEntityModel model = generator.generate()) {
+            assertThat(model.getEntityClassNames().size(), is(60));
+
+            Thread.currentThread().setContextClassLoader(
+                model.getClassLoader());
+            mojo.setPackages(model.getPackageName());
+            mojo.setDialects(dialects);
+            mojo.setUseEnvers(true);
+            mojo.execute();
+
+            for (final String dialect : dialects) {
+                final String sql = new String(
+                    Files.readAllBytes(Paths.get(String.format(
+                        "%s/%s.sql", TEST_DIR, dialect))),
+                    StandardCharsets.UTF_8);
+
+                //Each table has an audit table, therefore there are at least
+                //twice as many tables as in the model.
+                assertThat(String.format(
+                    "Not all tables of the synthetic model are in the DDL "
+                        + "file for dialect %s.",
+                    dialect),
+                           countCreateTable(sql),
+                           greaterThanOrEqualTo(2 * model.getTableCount()));
+            }
+        }
+    }
+
+    private int countCreateTable(final String sql) {
+        final Matcher matcher = CREATE_TABLE.matcher(
+            sql.toLowerCase(Locale.ENGLISH));
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for expanding the DDL into the scripts for the tenant schemas.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class TenantSchemasTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/tenants";
+
+    private static final String PLACEHOLDER = "__tenant__";
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities3");
+        mojo.setDialects("postgresql9", "mysql5");
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks that the template is rendered with the placeholder, that the
+     * DDL file and the snapshot are the same as without tenants and that a
+     * script is written for each tenant, with the names of the schemas
+     * quoted if they are reserved words or not plain identifiers.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void tenantScripts() throws IOException,
+                                       MojoExecutionException,
+                                       MojoFailureException {
+        mojo.execute();
+        final String ddl = read(outputDir.resolve("postgresql9.sql"));
+        final String snapshot = read(outputDir.resolve(
+            "postgresql9.snapshot"));
+
+        mojo.setTenantSchemas("acme", "order", "tenant-42");
+        mojo.execute();
+
+        assertThat(read(outputDir.resolve("postgresql9.sql")),
+                   is(equalTo(ddl)));
+        assertThat(read(outputDir.resolve("postgresql9.snapshot")),
+                   is(equalTo(snapshot)));
+        assertThat(ddl, containsString("create table customers"));
+        assertThat(ddl, not(containsString(PLACEHOLDER)));
+
+        final String template = read(outputDir.resolve(
+            "postgresql9.tenant-template.sql"));
+        assertThat(template,
+                   containsString("create table " + PLACEHOLDER + ".customers"));
+        assertThat(template,
+                   containsString("references " + PLACEHOLDER + ".customers"));
+
+        final Path tenantDir = outputDir.resolve("postgresql9").resolve(
+            "tenants");
+        final String acme = read(tenantDir.resolve("acme.sql"));
+        assertThat(acme, is(equalTo(template.replace(PLACEHOLDER, "acme"))));
+        assertThat(acme, containsString("create table acme.customers"));
+        assertThat(acme, containsString("create table acme.order_lines"));
+        assertThat(acme, containsString("references acme.orders"));
+        assertThat(acme, not(containsString(PLACEHOLDER)));
+
+        assertThat(read(tenantDir.resolve("order.sql")),
+                   containsString("create table \"order\".customers"));
+        assertThat(read(tenantDir.resolve("tenant-42.sql")),
+                   containsString("create table \"tenant-42\".customers"));
+        assertThat(read(outputDir.resolve("mysql5").resolve("tenants")
+            .resolve("tenant-42.sql")),
+                   containsString("create table `tenant-42`.customers"));
+        assertFalse(Files.exists(outputDir.resolve("postgresql9.tenants.sql")));
+
+        mojo.setTenantSchemas("acme", "tenant-42");
+        mojo.execute();
+        assertTrue(Files.exists(tenantDir.resolve("acme.sql")));
+        assertFalse(Files.exists(tenantDir.resolve("order.sql")));
+    }
+
+    /**
+     * Checks the combined script for all tenants.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void combinedScript() throws IOException,
+                                        MojoExecutionException,
+                                        MojoFailureException {
+        mojo.setTenantSchemas("acme", "globex");
+        mojo.execute();
+        assertTrue(Files.exists(outputDir.resolve("postgresql9").resolve(
+            "tenants").resolve("acme.sql")));
+
+        mojo.setCombineTenantScripts(true);
+        mojo.execute();
+
+        final String template = read(outputDir.resolve(
+            "postgresql9.tenant-template.sql"));
+        final String combined = read(outputDir.resolve(
+            "postgresql9.tenants.sql"));
+        assertThat(combined, is(equalTo(
+                   "-- tenant acme\n" + template.replace(PLACEHOLDER, "acme")
+                       + "\n-- tenant globex\n"
+                       + template.replace(PLACEHOLDER, "globex") + "\n")));
+        assertFalse(Files.exists(outputDir.resolve("postgresql9").resolve(
+            "tenants").resolve("acme.sql")));
+    }
+
+    /**
+     * Checks that the audit tables created by Envers are qualified with the
+     * placeholder in the template and with the schema of the tenant in the
+     * scripts of the tenants.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void tenantScriptsWithEnvers() throws IOException,
+                                                 MojoExecutionException,
+                                                 MojoFailureException {
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities");
+        mojo.setDialects("postgresql9");
+        mojo.setUseEnvers(true);
+        mojo.setTenantSchemas("acme");
+        mojo.execute();
+
+        final String template = read(outputDir.resolve(
+            "postgresql9.tenant-template.sql"));
+        assertThat(template, containsString(
+                   "create table " + PLACEHOLDER + ".reports_revisions"));
+        assertThat(template, containsString(
+                   "create table " + PLACEHOLDER + ".reports"));
+
+        final String acme = read(outputDir.resolve("postgresql9").resolve(
+            "tenants").resolve("acme.sql"));
+        assertThat(acme, containsString("create table acme.reports_revisions"));
+        assertThat(acme, containsString("create table acme.persons"));
+        assertThat(acme, not(containsString(PLACEHOLDER)));
+
+        final String ddl = read(outputDir.resolve("postgresql9.sql"));
+        assertThat(ddl, containsString("create table reports_revisions"));
+        assertThat(ddl, not(containsString(PLACEHOLDER)));
+    }
+
+    /**
+     * Checks that invalid and duplicate tenant schema names are rejected.
+     *
+     * @throws MojoExecutionException if the goal fails.
+     */
+    @Test
+    public void invalidTenants() throws MojoExecutionException {
+        mojo.setTenantSchemas("acme", "../etc");
+        assertFailure("Invalid tenant schema name '../etc'.");
+
+        mojo.setTenantSchemas("acme", "ACME");
+        assertFailure("Duplicate tenant schema name 'ACME'.");
+    }
+
+    private void assertFailure(final String message)
+        throws MojoExecutionException {
+        try {
+            mojo.execute();
+            fail("Expected a MojoFailureException.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), containsString(message));
+        }
+    }
+
+    private String read(final Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.TestFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the test profile of the schema.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class TestProfileTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/testprofile";
+
+    private Path outputDir;
+    private GenerateDdlMojo mojo;
+
+    @Before
+    public void setUp() throws IOException {
+        TestFiles.deleteDirectory(Paths.get(TEST_DIR));
+        outputDir = Paths.get(TEST_DIR, "auto");
+
+        mojo = new GenerateDdlMojo();
+        mojo.setOutputDirectory(outputDir.toFile());
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities10");
+        mojo.setDialects("h2", "hsql", "postgresql9");
+        mojo.setReportFile(new File(TEST_DIR, "report.json"));
+    }
+
+    /**
+     * Checks that the test profile contains the tables with their primary
+     * and unique keys as memory tables, but no foreign keys, check
+     * constraints or indexes, and that the complete script is not changed.
+     *
+     * @throws IOException            if the files can't be read.
+     * @throws MojoExecutionException if the goal fails.
+     * @throws MojoFailureException   if the goal fails.
+     */
+    @Test
+    public void testProfile() throws IOException,
+                                     MojoExecutionException,
+                                     MojoFailureException {
+        mojo.setCreateDropStatements(true);
+        mojo.setTestProfileDialects("h2", "hsql");
+        mojo.execute();
+
+        for (final String dialect : new String[]{"h2", "hsql"}) {
+            final String complete = read(dialect + ".sql");
+            assertThat(complete, containsString("create table accounts"));
+            assertThat(complete, containsString("foreign key"));
+            assertThat(complete, containsString("check (amount > 0)"));
+            assertThat(complete,
+                       containsString("check (balance >= -overdraft_limit)"));
+            assertThat(complete, containsString(
+                       "create index idx_transfers_booked_on"));
+
+            final String profile = read(dialect + ".test.sql");
+            assertThat(profile, containsString(
+                       "create memory table accounts (account_id bigint "
+                           + "generated by default as identity"));
+            assertThat(profile, containsString(
+                       ", primary key (account_id));"));
+            assertThat(profile,
+                       containsString("create memory table transfers"));
+            assertThat(profile, containsString("unique (account_number)"));
+            assertThat(profile, containsString("drop table accounts"));
+            assertThat(profile, not(containsString("foreign key")));
+            assertThat(profile, not(containsString("check")));
+            assertThat(profile, not(containsString("create index")));
+            assertThat(profile, not(containsString("drop constraint FK")));
+        }
+        assertFalse(Files.exists(outputDir.resolve("postgresql9.test.sql")));
+    }
+
+    /**
+     * Checks that the test profile is rejected for dialects other than H2
+     * and HSQLDB.
+     *
+     * @throws MojoExecutionException if the goal fails.
+     */
+    @Test
+    public void unsupportedDialect() throws MojoExecutionException {
+        mojo.setTestProfileDialects("postgresql9");
+        try {
+            mojo.execute();
+            fail("Expected a MojoFailureException.");
+        } catch (MojoFailureException ex) {
+            assertThat(ex.getMessage(), containsString(
+                       "The test profile is not supported for dialect "
+                           + "POSTGRESQL9."));
+        }
+    }
+
+    private String read(final String fileName) throws IOException {
+        return new String(Files.readAllBytes(outputDir.resolve(fileName)),
+                          StandardCharsets.UTF_8)
+            .replaceAll("\\s+", " ")
+            .replace("( ", "(")
+            .replace(" )", ")");
+    }
+
+}
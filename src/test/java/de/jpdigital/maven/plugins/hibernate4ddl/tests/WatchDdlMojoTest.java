@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.AbstractDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.GenerateDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.WatchDdlMojo;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.EntityModelGenerator;
+import de.jpdigital.maven.plugins.hibernate4ddl.tests.support.GeneratedEntityModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link WatchDdlMojo}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class WatchDdlMojoTest {
+
+    /**
+     * Directory to place the test files in
+     */
+    private static final String TEST_DIR = "target/test/ddl/watch";
+
+    private static final String PACKAGE
+                                    = "de.jpdigital.maven.plugins.hibernate4ddl.tests.synthetic.watch";
+
+    private static final long TIMEOUT = 30000;
+
+    private ClassLoader contextClassLoader;
+
+    @Before
+    public void setUp() throws IOException {
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+        deleteDirectory(Paths.get(TEST_DIR));
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+
+    /**
+     * Starts the watch goal, adds an entity class to the watched directory
+     * and checks that the DDL file is regenerated.
+     *
+     * @throws IOException          if the models can't be generated.
+     * @throws InterruptedException if the test is interrupted.
+     */
+    @Test
+    public void regenerateOnChange() throws IOException, InterruptedException {
+        try (GeneratedEntityModel initial = createModel(2);
+             GeneratedEntityModel changed = createModel(3)) {
+
+            final Path classesDir = Paths.get(TEST_DIR, "classes");
+            copyDirectory(initial.getClassesDirectory(), classesDir);
+            final Path ddlFile = Paths.get(TEST_DIR, "ddl", "hsql.sql");
+
+            final WatchDdlMojo mojo = new WatchDdlMojo();
+            mojo.setOutputDirectory(ddlFile.getParent().toFile());
+            mojo.setClassesDirectory(classesDir.toFile());
+            mojo.setPackages(PACKAGE);
+            mojo.setDialects("hsql");
+            mojo.setDebounceMillis(100);
+
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+            final Thread watcher = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        mojo.execute();
+                    } catch (Exception ex) {
+                        error.set(ex);
+                    }
+                }
+
+            });
+            watcher.start();
+            try {
+                waitFor(ddlFile, "synthetic_entity00001");
+                assertFalse("The initial DDL file contains an entity which "
+                                + "does not exist yet.",
+                            read(ddlFile).contains("synthetic_entity00002"));
+
+                final String classFile = PACKAGE.replace('.', '/')
+                                             + "/Entity00002.class";
+                Files.copy(changed.getClassesDirectory().resolve(classFile),
+                           classesDir.resolve(classFile),
+                           StandardCopyOption.REPLACE_EXISTING);
+
+                waitFor(ddlFile, "synthetic_entity00002");
+            } finally {
+                watcher.interrupt();
+                watcher.join(TIMEOUT);
+            }
+            assertFalse("The watch goal did not stop.", watcher.isAlive());
+            assertNull("The watch goal failed.", error.get());
+        }
+    }
+
+    /**
+     * Checks that the watch goal writes the same files as the
+     * {@link GenerateDdlMojo} for the same parameters.
+     *
+     * @throws MojoExecutionException if something goes wrong when executing
+     *                                the Mojo.
+     * @throws MojoFailureException   if something goes wrong when executing
+     *                                the Mojo.
+     * @throws IOException            if the files can't be read.
+     * @throws InterruptedException   if the test is interrupted.
+     */
+    @Test
+    public void sameOutputAsGenerateDdl() throws MojoExecutionException,
+                                                 MojoFailureException,
+                                                 IOException,
+                                                 InterruptedException {
+        final Path genDdlDir = Paths.get(TEST_DIR, "gen-ddl");
+        final Path watchDir = Paths.get(TEST_DIR, "watch");
+
+        final GenerateDdlMojo genDdlMojo = new GenerateDdlMojo();
+        configure(genDdlMojo, genDdlDir.toFile());
+        genDdlMojo.execute();
+        final Map<String, String> expected = readFiles(genDdlDir);
+
+        final WatchDdlMojo watchMojo = new WatchDdlMojo();
+        configure(watchMojo, watchDir.toFile());
+        watchMojo.setClassesDirectory(new File("target/test-classes"));
+        watchMojo.setDebounceMillis(100);
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread watcher = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    watchMojo.execute();
+                } catch (Exception ex) {
+                    error.set(ex);
+                }
+            }
+
+        });
+        watcher.start();
+        Map<String, String> actual = readFiles(watchDir);
+        try {
+            final long end = System.currentTimeMillis() + TIMEOUT;
+            while (!actual.equals(expected)
+                       && System.currentTimeMillis() < end) {
+                Thread.sleep(100);
+                actual = readFiles(watchDir);
+            }
+        } finally {
+            watcher.interrupt();
+            watcher.join(TIMEOUT);
+        }
+        assertFalse("The watch goal did not stop.", watcher.isAlive());
+        assertNull("The watch goal failed.", error.get());
+        assertEquals("The watch goal wrote different files.",
+                     expected,
+                     actual);
+    }
+
+    private void configure(final AbstractDdlMojo mojo, final File outputDir) {
+        mojo.setOutputDirectory(outputDir);
+        mojo.setPackages(
+            "de.jpdigital.maven.plugins.hibernate4ddl.tests.entities");
+        mojo.setDialects("postgresql9", "h2");
+        mojo.setUseEnvers(true);
+        mojo.setAuditTableIndexes(true);
+        mojo.setForeignKeyIndexes(true);
+        mojo.setTestProfileDialects("h2");
+        mojo.setTenantSchemas("tenant_a", "tenant_b");
+        mojo.setSplitPhases(true);
+        mojo.setWriteLayers(true);
+        mojo.setSuggestIndexes(true);
+        mojo.setAuditIdGenerators(true);
+        mojo.setSequenceCache(10);
+        mojo.setAlignColumns(true);
+        mojo.setEstimateRowWidths(true);
+    }
+
+    /**
+     * @return The content of the files in the directory and its
+     *         subdirectories mapped by the relative path.
+     */
+    private Map<String, String> readFiles(final Path directory)
+        throws IOException {
+        final Map<String, String> files = new TreeMap<>();
+        if (!Files.exists(directory)) {
+            return files;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(final Path file,
+                                             final BasicFileAttributes attrs)
+                throws IOException {
+                files.put(directory.relativize(file).toString(), read(file));
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+        return files;
+    }
+
+    private GeneratedEntityModel createModel(final int entities)
+        throws IOException {
+        final EntityModelGenerator generator = new EntityModelGenerator();
+        generator.setPackageName(PACKAGE);
+        generator.setEntityCount(entities);
+        generator.setRelationshipDensity(0);
+        generator.setInheritanceRatio(0);
+        generator.setEmbeddableRatio(0);
+        generator.setElementCollectionRatio(0);
+        return generator.generate();
+    }
+
+    private void waitFor(final Path file, final String content)
+        throws IOException, InterruptedException {
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < end) {
+            if (Files.exists(file) && read(file).contains(content)) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail(String.format("%s does not contain '%s' after %d ms.",
+                           file, content, TIMEOUT));
+    }
+
+    private String read(final Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private void deleteDirectory(final Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(final Path file,
+                                             final BasicFileAttributes attrs)
+                throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir,
+                                                      final IOException ex)
+                throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+    }
+
+    private void copyDirectory(final Path source, final Path target)
+        throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(
+                final Path dir, final BasicFileAttributes attrs)
+                throws IOException {
+                Files.createDirectories(target.resolve(
+                    source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file,
+                                             final BasicFileAttributes attrs)
+                throws IOException {
+                Files.copy(file,
+                           target.resolve(source.relativize(file).toString()),
+                           StandardCopyOption.REPLACE_EXISTING);
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities10;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import org.hibernate.annotations.Check;
+
+/**
+ * Test entity with a foreign key, an index and a check constraint.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Check(constraints = "amount > 0")
+@Table(name = "transfers",
+       indexes = {
+           @Index(name = "idx_transfers_booked_on", columnList = "booked_on")
+       })
+public class Transfer implements Serializable {
+
+    private static final long serialVersionUID = -2780193946025112846L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "transfer_id")
+    private long transferId;
+
+    @ManyToOne
+    @JoinColumn(name = "account_id")
+    private Account account;
+
+    @Column(name = "amount", precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "booked_on")
+    private Date bookedOn;
+
+    public long getTransferId() {
+        return transferId;
+    }
+
+    public void setTransferId(final long transferId) {
+        this.transferId = transferId;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(final Account account) {
+        this.account = account;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(final BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Date getBookedOn() {
+        return bookedOn == null ? null : new Date(bookedOn.getTime());
+    }
+
+    public void setBookedOn(final Date bookedOn) {
+        this.bookedOn = bookedOn == null ? null : new Date(bookedOn
+            .getTime());
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 53 * hash + (int) (transferId ^ (transferId >>> 32));
+        hash = 53 * hash + Objects.hashCode(amount);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Transfer other = (Transfer) obj;
+        if (transferId != other.getTransferId()) {
+            return false;
+        }
+        return Objects.equals(amount, other.getAmount());
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities11;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Test entity for a partitioned table in an explicit schema.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(schema = "archive", name = "archived_events")
+public class ArchivedEvent implements Serializable {
+
+    private static final long serialVersionUID = -4120574460917032856L;
+
+    @Id
+    @Column(name = "event_id")
+    private long eventId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_on")
+    private Date createdOn;
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(final long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn == null ? null : new Date(createdOn.getTime());
+    }
+
+    public void setCreatedOn(final Date createdOn) {
+        this.createdOn = createdOn == null ? null : new Date(createdOn
+            .getTime());
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 29 * hash + (int) (eventId ^ (eventId >>> 32));
+        hash = 29 * hash + Objects.hashCode(createdOn);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final ArchivedEvent other = (ArchivedEvent) obj;
+        if (eventId != other.getEventId()) {
+            return false;
+        }
+        return Objects.equals(createdOn, other.getCreatedOn());
+    }
+
+}
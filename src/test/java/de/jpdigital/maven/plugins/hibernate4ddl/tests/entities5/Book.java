@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities5;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+/**
+ * Test entity with a foreign key which is not indexed and a join table
+ * whose primary key covers only one of its foreign keys. The named queries
+ * are used for testing the index suggestions.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "books")
+@NamedQueries({
+    @NamedQuery(name = "Book.findByAuthor",
+                query = "SELECT b FROM Book b WHERE b.author = :author "
+                            + "ORDER BY b.title"),
+    @NamedQuery(name = "Book.findByAuthorName",
+                query = "SELECT b FROM Book b JOIN b.author a "
+                            + "WHERE a.name = :name"),
+    @NamedQuery(name = "Book.findByTag",
+                query = "SELECT b FROM Book b JOIN b.tags t "
+                            + "WHERE t.name = :name"),
+    @NamedQuery(name = "Book.findByTitle",
+                query = "SELECT b FROM Book b "
+                            + "WHERE LOWER(b.title) LIKE :title")
+})
+public class Book implements Serializable {
+
+    private static final long serialVersionUID = -1187246017532209311L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "book_id")
+    private long bookId;
+
+    @Column(name = "title")
+    private String title;
+
+    @ManyToOne
+    @JoinColumn(name = "author_id")
+    private Author author;
+
+    @ManyToMany
+    @JoinTable(name = "book_tags",
+               joinColumns = {
+                   @JoinColumn(name = "book_id")},
+               inverseJoinColumns = {
+                   @JoinColumn(name = "tag_id")})
+    private Set<Tag> tags = new HashSet<>();
+
+    public long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(final long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(final String title) {
+        this.title = title;
+    }
+
+    public Author getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(final Author author) {
+        this.author = author;
+    }
+
+    public Set<Tag> getTags() {
+        return Collections.unmodifiableSet(tags);
+    }
+
+    public void setTags(final Set<Tag> tags) {
+        this.tags = new HashSet<>(tags);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 67 * hash + (int) (bookId ^ (bookId >>> 32));
+        hash = 67 * hash + Objects.hashCode(title);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Book other = (Book) obj;
+        if (bookId != other.getBookId()) {
+            return false;
+        }
+        return Objects.equals(title, other.getTitle());
+    }
+
+}
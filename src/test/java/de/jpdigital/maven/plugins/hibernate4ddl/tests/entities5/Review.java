@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities5;
+
+import java.io.Serializable;
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Test entity whose foreign keys are already covered by an index and by a
+ * unique key. The named queries are used for testing the index suggestions.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "reviews",
+       indexes = {
+           @Index(name = "idx_reviews_book_created",
+                  columnList = "book_id, created_on")
+       })
+@NamedQueries({
+    @NamedQuery(name = "Review.findRecent",
+                query = "SELECT r FROM Review r WHERE r.book.id = :book "
+                            + "AND r.createdOn > :since"),
+    @NamedQuery(name = "Review.countByReviewerName",
+                query = "SELECT COUNT(r) FROM Review r "
+                            + "WHERE r.reviewer.name = :name"),
+    @NamedQuery(name = "Review.findByRating",
+                query = "SELECT r FROM Review r WHERE r.rating = :rating"),
+    @NamedQuery(name = "Review.invalid",
+                query = "SELECT r FROM Review r WHERE")
+})
+public class Review implements Serializable {
+
+    private static final long serialVersionUID = 2294167893417050126L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "review_id")
+    private long reviewId;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "book_id")
+    private Book book;
+
+    @OneToOne
+    @JoinColumn(name = "reviewer_id", unique = true)
+    private Author reviewer;
+
+    @Column(name = "created_on")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdOn;
+
+    public long getReviewId() {
+        return reviewId;
+    }
+
+    public void setReviewId(final long reviewId) {
+        this.reviewId = reviewId;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public void setBook(final Book book) {
+        this.book = book;
+    }
+
+    public Author getReviewer() {
+        return reviewer;
+    }
+
+    public void setReviewer(final Author reviewer) {
+        this.reviewer = reviewer;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn == null ? null : new Date(createdOn.getTime());
+    }
+
+    public void setCreatedOn(final Date createdOn) {
+        this.createdOn = createdOn == null ? null : new Date(createdOn
+            .getTime());
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 37 * hash + (int) (reviewId ^ (reviewId >>> 32));
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Review other = (Review) obj;
+        return reviewId == other.getReviewId();
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities6;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
+import javax.persistence.OneToMany;
+import javax.persistence.Table;
+
+/**
+ * Test entity with an eagerly fetched collection and a list without an
+ * order column which is also mapped by {@link Member} without
+ * {@code mappedBy}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "libraries")
+public class Library implements Serializable {
+
+    private static final long serialVersionUID = 1473029567703815270L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "library_id")
+    private long libraryId;
+
+    @Column(name = "name")
+    private String name;
+
+    @OneToMany(mappedBy = "library", fetch = FetchType.EAGER)
+    private Set<Shelf> shelves = new HashSet<>();
+
+    @ManyToMany
+    @JoinTable(name = "library_members")
+    private List<Member> members = new ArrayList<>();
+
+    public long getLibraryId() {
+        return libraryId;
+    }
+
+    public void setLibraryId(final long libraryId) {
+        this.libraryId = libraryId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public Set<Shelf> getShelves() {
+        return Collections.unmodifiableSet(shelves);
+    }
+
+    public void setShelves(final Set<Shelf> shelves) {
+        this.shelves = new HashSet<>(shelves);
+    }
+
+    public List<Member> getMembers() {
+        return Collections.unmodifiableList(members);
+    }
+
+    public void setMembers(final List<Member> members) {
+        this.members = new ArrayList<>(members);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 23 * hash + (int) (libraryId ^ (libraryId >>> 32));
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Library other = (Library) obj;
+        return libraryId == other.getLibraryId();
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities7;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+
+/**
+ * Test entity with an id allocated using a table generator.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "payments")
+public class Payment implements Serializable {
+
+    private static final long serialVersionUID = 7670374721130203365L;
+
+    @Id
+    @TableGenerator(name = "payment_ids",
+                    table = "id_generators",
+                    allocationSize = 20)
+    @GeneratedValue(strategy = GenerationType.TABLE,
+                    generator = "payment_ids")
+    @Column(name = "payment_id")
+    private long paymentId;
+
+    @Column(name = "name")
+    private String name;
+
+    public long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(final long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 59 * hash + (int) (paymentId ^ (paymentId >>> 32));
+        hash = 59 * hash + Objects.hashCode(name);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Payment other = (Payment) obj;
+        if (paymentId != other.getPaymentId()) {
+            return false;
+        }
+        return Objects.equals(name, other.getName());
+    }
+
+}
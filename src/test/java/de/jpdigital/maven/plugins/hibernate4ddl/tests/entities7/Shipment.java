@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities7;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * Test entity with an id taken from its own sequence.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "shipments")
+public class Shipment implements Serializable {
+
+    private static final long serialVersionUID = 7847150331090451256L;
+
+    @Id
+    @SequenceGenerator(name = "shipment_ids",
+                       sequenceName = "shipment_seq",
+                       allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE,
+                    generator = "shipment_ids")
+    @Column(name = "shipment_id")
+    private long shipmentId;
+
+    @Column(name = "name")
+    private String name;
+
+    public long getShipmentId() {
+        return shipmentId;
+    }
+
+    public void setShipmentId(final long shipmentId) {
+        this.shipmentId = shipmentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 59 * hash + (int) (shipmentId ^ (shipmentId >>> 32));
+        hash = 59 * hash + Objects.hashCode(name);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Shipment other = (Shipment) obj;
+        if (shipmentId != other.getShipmentId()) {
+            return false;
+        }
+        return Objects.equals(name, other.getName());
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities8;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Test entity mixing columns with different alignments.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "measurements")
+public class Measurement implements Serializable {
+
+    private static final long serialVersionUID = -1726350183655043217L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "measurement_id")
+    private long measurementId;
+
+    @Column(name = "active", nullable = false)
+    private boolean active;
+
+    @Column(name = "amount", nullable = false)
+    private double amount;
+
+    @Column(name = "sample_count", nullable = false)
+    private int sampleCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_on")
+    private Date createdOn;
+
+    @Column(name = "label", length = 20)
+    private String label;
+
+    @Column(name = "level", nullable = false)
+    private short level;
+
+    public long getMeasurementId() {
+        return measurementId;
+    }
+
+    public void setMeasurementId(final long measurementId) {
+        this.measurementId = measurementId;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(final boolean active) {
+        this.active = active;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(final double amount) {
+        this.amount = amount;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(final int sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    public Date getCreatedOn() {
+        return createdOn == null ? null : new Date(createdOn.getTime());
+    }
+
+    public void setCreatedOn(final Date createdOn) {
+        this.createdOn = createdOn == null ? null : new Date(createdOn
+            .getTime());
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(final String label) {
+        this.label = label;
+    }
+
+    public short getLevel() {
+        return level;
+    }
+
+    public void setLevel(final short level) {
+        this.level = level;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 41 * hash + (int) (measurementId ^ (measurementId >>> 32));
+        hash = 41 * hash + Objects.hashCode(label);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Measurement other = (Measurement) obj;
+        if (measurementId != other.getMeasurementId()) {
+            return false;
+        }
+        return Objects.equals(label, other.getLabel());
+    }
+
+}
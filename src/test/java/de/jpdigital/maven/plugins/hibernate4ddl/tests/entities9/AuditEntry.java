@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.entities9;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Test entity for a table partitioned by list.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "audit_entries")
+public class AuditEntry implements Serializable {
+
+    private static final long serialVersionUID = 1149305247880914651L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "audit_entry_id")
+    private long auditEntryId;
+
+    @Column(name = "region", length = 2, nullable = false)
+    private String region;
+
+    @Column(name = "message", length = 1000)
+    private String message;
+
+    public long getAuditEntryId() {
+        return auditEntryId;
+    }
+
+    public void setAuditEntryId(final long auditEntryId) {
+        this.auditEntryId = auditEntryId;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(final String region) {
+        this.region = region;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 67 * hash + (int) (auditEntryId ^ (auditEntryId >>> 32));
+        hash = 67 * hash + Objects.hashCode(region);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final AuditEntry other = (AuditEntry) obj;
+        if (auditEntryId != other.getAuditEntryId()) {
+            return false;
+        }
+        return Objects.equals(region, other.getRegion());
+    }
+
+}
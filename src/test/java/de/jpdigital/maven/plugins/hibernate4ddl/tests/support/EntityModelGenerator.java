@@ -0,0 +1,574 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.support;
+
+import org.hibernate.envers.Audited;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.persistence.Entity;
+import javax.persistence.InheritanceType;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Generates large synthetic JPA entity models for scale and regression tests
+ * and for the benchmarks. The generator writes the sources of the entities to
+ * a temporary directory and compiles them using the system Java compiler (so
+ * the tests must run on a JDK). The size and shape of the model are
+ * controlled by the setters of this class:
+ *
+ * <ul>
+ * <li>{@link #setEntityCount(int)}: The number of entity classes.</li>
+ * <li>{@link #setAttributesPerEntity(int)}: The number of basic attributes of
+ * each entity.</li>
+ * <li>{@link #setRelationshipDensity(double)}: The probability (0 to 1) for
+ * each of the three possible {@code @ManyToOne} associations of an entity and
+ * (halved) for a {@code @ManyToMany} association.</li>
+ * <li>{@link #setInheritanceStrategies(InheritanceType...)} and
+ * {@link #setInheritanceRatio(double)}: The inheritance strategies to use
+ * (round robin) and the share of the entities which are part of an
+ * inheritance hierarchy. Each hierarchy is a chain of
+ * {@link #setHierarchyDepth(int)} classes.</li>
+ * <li>{@link #setEmbeddableRatio(double)}: The share of entities with an
+ * {@code @Embedded} attribute.</li>
+ * <li>{@link #setElementCollectionRatio(double)}: The share of entities with
+ * an {@code @ElementCollection}.</li>
+ * <li>{@link #setAudited(boolean)}: If {@code true} all entities are
+ * annotated with {@code @Audited}.</li>
+ * <li>{@link #setPlainClassCount(int)}: The number of additional classes
+ * without annotations, to simulate a larger classpath.</li>
+ * </ul>
+ *
+ * The generator uses a {@link Random} with a fixed (configurable) seed, 
+ * therefore the same settings always create the same model.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class EntityModelGenerator {
+
+    private static final String[] ATTRIBUTE_TYPES = new String[]{
+        "String", "int", "long", "boolean", "java.util.Date",
+        "java.math.BigDecimal"
+    };
+    private static final int MAX_MANY_TO_ONE = 3;
+    private static final int EMBEDDABLE_TYPES = 3;
+
+    private String packageName
+                       = "de.jpdigital.maven.plugins.hibernate4ddl.tests.synthetic";
+    private int entityCount = 100;
+    private int attributesPerEntity = 5;
+    private double relationshipDensity = 0.3;
+    private List<InheritanceType> inheritanceStrategies = Collections
+        .emptyList();
+    private double inheritanceRatio = 0.2;
+    private int hierarchyDepth = 3;
+    private double embeddableRatio;
+    private double elementCollectionRatio;
+    private boolean audited;
+    private int plainClassCount;
+    private long seed = 20140529L;
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public void setPackageName(final String packageName) {
+        this.packageName = packageName;
+    }
+
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    public void setEntityCount(final int entityCount) {
+        this.entityCount = entityCount;
+    }
+
+    public int getAttributesPerEntity() {
+        return attributesPerEntity;
+    }
+
+    public void setAttributesPerEntity(final int attributesPerEntity) {
+        this.attributesPerEntity = attributesPerEntity;
+    }
+
+    public double getRelationshipDensity() {
+        return relationshipDensity;
+    }
+
+    public void setRelationshipDensity(final double relationshipDensity) {
+        this.relationshipDensity = relationshipDensity;
+    }
+
+    public List<InheritanceType> getInheritanceStrategies() {
+        return Collections.unmodifiableList(inheritanceStrategies);
+    }
+
+    public void setInheritanceStrategies(
+        final InheritanceType... inheritanceStrategies) {
+        this.inheritanceStrategies = Arrays.asList(
+            Arrays.copyOf(inheritanceStrategies, inheritanceStrategies.length));
+    }
+
+    public double getInheritanceRatio() {
+        return inheritanceRatio;
+    }
+
+    public void setInheritanceRatio(final double inheritanceRatio) {
+        this.inheritanceRatio = inheritanceRatio;
+    }
+
+    public int getHierarchyDepth() {
+        return hierarchyDepth;
+    }
+
+    public void setHierarchyDepth(final int hierarchyDepth) {
+        this.hierarchyDepth = hierarchyDepth;
+    }
+
+    public double getEmbeddableRatio() {
+        return embeddableRatio;
+    }
+
+    public void setEmbeddableRatio(final double embeddableRatio) {
+        this.embeddableRatio = embeddableRatio;
+    }
+
+    public double getElementCollectionRatio() {
+        return elementCollectionRatio;
+    }
+
+    public void setElementCollectionRatio(final double elementCollectionRatio) {
+        this.elementCollectionRatio = elementCollectionRatio;
+    }
+
+    public boolean isAudited() {
+        return audited;
+    }
+
+    public void setAudited(final boolean audited) {
+        this.audited = audited;
+    }
+
+    public int getPlainClassCount() {
+        return plainClassCount;
+    }
+
+    public void setPlainClassCount(final int plainClassCount) {
+        this.plainClassCount = plainClassCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates and compiles the model.
+     *
+     * @return The compiled model. The caller is responsible for closing the
+     *         model.
+     *
+     * @throws IOException If the sources can't be written or compiled.
+     */
+    public GeneratedEntityModel generate() throws IOException {
+        final Path baseDir = Files.createTempDirectory(
+            "hibernate4-ddl-synthetic");
+        final Path sourceDir = baseDir.resolve("src");
+        final Path classesDir = baseDir.resolve("classes");
+        final Path packageDir = sourceDir.resolve(
+            packageName.replace('.', File.separatorChar));
+        Files.createDirectories(packageDir);
+        Files.createDirectories(classesDir);
+
+        final Random random = new Random(seed);
+        final List<File> sourceFiles = new ArrayList<>();
+        final List<String> entityClassNames = new ArrayList<>();
+        int tableCount = 0;
+
+        for (int i = 0; i < EMBEDDABLE_TYPES; i++) {
+            sourceFiles.add(writeSource(packageDir,
+                                        embeddableName(i),
+                                        embeddableSource(i)));
+        }
+
+        int hierarchyNo = 0;
+        int index = 0;
+        while (index < entityCount) {
+            final boolean startHierarchy = !inheritanceStrategies.isEmpty()
+                                               && hierarchyDepth > 1
+                                               && index + hierarchyDepth
+                                                      <= entityCount
+                                               && random.nextDouble()
+                                                      < inheritanceRatio;
+            final int classes;
+            final InheritanceType strategy;
+            if (startHierarchy) {
+                classes = hierarchyDepth;
+                strategy = inheritanceStrategies.get(
+                    hierarchyNo % inheritanceStrategies.size());
+                hierarchyNo++;
+            } else {
+                classes = 1;
+                strategy = null;
+            }
+
+            for (int level = 0; level < classes; level++) {
+                final EntitySpec spec = new EntitySpec(index + level,
+                                                       level,
+                                                       strategy,
+                                                       index);
+                tableCount += spec.tables(random);
+                final String name = entityName(spec.index);
+                sourceFiles.add(writeSource(packageDir,
+                                            name,
+                                            entitySource(spec)));
+                entityClassNames.add(String.format("%s.%s",
+                                                   packageName,
+                                                   name));
+            }
+            index += classes;
+        }
+
+        for (int i = 0; i < plainClassCount; i++) {
+            final String name = String.format("Plain%05d", i);
+            sourceFiles.add(writeSource(
+                packageDir,
+                name,
+                String.format("package %s;%n%n"
+                                  + "public class %s {%n%n"
+                                  + "    public int getValue() {%n"
+                                  + "        return %d;%n"
+                                  + "    }%n%n"
+                                  + "}%n",
+                              packageName, name, i)));
+        }
+
+        compile(sourceFiles, classesDir);
+
+        final URLClassLoader classLoader = new URLClassLoader(
+            new URL[]{classesDir.toUri().toURL()},
+            EntityModelGenerator.class.getClassLoader());
+
+        return new GeneratedEntityModel(baseDir,
+                                        classesDir,
+                                        packageName,
+                                        entityClassNames,
+                                        tableCount,
+                                        classLoader);
+    }
+
+    private static String entityName(final int index) {
+        return String.format("Entity%05d", index);
+    }
+
+    private static String embeddableName(final int index) {
+        return String.format("Embeddable%d", index);
+    }
+
+    private static String columnPrefix(final int index) {
+        return String.format("e%05d", index);
+    }
+
+    private File writeSource(final Path packageDir,
+                             final String className,
+                             final String source) throws IOException {
+        final Path file = packageDir.resolve(className + ".java");
+        try (Writer writer = Files.newBufferedWriter(file,
+                                                     StandardCharsets.UTF_8)) {
+            writer.write(source);
+        }
+        return file.toFile();
+    }
+
+    private String embeddableSource(final int index) {
+        return String.format(
+            "package %s;%n%n"
+                + "import javax.persistence.*;%n%n"
+                + "@Embeddable%n"
+                + "public class %s implements java.io.Serializable {%n%n"
+                + "    private static final long serialVersionUID = 1L;%n%n"
+                + "    private String street;%n"
+                + "    private String city;%n"
+                + "    private int zipCode;%n%n"
+                + "}%n",
+            packageName,
+            embeddableName(index));
+    }
+
+    private String entitySource(final EntitySpec spec) {
+        final String name = entityName(spec.index);
+        final String prefix = columnPrefix(spec.index);
+        final StringBuilder builder = new StringBuilder(1024);
+
+        builder.append(String.format("package %s;%n%n", packageName))
+            .append(String.format("import javax.persistence.*;%n%n"))
+            .append(String.format("@Entity%n"));
+        if (spec.hasOwnTable()) {
+            builder.append(String.format(
+                "@Table(name = \"synthetic_%s\")%n",
+                name.toLowerCase(Locale.ENGLISH)));
+        }
+        if (audited) {
+            builder.append(String.format("@%s%n", Audited.class.getName()));
+        }
+        if (spec.isRoot()) {
+            builder.append(String.format(
+                "@Inheritance(strategy = InheritanceType.%s)%n",
+                spec.strategy.name()));
+        }
+        if (spec.isSubclass()) {
+            builder.append(String.format(
+                "public class %s extends %s {%n%n",
+                name,
+                entityName(spec.index - 1)));
+        } else {
+            builder.append(String.format(
+                "public class %s implements java.io.Serializable {%n%n",
+                name));
+            builder.append(String.format(
+                "    private static final long serialVersionUID = 1L;%n%n"));
+            final String generationType;
+            if (spec.strategy == InheritanceType.TABLE_PER_CLASS) {
+                generationType = "TABLE";
+            } else {
+                generationType = "AUTO";
+            }
+            builder.append(String.format(
+                "    @Id%n"
+                    + "    @GeneratedValue(strategy = GenerationType.%s)%n"
+                    + "    private long id;%n%n",
+                generationType));
+        }
+
+        for (int i = 0; i < attributesPerEntity; i++) {
+            final String type = ATTRIBUTE_TYPES[i % ATTRIBUTE_TYPES.length];
+            if ("java.util.Date".equals(type)) {
+                builder.append(String.format(
+                    "    @Temporal(TemporalType.TIMESTAMP)%n"));
+            }
+            builder.append(String.format(
+                "    @Column(name = \"%s_attr%d\")%n"
+                    + "    private %s attribute%d;%n%n",
+                prefix, i, type, i));
+        }
+
+        for (final Integer target : spec.manyToOne) {
+            builder.append(String.format(
+                "    @ManyToOne%n"
+                    + "    @JoinColumn(name = \"%s_ref_%s\")%n"
+                    + "    private %s reference%s;%n%n",
+                prefix,
+                columnPrefix(target),
+                entityName(target),
+                entityName(target)));
+        }
+
+        if (spec.manyToMany != null) {
+            builder.append(String.format(
+                "    @ManyToMany%n"
+                    + "    @JoinTable(name = \"synthetic_%s_links\")%n"
+                    + "    private java.util.Set<%s> links;%n%n",
+                prefix,
+                entityName(spec.manyToMany)));
+        }
+
+        if (spec.embeddable != null) {
+            builder.append(String.format(
+                "    @Embedded%n"
+                    + "    @AttributeOverrides({%n"
+                    + "        @AttributeOverride(name = \"street\", "
+                    + "column = @Column(name = \"%1$s_street\")),%n"
+                    + "        @AttributeOverride(name = \"city\", "
+                    + "column = @Column(name = \"%1$s_city\")),%n"
+                    + "        @AttributeOverride(name = \"zipCode\", "
+                    + "column = @Column(name = \"%1$s_zip_code\"))%n"
+                    + "    })%n"
+                    + "    private %2$s address;%n%n",
+                prefix,
+                embeddableName(spec.embeddable)));
+        }
+
+        if (spec.elementCollection) {
+            builder.append(String.format(
+                "    @ElementCollection%n"
+                    + "    @CollectionTable(name = \"synthetic_%s_tags\")%n"
+                    + "    @Column(name = \"tag\")%n"
+                    + "    private java.util.Set<String> tags;%n%n",
+                prefix));
+        }
+
+        builder.append(String.format("}%n"));
+
+        return builder.toString();
+    }
+
+    private void compile(final List<File> sourceFiles, final Path classesDir)
+        throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("No system Java compiler available. The "
+                                      + "EntityModelGenerator requires a JDK.");
+        }
+
+        //The class path of the surefire booter may only contain a manifest
+        //jar, therefore we use the locations of the annotation classes.
+        final String classPath = String.format(
+            "%s%s%s",
+            locationOf(Entity.class),
+            File.pathSeparator,
+            locationOf(Audited.class));
+
+        try (StandardJavaFileManager fileManager = compiler
+            .getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            final Iterable<? extends JavaFileObject> units = fileManager
+                .getJavaFileObjectsFromFiles(sourceFiles);
+            final List<String> options = Arrays.asList(
+                "-d", classesDir.toString(),
+                "-classpath", classPath,
+                "-proc:none",
+                "-nowarn");
+            final boolean success = compiler
+                .getTask(null, fileManager, null, options, null, units)
+                .call();
+            if (!success) {
+                throw new IOException("Failed to compile the synthetic model.");
+            }
+        }
+    }
+
+    private static String locationOf(final Class<?> clazz) throws IOException {
+        try {
+            return Paths.get(clazz
+                .getProtectionDomain()
+                .getCodeSource()
+                .getLocation()
+                .toURI())
+                .toString();
+        } catch (URISyntaxException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Describes one generated entity.
+     */
+    private class EntitySpec {
+
+        private final int index;
+        private final int level;
+        private final InheritanceType strategy;
+        private final int hierarchyRoot;
+        private final List<Integer> manyToOne = new ArrayList<>();
+        private Integer manyToMany;
+        private Integer embeddable;
+        private boolean elementCollection;
+
+        EntitySpec(final int index,
+                   final int level,
+                   final InheritanceType strategy,
+                   final int hierarchyRoot) {
+            this.index = index;
+            this.level = level;
+            this.strategy = strategy;
+            this.hierarchyRoot = hierarchyRoot;
+        }
+
+        boolean isRoot() {
+            return strategy != null && level == 0;
+        }
+
+        boolean isSubclass() {
+            return strategy != null && level > 0;
+        }
+
+        boolean hasOwnTable() {
+            return !isSubclass() || strategy != InheritanceType.SINGLE_TABLE;
+        }
+
+        /**
+         * Decides about the associations, embeddables and collections of the
+         * entity.
+         *
+         * @return The number of tables for the entity.
+         */
+        int tables(final Random random) {
+            int tables;
+            if (hasOwnTable()) {
+                tables = 1;
+            } else {
+                tables = 0;
+            }
+
+            //Associations only point to entities outside of the own hierarchy
+            //which have been generated before.
+            final int targets;
+            if (strategy == null) {
+                targets = index;
+            } else {
+                targets = hierarchyRoot;
+            }
+            if (targets > 0) {
+                for (int i = 0; i < MAX_MANY_TO_ONE; i++) {
+                    if (random.nextDouble() < relationshipDensity) {
+                        final Integer target = random.nextInt(targets);
+                        if (!manyToOne.contains(target)) {
+                            manyToOne.add(target);
+                        }
+                    }
+                }
+                if (random.nextDouble() < relationshipDensity / 2) {
+                    manyToMany = random.nextInt(targets);
+                    tables++;
+                }
+            }
+
+            if (random.nextDouble() < embeddableRatio) {
+                embeddable = random.nextInt(EMBEDDABLE_TYPES);
+            }
+            if (random.nextDouble() < elementCollectionRatio) {
+                elementCollection = true;
+                tables++;
+            }
+
+            return tables;
+        }
+
+    }
+
+}
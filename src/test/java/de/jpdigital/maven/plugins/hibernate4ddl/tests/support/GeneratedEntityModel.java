@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.support;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compiled synthetic entity model created by the
+ * {@link EntityModelGenerator}. The model lives in a temporary directory
+ * which is removed by {@link #close()}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class GeneratedEntityModel implements Closeable {
+
+    private final transient Path baseDirectory;
+    private final transient Path classesDirectory;
+    private final transient String packageName;
+    private final transient List<String> entityClassNames;
+    private final transient int tableCount;
+    private final transient URLClassLoader classLoader;
+
+    GeneratedEntityModel(final Path baseDirectory,
+                         final Path classesDirectory,
+                         final String packageName,
+                         final List<String> entityClassNames,
+                         final int tableCount,
+                         final URLClassLoader classLoader) {
+        this.baseDirectory = baseDirectory;
+        this.classesDirectory = classesDirectory;
+        this.packageName = packageName;
+        this.entityClassNames = Collections.unmodifiableList(
+            new ArrayList<>(entityClassNames));
+        this.tableCount = tableCount;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @return The directory containing the compiled classes of the model.
+     */
+    public Path getClassesDirectory() {
+        return classesDirectory;
+    }
+
+    /**
+     * @return The package containing the generated classes.
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * @return The fully qualified names of all generated entity classes.
+     */
+    public List<String> getEntityClassNames() {
+        return entityClassNames;
+    }
+
+    /**
+     * @return The number of tables the model maps to, not including the
+     *         tables created by Envers and the tables used by table based ID
+     *         generators.
+     */
+    public int getTableCount() {
+        return tableCount;
+    }
+
+    /**
+     * @return A class loader for the classes of the model. The parent of the
+     *         class loader is the class loader which loaded the generator.
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Loads (and initialises) all entity classes of the model.
+     *
+     * @return The entity classes.
+     *
+     * @throws ClassNotFoundException If one of the generated classes can't be
+     *                                loaded.
+     */
+    public List<Class<?>> loadEntityClasses() throws ClassNotFoundException {
+        final List<Class<?>> classes = new ArrayList<>();
+        for (final String className : entityClassNames) {
+            classes.add(Class.forName(className, true, classLoader));
+        }
+        return classes;
+    }
+
+    /**
+     * Closes the class loader of the model and deletes the temporary
+     * directory.
+     *
+     * @throws IOException If the directory can't be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        classLoader.close();
+        Files.walkFileTree(baseDirectory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(final Path file,
+                                             final BasicFileAttributes attrs)
+                throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir,
+                                                      final IOException exc)
+                throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+        });
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate4ddl.tests.support;
+
+import de.jpdigital.maven.plugins.hibernate4ddl.LintSeverity;
+import de.jpdigital.maven.plugins.hibernate4ddl.MappingIssue;
+import de.jpdigital.maven.plugins.hibernate4ddl.MappingRule;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.mapping.PersistentClass;
+
+/**
+ * Additional {@link MappingRule} registered as service for testing the
+ * rules SPI. Reports root entities without a version property.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class MissingVersionRule implements MappingRule {
+
+    @Override
+    public String getId() {
+        return "missing-version";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Entities without a version property";
+    }
+
+    @Override
+    public LintSeverity getDefaultSeverity() {
+        return LintSeverity.INFO;
+    }
+
+    @Override
+    public List<MappingIssue> check(final Configuration configuration) {
+        final List<MappingIssue> issues = new ArrayList<>();
+        final Iterator<PersistentClass> entities = configuration
+            .getClassMappings();
+        while (entities.hasNext()) {
+            final PersistentClass entity = entities.next();
+            if (entity.getSuperclass() == null && entity.getVersion() == null) {
+                issues.add(new MappingIssue(
+                    entity.getEntityName(),
+                    null,
+                    "The entity has no version property."));
+            }
+        }
+        return issues;
+    }
+
+}